@@ -7,8 +7,10 @@ import de.charite.compbio.jannovar.cmd.annotate_csv.JannovarAnnotateCSVOptions;
 import de.charite.compbio.jannovar.cmd.annotate_pos.JannovarAnnotatePosOptions;
 import de.charite.compbio.jannovar.cmd.annotate_vcf.JannovarAnnotateVCFOptions;
 import de.charite.compbio.jannovar.cmd.db_list.JannovarDBListOptions;
+import de.charite.compbio.jannovar.cmd.db_patch.JannovarDBPatchOptions;
 import de.charite.compbio.jannovar.cmd.download.JannovarDownloadOptions;
 import de.charite.compbio.jannovar.cmd.hgvs_to_vcf.ProjectTranscriptToChromosomeOptions;
+import de.charite.compbio.jannovar.cmd.serve.JannovarServeOptions;
 import de.charite.compbio.jannovar.cmd.statistics.JannovarGatherStatisticsOptions;
 import net.sourceforge.argparse4j.ArgumentParsers;
 import net.sourceforge.argparse4j.impl.Arguments;
@@ -39,9 +41,11 @@ public final class Jannovar {
 		JannovarAnnotateCSVOptions.setupParser(subParsers);
 		JannovarAnnotateVCFOptions.setupParser(subParsers);
 		JannovarDBListOptions.setupParser(subParsers);
+		JannovarDBPatchOptions.setupParser(subParsers);
 		JannovarDownloadOptions.setupParser(subParsers);
 		JannovarGatherStatisticsOptions.setupParser(subParsers);
 		ProjectTranscriptToChromosomeOptions.setupParser(subParsers);
+		JannovarServeOptions.setupParser(subParsers);
 		parser.defaultHelp(true);
 		parser.epilog("You can find out more at http://jannovar.rtfd.org");
 
@@ -1,10 +1,14 @@
 package de.charite.compbio.jannovar.cmd;
 
+import java.util.List;
+
 import com.google.common.collect.ImmutableMap;
 
 import de.charite.compbio.jannovar.JannovarException;
 import de.charite.compbio.jannovar.data.Chromosome;
 import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.JannovarDataPatch;
+import de.charite.compbio.jannovar.data.JannovarDataPatchSerializer;
 import de.charite.compbio.jannovar.data.JannovarDataSerializer;
 import de.charite.compbio.jannovar.data.ReferenceDictionary;
 
@@ -41,4 +45,38 @@ public abstract class JannovarAnnotationCommand extends JannovarCommand {
 		this.chromosomeMap = this.jannovarData.getChromosomes();
 	}
 
-}
\ No newline at end of file
+	/**
+	 * Deserialize the transcript definition file from {@link pathToDataFile} and apply patches to it.
+	 *
+	 * @param pathToDataFile
+	 *            String with the path to the data file to deserialize
+	 * @param pathsToPatchFiles
+	 *            paths to the {@link JannovarDataPatch} files to apply, in this order
+	 * @throws JannovarException
+	 *             when there is a problem with the deserialization or a patch does not fit the database
+	 * @throws HelpRequestedException
+	 *             when the user requested the help page
+	 */
+	protected void deserializeTranscriptDefinitionFile(String pathToDataFile, List<String> pathsToPatchFiles)
+			throws JannovarException, HelpRequestedException {
+		JannovarData data = new JannovarDataSerializer(pathToDataFile).load();
+		for (String path : pathsToPatchFiles) {
+			final JannovarDataPatch patch = new JannovarDataPatchSerializer(path).load();
+			System.err.println("Applying database patch " + path + " " + patch);
+			data = patch.applyTo(data);
+		}
+		this.jannovarData = data;
+		this.refDict = this.jannovarData.getRefDict();
+		this.chromosomeMap = this.jannovarData.getChromosomes();
+	}
+
+	/**
+	 * Print the report of the chromosomes and indices loaded so far, if the database was loaded lazily from the chunked
+	 * layout.
+	 */
+	protected void printLoadReport() {
+		if (jannovarData != null && jannovarData.getLoadReport() != null)
+			System.err.println(jannovarData.getLoadReport());
+	}
+
+}
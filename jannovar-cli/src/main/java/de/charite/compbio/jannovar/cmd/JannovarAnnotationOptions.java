@@ -1,5 +1,8 @@
 package de.charite.compbio.jannovar.cmd;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import net.sourceforge.argparse4j.impl.Arguments;
 import net.sourceforge.argparse4j.inf.ArgumentGroup;
 import net.sourceforge.argparse4j.inf.ArgumentParser;
@@ -25,7 +28,10 @@ public class JannovarAnnotationOptions extends JannovarBaseOptions {
 
 	/** Path to database file */
 	private String databaseFilePath = null;
-	
+
+	/** Paths to database patch files to apply after loading the database, in this order */
+	private List<String> databasePatchPaths = new ArrayList<>();
+
 	/**
 	 * Setup {@link ArgumentParser}
 	 * 
@@ -51,7 +57,14 @@ public class JannovarAnnotationOptions extends JannovarBaseOptions {
 
 		useThreeLetterAminoAcidCode = args.getBoolean("3_letter_amino_acids");
 		nt3PrimeShifting = !args.getBoolean("3_prime_shifting");
-		databaseFilePath = args.getString("database");
+		// annotate-vcf accepts multiple databases, the first one is the primary one
+		final Object database = args.get("database");
+		if (database instanceof List)
+			databaseFilePath = (String) ((List<?>) database).get(0);
+		else
+			databaseFilePath = (String) database;
+		if (args.getList("db_patch") != null)
+			databasePatchPaths = args.getList("db_patch");
 		showAll = args.getBoolean("show_all");
 	}
 
@@ -79,6 +92,14 @@ public class JannovarAnnotationOptions extends JannovarBaseOptions {
 		this.databaseFilePath = databaseFilePath;
 	}
 
+	public List<String> getDatabasePatchPaths() {
+		return databasePatchPaths;
+	}
+
+	public void setDatabasePatchPaths(List<String> databasePatchPaths) {
+		this.databasePatchPaths = databasePatchPaths;
+	}
+
 	public boolean isShowAll() {
 		return showAll;
 	}
@@ -91,7 +112,7 @@ public class JannovarAnnotationOptions extends JannovarBaseOptions {
 	public String toString() {
 		return "JannovarAnnotationOptions [useThreeLetterAminoAcidCode=" + useThreeLetterAminoAcidCode
 				+ ", nt3PrimeShifting=" + nt3PrimeShifting + ", showAll=" + showAll + ", databaseFilePath="
-				+ databaseFilePath + ", toString()=" + super.toString() + "]";
+				+ databaseFilePath + ", databasePatchPaths=" + databasePatchPaths + ", toString()=" + super.toString() + "]";
 	}
 
 }
@@ -62,7 +62,7 @@ public class AnnotateCSVCommand extends JannovarAnnotationCommand {
 		System.err.println(options.toString());
 
 		System.err.println("Deserializing transcripts...");
-		deserializeTranscriptDefinitionFile(options.getDatabaseFilePath());
+		deserializeTranscriptDefinitionFile(options.getDatabaseFilePath(), options.getDatabasePatchPaths());
 
 		final VariantAnnotator annotator = new VariantAnnotator(refDict, chromosomeMap, new AnnotationBuilderOptions());
 
@@ -120,6 +120,7 @@ public class AnnotateCSVCommand extends JannovarAnnotationCommand {
 			e1.printStackTrace();
 			throw new JannovarException(e1.getMessage());
 		}
+		printLoadReport();
 
 	}
 
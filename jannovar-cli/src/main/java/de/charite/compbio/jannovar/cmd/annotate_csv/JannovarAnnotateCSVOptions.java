@@ -1,5 +1,6 @@
 package de.charite.compbio.jannovar.cmd.annotate_csv;
 
+import java.util.ArrayList;
 import java.util.function.BiFunction;
 
 import org.apache.commons.csv.CSVFormat;
@@ -63,6 +64,11 @@ public class JannovarAnnotateCSVOptions extends JannovarAnnotationOptions {
 		optionalGroup.addArgument("--header").help("Set if the file contains a header. ").setDefault(false)
 				.action(Arguments.storeTrue());
 
+		ArgumentGroup patchGroup = subParser.addArgumentGroup("Database patches (optional)");
+		patchGroup.addArgument("--db-patch")
+				.help("Path to database patch file to apply to the database, can be given multiple times")
+				.setDefault(new ArrayList<String>()).action(Arguments.append());
+
 		subParser.epilog(
 				"Example: java -jar Jannovar.jar annotate-csv -d hg19_refseq.ser -c 1 -p 2 -r 3 -r 4 -t TDF --header -i input.csv");
 
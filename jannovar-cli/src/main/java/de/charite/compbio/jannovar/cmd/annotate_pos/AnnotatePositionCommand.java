@@ -54,7 +54,7 @@ public class AnnotatePositionCommand extends JannovarAnnotationCommand {
 		System.err.println(options.toString());
 
 		System.err.println("Deserializing transcripts...");
-		deserializeTranscriptDefinitionFile(options.getDatabaseFilePath());
+		deserializeTranscriptDefinitionFile(options.getDatabaseFilePath(), options.getDatabasePatchPaths());
 
 		final VariantAnnotator annotator = new VariantAnnotator(refDict, chromosomeMap, new AnnotationBuilderOptions());
 		System.out.println("#change\teffect\thgvs_annotation\tmessages");
@@ -88,6 +88,7 @@ public class AnnotatePositionCommand extends JannovarAnnotationCommand {
 			
 			System.out.println(String.format("%s\t%s\t%s\t%s", chromosomalChange.toString(), effect, annotation, messages));
 		}
+		printLoadReport();
 	}
 
 	private GenomeVariant parseGenomeChange(String changeStr) throws JannovarException {
@@ -47,6 +47,11 @@ public class JannovarAnnotatePosOptions extends JannovarAnnotationOptions {
 		requiredGroup.addArgument("-c", "--genomic-change").help("Genomic change to annotate, you can give multiple ones")
 				.action(Arguments.append()).required(true);
 
+		ArgumentGroup patchGroup = subParser.addArgumentGroup("Database patches (optional)");
+		patchGroup.addArgument("--db-patch")
+				.help("Path to database patch file to apply to the database, can be given multiple times")
+				.setDefault(new ArrayList<String>()).action(Arguments.append());
+
 		subParser.epilog("Example: java -jar Jannovar.jar annotate-pos -d hg19_refseq.ser -c 'chr1:12345C>A'");
 
 		JannovarAnnotationOptions.setupParser(subParser);
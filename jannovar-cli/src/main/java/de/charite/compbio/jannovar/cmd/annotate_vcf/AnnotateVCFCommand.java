@@ -6,48 +6,33 @@ import de.charite.compbio.jannovar.Jannovar;
 import de.charite.compbio.jannovar.JannovarException;
 import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
 import de.charite.compbio.jannovar.cmd.JannovarAnnotationCommand;
-import de.charite.compbio.jannovar.cmd.annotate_vcf.JannovarAnnotateVCFOptions.BedAnnotationOptions;
-import de.charite.compbio.jannovar.filter.facade.PedigreeFilterAnnotator;
-import de.charite.compbio.jannovar.filter.facade.PedigreeFilterHeaderExtender;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.JannovarDataSerializer;
+import de.charite.compbio.jannovar.filter.facade.FrequencyPruner;
 import de.charite.compbio.jannovar.filter.facade.PedigreeFilterOptions;
-import de.charite.compbio.jannovar.filter.facade.GenotypeThresholdFilterAnnotator;
-import de.charite.compbio.jannovar.filter.facade.ThresholdFilterHeaderExtender;
 import de.charite.compbio.jannovar.filter.facade.ThresholdFilterOptions;
-import de.charite.compbio.jannovar.filter.impl.var.VariantThresholdFilterAnnotator;
 import de.charite.compbio.jannovar.hgvs.AminoAcidCode;
-import de.charite.compbio.jannovar.htsjdk.VariantContextAnnotator;
+import de.charite.compbio.jannovar.htsjdk.BgzfVCFShardGatherer;
+import de.charite.compbio.jannovar.htsjdk.MergingVCFReader;
+import de.charite.compbio.jannovar.htsjdk.PassThroughVCFReader;
+import de.charite.compbio.jannovar.htsjdk.ReadAheadVCFReader;
+import de.charite.compbio.jannovar.htsjdk.ReferenceBlockBypass;
+import de.charite.compbio.jannovar.htsjdk.VariantContextPipeline;
 import de.charite.compbio.jannovar.htsjdk.VariantContextWriterConstructionHelper;
-import de.charite.compbio.jannovar.htsjdk.VariantEffectHeaderExtender;
 import de.charite.compbio.jannovar.mendel.IncompatiblePedigreeException;
-import de.charite.compbio.jannovar.mendel.bridge.MendelVCFHeaderExtender;
-import de.charite.compbio.jannovar.mendel.filter.ConsumerProcessor;
-import de.charite.compbio.jannovar.mendel.filter.CoordinateSortingChecker;
-import de.charite.compbio.jannovar.mendel.filter.GeneWiseMendelianAnnotationProcessor;
+import de.charite.compbio.jannovar.mendel.filter.GeneBoundaryShardPlanner;
 import de.charite.compbio.jannovar.mendel.filter.VariantContextFilterException;
 import de.charite.compbio.jannovar.mendel.filter.VariantContextProcessor;
-import de.charite.compbio.jannovar.pedigree.Disease;
-import de.charite.compbio.jannovar.pedigree.PedFileContents;
-import de.charite.compbio.jannovar.pedigree.PedFileReader;
-import de.charite.compbio.jannovar.pedigree.PedParseException;
-import de.charite.compbio.jannovar.pedigree.PedPerson;
-import de.charite.compbio.jannovar.pedigree.Pedigree;
-import de.charite.compbio.jannovar.pedigree.Person;
-import de.charite.compbio.jannovar.pedigree.Sex;
+import de.charite.compbio.jannovar.progress.GenomeRegion;
 import de.charite.compbio.jannovar.progress.GenomeRegionListFactoryFromSAMSequenceDictionary;
 import de.charite.compbio.jannovar.progress.ProgressReporter;
-import de.charite.compbio.jannovar.vardbs.base.DBAnnotationOptions;
-import de.charite.compbio.jannovar.vardbs.base.DBAnnotationOptions.MultipleMatchBehaviour;
-import de.charite.compbio.jannovar.vardbs.facade.DBVariantContextAnnotator;
-import de.charite.compbio.jannovar.vardbs.facade.DBVariantContextAnnotatorFactory;
-import de.charite.compbio.jannovar.vardbs.generic_tsv.GenericTSVAnnotationDriver;
-import de.charite.compbio.jannovar.vardbs.generic_tsv.GenericTSVAnnotationOptions;
-import de.charite.compbio.jannovar.vardbs.generic_tsv.GenericTSVAnnotationTarget;
-import de.charite.compbio.jannovar.vardbs.generic_tsv.GenericTSVValueColumnDescription;
-import de.charite.compbio.jannovar.vardbs.generic_vcf.GenericVCFAnnotationDriver;
-import de.charite.compbio.jannovar.vardbs.generic_vcf.GenericVCFAnnotationOptions;
+import de.charite.compbio.jannovar.vardbs.facade.AnnotationPipelineBuilder;
+import de.charite.compbio.jannovar.vardbs.facade.AnnotationPipelineOptions;
 import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.util.CloseableIterator;
 import htsjdk.samtools.util.Interval;
+import htsjdk.tribble.Tribble;
+import htsjdk.tribble.index.IndexFactory;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.writer.VariantContextWriter;
 import htsjdk.variant.vcf.VCFContigHeaderLine;
@@ -56,11 +41,16 @@ import htsjdk.variant.vcf.VCFHeader;
 import htsjdk.variant.vcf.VCFHeaderLine;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Stream;
 import net.sourceforge.argparse4j.inf.Namespace;
 
@@ -81,6 +71,9 @@ public class AnnotateVCFCommand extends JannovarAnnotationCommand {
 	/** Configuration */
 	private JannovarAnnotateVCFOptions options;
 
+	/** Assembles the annotation steps, set up after loading the databases */
+	private AnnotationPipelineBuilder pipelineBuilder = null;
+
 	public AnnotateVCFCommand(String[] argv, Namespace args) throws CommandLineParsingException {
 		this.argv = argv;
 		this.options = new JannovarAnnotateVCFOptions();
@@ -100,28 +93,46 @@ public class AnnotateVCFCommand extends JannovarAnnotationCommand {
 		System.err.println(options.toString());
 
 		System.err.println("Deserializing transcripts...");
-		deserializeTranscriptDefinitionFile(options.getDatabaseFilePath());
+		deserializeTranscriptDefinitionFile(options.getDatabaseFilePath(), options.getDatabasePatchPaths());
+		final List<JannovarData> databases = new ArrayList<>();
+		databases.add(jannovarData);
+		for (String path : options.getDatabaseFilePaths().subList(1, options.getDatabaseFilePaths().size())) {
+			System.err.println("Deserializing transcripts from " + path + "...");
+			databases.add(new JannovarDataSerializer(path).load());
+		}
+		pipelineBuilder = new AnnotationPipelineBuilder(buildAnnotationPipelineOptions(), databases);
+
+		if (options.getScatterShards() > 0) {
+			runScatterGather();
+			return;
+		}
 
 		final String vcfPath = options.getPathInputVCF();
 
 		// whether or not to require availability of an index
 		final boolean useInterval = (options.getInterval() != null && !options.getInterval().equals(""));
 
-		try (VCFFileReader vcfReader = new VCFFileReader(new File(vcfPath), useInterval)) {
-			if (this.options.getVerbosity() >= 1) {
-				final SAMSequenceDictionary seqDict = VCFFileReader.getSequenceDictionary(new File(vcfPath));
-				if (seqDict != null) {
-					final GenomeRegionListFactoryFromSAMSequenceDictionary factory = new GenomeRegionListFactoryFromSAMSequenceDictionary();
-					this.progressReporter = new ProgressReporter(factory.construct(seqDict), 60);
-					this.progressReporter.printHeader();
-					this.progressReporter.start();
-				} else {
-					System.err.println("Progress reporting does not work because VCF file is missing the contig "
-							+ "lines in the header.");
-				}
-			}
+		if (canPassThrough(useInterval)) {
+			runPassThrough();
+			return;
+		}
 
-			VCFHeader vcfHeader = vcfReader.getFileHeader();
+		// Unless reading an interval through the index, each input file is decoded on its own thread ahead of the
+		// annotation, several input files are merged by coordinate
+		final List<File> inputFiles = new ArrayList<>();
+		for (String path : options.getPathInputVCFs())
+			inputFiles.add(new File(path));
+		if (inputFiles.isEmpty())
+			inputFiles.add(new File(vcfPath));
+
+		try (VCFFileReader vcfReader = useInterval ? new VCFFileReader(new File(vcfPath), true) : null;
+				MergingVCFReader inputReader = useInterval ? null
+						: new MergingVCFReader(inputFiles, options.getReadAheadBatchSize(),
+								options.getReadAheadBatches(), options.getInputThreads())) {
+			VCFHeader vcfHeader = useInterval ? vcfReader.getFileHeader() : inputReader.getFileHeader();
+
+			if (this.options.getVerbosity() >= 1)
+				startProgressReporter(vcfHeader.getSequenceDictionary());
 
 			System.err.println("Annotating VCF...");
 			final long startTime = System.nanoTime();
@@ -140,251 +151,21 @@ public class AnnotateVCFCommand extends JannovarAnnotationCommand {
 				iter = vcfReader.query(itv.getContig(), itv.getStart(), itv.getEnd());
 				System.err.println("Will read interval " + itv.toString());
 			} else {
-				System.err.println("Will read full input file");
-				iter = vcfReader.iterator();
+				if (inputFiles.size() > 1)
+					System.err.println("Will merge " + inputFiles.size() + " input files by coordinate");
+				else
+					System.err.println("Will read full input file");
+				iter = inputReader;
 			}
 
-			// Obtain Java 8 stream from iterator
-			Stream<VariantContext> stream = iter.stream();
-
-			// If configured, annotate using dbSNP VCF file (extend header to
-			// use for writing out)
-			if (options.pathVCFDBSNP != null) {
-				DBAnnotationOptions dbSNPOptions = DBAnnotationOptions.createDefaults();
-				dbSNPOptions.setIdentifierPrefix(options.prefixDBSNP);
-				DBVariantContextAnnotator dbSNPAnno = new DBVariantContextAnnotatorFactory()
-						.constructDBSNP(options.pathVCFDBSNP, options.pathFASTARef, dbSNPOptions);
-				dbSNPAnno.extendHeader(vcfHeader);
-				stream = stream.map(dbSNPAnno::annotateVariantContext);
-			}
-
-			// If configured, annotate using ExAC VCF file (extend header to use
-			// for writing out)
-			if (options.pathVCFExac != null) {
-				DBAnnotationOptions exacOptions = DBAnnotationOptions.createDefaults();
-				exacOptions.setIdentifierPrefix(options.prefixExac);
-				DBVariantContextAnnotator exacAnno = new DBVariantContextAnnotatorFactory()
-						.constructExac(options.pathVCFExac, options.pathFASTARef, exacOptions);
-				exacAnno.extendHeader(vcfHeader);
-				stream = stream.map(exacAnno::annotateVariantContext);
-			}
-
-			// If configured, annotate using gnomAD exomes VCF file (extend
-			// header to use for
-			// writing out)
-			if (options.pathVCFGnomadExomes != null) {
-				DBAnnotationOptions gnomadOptions = DBAnnotationOptions.createDefaults();
-				gnomadOptions.setIdentifierPrefix(options.prefixGnomadExomes);
-				DBVariantContextAnnotator gnomadExomesAnno = new DBVariantContextAnnotatorFactory()
-						.constructGnomad(options.pathVCFGnomadExomes, options.pathFASTARef, gnomadOptions);
-				gnomadExomesAnno.extendHeader(vcfHeader);
-				stream = stream.map(gnomadExomesAnno::annotateVariantContext);
-			}
-
-			// If configured, annotate using gnomAD genomes VCF file (extend
-			// header to use for
-			// writing out)
-			if (options.pathVCFGnomadGenomes != null) {
-				DBAnnotationOptions gnomadOptions = DBAnnotationOptions.createDefaults();
-				gnomadOptions.setIdentifierPrefix(options.prefixGnomadGenomes);
-				DBVariantContextAnnotator gnomadGenomesAnno = new DBVariantContextAnnotatorFactory()
-						.constructGnomad(options.pathVCFGnomadGenomes, options.pathFASTARef, gnomadOptions);
-				gnomadGenomesAnno.extendHeader(vcfHeader);
-				stream = stream.map(gnomadGenomesAnno::annotateVariantContext);
-			}
-
-			// If configured, annotate using UK10K VCF file (extend header to
-			// use for writing out)
-			if (options.pathVCFUK10K != null) {
-				DBAnnotationOptions exacOptions = DBAnnotationOptions.createDefaults();
-				exacOptions.setIdentifierPrefix(options.prefixUK10K);
-				DBVariantContextAnnotator uk10kAnno = new DBVariantContextAnnotatorFactory()
-						.constructUK10K(options.pathVCFUK10K, options.pathFASTARef, exacOptions);
-				uk10kAnno.extendHeader(vcfHeader);
-				stream = stream.map(uk10kAnno::annotateVariantContext);
-			}
-
-			// If configured, annotate using ClinVar VCF file (extend header to
-			// use for writing out)
-			if (options.pathClinVar != null) {
-				DBAnnotationOptions clinVarOptions = DBAnnotationOptions.createDefaults();
-				clinVarOptions.setIdentifierPrefix(options.prefixClinVar);
-				DBVariantContextAnnotator clinvarAnno = new DBVariantContextAnnotatorFactory()
-						.constructClinVar(options.pathClinVar, options.pathFASTARef, clinVarOptions);
-				clinvarAnno.extendHeader(vcfHeader);
-				stream = stream.map(clinvarAnno::annotateVariantContext);
-			}
-
-			// If configured, annotate using COSMIC VCF file (extend header to
-			// use for writing out)
-			if (options.pathCosmic != null) {
-				DBAnnotationOptions cosmicOptions = DBAnnotationOptions.createDefaults();
-				cosmicOptions.setIdentifierPrefix(options.prefixCosmic);
-				DBVariantContextAnnotator cosmicAnno = new DBVariantContextAnnotatorFactory()
-						.constructCosmic(options.pathCosmic, options.pathFASTARef, cosmicOptions);
-				cosmicAnno.extendHeader(vcfHeader);
-				stream = stream.map(cosmicAnno::annotateVariantContext);
-			}
-
-			// Add step for annotating with variant effect
-			VariantEffectHeaderExtender extender = new VariantEffectHeaderExtender();
-			extender.addHeaders(vcfHeader);
-			VariantContextAnnotator variantEffectAnnotator =
-					new VariantContextAnnotator(refDict, chromosomeMap,
-							new VariantContextAnnotator.Options(!options.isShowAll(), 
-									(options.isUseThreeLetterAminoAcidCode() ? AminoAcidCode.THREE_LETTER : AminoAcidCode.ONE_LETTER),
-									options.isEscapeAnnField(), options.isNt3PrimeShifting(),
-									options.isOffTargetFilterEnabled(),
-									options.isOffTargetFilterUtrIsOffTarget(),
-									options.isOffTargetFilterIntronicSpliceIsOffTarget()));
-			stream = stream.map(variantEffectAnnotator::annotateVariantContext);
-
-			// If configured, use threshold-based annotation (extend header to
-			// use for writing out)
-			ArrayList<String> affecteds = new ArrayList<>();
-			if (options.useThresholdFilters) {
-				// Build options object for threshold filter
-				ThresholdFilterOptions thresholdFilterOptions = new ThresholdFilterOptions(
-						options.getThreshFiltMinGtCovHet(), options.getThreshFiltMinGtCovHomAlt(),
-						options.getThreshFiltMaxCov(), options.getThreshFiltMinGtGq(),
-						options.getThreshFiltMinGtAafHet(), options.getThreshFiltMaxGtAafHet(),
-						options.getThreshFiltMinGtAafHomAlt(), options.getThreshFiltMaxGtAafHomRef(),
-						options.getPrefixExac(), options.getPrefixDBSNP(), options.getPrefixGnomadGenomes(),
-						options.getPrefixGnomadExomes(), options.getThreshFiltMaxAlleleFrequencyAd(),
-						options.getThreshFiltMaxAlleleFrequencyAr());
-				// Add headers
-				new ThresholdFilterHeaderExtender(thresholdFilterOptions).addHeaders(vcfHeader);
-				// Build list of affecteds; take from pedigree file if given.
-				// Otherwise, assume one single individual is always affected and otherwise warn
-				// about missing pedigree.
-				if (options.pathPedFile == null) {
-					if (vcfHeader.getNGenotypeSamples() == 1) {
-						System.err.println(
-								"INFO: No pedigree file given and single individual. Assuming it is affected for the threshold filter");
-					} else {
-						System.err.println(
-								"WARNING: no pedigree file given. Threshold filter will not annotate FILTER field, only genotype FT");
-					}
-				} else {
-					Pedigree pedigree;
-					try {
-						pedigree = loadPedigree(vcfHeader);
-					} catch (IOException e) {
-						System.err.println("Problem loading pedigree from " + options.pathPedFile);
-						System.err.println(e.getMessage());
-						System.err.println("\n");
-						e.printStackTrace(System.err);
-						return;
-					}
-					for (Person person : pedigree.getMembers()) {
-						if (person.isAffected())
-							affecteds.add(person.getName());
-					}
-					if (affecteds.isEmpty()) {
-						System.err.println(
-								"WARNING: no affected individual in pedigree. Threshold filter will not modify FILTER field, "
-										+ "only genotype FT");
-					}
-				}
-				GenotypeThresholdFilterAnnotator gtThresholdFilterAnno =
-						new GenotypeThresholdFilterAnnotator(thresholdFilterOptions);
-				stream = stream.map(gtThresholdFilterAnno::annotateVariantContext);
-
-				// When configured to use advanced pedigree filters (must come
-				// after threshold-based filtration)
-				if (options.useAdvancedPedigreeFilters) {
-					// Build options object from configuration and extend headers
-					PedigreeFilterOptions pedFilterOptions = new PedigreeFilterOptions(
-							options.getThreshDeNovoParentAd2(), options.isUseParentGtIsFiltered());
-					new PedigreeFilterHeaderExtender(pedFilterOptions).addHeaders(vcfHeader);
-
-					// Load pedigree
-					Pedigree pedigree;
-					try {
-						pedigree = loadPedigree(vcfHeader);
-					} catch (IOException e) {
-						System.err.println("Problem loading pedigree from " + options.pathPedFile);
-						System.err.println(e.getMessage());
-						System.err.println("\n");
-						e.printStackTrace(System.err);
-						return;
-					}
-
-					// Construct annotator and register with pipeline
-					PedigreeFilterAnnotator pedFilterAnnotator = new PedigreeFilterAnnotator(pedFilterOptions,
-							pedigree);
-					stream = stream.map(pedFilterAnnotator::annotateVariantContext);
-				}
-
-				if (options.useThresholdFilters) {
-					VariantThresholdFilterAnnotator varThresholdFilterAnno =
-							new VariantThresholdFilterAnnotator(thresholdFilterOptions, affecteds);
-					stream = stream.map(varThresholdFilterAnno::annotateVariantContext);
-				}
-			}
-
-			// Annotate from BED files
-			List<BedFileAnnotator> bedFileAnnotators = new ArrayList<>();
-			for (BedAnnotationOptions bedAnnotationOptions : options.getBedAnnotationOptions()) {
-				BedFileAnnotator annotator = new BedFileAnnotator(bedAnnotationOptions);
-				bedFileAnnotators.add(annotator);
-				annotator.extendHeader(vcfHeader);
-				stream = stream.map(annotator::annotateVariantContext);
-			}
-
-			// Annotate using dbNSFP
-			GenericTSVAnnotationDriver dbNsfpAnnotator;
-			if (options.getPathDbNsfp() != null) {
-				Map<String, GenericTSVValueColumnDescription> descriptions = new HashMap<>();
-				for (String colName : options.getColumnsDbNsfp()) {
-					descriptions.put(colName, DbNsfpFields.DBNSFP_FIELDS.get(colName));
-				}
-				GenericTSVAnnotationOptions dbNsfpAnnotationOptions = new GenericTSVAnnotationOptions(true, false,
-						options.getPrefixDbNsfp(), MultipleMatchBehaviour.BEST_ONLY, new File(options.getPathDbNsfp()),
-						GenericTSVAnnotationTarget.VARIANT, true, options.getDbNsfpColContig(),
-						options.getDbNsfpColPosition(), options.getDbNsfpColPosition(), 3, 4, false, 
-						options.getColumnsDbNsfp(), descriptions);
-				dbNsfpAnnotator = new GenericTSVAnnotationDriver(options.getPathFASTARef(), dbNsfpAnnotationOptions);
-				dbNsfpAnnotator.constructVCFHeaderExtender().addHeaders(vcfHeader);
-				stream = stream.map(dbNsfpAnnotator::annotateVariantContext);
-			}
-
-			// Annotate from generic TSV files
-			List<GenericTSVAnnotationDriver> tsvAnnotators = new ArrayList<>();
-			for (GenericTSVAnnotationOptions tsvAnnotationOptions : options.getTsvAnnotationOptions()) {
-				GenericTSVAnnotationDriver annotator = new GenericTSVAnnotationDriver(options.getPathFASTARef(),
-						tsvAnnotationOptions);
-				tsvAnnotators.add(annotator);
-				annotator.constructVCFHeaderExtender().addHeaders(vcfHeader);
-				stream = stream.map(annotator::annotateVariantContext);
-			}
-
-			// Annotate from generic VCF files
-			List<GenericVCFAnnotationDriver> vcfAnnotators = new ArrayList<>();
-			for (GenericVCFAnnotationOptions vcfAnnotationOptions : options.getVcfAnnotationOptions()) {
-				GenericVCFAnnotationDriver annotator = new GenericVCFAnnotationDriver(
-						vcfAnnotationOptions.getPathVcfFile(), options.getPathFASTARef(), vcfAnnotationOptions);
-				vcfAnnotators.add(annotator);
-				annotator.constructVCFHeaderExtender().addHeaders(vcfHeader);
-				stream = stream.map(annotator::annotateVariantContext);
-			}
-
-			// Extend header with INHERITANCE filter
-			if (options.pathPedFile != null || options.annotateAsSingletonPedigree) {
-				System.err.println("Extending header with INHERITANCE...");
-				new MendelVCFHeaderExtender().extendHeader(vcfHeader, "");
-			}
-
-			// Create VCF output writer
-			ImmutableList<VCFHeaderLine> jvHeaderLines = ImmutableList.of(
-					new VCFHeaderLine("jannovarVersion", Jannovar.getVersion()),
-					new VCFHeaderLine("jannovarCommand", Joiner.on(' ').join(argv)));
-
-			// Construct VariantContextWriter and start annotationg pipeline
-			try (VariantContextWriter vcfWriter = VariantContextWriterConstructionHelper
-					.openVariantContextWriter(vcfHeader, options.getPathOutputVCF(), jvHeaderLines);
-					VariantContextProcessor sink = buildMendelianProcessors(vcfWriter, vcfHeader)) {
+			// Obtain Java 8 stream from iterator and add annotation steps, construct VariantContextWriter and start
+			// annotating pipeline
+			try (Stream<VariantContext> annotated = buildAnnotationStream(iter.stream(), vcfHeader);
+					VariantContextWriter vcfWriter = openOutputWriter(vcfHeader, options.getPathOutputVCF(),
+							buildJannovarHeaderLines(), false);
+					VariantContextProcessor sink = pipelineBuilder.buildMendelianProcessor(vcfHeader, vcfWriter::add)) {
 				// Make current VC available to progress printer
+				Stream<VariantContext> stream = annotated;
 				if (this.progressReporter != null)
 					stream = stream.peek(vc -> this.progressReporter.setCurrentVC(vc));
 
@@ -394,9 +175,14 @@ public class AnnotateVCFCommand extends JannovarAnnotationCommand {
 			}
 
 			System.err.println("Wrote annotations to \"" + options.getPathOutputVCF() + "\"");
+			printFrequencyPruningStats();
+			printReferenceBlockStats();
+			if (inputReader != null)
+				printReadAheadStats(inputReader.getStatistics());
 			final long endTime = System.nanoTime();
 			System.err.println(String.format("Annotation and writing took %.2f sec.",
 					(endTime - startTime) / 1000.0 / 1000.0 / 1000.0));
+			printLoadReport();
 		} catch (IncompatiblePedigreeException e) {
 			if (options.pathPedFile != null)
 				System.err
@@ -422,70 +208,398 @@ public class AnnotateVCFCommand extends JannovarAnnotationCommand {
 	}
 
 	/**
-	 * Load pedigree from file given in configuration or construct singleton pedigree
-	 * 
-	 * @param vcfHeader {@link VCFHeader}, for checking compatibility and getting sample name in
-	 *        case of singleton pedigree construction
-	 * @throws PedParseException in the case of problems with parsing pedigrees
+	 * Start {@link #progressReporter} if there is a sequence dictionary, otherwise print a warning
+	 *
+	 * @param seqDict
+	 *            {@link SAMSequenceDictionary} of the input file, can be <code>null</code>
 	 */
-	private Pedigree loadPedigree(VCFHeader vcfHeader)
-			throws PedParseException, IOException, IncompatiblePedigreeException {
-		if (options.pathPedFile != null) {
-			final PedFileReader pedReader = new PedFileReader(new File(options.pathPedFile));
-			final PedFileContents pedContents = pedReader.read();
-			return new Pedigree(pedContents, pedContents.getIndividuals().get(0).getPedigree());
+	private void startProgressReporter(SAMSequenceDictionary seqDict) {
+		if (seqDict != null) {
+			final GenomeRegionListFactoryFromSAMSequenceDictionary factory = new GenomeRegionListFactoryFromSAMSequenceDictionary();
+			this.progressReporter = new ProgressReporter(factory.construct(seqDict), 60);
+			this.progressReporter.printHeader();
+			this.progressReporter.start();
 		} else {
-			if (vcfHeader.getSampleNamesInOrder().size() != 1)
-				throw new IncompatiblePedigreeException(
-						"VCF file does not have exactly one sample but required for singleton pedigree construction");
-			final String sampleName = vcfHeader.getSampleNamesInOrder().get(0);
-			final PedPerson pedPerson =
-					new PedPerson(sampleName, sampleName, "0", "0", Sex.UNKNOWN, Disease.AFFECTED);
-			final PedFileContents pedContents =
-					new PedFileContents(ImmutableList.of(), ImmutableList.of(pedPerson));
-			return new Pedigree(pedContents, pedContents.getIndividuals().get(0).getPedigree());
+			System.err.println("Progress reporting does not work because VCF file is missing the contig "
+					+ "lines in the header.");
 		}
 	}
 
 	/**
-	 * Construct the mendelian inheritance annotation processors
-	 * 
-	 * @param writer the place to put put the VariantContext to after filtration
-	 * @param vcfHeader {@link VCFHeader}, for checking compatibility and getting sample name in
-	 *        case of singleton pedigree construction
-	 * @throws IOException in case of problems with opening the pedigree file
-	 * @throws PedParseException in the case of problems with parsing pedigrees
-	 * @throws IncompatiblePedigreeException If the pedigree is incompatible with the VCF file
+	 * Check whether the genotype columns can be copied through as text with {@link #runPassThrough}
+	 *
+	 * This is the case if no configured step reads or writes genotypes (threshold filters, pedigree filters,
+	 * inheritance annotation), there is a single input file, input and output are text VCF files, and neither an
+	 * interval, multi-threaded compression (which also builds an index), nor multi-threaded annotation (which reads
+	 * ahead) is used.
+	 *
+	 * @param useInterval
+	 *            whether only an interval of the input file is to be annotated
+	 * @return whether {@link #runPassThrough} can be used
 	 */
-	private VariantContextProcessor buildMendelianProcessors(VariantContextWriter writer,
-			VCFHeader vcfHeader)
-			throws PedParseException, IOException, IncompatiblePedigreeException {
-		if (options.pathPedFile != null || options.annotateAsSingletonPedigree) {
-			final Pedigree pedigree = loadPedigree(vcfHeader);
-			checkPedigreeCompatibility(pedigree, vcfHeader);
-			final GeneWiseMendelianAnnotationProcessor mendelProcessor =
-					new GeneWiseMendelianAnnotationProcessor(pedigree, jannovarData,
-							vc -> writer.add(vc), options.isInheritanceAnnoUseFilters());
-			return new CoordinateSortingChecker(mendelProcessor);
-		} else {
-			return new ConsumerProcessor(vc -> writer.add(vc));
+	private boolean canPassThrough(boolean useInterval) {
+		return options.isPassThrough() && !useInterval && options.getOutputThreads() == 0
+				&& options.getAnnotationThreads() == 0
+				&& !options.useThresholdFilters && options.pathPedFile == null
+				&& !options.annotateAsSingletonPedigree && options.getPathInputVCFs().size() <= 1
+				&& !options.getPathInputVCF().endsWith(".bcf")
+				&& !options.getPathOutputVCF().endsWith(".bcf");
+	}
+
+	/**
+	 * Annotate the input VCF file, only decoding the site-level columns and copying the genotype columns through
+	 *
+	 * Uses {@link PassThroughVCFReader} and the corresponding writer, the annotation steps from
+	 * {@link #buildAnnotationStream} only see {@link VariantContext}s without genotypes.
+	 *
+	 * @throws JannovarException
+	 *             on problems with the annotation
+	 */
+	private void runPassThrough() throws JannovarException {
+		final String vcfPath = options.getPathInputVCF();
+		try (PassThroughVCFReader reader = new PassThroughVCFReader(new File(vcfPath))) {
+			final VCFHeader vcfHeader = reader.getFileHeader();
+			if (this.options.getVerbosity() >= 1)
+				startProgressReporter(vcfHeader.getSequenceDictionary());
+
+			System.err.println("Annotating VCF (copying genotype columns through)...");
+			final long startTime = System.nanoTime();
+
+			// The reader provides the genotype columns of the current record, so the records must flow through the
+			// stream one by one, which is the case for the sequential map() and filter() steps used here
+			try (Stream<VariantContext> annotated = buildAnnotationStream(reader.stream(), vcfHeader);
+					VariantContextWriter vcfWriter = VariantContextWriterConstructionHelper.openPassThroughVCFWriter(
+							vcfHeader, options.getPathOutputVCF(), buildJannovarHeaderLines(), reader)) {
+				Stream<VariantContext> stream = annotated;
+				if (this.progressReporter != null)
+					stream = stream.peek(vc -> this.progressReporter.setCurrentVC(vc));
+				stream.forEachOrdered(vcfWriter::add);
+			}
+
+			System.err.println("Wrote annotations to \"" + options.getPathOutputVCF() + "\"");
+			printFrequencyPruningStats();
+			printReferenceBlockStats();
+			final long endTime = System.nanoTime();
+			System.err.println(String.format("Annotation and writing took %.2f sec.",
+					(endTime - startTime) / 1000.0 / 1000.0 / 1000.0));
+			printLoadReport();
+		} catch (IOException e) {
+			throw new JannovarException("Problem reading or writing VCF file", e);
+		}
+
+		if (progressReporter != null)
+			progressReporter.done();
+	}
+
+	/**
+	 * Annotate the input VCF file in shards, concurrently, and concatenate the results
+	 *
+	 * The shards are computed by {@link GeneBoundaryShardPlanner} such that no gene and no record spans a shard boundary
+	 * and the inheritance annotation is the same as in the sequential case. All shards share the loaded {@link JannovarData} and
+	 * the gene list built from it. Each shard is written to a temporary bgzip-compressed file next to the output file and
+	 * the compressed blocks of the shard files are then concatenated into the tabix-indexed output file, without parsing
+	 * the records again.
+	 *
+	 * @throws JannovarException
+	 *             on problems with the annotation
+	 */
+	private void runScatterGather() throws JannovarException {
+		final File inputFile = new File(options.getPathInputVCF());
+		final SAMSequenceDictionary seqDict = VCFFileReader.getSequenceDictionary(inputFile);
+		if (seqDict == null || seqDict.isEmpty())
+			throw new JannovarException("Scatter/gather annotation requires contig lines in the VCF header");
+		checkIndexedContigsInHeader(inputFile, seqDict);
+		final ImmutableList<GenomeRegion> shards;
+		try (VCFFileReader vcfReader = new VCFFileReader(inputFile, true)) {
+			shards = new GeneBoundaryShardPlanner(jannovarData, pipelineBuilder.getGeneList()).planShards(seqDict,
+					options.getScatterShards(), GeneBoundaryShardPlanner.spanningVariants(vcfReader));
+		}
+
+		System.err.println("Annotating VCF in " + shards.size() + " shards using " + options.getScatterThreads()
+				+ " threads...");
+		final long startTime = System.nanoTime();
+
+		final File outputFile = new File(options.getPathOutputVCF()).getAbsoluteFile();
+		final File tmpDir;
+		try {
+			tmpDir = Files.createTempDirectory(outputFile.getParentFile().toPath(), "jannovar-shards-").toFile();
+		} catch (IOException e) {
+			throw new JannovarException("Could not create temporary directory for shards", e);
+		}
+
+		final BgzfVCFShardGatherer gatherer = new BgzfVCFShardGatherer(options.getOutputCompressionLevel());
+		final List<File> shardFiles = new ArrayList<>();
+		final ExecutorService executor = Executors.newFixedThreadPool(options.getScatterThreads());
+		try {
+			List<Future<File>> futures = new ArrayList<>();
+			for (int i = 0; i < shards.size(); ++i) {
+				final GenomeRegion shard = shards.get(i);
+				final File shardFile = new File(tmpDir, String.format("shard-%05d.vcf.gz", i));
+				shardFiles.add(shardFile);
+				futures.add(executor.submit(() -> {
+					annotateShard(inputFile, shard, gatherer, shardFile);
+					return shardFile;
+				}));
+			}
+			for (Future<File> future : futures)
+				future.get();
+
+			gatherer.gather(shardFiles, outputFile, true);
+		} catch (IOException e) {
+			throw new JannovarException("Problem writing output file " + outputFile, e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new JannovarException("Interrupted while annotating shards", e);
+		} catch (ExecutionException e) {
+			throw new JannovarException("Problem annotating shard: " + e.getCause().getMessage(), e.getCause());
+		} finally {
+			executor.shutdownNow();
+			for (File shardFile : shardFiles)
+				BgzfVCFShardGatherer.deleteShard(shardFile);
+			tmpDir.delete();
+		}
+
+		System.err.println("Wrote annotations to \"" + options.getPathOutputVCF() + "\"");
+		printFrequencyPruningStats();
+		printReferenceBlockStats();
+		final long endTime = System.nanoTime();
+		System.err.println(String.format("Annotation and writing took %.2f sec.",
+				(endTime - startTime) / 1000.0 / 1000.0 / 1000.0));
+		printLoadReport();
+	}
+
+	/**
+	 * Check that the index of <code>inputFile</code> has records only on contigs from <code>seqDict</code>
+	 *
+	 * The shards only cover the contigs from the header, records on other contigs would be missing from the output.
+	 *
+	 * @param inputFile
+	 *            path to the indexed input VCF file
+	 * @param seqDict
+	 *            {@link SAMSequenceDictionary} from the header of <code>inputFile</code>
+	 * @throws JannovarException
+	 *             if there are records on contigs missing from the header
+	 */
+	private void checkIndexedContigsInHeader(File inputFile, SAMSequenceDictionary seqDict)
+			throws JannovarException {
+		final File tabixFile = Tribble.tabixIndexFile(inputFile);
+		final File indexFile = tabixFile.exists() ? tabixFile : Tribble.indexFile(inputFile);
+		final List<String> missing = new ArrayList<>();
+		for (String contig : IndexFactory.loadIndex(indexFile.getPath()).getSequenceNames())
+			if (seqDict.getSequence(contig) == null)
+				missing.add(contig);
+		if (!missing.isEmpty())
+			throw new JannovarException("Scatter/gather annotation requires contig lines for all contigs with records "
+					+ "but the VCF header is missing " + Joiner.on(", ").join(missing));
+	}
+
+	/**
+	 * Annotate the variants starting in <code>shard</code> and write them to <code>shardFile</code>
+	 *
+	 * @param inputFile
+	 *            path to the indexed input VCF file
+	 * @param shard
+	 *            the {@link GenomeRegion} to annotate
+	 * @param gatherer
+	 *            the {@link BgzfVCFShardGatherer} that the shards are gathered with
+	 * @param shardFile
+	 *            path to the shard file to write to
+	 * @throws JannovarException
+	 *             on problems with the annotation
+	 * @throws IOException
+	 *             on problems with writing the output
+	 */
+	private void annotateShard(File inputFile, GenomeRegion shard, BgzfVCFShardGatherer gatherer, File shardFile)
+			throws JannovarException, IOException {
+		try (VCFFileReader vcfReader = new VCFFileReader(inputFile, true)) {
+			final VCFHeader vcfHeader = new VCFHeader(vcfReader.getFileHeader());
+			try (CloseableIterator<VariantContext> iter = vcfReader.query(shard.getContig(),
+					shard.getBeginPos() + 1, shard.getEndPos())) {
+				// Records starting left of the shard belong to the previous shard, the cuts are planned such that no record
+				// overlaps two shards
+				try (Stream<VariantContext> stream = buildAnnotationStream(
+						iter.stream().filter(vc -> vc.getStart() > shard.getBeginPos()), vcfHeader);
+						VariantContextWriter vcfWriter = VariantContextWriterConstructionHelper
+								.openBgzfShardWriter(vcfHeader, gatherer, shardFile, buildJannovarHeaderLines());
+						VariantContextProcessor sink = pipelineBuilder.buildMendelianProcessor(vcfHeader,
+								vcfWriter::add)) {
+					stream.forEachOrdered(sink::put);
+				}
+			}
 		}
 	}
 
 	/**
-	 * Check pedigree for compatibility
-	 * 
-	 * @param pedigree {@link Pedigree} to check for compatibility
-	 * @param vcfHeader {@link VCFHeader} to check for compatibility
-	 * @throws IncompatiblePedigreeException if the VCF file is not compatible with the pedigree
+	 * Open the {@link VariantContextWriter} for the final output, compressing in multiple threads if configured
+	 *
+	 * @param vcfHeader
+	 *            the VCF header to write
+	 * @param fileName
+	 *            path to the output file
+	 * @param additionalHeaderLines
+	 *            additional {@link VCFHeaderLine}s to add
+	 * @param generateIndex
+	 *            whether or not to generate an index, always done with multi-threaded compression
+	 * @return the opened writer
+	 * @throws IOException
+	 *             on problems opening the output file
+	 */
+	private VariantContextWriter openOutputWriter(VCFHeader vcfHeader, String fileName,
+			Collection<VCFHeaderLine> additionalHeaderLines, boolean generateIndex) throws IOException {
+		if (options.getOutputThreads() > 0)
+			return VariantContextWriterConstructionHelper.openParallelBgzfVariantContextWriter(vcfHeader, fileName,
+					additionalHeaderLines, true, options.getOutputThreads(), options.getOutputCompressionLevel());
+		else
+			return VariantContextWriterConstructionHelper.openVariantContextWriter(vcfHeader, fileName,
+					additionalHeaderLines, generateIndex);
+	}
+
+	/**
+	 * @return {@link AnnotationPipelineOptions} from the configuration in {@link #options}
+	 */
+	private AnnotationPipelineOptions buildAnnotationPipelineOptions() {
+		final AnnotationPipelineOptions result = new AnnotationPipelineOptions();
+		result.setAnnotationThreads(options.getAnnotationThreads());
+		result.setGvcf(options.isGvcf());
+		result.setPathFASTARef(options.getPathFASTARef());
+
+		result.setPathVCFDBSNP(options.getPathVCFDBSNP());
+		result.setPrefixDBSNP(options.getPrefixDBSNP());
+		result.setPathVCFExac(options.getPathVCFExac());
+		result.setPrefixExac(options.getPrefixExac());
+		result.setPathVCFGnomadExomes(options.getPathVCFGnomadExomes());
+		result.setPrefixGnomadExomes(options.getPrefixGnomadExomes());
+		result.setPathVCFGnomadGenomes(options.getPathVCFGnomadGenomes());
+		result.setPrefixGnomadGenomes(options.getPrefixGnomadGenomes());
+		result.setPathVCFUK10K(options.getPathVCFUK10K());
+		result.setPrefixUK10K(options.getPrefixUK10K());
+		result.setPathClinVar(options.getPathClinVar());
+		result.setPrefixClinVar(options.getPrefixClinVar());
+		result.setPathCosmic(options.getPathCosmic());
+		result.setPrefixCosmic(options.getPrefixCosmic());
+
+		result.setFrequencyPruneMode(options.getFrequencyPruneMode());
+		result.setThresholdFilterOptions(new ThresholdFilterOptions(options.getThreshFiltMinGtCovHet(),
+				options.getThreshFiltMinGtCovHomAlt(), options.getThreshFiltMaxCov(), options.getThreshFiltMinGtGq(),
+				options.getThreshFiltMinGtAafHet(), options.getThreshFiltMaxGtAafHet(),
+				options.getThreshFiltMinGtAafHomAlt(), options.getThreshFiltMaxGtAafHomRef(), options.getPrefixExac(),
+				options.getPrefixDBSNP(), options.getPrefixGnomadGenomes(), options.getPrefixGnomadExomes(),
+				options.getThreshFiltMaxAlleleFrequencyAd(), options.getThreshFiltMaxAlleleFrequencyAr()));
+		result.setUseThresholdFilters(options.isUseThresholdFilters());
+		result.setThreshFiltSampleCallers(options.getThreshFiltSampleCallers());
+		result.setUseAdvancedPedigreeFilters(options.isUseAdvancedPedigreeFilters());
+		result.setPedigreeFilterOptions(new PedigreeFilterOptions(options.getThreshDeNovoParentAd2(),
+				options.isUseParentGtIsFiltered()));
+
+		result.setDatabaseInfoFields(options.getDatabaseInfoFields());
+		result.setDatabaseThreads(options.getDatabaseThreads());
+		result.setShowAll(options.isShowAll());
+		result.setAminoAcidCode(
+				options.isUseThreeLetterAminoAcidCode() ? AminoAcidCode.THREE_LETTER : AminoAcidCode.ONE_LETTER);
+		result.setEscapeAnnField(options.isEscapeAnnField());
+		result.setNt3PrimeShifting(options.isNt3PrimeShifting());
+		result.setOffTargetFilterEnabled(options.isOffTargetFilterEnabled());
+		result.setOffTargetFilterUtrIsOffTarget(options.isOffTargetFilterUtrIsOffTarget());
+		result.setOffTargetFilterIntronicSpliceIsOffTarget(options.isOffTargetFilterIntronicSpliceIsOffTarget());
+
+		result.setBedAnnotationOptions(options.getBedAnnotationOptions());
+		result.setBedAnnotationMaxInMemorySize(options.getBedAnnotationMaxInMemorySize());
+		result.setPathDbNsfp(options.getPathDbNsfp());
+		result.setColumnsDbNsfp(options.getColumnsDbNsfp());
+		result.setPrefixDbNsfp(options.getPrefixDbNsfp());
+		result.setDbNsfpColContig(options.getDbNsfpColContig());
+		result.setDbNsfpColPosition(options.getDbNsfpColPosition());
+		result.setTsvAnnotationOptions(options.getTsvAnnotationOptions());
+		result.setVcfAnnotationOptions(options.getVcfAnnotationOptions());
+
+		result.setPathPedFile(options.getPathPedFile());
+		result.setAnnotateAsSingletonPedigree(options.isAnnotateAsSingletonPedigree());
+		result.setInheritanceAnnoUseFilters(options.isInheritanceAnnoUseFilters());
+		result.setInheritanceAnnoThreads(options.getInheritanceAnnoThreads());
+		return result;
+	}
+
+	/**
+	 * Print the queue occupancy between the input reader threads and the annotation, showing whether the annotation
+	 * waited for the input or the other way round
+	 *
+	 * @param stats
+	 *            {@link ReadAheadVCFReader.Statistics} of each input file
+	 */
+	private void printReadAheadStats(List<ReadAheadVCFReader.Statistics> stats) {
+		for (ReadAheadVCFReader.Statistics s : stats) {
+			System.err.println("Read ahead " + s);
+			if (s.isInputBound())
+				System.err.println("  annotation mostly waited for input decoding, consider --input-threads for "
+						+ "bgzip-compressed input");
+			else
+				System.err.println("  input decoding mostly waited for annotation");
+		}
+	}
+
+	/**
+	 * Print number of reference blocks passed through and records annotated by all {@link ReferenceBlockBypass}es of
+	 * {@link #pipelineBuilder}
+	 */
+	private void printReferenceBlockStats() {
+		final List<ReferenceBlockBypass> referenceBlockBypasses = pipelineBuilder.getReferenceBlockBypasses();
+		if (referenceBlockBypasses.isEmpty())
+			return;
+		long numPassedThrough = 0;
+		long numAnnotated = 0;
+		for (ReferenceBlockBypass bypass : referenceBlockBypasses) {
+			numPassedThrough += bypass.getNumPassedThrough();
+			numAnnotated += bypass.getNumAnnotated();
+		}
+		System.err.println("Passed through " + numPassedThrough + " gVCF reference blocks, annotated " + numAnnotated
+				+ " variant records");
+	}
+
+	/**
+	 * Print number of common variants and skipped annotation steps of all {@link FrequencyPruner}s of
+	 * {@link #pipelineBuilder}
+	 */
+	private void printFrequencyPruningStats() {
+		final List<FrequencyPruner> frequencyPruners = pipelineBuilder.getFrequencyPruners();
+		if (frequencyPruners.isEmpty())
+			return;
+		long numCommon = 0;
+		Map<String, Long> skipCounts = new LinkedHashMap<>();
+		for (FrequencyPruner pruner : frequencyPruners) {
+			numCommon += pruner.getNumCommon();
+			for (Map.Entry<String, Long> entry : pruner.getSkipCounts().entrySet())
+				skipCounts.merge(entry.getKey(), entry.getValue(), Long::sum);
+		}
+		final String verb = (options.getFrequencyPruneMode() == FrequencyPruner.Mode.DROP) ? "Dropped" : "Flagged";
+		System.err.println(verb + " " + numCommon + " common variants");
+		for (Map.Entry<String, Long> entry : skipCounts.entrySet())
+			System.err.println("  skipped " + entry.getKey() + " for " + entry.getValue() + " variants");
+	}
+
+	/**
+	 * @return {@link VCFHeaderLine}s describing the Jannovar version and command
+	 */
+	private ImmutableList<VCFHeaderLine> buildJannovarHeaderLines() {
+		return ImmutableList.of(new VCFHeaderLine("jannovarVersion", Jannovar.getVersion()),
+				new VCFHeaderLine("jannovarCommand", Joiner.on(' ').join(argv)));
+	}
+
+	/**
+	 * Extend <code>stream</code> by the annotation and filtration steps from {@link #pipelineBuilder}
+	 *
+	 * @param stream
+	 *            {@link Stream} of {@link VariantContext} objects to annotate
+	 * @param vcfHeader
+	 *            {@link VCFHeader} to extend
+	 * @return {@link Stream} with the annotated {@link VariantContext} objects, in the order of input; closing it
+	 *         closes the underlying {@link VariantContextPipeline}
+	 * @throws JannovarException
+	 *             on problems with the construction of the annotation steps
 	 */
-	private void checkPedigreeCompatibility(Pedigree pedigree, VCFHeader vcfHeader)
-			throws IncompatiblePedigreeException {
-		List<String> missing = vcfHeader.getGenotypeSamples().stream()
-				.filter(x -> !pedigree.getNames().contains(x)).collect(Collectors.toList());
-		if (!missing.isEmpty()) throw new IncompatiblePedigreeException(
-				"The VCF file has the following sample names not present in Pedigree: "
-						+ Joiner.on(", ").join(missing));
+	private Stream<VariantContext> buildAnnotationStream(Stream<VariantContext> stream, VCFHeader vcfHeader)
+			throws JannovarException {
+		final VariantContextPipeline pipeline = pipelineBuilder.build(vcfHeader);
+		return pipeline.stream(stream).onClose(pipeline::close);
 	}
 
 }
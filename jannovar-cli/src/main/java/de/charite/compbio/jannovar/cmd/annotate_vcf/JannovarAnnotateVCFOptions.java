@@ -4,12 +4,20 @@ import de.charite.compbio.jannovar.UncheckedJannovarException;
 import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
 import de.charite.compbio.jannovar.cmd.JannovarAnnotationOptions;
 import de.charite.compbio.jannovar.cmd.JannovarBaseOptions;
+import de.charite.compbio.jannovar.filter.facade.FrequencyPruner;
 import de.charite.compbio.jannovar.filter.facade.PedigreeFilterOptions;
 import de.charite.compbio.jannovar.filter.facade.ThresholdFilterOptions;
+import de.charite.compbio.jannovar.filter.impl.gt.SupportedVarCaller;
+import de.charite.compbio.jannovar.htsjdk.ReadAheadVCFReader;
+import de.charite.compbio.jannovar.htsjdk.VariantEffectHeaderExtender;
+import de.charite.compbio.jannovar.vardbs.generic_tsv.DbNsfpFields;
 import de.charite.compbio.jannovar.vardbs.generic_tsv.GenericTSVAnnotationOptions;
 import de.charite.compbio.jannovar.vardbs.generic_vcf.GenericVCFAnnotationOptions;
+import java.io.File;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.BiFunction;
 import net.sourceforge.argparse4j.impl.Arguments;
 import net.sourceforge.argparse4j.inf.ArgumentGroup;
@@ -31,6 +39,9 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 	/** Path to input VCF file */
 	private String pathInputVCF = null;
 
+	/** Paths to all input VCF files, merged by coordinate if more than one, the first one is {@link #pathInputVCF} */
+	private List<String> pathInputVCFs = new ArrayList<>();
+
 	/** Interval to annotate */
 	private String interval = "";
 
@@ -143,6 +154,17 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 	 */
 	private double threshFiltMaxAlleleFrequencyAr;
 
+	/**
+	 * Threshold filter: per-sample override of the variant caller guessed from the VCF header
+	 */
+	private Map<String, SupportedVarCaller> threshFiltSampleCallers = new LinkedHashMap<>();
+
+	/**
+	 * What to do with variants above the frequency thresholds directly after the frequency
+	 * database annotation, <code>null</code> for no pruning
+	 */
+	private FrequencyPruner.Mode frequencyPruneMode;
+
 	/** Enable off target filter */
 	private boolean offTargetFilterEnabled;
 
@@ -159,6 +181,9 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 	 */
 	private boolean inheritanceAnnoUseFilters;
 
+	/** Number of threads for checking genes in inheritance mode compatibility annotation. */
+	private int inheritanceAnnoThreads;
+
 	/** Whether or not to enable the "parent GT is filtered" GT filter, default is true. */
 	private boolean useParentGtIsFiltered;
 
@@ -166,7 +191,10 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 	private Integer threshDeNovoParentAd2;
 
 	/** Configuration for annotation with BED files. */
-	private List<BedAnnotationOptions> bedAnnotationOptions = new ArrayList<>();
+	private List<de.charite.compbio.jannovar.vardbs.bed.BedAnnotationOptions> bedAnnotationOptions = new ArrayList<>();
+
+	/** BED files up to this size in bytes are loaded into memory instead of using tabix queries. */
+	private long bedAnnotationMaxInMemorySize;
 
 	/** Column of contig name in dbNSFP. */
 	private int dbNsfpColContig;
@@ -189,6 +217,45 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 	/** Configuration for annotation with VCF files. */
 	private List<GenericVCFAnnotationOptions> vcfAnnotationOptions = new ArrayList<>();
 
+	/** Number of shards for scatter/gather annotation, <code>0</code> for sequential annotation. */
+	private int scatterShards;
+
+	/** Number of threads to use for annotating the shards. */
+	private int scatterThreads;
+
+	/** Number of threads per bgzip-compressed input file for inflating, <code>0</code> to inflate on the reader thread. */
+	private int inputThreads;
+
+	/** Number of batches of records to decode ahead of the annotation, per input file. */
+	private int readAheadBatches;
+
+	/** Number of records per batch handed from the input reader threads to the annotation. */
+	private int readAheadBatchSize;
+
+	/** Number of threads for compressing bgzip output, <code>0</code> to compress on the writing thread. */
+	private int outputThreads;
+
+	/** Compression level for bgzip output when using {@link #outputThreads}. */
+	private int outputCompressionLevel;
+
+	/** Whether to copy the genotype columns through as text if no step needs the genotypes, default is true. */
+	private boolean passThrough;
+
+	/** Paths to the database .ser files to annotate against, the first one is the primary database. */
+	private List<String> databaseFilePaths = new ArrayList<>();
+
+	/** Names of the INFO fields to write the annotations against {@link #databaseFilePaths} to, in the same order. */
+	private List<String> databaseInfoFields = new ArrayList<>();
+
+	/** Number of threads for annotating against several databases concurrently, <code>0</code> to disable. */
+	private int databaseThreads;
+
+	/** Whether to pass gVCF reference blocks through to the output without annotation or filtration. */
+	private boolean gvcf;
+
+	/** Number of worker threads for the annotation and filtration steps, <code>0</code> to use the reading thread. */
+	private int annotationThreads;
+
 	/**
 	 * Setup {@link ArgumentParser}
 	 * 
@@ -208,17 +275,24 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 		subParser.description("Perform annotation of a single VCF file");
 
 		ArgumentGroup requiredGroup = subParser.addArgumentGroup("Required arguments");
-		requiredGroup.addArgument("-i", "--input-vcf").help("Path to input VCF file")
-				.required(true);
+		requiredGroup.addArgument("-i", "--input-vcf")
+				.help("Path to input VCF file, you can give multiple coordinate-sorted ones with compatible headers "
+						+ "that are then merged by coordinate")
+				.action(Arguments.append()).required(true);
 		requiredGroup.addArgument("-o", "--output-vcf").help("Path to output VCF file")
 				.required(true);
-		requiredGroup.addArgument("-d", "--database").help("Path to database .ser file")
-				.required(true);
+		requiredGroup.addArgument("-d", "--database")
+				.help("Path to database .ser file, you can give multiple ones, the first one is the primary one")
+				.action(Arguments.append()).required(true);
 
 		ArgumentGroup annotationGroup =
 				subParser.addArgumentGroup("Annotation Arguments (optional)");
 		requiredGroup.addArgument("--interval").help("Interval with regions to annotate (optional)")
 				.required(false).setDefault("");
+		annotationGroup.addArgument("--db-patch")
+				.help("Path to database patch file to apply to the database, can be given multiple times; only "
+						+ "with a single database")
+				.setDefault(new ArrayList<String>()).action(Arguments.append());
 		annotationGroup.addArgument("--pedigree-file")
 				.help("Pedigree file to use for Mendelian inheritance annotation").required(false);
 		annotationGroup.addArgument("--annotate-as-singleton-pedigree")
@@ -261,6 +335,9 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 		annotationGroup.addArgument("--inheritance-anno-use-filters")
 				.help("Use filters in inheritance mode annotation").setDefault(false)
 				.action(Arguments.storeTrue());
+		annotationGroup.addArgument("--inheritance-anno-threads")
+				.help("Number of threads for checking genes in inheritance mode annotation")
+				.type(Integer.class).setDefault(1);
 
 		ArgumentGroup dbNsfpAnnotationGroup =
 				subParser.addArgumentGroup("Annotation with dbNSFP (experimental; optional)");
@@ -281,6 +358,10 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 				.help("Add BED file to use for annotating. The value must be of the format "
 						+ "\"pathToBed:infoField:description[:colNo]\".")
 				.action(Arguments.append());
+		bedAnnotationGroup.addArgument("--bed-annotation-max-in-memory-size")
+				.help("BED files up to this size in bytes are loaded into memory, larger ones are queried "
+						+ "using tabix; set to 0 for always using tabix")
+				.type(Long.class).setDefault(64L * 1024 * 1024);
 
 		ArgumentGroup vcfAnnotationGroup =
 				subParser.addArgumentGroup("Generic VCF-based Annotation (experimental; optional)");
@@ -333,6 +414,11 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 		threshFilterGroup.addArgument("--var-thresh-max-allele-freq-ar")
 				.help("Maximal allele fraction for autosomal recessive inheritance mode")
 				.setDefault(threshDefaults.getMaxAlleleFrequencyAr()).type(Double.class);
+		threshFilterGroup.addArgument("--gt-thresh-filt-sample-caller")
+				.help("Override the variant caller guessed from the VCF header for one sample, given as "
+						+ "SAMPLE=CALLER with CALLER one of GATK_CALLER, BCFTOOLS, FREEBAYES, PLATYPUS; "
+						+ "can be given multiple times")
+				.setDefault(new ArrayList<String>()).action(Arguments.append());
 		PedigreeFilterOptions pedDefaults = PedigreeFilterOptions.buildDefaultOptions();
 		threshFilterGroup.addArgument("--use-advanced-pedigree-filters")
 				.help("Use advanced pedigree-based filters (mainly useful for de novo variants)")
@@ -340,6 +426,11 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 		threshFilterGroup.addArgument("--de-novo-max-parent-ad2")
 				.help("Maximal support of alternative allele in parent for de novo variants.")
 				.type(Integer.class).setDefault(pedDefaults.getDeNovoMaxParentAd2());
+		threshFilterGroup.addArgument("--prune-common-variants")
+				.help("Directly after annotating with dbSNP, ExAC, and gnomAD, drop variants above both "
+						+ "--var-thresh-max-allele-freq-ad and --var-thresh-max-allele-freq-ar, or flag them "
+						+ "and skip all following annotation steps for them")
+				.choices("flag", "drop").setDefault((String) null);
 
 		ArgumentGroup offTargetGroup = subParser.addArgumentGroup("Exome on/off target filters");
 		offTargetGroup.addArgument("--enable-off-target-filter")
@@ -352,6 +443,45 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 				.help("Make intronic (non-consensus site) splice region count as off-target (default is to count as on-target)")
 				.setDefault(false).action(Arguments.storeTrue());
 
+		ArgumentGroup scatterGroup =
+				subParser.addArgumentGroup("Scatter/gather annotation (experimental; optional)");
+		scatterGroup.addArgument("--scatter-shards")
+				.help("Split genome into this many shards (cut outside of genes) and annotate them "
+						+ "concurrently, requires indexed input and output path ending in .vcf.gz; 0 to disable")
+				.type(Integer.class).setDefault(0);
+		scatterGroup.addArgument("--scatter-threads").help("Number of threads to use for annotating the shards")
+				.type(Integer.class).setDefault(1);
+
+		ArgumentGroup databaseGroup = subParser.addArgumentGroup("Multiple databases (optional)");
+		databaseGroup.addArgument("--database-info-field")
+				.help("INFO field to write the annotations against the database given at the same position to, "
+						+ "can be given multiple times; defaults to ANN for the first database and ANN_<NAME> for "
+						+ "the others, with NAME the upper-case file name without .ser")
+				.setDefault(new ArrayList<String>()).action(Arguments.append());
+		databaseGroup.addArgument("--database-threads")
+				.help("Number of threads for annotating against several databases concurrently; 0 to disable")
+				.type(Integer.class).setDefault(0);
+
+		ArgumentGroup inputGroup = subParser.addArgumentGroup("Input decoding (optional)");
+		inputGroup.addArgument("--input-threads")
+				.help("Number of threads per bgzip-compressed input file for inflating its blocks ahead of the "
+						+ "parsing; 0 to inflate on the reader thread")
+				.type(Integer.class).setDefault(0);
+		inputGroup.addArgument("--read-ahead-batches")
+				.help("Number of batches of records that each input reader thread decodes ahead of the annotation")
+				.type(Integer.class).setDefault(ReadAheadVCFReader.DEFAULT_QUEUE_DEPTH);
+		inputGroup.addArgument("--read-ahead-batch-size")
+				.help("Number of records per batch handed from the input reader threads to the annotation")
+				.type(Integer.class).setDefault(ReadAheadVCFReader.DEFAULT_BATCH_SIZE);
+
+		ArgumentGroup outputGroup = subParser.addArgumentGroup("Output compression (optional)");
+		outputGroup.addArgument("--output-threads")
+				.help("Number of threads for compressing output paths ending in .vcf.gz, also writes a tabix "
+						+ "index; 0 to compress on the writing thread")
+				.type(Integer.class).setDefault(0);
+		outputGroup.addArgument("--output-compression-level")
+				.help("Compression level (0-9) to use with --output-threads").type(Integer.class).setDefault(5);
+
 		ArgumentGroup optionalGroup = subParser.addArgumentGroup("Other, optional Arguments");
 		optionalGroup.addArgument("--no-escape-ann-field")
 				.help("Disable escaping of INFO/ANN field in VCF output").dest("escape_ann_field")
@@ -366,6 +496,19 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 				.action(Arguments.storeTrue());
 		optionalGroup.addArgument("--disable-parent-gt-is-filtered").setDefault(true)
 				.dest("use_parent_gt_is_filtered").action(Arguments.storeFalse());
+		optionalGroup.addArgument("--no-pass-through")
+				.help("Always decode and re-encode the genotype columns, by default they are copied through as text "
+						+ "unless threshold filters, pedigree-based annotation, multiple input files, --interval, "
+						+ "--output-threads, or --annotation-threads are used")
+				.dest("pass_through").setDefault(true).action(Arguments.storeFalse());
+		optionalGroup.addArgument("--annotation-threads")
+				.help("Number of worker threads for the annotation and filtration steps, each with its own annotators; "
+						+ "the output keeps the input order, 0 to annotate on the reading thread")
+				.type(Integer.class).setDefault(0);
+		optionalGroup.addArgument("--gvcf")
+				.help("Input is a gVCF file, write reference blocks (records with <NON_REF> or <*> as the only ALT "
+						+ "allele) through unchanged and skip all annotation and filtration steps for them")
+				.setDefault(false).action(Arguments.storeTrue());
 
 		JannovarBaseOptions.setupParser(subParser);
 	}
@@ -376,7 +519,8 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 
 		interval = args.getString("interval");
 		escapeAnnField = args.getBoolean("escape_ann_field");
-		pathInputVCF = args.getString("input_vcf");
+		pathInputVCFs = args.getList("input_vcf");
+		pathInputVCF = pathInputVCFs.get(0);
 		pathOutputVCF = args.getString("output_vcf");
 		pathPedFile = args.getString("pedigree_file");
 		annotateAsSingletonPedigree = args.getBoolean("annotate_as_singleton_pedigree");
@@ -397,6 +541,9 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 		pathCosmic = args.getString("cosmic_vcf");
 		prefixCosmic = args.getString("cosmic_prefix");
 		inheritanceAnnoUseFilters = args.getBoolean("inheritance_anno_use_filters");
+		inheritanceAnnoThreads = args.getInt("inheritance_anno_threads");
+		if (inheritanceAnnoThreads < 1)
+			throw new CommandLineParsingException("Value of --inheritance-anno-threads must be >= 1.");
 		useParentGtIsFiltered = args.getBoolean("use_parent_gt_is_filtered");
 
 		dbNsfpColContig = args.getInt("dbnsfp_col_contig");
@@ -420,9 +567,10 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 		if (args.getList("bed_annotation") != null) {
 			for (Object o : args.getList("bed_annotation")) {
 				final String s = (String) o;
-				bedAnnotationOptions.add(BedAnnotationOptions.parseFrom(s));
+				bedAnnotationOptions.add(de.charite.compbio.jannovar.vardbs.bed.BedAnnotationOptions.parseFrom(s));
 			}
 		}
+		bedAnnotationMaxInMemorySize = args.getLong("bed_annotation_max_in_memory_size");
 
 		if (args.getList("tsv_annotation") != null) {
 			for (Object o : args.getList("tsv_annotation")) {
@@ -449,13 +597,93 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 		threshFiltMaxGtAafHomRef = args.getDouble("gt_thresh_filt_max_aaf_hom_ref");
 		threshFiltMaxAlleleFrequencyAd = args.getDouble("var_thresh_max_allele_freq_ad");
 		threshFiltMaxAlleleFrequencyAr = args.getDouble("var_thresh_max_allele_freq_ar");
+		threshFiltSampleCallers = new LinkedHashMap<>();
+		for (Object o : args.getList("gt_thresh_filt_sample_caller")) {
+			final String s = (String) o;
+			final int pos = s.lastIndexOf('=');
+			try {
+				if (pos <= 0)
+					throw new IllegalArgumentException();
+				threshFiltSampleCallers.put(s.substring(0, pos),
+						SupportedVarCaller.valueOf(s.substring(pos + 1).toUpperCase()));
+			} catch (IllegalArgumentException e) {
+				throw new CommandLineParsingException(
+						"Invalid value for --gt-thresh-filt-sample-caller, expected SAMPLE=CALLER: " + s);
+			}
+		}
 		useAdvancedPedigreeFilters = args.getBoolean("use_advanced_pedigree_filters");
 		setThreshDeNovoParentAd2(args.getInt("de_novo_max_parent_ad2"));
+		if (args.getString("prune_common_variants") == null)
+			frequencyPruneMode = null;
+		else
+			frequencyPruneMode = FrequencyPruner.Mode.valueOf(args.getString("prune_common_variants").toUpperCase());
+		if (frequencyPruneMode != null && pathVCFDBSNP == null && pathVCFExac == null
+				&& pathVCFGnomadExomes == null && pathVCFGnomadGenomes == null)
+			throw new CommandLineParsingException(
+					"Command --prune-common-variants requires dbSNP, ExAC, or gnomAD annotation.");
 
 		offTargetFilterEnabled = args.getBoolean("enable_off_target_filter");
 		offTargetFilterUtrIsOffTarget = args.getBoolean("utr_is_off_target");
 		offTargetFilterIntronicSpliceIsOffTarget = args.getBoolean("intronic_splice_is_off_target");
 
+		scatterShards = args.getInt("scatter_shards");
+		scatterThreads = args.getInt("scatter_threads");
+		if (scatterShards < 0 || scatterThreads < 1)
+			throw new CommandLineParsingException(
+					"Values of --scatter-shards must be >= 0 and of --scatter-threads must be >= 1.");
+		if (scatterShards > 0 && interval != null && !interval.equals(""))
+			throw new CommandLineParsingException("Cannot combine --scatter-shards with --interval.");
+		if (scatterShards > 0 && !pathOutputVCF.endsWith(".vcf.gz"))
+			throw new CommandLineParsingException("Output path must end in .vcf.gz when using --scatter-shards.");
+		if (pathInputVCFs.size() > 1 && scatterShards > 0)
+			throw new CommandLineParsingException("Cannot combine multiple input VCF files with --scatter-shards.");
+		if (pathInputVCFs.size() > 1 && interval != null && !interval.equals(""))
+			throw new CommandLineParsingException("Cannot combine multiple input VCF files with --interval.");
+
+		passThrough = args.getBoolean("pass_through");
+		gvcf = args.getBoolean("gvcf");
+		annotationThreads = args.getInt("annotation_threads");
+		if (annotationThreads < 0)
+			throw new CommandLineParsingException("Value of --annotation-threads must be >= 0.");
+
+		databaseFilePaths = args.getList("database");
+		if (databaseFilePaths.size() > 1 && !getDatabasePatchPaths().isEmpty())
+			throw new CommandLineParsingException("Cannot combine multiple databases with --db-patch, patch the "
+					+ "databases with the db-patch command first.");
+		final List<String> infoFields = args.getList("database_info_field");
+		if (infoFields.size() > databaseFilePaths.size())
+			throw new CommandLineParsingException("Got more values for --database-info-field than databases.");
+		databaseInfoFields = new ArrayList<>();
+		for (int i = 0; i < databaseFilePaths.size(); ++i) {
+			final String infoField = (i < infoFields.size()) ? infoFields.get(i)
+					: defaultDatabaseInfoField(i, databaseFilePaths.get(i));
+			if (databaseInfoFields.contains(infoField))
+				throw new CommandLineParsingException("INFO field " + infoField
+						+ " used for more than one database, use --database-info-field to give distinct ones.");
+			databaseInfoFields.add(infoField);
+		}
+		databaseThreads = args.getInt("database_threads");
+		if (databaseThreads < 0)
+			throw new CommandLineParsingException("Value of --database-threads must be >= 0.");
+
+		inputThreads = args.getInt("input_threads");
+		readAheadBatches = args.getInt("read_ahead_batches");
+		readAheadBatchSize = args.getInt("read_ahead_batch_size");
+		if (inputThreads < 0)
+			throw new CommandLineParsingException("Value of --input-threads must be >= 0.");
+		if (readAheadBatches < 1 || readAheadBatchSize < 1)
+			throw new CommandLineParsingException(
+					"Values of --read-ahead-batches and --read-ahead-batch-size must be >= 1.");
+
+		outputThreads = args.getInt("output_threads");
+		outputCompressionLevel = args.getInt("output_compression_level");
+		if (outputThreads < 0)
+			throw new CommandLineParsingException("Value of --output-threads must be >= 0.");
+		if (outputCompressionLevel < 0 || outputCompressionLevel > 9)
+			throw new CommandLineParsingException("Value of --output-compression-level must be between 0 and 9.");
+		if (outputThreads > 0 && !pathOutputVCF.endsWith(".vcf.gz"))
+			throw new CommandLineParsingException("Output path must end in .vcf.gz when using --output-threads.");
+
 		if (pathFASTARef == null && (pathVCFDBSNP != null || pathVCFExac != null
 				|| pathVCFUK10K != null || pathClinVar != null || pathCosmic != null
 				|| pathVCFGnomadExomes != null || pathVCFGnomadGenomes != null || pathDbNsfp != null
@@ -480,6 +708,14 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 		this.pathInputVCF = pathInputVCF;
 	}
 
+	public List<String> getPathInputVCFs() {
+		return pathInputVCFs;
+	}
+
+	public void setPathInputVCFs(List<String> pathInputVCFs) {
+		this.pathInputVCFs = pathInputVCFs;
+	}
+
 	public String getPathOutputVCF() {
 		return pathOutputVCF;
 	}
@@ -753,6 +989,14 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 		this.threshFiltMaxAlleleFrequencyAr = threshFiltMaxAlleleFrequencyAr;
 	}
 
+	public Map<String, SupportedVarCaller> getThreshFiltSampleCallers() {
+		return threshFiltSampleCallers;
+	}
+
+	public void setThreshFiltSampleCallers(Map<String, SupportedVarCaller> threshFiltSampleCallers) {
+		this.threshFiltSampleCallers = threshFiltSampleCallers;
+	}
+
 	public boolean isInheritanceAnnoUseFilters() {
 		return inheritanceAnnoUseFilters;
 	}
@@ -761,6 +1005,14 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 		this.inheritanceAnnoUseFilters = inheritanceAnnoUseFilters;
 	}
 
+	public int getInheritanceAnnoThreads() {
+		return inheritanceAnnoThreads;
+	}
+
+	public void setInheritanceAnnoThreads(int inheritanceAnnoThreads) {
+		this.inheritanceAnnoThreads = inheritanceAnnoThreads;
+	}
+
 	public boolean isUseAdvancedPedigreeFilters() {
 		return useAdvancedPedigreeFilters;
 	}
@@ -769,14 +1021,24 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 		this.useAdvancedPedigreeFilters = useAdvancedPedigreeFilters;
 	}
 
-	public List<BedAnnotationOptions> getBedAnnotationOptions() {
+	public List<de.charite.compbio.jannovar.vardbs.bed.BedAnnotationOptions>
+			getBedAnnotationOptions() {
 		return bedAnnotationOptions;
 	}
 
-	public void setBedAnnotationOptions(List<BedAnnotationOptions> bedAnnotationOptions) {
+	public void setBedAnnotationOptions(
+			List<de.charite.compbio.jannovar.vardbs.bed.BedAnnotationOptions> bedAnnotationOptions) {
 		this.bedAnnotationOptions = bedAnnotationOptions;
 	}
 
+	public long getBedAnnotationMaxInMemorySize() {
+		return bedAnnotationMaxInMemorySize;
+	}
+
+	public void setBedAnnotationMaxInMemorySize(long bedAnnotationMaxInMemorySize) {
+		this.bedAnnotationMaxInMemorySize = bedAnnotationMaxInMemorySize;
+	}
+
 	public Integer getThreshDeNovoParentAd2() {
 		return threshDeNovoParentAd2;
 	}
@@ -841,6 +1103,118 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 		this.vcfAnnotationOptions = vcfAnnotationOptions;
 	}
 
+	public int getScatterShards() {
+		return scatterShards;
+	}
+
+	public void setScatterShards(int scatterShards) {
+		this.scatterShards = scatterShards;
+	}
+
+	public int getScatterThreads() {
+		return scatterThreads;
+	}
+
+	public void setScatterThreads(int scatterThreads) {
+		this.scatterThreads = scatterThreads;
+	}
+
+	public int getInputThreads() {
+		return inputThreads;
+	}
+
+	public void setInputThreads(int inputThreads) {
+		this.inputThreads = inputThreads;
+	}
+
+	public int getReadAheadBatches() {
+		return readAheadBatches;
+	}
+
+	public void setReadAheadBatches(int readAheadBatches) {
+		this.readAheadBatches = readAheadBatches;
+	}
+
+	public int getReadAheadBatchSize() {
+		return readAheadBatchSize;
+	}
+
+	public void setReadAheadBatchSize(int readAheadBatchSize) {
+		this.readAheadBatchSize = readAheadBatchSize;
+	}
+
+	public int getOutputThreads() {
+		return outputThreads;
+	}
+
+	public void setOutputThreads(int outputThreads) {
+		this.outputThreads = outputThreads;
+	}
+
+	public int getOutputCompressionLevel() {
+		return outputCompressionLevel;
+	}
+
+	public void setOutputCompressionLevel(int outputCompressionLevel) {
+		this.outputCompressionLevel = outputCompressionLevel;
+	}
+
+	public List<String> getDatabaseFilePaths() {
+		return databaseFilePaths;
+	}
+
+	public void setDatabaseFilePaths(List<String> databaseFilePaths) {
+		this.databaseFilePaths = databaseFilePaths;
+	}
+
+	public List<String> getDatabaseInfoFields() {
+		return databaseInfoFields;
+	}
+
+	public void setDatabaseInfoFields(List<String> databaseInfoFields) {
+		this.databaseInfoFields = databaseInfoFields;
+	}
+
+	public int getDatabaseThreads() {
+		return databaseThreads;
+	}
+
+	public void setDatabaseThreads(int databaseThreads) {
+		this.databaseThreads = databaseThreads;
+	}
+
+	public int getAnnotationThreads() {
+		return annotationThreads;
+	}
+
+	public void setAnnotationThreads(int annotationThreads) {
+		this.annotationThreads = annotationThreads;
+	}
+
+	public boolean isGvcf() {
+		return gvcf;
+	}
+
+	public void setGvcf(boolean gvcf) {
+		this.gvcf = gvcf;
+	}
+
+	public boolean isPassThrough() {
+		return passThrough;
+	}
+
+	public void setPassThrough(boolean passThrough) {
+		this.passThrough = passThrough;
+	}
+
+	public FrequencyPruner.Mode getFrequencyPruneMode() {
+		return frequencyPruneMode;
+	}
+
+	public void setFrequencyPruneMode(FrequencyPruner.Mode frequencyPruneMode) {
+		this.frequencyPruneMode = frequencyPruneMode;
+	}
+
 	public boolean isUseParentGtIsFiltered() {
 		return useParentGtIsFiltered;
 	}
@@ -852,7 +1226,7 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 	@Override
 	public String toString() {
 		return "JannovarAnnotateVCFOptions [escapeAnnField=" + escapeAnnField + ", pathInputVCF="
-				+ pathInputVCF + ", interval=" + interval + ", pathOutputVCF=" + pathOutputVCF
+				+ pathInputVCF + ", pathInputVCFs=" + pathInputVCFs + ", interval=" + interval + ", pathOutputVCF=" + pathOutputVCF
 				+ ", pathVCFDBSNP=" + pathVCFDBSNP + ", prefixDBSNP=" + prefixDBSNP
 				+ ", pathFASTARef=" + pathFASTARef + ", pathVCFExac=" + pathVCFExac
 				+ ", prefixExac=" + prefixExac + ", pathVCFGnomadExomes=" + pathVCFGnomadExomes
@@ -871,90 +1245,72 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 				+ ", threshFiltMaxGtAafHomRef=" + threshFiltMaxGtAafHomRef
 				+ ", threshFiltMaxAlleleFrequencyAd=" + threshFiltMaxAlleleFrequencyAd
 				+ ", threshFiltMaxAlleleFrequencyAr=" + threshFiltMaxAlleleFrequencyAr
+				+ ", threshFiltSampleCallers=" + threshFiltSampleCallers
 				+ ", offTargetFilterEnabled=" + offTargetFilterEnabled
 				+ ", offTargetFilterUtrIsOffTarget=" + offTargetFilterUtrIsOffTarget
 				+ ", offTargetFilterIntronicSpliceIsOffTarget="
 				+ offTargetFilterIntronicSpliceIsOffTarget + ", inheritanceAnnoUseFilters="
-				+ inheritanceAnnoUseFilters + ", useParentGtIsFiltered=" + useParentGtIsFiltered
+				+ inheritanceAnnoUseFilters + ", inheritanceAnnoThreads=" + inheritanceAnnoThreads
+				+ ", useParentGtIsFiltered=" + useParentGtIsFiltered
 				+ ", threshDeNovoParentAd2=" + threshDeNovoParentAd2 + ", bedAnnotationOptions="
-				+ bedAnnotationOptions + ", dbNsfpColContig=" + dbNsfpColContig
+				+ bedAnnotationOptions + ", bedAnnotationMaxInMemorySize=" + bedAnnotationMaxInMemorySize
+				+ ", dbNsfpColContig=" + dbNsfpColContig
 				+ ", dbNsfpColPosition=" + dbNsfpColPosition + ", prefixDbNsfp=" + prefixDbNsfp
 				+ ", pathDbNsfp=" + pathDbNsfp + ", columnsDbNsfp=" + columnsDbNsfp
 				+ ", tsvAnnotationOptions=" + tsvAnnotationOptions + ", vcfAnnotationOptions="
-				+ vcfAnnotationOptions + "]";
+				+ vcfAnnotationOptions + ", scatterShards=" + scatterShards + ", scatterThreads="
+				+ scatterThreads + ", inputThreads=" + inputThreads + ", readAheadBatches=" + readAheadBatches
+				+ ", readAheadBatchSize=" + readAheadBatchSize + ", outputThreads=" + outputThreads
+				+ ", outputCompressionLevel=" + outputCompressionLevel + ", passThrough=" + passThrough + ", frequencyPruneMode="
+				+ frequencyPruneMode + ", databaseFilePaths=" + databaseFilePaths + ", databaseInfoFields="
+				+ databaseInfoFields + ", databaseThreads=" + databaseThreads + ", gvcf=" + gvcf + ", annotationThreads="
+				+ annotationThreads + "]";
+	}
+
+	/**
+	 * @return default INFO field for the database at <code>path</code>, given at position <code>index</code>,
+	 *         <tt>ANN</tt> for the first database and <tt>ANN_</tt> with the upper-case file name without
+	 *         <tt>.ser</tt> for the others
+	 */
+	static String defaultDatabaseInfoField(int index, String path) {
+		if (index == 0)
+			return VariantEffectHeaderExtender.INFO_ANN;
+		String name = new File(path).getName();
+		if (name.endsWith(".ser"))
+			name = name.substring(0, name.length() - ".ser".length());
+		return VariantEffectHeaderExtender.INFO_ANN + "_" + name.toUpperCase().replaceAll("[^A-Z0-9_]", "_");
 	}
 
+
 	/**
 	 * Configuration for annotation with BED file.
+	 *
+	 * @deprecated moved to {@link de.charite.compbio.jannovar.vardbs.bed.BedAnnotationOptions}
 	 */
-	public static class BedAnnotationOptions {
+	@Deprecated
+	public static class BedAnnotationOptions extends de.charite.compbio.jannovar.vardbs.bed.BedAnnotationOptions {
 
 		/**
 		 * Construct new BED annotation from command line option value.
-		 * 
-		 * <p>
-		 * The value must have the format: <code>pathToBed:infoField:description[:colNo]</code>
-		 * </p>
-		 * 
-		 * @param strValue String to parse from
+		 *
+		 * @param strValue
+		 *            String to parse from, with the format
+		 *            <code>pathToBed:infoField:description[:colNo]</code>
 		 * @return Constructed {@link BedAnnotationOptions} from the given string value.
 		 */
 		public static BedAnnotationOptions parseFrom(String strValue) {
-			String tokens[] = strValue.split(":", 4);
-			if (tokens.length < 3) {
-				throw new RuntimeException("Could not parse BED annotation from " + strValue);
-			} else if (tokens.length == 3) {
-				return new BedAnnotationOptions(tokens[0], tokens[1], tokens[2]);
-			} else {
-				return new BedAnnotationOptions(tokens[0], tokens[1], tokens[2],
-						Integer.parseInt(tokens[3]));
-			}
+			final de.charite.compbio.jannovar.vardbs.bed.BedAnnotationOptions options =
+					de.charite.compbio.jannovar.vardbs.bed.BedAnnotationOptions.parseFrom(strValue);
+			return new BedAnnotationOptions(options.getPathBed(), options.getInfoField(), options.getDescription(),
+					options.getColNo());
 		}
 
-		/** Path to BED file */
-		private final String pathBed;
-
-		/** Label to use for INFO field. */
-		private final String infoField;
-
-		/** Description to use for INFO field. */
-		private final String description;
-
-		/** 0-based column to write into VCF file, if any, <code>-1</code> for none */
-		private final int colNo;
-
 		public BedAnnotationOptions(String pathBed, String infoField, String description) {
-			this(pathBed, infoField, description, -1);
-		}
-
-		public BedAnnotationOptions(String pathBed, String infoField, String description,
-				int colNo) {
-			this.pathBed = pathBed;
-			this.infoField = infoField;
-			this.description = description;
-			this.colNo = colNo;
-		}
-
-		public String getPathBed() {
-			return pathBed;
-		}
-
-		public int getColNo() {
-			return colNo;
-		}
-
-		public String getInfoField() {
-			return infoField;
-		}
-
-		public String getDescription() {
-			return description;
+			super(pathBed, infoField, description);
 		}
 
-		@Override
-		public String toString() {
-			return "BedAnnotationOptions [pathBed=" + pathBed + ", colNo=" + colNo + ", infoField="
-					+ infoField + ", description=" + description + "]";
+		public BedAnnotationOptions(String pathBed, String infoField, String description, int colNo) {
+			super(pathBed, infoField, description, colNo);
 		}
 
 	}
@@ -0,0 +1,78 @@
+package de.charite.compbio.jannovar.cmd.db_patch;
+
+import com.google.common.collect.Lists;
+
+import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
+import de.charite.compbio.jannovar.cmd.JannovarCommand;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.JannovarDataPatch;
+import de.charite.compbio.jannovar.data.JannovarDataPatchSerializer;
+import de.charite.compbio.jannovar.data.JannovarDataSerializer;
+import de.charite.compbio.jannovar.datasource.DataSourceFactory;
+import de.charite.compbio.jannovar.datasource.DatasourceOptions;
+import net.sourceforge.argparse4j.inf.Namespace;
+
+/**
+ * Implementation of the <tt>db-patch</tt> command.
+ *
+ * Creates a {@link JannovarDataPatch} between a database and an updated one (given as <tt>.ser</tt> file or built from
+ * a data source), or applies patches to a database and writes out the result.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public final class DBPatchCommand extends JannovarCommand {
+
+	private JannovarDBPatchOptions options;
+
+	public DBPatchCommand(String argv[], Namespace args) throws CommandLineParsingException {
+		this.options = new JannovarDBPatchOptions();
+		this.options.setFromArgs(args);
+	}
+
+	@Override
+	public void run() throws JannovarException {
+		System.err.println("Options");
+		System.err.println(options.toString());
+
+		System.err.println("Deserializing transcripts from " + options.getDatabaseFilePath() + "...");
+		final JannovarData base = new JannovarDataSerializer(options.getDatabaseFilePath()).load();
+
+		if (options.isCreatePatch())
+			createPatch(base);
+		else
+			applyPatches(base);
+	}
+
+	/** Create patch from <code>base</code> to the updated database */
+	private void createPatch(JannovarData base) throws JannovarException {
+		final JannovarData updated;
+		if (options.getUpdatedDatabaseFilePath() != null) {
+			System.err.println("Deserializing transcripts from " + options.getUpdatedDatabaseFilePath() + "...");
+			updated = new JannovarDataSerializer(options.getUpdatedDatabaseFilePath()).load();
+		} else {
+			DatasourceOptions dsOptions = new DatasourceOptions(options.getHttpProxy(), options.getHttpsProxy(),
+					options.getFtpProxy(), options.isReportProgress());
+			DataSourceFactory factory = new DataSourceFactory(dsOptions, Lists.reverse(options.dataSourceFiles));
+			System.err.println("Downloading/parsing for data source \"" + options.getDataSourceName() + "\"");
+			updated = factory.getDataSource(options.getDataSourceName()).getDataFactory()
+					.build(options.getDownloadDir(), options.isReportProgress());
+		}
+
+		final JannovarDataPatch patch = JannovarDataPatch.diff(base, updated);
+		System.err.println("Computed " + patch);
+		new JannovarDataPatchSerializer(options.getOutputPatchPath()).save(patch);
+	}
+
+	/** Apply the patches to <code>base</code> and write out the result */
+	private void applyPatches(JannovarData base) throws JannovarException {
+		JannovarData data = base;
+		for (String path : options.getPatchPaths()) {
+			final JannovarDataPatch patch = new JannovarDataPatchSerializer(path).load();
+			System.err.println("Applying database patch " + path + " " + patch);
+			data = patch.applyTo(data);
+		}
+		new JannovarDataSerializer(options.getOutputDatabasePath()).save(data);
+	}
+
+}
@@ -0,0 +1,185 @@
+package de.charite.compbio.jannovar.cmd.db_patch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import de.charite.compbio.jannovar.UncheckedJannovarException;
+import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
+import de.charite.compbio.jannovar.cmd.JannovarBaseOptions;
+import de.charite.compbio.jannovar.cmd.JannovarDBOptions;
+import net.sourceforge.argparse4j.impl.Arguments;
+import net.sourceforge.argparse4j.inf.ArgumentGroup;
+import net.sourceforge.argparse4j.inf.ArgumentParser;
+import net.sourceforge.argparse4j.inf.Namespace;
+import net.sourceforge.argparse4j.inf.Subparser;
+import net.sourceforge.argparse4j.inf.Subparsers;
+
+/**
+ * Configuration for the <tt>db-patch</tt> command
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public class JannovarDBPatchOptions extends JannovarDBOptions {
+
+	/** Path to the database .ser file to patch */
+	private String databaseFilePath = null;
+
+	/** Path to the updated database .ser file to compute the patch against, if any */
+	private String updatedDatabaseFilePath = null;
+
+	/** Name of the data source to build the updated database from, if any */
+	private String dataSourceName = null;
+
+	/** Path to download directory, used with {@link #dataSourceName} */
+	private String downloadDir = null;
+
+	/** Path to the patch file to write */
+	private String outputPatchPath = null;
+
+	/** Paths to the patch files to apply */
+	private List<String> patchPaths = new ArrayList<>();
+
+	/** Path to the patched database .ser file to write */
+	private String outputDatabasePath = null;
+
+	/**
+	 * Setup {@link ArgumentParser}
+	 *
+	 * @param subParsers
+	 *            {@link Subparsers} to setup
+	 */
+	public static void setupParser(Subparsers subParsers) {
+		BiFunction<String[], Namespace, DBPatchCommand> handler = (argv, args) -> {
+			try {
+				return new DBPatchCommand(argv, args);
+			} catch (CommandLineParsingException e) {
+				throw new UncheckedJannovarException("Could not parse command line", e);
+			}
+		};
+
+		Subparser subParser = subParsers.addParser("db-patch", true)
+				.help("create or apply transcript database patches").setDefault("cmd", handler);
+		subParser.description("Create a patch between two transcript databases or apply patches to a database");
+
+		ArgumentGroup requiredGroup = subParser.addArgumentGroup("Required arguments");
+		requiredGroup.addArgument("-d", "--database").help("Path to database .ser file to patch").required(true);
+
+		ArgumentGroup createGroup = subParser.addArgumentGroup("Patch creation arguments");
+		createGroup.addArgument("--updated-database").help("Path to updated database .ser file to create patch for");
+		createGroup.addArgument("--data-source").help("Name of data source to build updated database from");
+		createGroup.addArgument("--output-patch").help("Path to patch file to write");
+		createGroup.addArgument("-s", "--data-source-list").help("INI file with data source list")
+				.setDefault(new ArrayList<String>(Arrays.asList("bundle:///default_sources.ini")))
+				.action(Arguments.append());
+		createGroup.addArgument("--download-dir").help("Path to download directory").setDefault("data");
+
+		ArgumentGroup applyGroup = subParser.addArgumentGroup("Patch application arguments");
+		applyGroup.addArgument("--patch").help("Path to patch file to apply, can be given multiple times")
+				.setDefault(new ArrayList<String>()).action(Arguments.append());
+		applyGroup.addArgument("--output-database").help("Path to patched database .ser file to write");
+
+		subParser.epilog("Example: java -jar Jannovar.jar db-patch -d hg19_refseq.ser --data-source hg19/refseq "
+				+ "--output-patch hg19_refseq.patch");
+
+		JannovarBaseOptions.setupParser(subParser);
+	}
+
+	@Override
+	public void setFromArgs(Namespace args) throws CommandLineParsingException {
+		super.setFromArgs(args);
+
+		databaseFilePath = args.getString("database");
+		updatedDatabaseFilePath = args.getString("updated_database");
+		dataSourceName = args.getString("data_source");
+		downloadDir = args.getString("download_dir");
+		outputPatchPath = args.getString("output_patch");
+		patchPaths = args.getList("patch");
+		outputDatabasePath = args.getString("output_database");
+
+		if (updatedDatabaseFilePath != null && dataSourceName != null)
+			throw new CommandLineParsingException("Only one of --updated-database and --data-source can be given.");
+		if (isCreatePatch()) {
+			if (outputPatchPath == null)
+				throw new CommandLineParsingException("Patch creation requires --output-patch.");
+			if (!patchPaths.isEmpty() || outputDatabasePath != null)
+				throw new CommandLineParsingException(
+						"--patch and --output-database cannot be combined with patch creation.");
+		} else {
+			if (patchPaths.isEmpty() || outputDatabasePath == null)
+				throw new CommandLineParsingException("Give --updated-database or --data-source with --output-patch "
+						+ "to create a patch, or --patch with --output-database to apply patches.");
+		}
+	}
+
+	/** @return whether to create a patch rather than apply patches */
+	public boolean isCreatePatch() {
+		return updatedDatabaseFilePath != null || dataSourceName != null;
+	}
+
+	public String getDatabaseFilePath() {
+		return databaseFilePath;
+	}
+
+	public void setDatabaseFilePath(String databaseFilePath) {
+		this.databaseFilePath = databaseFilePath;
+	}
+
+	public String getUpdatedDatabaseFilePath() {
+		return updatedDatabaseFilePath;
+	}
+
+	public void setUpdatedDatabaseFilePath(String updatedDatabaseFilePath) {
+		this.updatedDatabaseFilePath = updatedDatabaseFilePath;
+	}
+
+	public String getDataSourceName() {
+		return dataSourceName;
+	}
+
+	public void setDataSourceName(String dataSourceName) {
+		this.dataSourceName = dataSourceName;
+	}
+
+	public String getDownloadDir() {
+		return downloadDir;
+	}
+
+	public void setDownloadDir(String downloadDir) {
+		this.downloadDir = downloadDir;
+	}
+
+	public String getOutputPatchPath() {
+		return outputPatchPath;
+	}
+
+	public void setOutputPatchPath(String outputPatchPath) {
+		this.outputPatchPath = outputPatchPath;
+	}
+
+	public List<String> getPatchPaths() {
+		return patchPaths;
+	}
+
+	public void setPatchPaths(List<String> patchPaths) {
+		this.patchPaths = patchPaths;
+	}
+
+	public String getOutputDatabasePath() {
+		return outputDatabasePath;
+	}
+
+	public void setOutputDatabasePath(String outputDatabasePath) {
+		this.outputDatabasePath = outputDatabasePath;
+	}
+
+	@Override
+	public String toString() {
+		return "JannovarDBPatchOptions [databaseFilePath=" + databaseFilePath + ", updatedDatabaseFilePath="
+				+ updatedDatabaseFilePath + ", dataSourceName=" + dataSourceName + ", downloadDir=" + downloadDir
+				+ ", outputPatchPath=" + outputPatchPath + ", patchPaths=" + patchPaths + ", outputDatabasePath="
+				+ outputDatabasePath + ", toString()=" + super.toString() + "]";
+	}
+
+}
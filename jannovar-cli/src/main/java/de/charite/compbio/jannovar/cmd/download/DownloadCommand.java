@@ -4,6 +4,7 @@ import com.google.common.collect.Lists;
 import de.charite.compbio.jannovar.JannovarException;
 import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
 import de.charite.compbio.jannovar.cmd.JannovarCommand;
+import de.charite.compbio.jannovar.data.ChunkedJannovarDataSerializer;
 import de.charite.compbio.jannovar.data.JannovarData;
 import de.charite.compbio.jannovar.data.JannovarDataSerializer;
 import de.charite.compbio.jannovar.datasource.DataSourceFactory;
@@ -44,8 +45,10 @@ public final class DownloadCommand extends JannovarCommand {
 					.build(options.getDownloadDir(), options.isReportProgress());
 			String filename = PathUtil.join(options.getDownloadDir(),
 					name.replace('/', '_').replace('\\', '_') + ".ser");
-			JannovarDataSerializer serializer = new JannovarDataSerializer(filename);
-			serializer.save(data);
+			if (options.isChunked())
+				new ChunkedJannovarDataSerializer(filename).save(data);
+			else
+				new JannovarDataSerializer(filename).save(data);
 		}
 	}
 
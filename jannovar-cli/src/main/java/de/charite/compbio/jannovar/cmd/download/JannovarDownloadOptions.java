@@ -29,6 +29,9 @@ public class JannovarDownloadOptions extends JannovarDBOptions {
 	/** Names of the databases to download */
 	private List<String> databaseNames = new ArrayList<>();
 
+	/** Whether or not to write the databases in the chunked layout */
+	private boolean chunked = false;
+
 	/**
 	 * Setup {@link ArgumentParser}
 	 *
@@ -56,6 +59,9 @@ public class JannovarDownloadOptions extends JannovarDBOptions {
 		optionalGroup.addArgument("-s", "--data-source-list").help("INI file with data source list")
 				.setDefault(new ArrayList<String>(Arrays.asList("bundle:///default_sources.ini"))).action(Arguments.append());
 		optionalGroup.addArgument("--download-dir").help("Path to download directory").setDefault("data");
+		optionalGroup.addArgument("--chunked")
+				.help("Write databases in chunked layout, such that only the chromosomes used are loaded on annotation")
+				.dest("chunked").setDefault(false).action(Arguments.storeTrue());
 
 		JannovarBaseOptions.setupParser(subParser);
 	}
@@ -66,6 +72,7 @@ public class JannovarDownloadOptions extends JannovarDBOptions {
 
 		downloadDir = args.getString("download_dir");
 		databaseNames = args.getList("database");
+		chunked = args.getBoolean("chunked");
 	}
 
 	public String getDownloadDir() {
@@ -84,9 +91,17 @@ public class JannovarDownloadOptions extends JannovarDBOptions {
 		this.databaseNames = databaseNames;
 	}
 
+	public boolean isChunked() {
+		return chunked;
+	}
+
+	public void setChunked(boolean chunked) {
+		this.chunked = chunked;
+	}
+
 	@Override
 	public String toString() {
-		return "JannovarDownloadOptions [downloadDir=" + downloadDir + ", getDataSourceFiles()=" + getDataSourceFiles()
+		return "JannovarDownloadOptions [downloadDir=" + downloadDir + ", chunked=" + chunked + ", getDataSourceFiles()=" + getDataSourceFiles()
 				+ ", isReportProgress()=" + isReportProgress() + ", getHttpProxy()=" + getHttpProxy()
 				+ ", getHttpsProxy()=" + getHttpsProxy() + ", getFtpProxy()=" + getFtpProxy() + "]";
 	}
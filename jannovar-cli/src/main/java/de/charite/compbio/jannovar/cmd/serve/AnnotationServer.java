@@ -0,0 +1,599 @@
+package de.charite.compbio.jannovar.cmd.serve;
+
+import java.io.BufferedReader;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.ListMultimap;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import de.charite.compbio.jannovar.annotation.AllAnnotationListTextGenerator;
+import de.charite.compbio.jannovar.annotation.BestAnnotationListTextGenerator;
+import de.charite.compbio.jannovar.annotation.VariantAnnotations;
+import de.charite.compbio.jannovar.annotation.VariantAnnotationsTextGenerator;
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.hgvs.AminoAcidCode;
+import de.charite.compbio.jannovar.hgvs.HGVSVariant;
+import de.charite.compbio.jannovar.hgvs.bridge.CannotTranslateHGVSVariant;
+import de.charite.compbio.jannovar.hgvs.nts.variant.SingleAlleleNucleotideVariant;
+import de.charite.compbio.jannovar.hgvs.parser.HGVSParser;
+import de.charite.compbio.jannovar.hgvs.parser.HGVSParsingException;
+import de.charite.compbio.jannovar.htsjdk.VariantContextAnnotator;
+import de.charite.compbio.jannovar.htsjdk.VariantContextWriterConstructionHelper;
+import de.charite.compbio.jannovar.htsjdk.VariantEffectHeaderExtender;
+import de.charite.compbio.jannovar.reference.GenomePosition;
+import de.charite.compbio.jannovar.reference.GenomeVariant;
+import de.charite.compbio.jannovar.reference.PositionType;
+import de.charite.compbio.jannovar.reference.Strand;
+import htsjdk.tribble.TribbleException;
+import htsjdk.tribble.readers.LineIterator;
+import htsjdk.tribble.readers.LineIteratorImpl;
+import htsjdk.tribble.readers.SynchronousLineReader;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.vcf.VCFCodec;
+import htsjdk.variant.vcf.VCFHeader;
+
+/**
+ * Local HTTP server for annotating variants with databases that are kept in memory
+ *
+ * The following endpoints are available, the database is selected with the <code>db</code> query parameter (default
+ * is the first database):
+ *
+ * <ul>
+ * <li><code>GET /health</code> returns <code>OK</code></li>
+ * <li><code>GET /databases</code> returns the names of the databases, one per line</li>
+ * <li><code>GET /metrics</code> returns request counts and latencies per endpoint as TSV</li>
+ * <li><code>GET|POST /annotate-pos</code> annotates chromosomal changes such as <code>chr1:12345C&gt;A</code>, given
+ * as <code>change</code> query parameters or one per line in the request body, in the format of
+ * <code>annotate-pos</code></li>
+ * <li><code>GET|POST /annotate-hgvs</code> annotates HGVS nucleotide variants such as
+ * <code>NM_000138.4:c.1A&gt;G</code>, given as <code>hgvs</code> query parameters or one per line in the request body,
+ * requires a reference FASTA file</li>
+ * <li><code>POST /annotate-vcf</code> annotates the VCF file in the request body and streams back the annotated VCF
+ * file</li>
+ * </ul>
+ *
+ * Requests are read and written on connection threads, the variants are annotated in batches on a bounded pool of
+ * worker threads. Each request has at most {@link #MAX_BATCHES_IN_FLIGHT} batches submitted at a time, such that
+ * streamed VCF files are only read as fast as they are annotated and written. Requests beyond the configured maximal
+ * number of concurrent requests are rejected with status <code>503</code>.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public final class AnnotationServer {
+
+	/** Maximal number of batches submitted to the workers for one request */
+	static final int MAX_BATCHES_IN_FLIGHT = 2;
+
+	/** Pattern for chromosomal changes, see {@link #parseGenomeChange} */
+	private static final Pattern GENOME_CHANGE_PATTERN = Pattern.compile("([^:\\s]+):([0-9]+)([ACGTN]*)>([ACGTN]*)");
+
+	/** Header line for the TSV output of the variant endpoints */
+	private static final String TSV_HEADER = "#change\teffect\thgvs_annotation\tmessages";
+
+	/** The databases, by name, the first one is the default */
+	private final ImmutableMap<String, ServedDatabase> databases;
+	/** Amino acid code to use in HGVS output */
+	private final AminoAcidCode aminoAcidCode;
+	/** Whether or not to write all annotations in the TSV output */
+	private final boolean showAll;
+	/** Number of variants to annotate in one batch */
+	private final int batchSize;
+
+	/** The HTTP server */
+	private final HttpServer httpServer;
+	/** Threads for reading requests and writing responses */
+	private final ExecutorService connectionExecutor;
+	/** Threads for annotating batches of variants */
+	private final ExecutorService workers;
+	/** Permits for concurrent requests */
+	private final Semaphore requestPermits;
+	/** Metrics by endpoint name */
+	private final ImmutableMap<String, LatencyMetrics> metrics;
+
+	/**
+	 * Construct server, bound to <code>address</code> but not started yet
+	 *
+	 * @param databases
+	 *            the databases to serve, the first one is the default
+	 * @param address
+	 *            address to bind to, use port <code>0</code> for choosing a free port
+	 * @param numThreads
+	 *            number of worker threads for annotation
+	 * @param maxRequests
+	 *            maximal number of requests to process at the same time
+	 * @param batchSize
+	 *            number of variants to annotate in one batch
+	 * @param aminoAcidCode
+	 *            amino acid code to use in HGVS output
+	 * @param showAll
+	 *            whether or not to write all annotations in the TSV output
+	 * @throws IOException
+	 *             on problems binding to <code>address</code>
+	 */
+	public AnnotationServer(List<ServedDatabase> databases, InetSocketAddress address, int numThreads,
+			int maxRequests, int batchSize, AminoAcidCode aminoAcidCode, boolean showAll) throws IOException {
+		if (databases.isEmpty())
+			throw new IllegalArgumentException("At least one database is required");
+		ImmutableMap.Builder<String, ServedDatabase> dbBuilder = new ImmutableMap.Builder<>();
+		for (ServedDatabase db : databases)
+			dbBuilder.put(db.getName(), db);
+		this.databases = dbBuilder.build();
+		this.aminoAcidCode = aminoAcidCode;
+		this.showAll = showAll;
+		this.batchSize = batchSize;
+		this.requestPermits = new Semaphore(maxRequests);
+
+		this.connectionExecutor = Executors.newCachedThreadPool(daemonThreadFactory("jannovar-http"));
+		this.workers = Executors.newFixedThreadPool(numThreads, daemonThreadFactory("jannovar-worker"));
+
+		ImmutableMap.Builder<String, LatencyMetrics> metricsBuilder = new ImmutableMap.Builder<>();
+		for (String name : ImmutableList.of("annotate-pos", "annotate-hgvs", "annotate-vcf"))
+			metricsBuilder.put(name, new LatencyMetrics(name));
+		this.metrics = metricsBuilder.build();
+
+		this.httpServer = HttpServer.create(address, 0);
+		this.httpServer.setExecutor(connectionExecutor);
+		this.httpServer.createContext("/health", ex -> respondSimple(ex, "OK\n"));
+		this.httpServer.createContext("/databases",
+				ex -> respondSimple(ex, String.join("\n", this.databases.keySet()) + "\n"));
+		this.httpServer.createContext("/metrics", ex -> respondSimple(ex, buildMetricsText()));
+		this.httpServer.createContext("/annotate-pos",
+				ex -> handle(ex, metrics.get("annotate-pos"), this::handleAnnotatePos));
+		this.httpServer.createContext("/annotate-hgvs",
+				ex -> handle(ex, metrics.get("annotate-hgvs"), this::handleAnnotateHGVS));
+		this.httpServer.createContext("/annotate-vcf",
+				ex -> handle(ex, metrics.get("annotate-vcf"), this::handleAnnotateVCF));
+	}
+
+	/** @return thread factory for daemon threads with numbered names starting with <code>prefix</code> */
+	private static ThreadFactory daemonThreadFactory(String prefix) {
+		final AtomicInteger counter = new AtomicInteger();
+		return r -> {
+			Thread t = new Thread(r, prefix + "-" + counter.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		};
+	}
+
+	/** Start accepting requests */
+	public void start() {
+		httpServer.start();
+	}
+
+	/**
+	 * Stop the server
+	 *
+	 * @param delaySeconds
+	 *            number of seconds to wait for running requests to finish
+	 */
+	public void stop(int delaySeconds) {
+		httpServer.stop(delaySeconds);
+		connectionExecutor.shutdownNow();
+		workers.shutdownNow();
+		try {
+			workers.awaitTermination(delaySeconds, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/** @return the port that the server listens on */
+	public int getPort() {
+		return httpServer.getAddress().getPort();
+	}
+
+	/** @return metrics by endpoint name */
+	public ImmutableMap<String, LatencyMetrics> getMetrics() {
+		return metrics;
+	}
+
+	/** @return text for the <code>/metrics</code> endpoint */
+	private String buildMetricsText() {
+		StringBuilder builder = new StringBuilder();
+		builder.append(LatencyMetrics.tsvHeader()).append('\n');
+		for (LatencyMetrics m : metrics.values())
+			builder.append(m.toTSV()).append('\n');
+		return builder.toString();
+	}
+
+	/** Send <code>text</code> as response to a request that needs no annotation */
+	private void respondSimple(HttpExchange exchange, String text) throws IOException {
+		try {
+			sendText(exchange, 200, text);
+		} finally {
+			exchange.close();
+		}
+	}
+
+	/** Send complete text response with the given status */
+	private static void sendText(HttpExchange exchange, int status, String text) throws IOException {
+		final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	/**
+	 * @return streamed response body of <code>exchange</code> that ignores {@link OutputStream#close}, such that the
+	 *         response is only completed when the exchange is closed, after {@link #handle} has recorded the metrics
+	 */
+	private static OutputStream responseBody(HttpExchange exchange) {
+		return new FilterOutputStream(exchange.getResponseBody()) {
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				out.write(b, off, len);
+			}
+
+			@Override
+			public void close() {
+				// closed through HttpExchange#close()
+			}
+		};
+	}
+
+	/**
+	 * Run <code>handler</code> for an annotation request, enforcing the limit on concurrent requests and recording the
+	 * metrics
+	 */
+	private void handle(HttpExchange exchange, LatencyMetrics endpointMetrics, EndpointHandler handler)
+			throws IOException {
+		if (!requestPermits.tryAcquire()) {
+			endpointMetrics.recordRejected();
+			try {
+				exchange.getResponseHeaders().set("Retry-After", "1");
+				sendText(exchange, 503, "Server busy, retry later\n");
+			} finally {
+				exchange.close();
+			}
+			return;
+		}
+
+		// The metrics are recorded before the response is complete, such that clients see them afterwards: streamed
+		// responses are completed by closing the exchange, error responses have a fixed length and are completed
+		// when their body has been written.
+		final long startTime = System.nanoTime();
+		try {
+			final long numVariants = handler.handle(exchange, parseQuery(exchange));
+			endpointMetrics.record(System.nanoTime() - startTime, numVariants, false);
+		} catch (RequestException e) {
+			endpointMetrics.record(System.nanoTime() - startTime, 0, true);
+			sendErrorIfPossible(exchange, e.getStatus(), e.getMessage());
+		} catch (IOException | RuntimeException e) {
+			endpointMetrics.record(System.nanoTime() - startTime, 0, true);
+			System.err.println("[ERROR] Problem handling request " + exchange.getRequestURI() + ": " + e.getMessage());
+			sendErrorIfPossible(exchange, 500, "Internal error: " + e.getMessage());
+		} finally {
+			requestPermits.release();
+			exchange.close();
+		}
+	}
+
+	/** Send error response, ignoring problems, e.g., when the response is already being streamed */
+	private static void sendErrorIfPossible(HttpExchange exchange, int status, String message) {
+		try {
+			sendText(exchange, status, message + "\n");
+		} catch (IOException e) {
+			// headers have already been sent or the client is gone, nothing left to do
+		}
+	}
+
+	/** @return query parameters of the request */
+	private static ListMultimap<String, String> parseQuery(HttpExchange exchange) throws RequestException {
+		ListMultimap<String, String> result = ArrayListMultimap.create();
+		final String query = exchange.getRequestURI().getRawQuery();
+		if (query == null || query.isEmpty())
+			return result;
+		try {
+			for (String pair : query.split("&")) {
+				if (pair.isEmpty())
+					continue;
+				final int idx = pair.indexOf('=');
+				if (idx == -1)
+					result.put(URLDecoder.decode(pair, "UTF-8"), "");
+				else
+					result.put(URLDecoder.decode(pair.substring(0, idx), "UTF-8"),
+							URLDecoder.decode(pair.substring(idx + 1), "UTF-8"));
+			}
+		} catch (UnsupportedEncodingException | IllegalArgumentException e) {
+			throw new RequestException(400, "Invalid query string: " + e.getMessage());
+		}
+		return result;
+	}
+
+	/** @return database selected with the <code>db</code> query parameter, or the default one */
+	private ServedDatabase selectDatabase(ListMultimap<String, String> params) throws RequestException {
+		if (!params.containsKey("db"))
+			return databases.values().iterator().next();
+		final String name = params.get("db").get(0);
+		final ServedDatabase db = databases.get(name);
+		if (db == null)
+			throw new RequestException(404, "Unknown database " + name);
+		return db;
+	}
+
+	/** @throws RequestException if the request method is not one of <code>methods</code> */
+	private static void checkMethod(HttpExchange exchange, String... methods) throws RequestException {
+		for (String method : methods)
+			if (method.equals(exchange.getRequestMethod()))
+				return;
+		throw new RequestException(405, "Method " + exchange.getRequestMethod() + " not allowed");
+	}
+
+	/** @return values of the query parameter <code>key</code>, followed by the non-empty lines of the body */
+	private static List<String> collectInputs(HttpExchange exchange, ListMultimap<String, String> params, String key)
+			throws IOException {
+		ArrayList<String> result = new ArrayList<>(params.get(key));
+		if ("POST".equals(exchange.getRequestMethod())) {
+			try (BufferedReader reader = new BufferedReader(
+					new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					line = line.trim();
+					if (!line.isEmpty() && !line.startsWith("#"))
+						result.add(line);
+				}
+			}
+		}
+		return result;
+	}
+
+	/** Handle <code>/annotate-pos</code> */
+	private long handleAnnotatePos(HttpExchange exchange, ListMultimap<String, String> params)
+			throws IOException, RequestException {
+		checkMethod(exchange, "GET", "POST");
+		final ServedDatabase db = selectDatabase(params);
+		final List<String> changes = collectInputs(exchange, params, "change");
+		return respondTSV(exchange, changes, change -> annotateGenomeChange(db, change));
+	}
+
+	/** Handle <code>/annotate-hgvs</code> */
+	private long handleAnnotateHGVS(HttpExchange exchange, ListMultimap<String, String> params)
+			throws IOException, RequestException {
+		checkMethod(exchange, "GET", "POST");
+		final ServedDatabase db = selectDatabase(params);
+		if (!db.canTranslateHGVS())
+			throw new RequestException(501, "Annotating HGVS variants requires starting the server with --ref-fasta");
+		final List<String> variants = collectInputs(exchange, params, "hgvs");
+		return respondTSV(exchange, variants, hgvs -> annotateHGVS(db, hgvs));
+	}
+
+	/** Annotate <code>inputs</code> in batches and stream the TSV lines back */
+	private long respondTSV(HttpExchange exchange, List<String> inputs, Function<String, String> annotate)
+			throws IOException {
+		exchange.getResponseHeaders().set("Content-Type", "text/tab-separated-values; charset=utf-8");
+		exchange.sendResponseHeaders(200, 0);
+		try (Writer writer = new OutputStreamWriter(responseBody(exchange), StandardCharsets.UTF_8)) {
+			writer.write(TSV_HEADER);
+			writer.write('\n');
+			return processInBatches(inputs.iterator(), annotate, line -> {
+				writer.write(line);
+				writer.write('\n');
+			});
+		}
+	}
+
+	/** Handle <code>/annotate-vcf</code> */
+	private long handleAnnotateVCF(HttpExchange exchange, ListMultimap<String, String> params)
+			throws IOException, RequestException {
+		checkMethod(exchange, "POST");
+		final ServedDatabase db = selectDatabase(params);
+		final VariantContextAnnotator annotator = db.getVariantContextAnnotator();
+
+		final LineIterator lines = new LineIteratorImpl(
+				new SynchronousLineReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)));
+		final VCFCodec codec = new VCFCodec();
+		final VCFHeader header;
+		try {
+			header = (VCFHeader) codec.readActualHeader(lines);
+		} catch (TribbleException e) {
+			throw new RequestException(400, "Invalid VCF header: " + e.getMessage());
+		}
+		new VariantEffectHeaderExtender().addHeaders(header);
+
+		// Records are decoded on this thread when the batches are filled, the codec is not thread-safe
+		final Iterator<VariantContext> records = Iterators
+				.transform(Iterators.filter(lines, line -> !line.isEmpty()), codec::decode);
+
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		exchange.sendResponseHeaders(200, 0);
+		try (VariantContextWriter writer = VariantContextWriterConstructionHelper.openVariantContextWriter(header,
+				responseBody(exchange), ImmutableList.of())) {
+			return processInBatches(records, annotator::annotateVariantContext, writer::add);
+		}
+	}
+
+	/**
+	 * Annotate items from <code>input</code> in batches on {@link #workers} and pass the results to
+	 * <code>output</code> in input order
+	 *
+	 * At most {@link #MAX_BATCHES_IN_FLIGHT} batches are submitted at a time, further input is only read once the
+	 * oldest batch has been written.
+	 *
+	 * @return number of processed items
+	 */
+	private <I, O> long processInBatches(Iterator<I> input, Function<I, O> annotate, OutputConsumer<O> output)
+			throws IOException {
+		final ArrayDeque<Future<List<O>>> inFlight = new ArrayDeque<>();
+		long count = 0;
+		try {
+			while (input.hasNext()) {
+				final ArrayList<I> batch = new ArrayList<>(batchSize);
+				while (input.hasNext() && batch.size() < batchSize)
+					batch.add(input.next());
+				count += batch.size();
+				inFlight.addLast(workers.submit(() -> batch.stream().map(annotate).collect(Collectors.toList())));
+				while (inFlight.size() >= MAX_BATCHES_IN_FLIGHT)
+					writeBatch(inFlight.removeFirst(), output);
+			}
+			while (!inFlight.isEmpty())
+				writeBatch(inFlight.removeFirst(), output);
+		} finally {
+			for (Future<List<O>> future : inFlight)
+				future.cancel(true);
+		}
+		return count;
+	}
+
+	/** Wait for <code>future</code> and pass its results to <code>output</code> */
+	private static <O> void writeBatch(Future<List<O>> future, OutputConsumer<O> output) throws IOException {
+		final List<O> results;
+		try {
+			results = future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for annotation", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new IOException("Problem with annotation", e.getCause());
+		}
+		for (O result : results)
+			output.accept(result);
+	}
+
+	/** @return TSV line with annotation of chromosomal change <code>change</code> */
+	private String annotateGenomeChange(ServedDatabase db, String change) {
+		final GenomeVariant variant = parseGenomeChange(db.getJannovarData().getRefDict(), change);
+		if (variant == null)
+			return buildErrorLine(change, "Invalid chromosomal change, expected {CHROMOSOME}:{POSITION}{REF}>{ALT}");
+		return annotateVariant(db, change, variant);
+	}
+
+	/** @return TSV line with annotation of HGVS variant <code>hgvs</code> */
+	private String annotateHGVS(ServedDatabase db, String hgvs) {
+		final HGVSVariant rawVar;
+		try {
+			rawVar = new HGVSParser().parseHGVSString(hgvs);
+		} catch (HGVSParsingException e) {
+			return buildErrorLine(hgvs, "Could not parse HGVS variant: " + e.getMessage());
+		}
+		if (!(rawVar instanceof SingleAlleleNucleotideVariant))
+			return buildErrorLine(hgvs, "Only nucleotide variants with one allele are supported");
+
+		final GenomeVariant variant;
+		try {
+			variant = db.translate((SingleAlleleNucleotideVariant) rawVar);
+		} catch (CannotTranslateHGVSVariant e) {
+			return buildErrorLine(hgvs, "Could not translate HGVS to genomic variant: " + e.getMessage());
+		}
+		return annotateVariant(db, hgvs, variant);
+	}
+
+	/** @return TSV line with the annotation of <code>variant</code>, given as <code>input</code> */
+	private String annotateVariant(ServedDatabase db, String input, GenomeVariant variant) {
+		final VariantAnnotations annoList;
+		try {
+			annoList = db.getVariantAnnotator().buildAnnotations(variant);
+		} catch (Exception e) {
+			return buildErrorLine(input, "Could not annotate variant: " + e.getMessage());
+		}
+
+		final VariantAnnotationsTextGenerator textGenerator;
+		if (showAll)
+			textGenerator = new AllAnnotationListTextGenerator(annoList, 0, 1);
+		else
+			textGenerator = new BestAnnotationListTextGenerator(annoList, 0, 1);
+		return String.format("%s\t%s\t%s\t%s", input, textGenerator.buildEffectText(),
+				textGenerator.buildHGVSText(aminoAcidCode), textGenerator.buildMessages());
+	}
+
+	/** @return TSV line for a variant that could not be annotated */
+	private static String buildErrorLine(String input, String message) {
+		return String.format("%s\tERROR\t\t%s", input, String.valueOf(message).replaceAll("\\s+", " "));
+	}
+
+	/**
+	 * Parse chromosomal change of the form <code>{CHROMOSOME}:{POSITION}{REF}&gt;{ALT}</code>, as used by the
+	 * <code>annotate-pos</code> command
+	 *
+	 * @return the parsed {@link GenomeVariant} or <code>null</code> if <code>changeStr</code> is invalid or the contig
+	 *         is unknown
+	 */
+	static GenomeVariant parseGenomeChange(ReferenceDictionary refDict, String changeStr) {
+		final Matcher match = GENOME_CHANGE_PATTERN.matcher(changeStr);
+		if (!match.matches())
+			return null;
+		final Integer chr = refDict.getContigNameToID().get(match.group(1));
+		if (chr == null)
+			return null;
+		final int pos = Integer.parseInt(match.group(2));
+		return new GenomeVariant(new GenomePosition(refDict, Strand.FWD, chr, pos, PositionType.ONE_BASED),
+				match.group(3), match.group(4));
+	}
+
+	/**
+	 * Handler for an annotation endpoint
+	 */
+	@FunctionalInterface
+	private interface EndpointHandler {
+
+		/** @return number of annotated variants */
+		long handle(HttpExchange exchange, ListMultimap<String, String> params) throws IOException, RequestException;
+
+	}
+
+	/**
+	 * Consumer of annotation results that writes to the response
+	 */
+	@FunctionalInterface
+	private interface OutputConsumer<O> {
+
+		void accept(O result) throws IOException;
+
+	}
+
+	/**
+	 * Thrown for requests that cannot be processed, carries the HTTP status to respond with
+	 */
+	private static final class RequestException extends Exception {
+
+		private static final long serialVersionUID = 1L;
+
+		/** HTTP status code */
+		private final int status;
+
+		RequestException(int status, String message) {
+			super(message);
+			this.status = status;
+		}
+
+		int getStatus() {
+			return status;
+		}
+
+	}
+
+}
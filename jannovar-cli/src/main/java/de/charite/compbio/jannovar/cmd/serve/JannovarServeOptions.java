@@ -0,0 +1,188 @@
+package de.charite.compbio.jannovar.cmd.serve;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import de.charite.compbio.jannovar.UncheckedJannovarException;
+import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
+import de.charite.compbio.jannovar.cmd.JannovarAnnotationOptions;
+import net.sourceforge.argparse4j.impl.Arguments;
+import net.sourceforge.argparse4j.inf.ArgumentGroup;
+import net.sourceforge.argparse4j.inf.ArgumentParser;
+import net.sourceforge.argparse4j.inf.Namespace;
+import net.sourceforge.argparse4j.inf.Subparser;
+import net.sourceforge.argparse4j.inf.Subparsers;
+
+/**
+ * Options for the <tt>serve</tt> command
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public class JannovarServeOptions extends JannovarAnnotationOptions {
+
+	/** Paths to the database .ser files to serve, the first one is the default */
+	private List<String> databaseFilePaths = new ArrayList<>();
+
+	/** Path to FAI-indexed FASTA file, required for annotating HGVS variants */
+	private String pathReferenceFASTA = null;
+
+	/** Host name or address to bind to */
+	private String host = "127.0.0.1";
+
+	/** Port to listen on, <code>0</code> for choosing a free port */
+	private int port = 8700;
+
+	/** Number of worker threads for annotation */
+	private int numThreads = 4;
+
+	/** Maximal number of requests processed at the same time, further requests are rejected */
+	private int maxRequests = 64;
+
+	/** Number of variants to annotate in one batch */
+	private int batchSize = 256;
+
+	/** Whether or not to escape the INFO/ANN field in VCF output */
+	private boolean escapeAnnField = true;
+
+	/**
+	 * Setup {@link ArgumentParser}
+	 *
+	 * @param subParsers
+	 *            {@link Subparsers} to setup
+	 */
+	public static void setupParser(Subparsers subParsers) {
+		BiFunction<String[], Namespace, ServeCommand> handler = (argv, args) -> {
+			try {
+				return new ServeCommand(argv, args);
+			} catch (CommandLineParsingException e) {
+				throw new UncheckedJannovarException("Could not parse command line", e);
+			}
+		};
+
+		Subparser subParser = subParsers.addParser("serve", true)
+				.help("serve annotation of variants over local HTTP").setDefault("cmd", handler);
+		subParser.description("Load annotation databases once and annotate variants, HGVS strings, and VCF files "
+				+ "sent over HTTP");
+		ArgumentGroup requiredGroup = subParser.addArgumentGroup("Required arguments");
+		requiredGroup.addArgument("-d", "--database")
+				.help("Path to database .ser file, you can give multiple ones, the first one is the default")
+				.action(Arguments.append()).required(true);
+
+		ArgumentGroup serverGroup = subParser.addArgumentGroup("Server Options");
+		serverGroup.addArgument("--ref-fasta")
+				.help("Path to FAI-indexed reference FASTA file, required for annotating HGVS variants")
+				.required(false);
+		serverGroup.addArgument("--host").help("Host name or address to bind to").setDefault("127.0.0.1");
+		serverGroup.addArgument("--port").help("Port to listen on, 0 for choosing a free port").type(Integer.class)
+				.setDefault(8700);
+		serverGroup.addArgument("--threads").help("Number of worker threads for annotation").type(Integer.class)
+				.setDefault(4);
+		serverGroup.addArgument("--max-requests")
+				.help("Maximal number of requests processed at the same time, further requests are rejected "
+						+ "with status 503")
+				.type(Integer.class).setDefault(64);
+		serverGroup.addArgument("--batch-size").help("Number of variants to annotate in one batch")
+				.type(Integer.class).setDefault(256);
+		serverGroup.addArgument("--no-escape-ann-field").help("Disable escaping of INFO/ANN field in VCF output")
+				.dest("escape_ann_field").setDefault(true).action(Arguments.storeFalse());
+
+		subParser.epilog("Example: java -jar Jannovar.jar serve -d hg19_refseq.ser -d hg19_ensembl.ser --port 8700");
+
+		JannovarAnnotationOptions.setupParser(subParser);
+	}
+
+	@Override
+	public void setFromArgs(Namespace args) throws CommandLineParsingException {
+		super.setFromArgs(args);
+
+		databaseFilePaths = args.getList("database");
+		setDatabaseFilePath(databaseFilePaths.get(0));
+		pathReferenceFASTA = args.getString("ref_fasta");
+		host = args.getString("host");
+		port = args.getInt("port");
+		numThreads = args.getInt("threads");
+		maxRequests = args.getInt("max_requests");
+		batchSize = args.getInt("batch_size");
+		escapeAnnField = args.getBoolean("escape_ann_field");
+
+		if (port < 0 || port > 65535)
+			throw new CommandLineParsingException("Value of --port must be between 0 and 65535.");
+		if (numThreads < 1 || maxRequests < 1 || batchSize < 1)
+			throw new CommandLineParsingException(
+					"Values of --threads, --max-requests, and --batch-size must be >= 1.");
+	}
+
+	public List<String> getDatabaseFilePaths() {
+		return databaseFilePaths;
+	}
+
+	public void setDatabaseFilePaths(List<String> databaseFilePaths) {
+		this.databaseFilePaths = databaseFilePaths;
+	}
+
+	public String getPathReferenceFASTA() {
+		return pathReferenceFASTA;
+	}
+
+	public void setPathReferenceFASTA(String pathReferenceFASTA) {
+		this.pathReferenceFASTA = pathReferenceFASTA;
+	}
+
+	public String getHost() {
+		return host;
+	}
+
+	public void setHost(String host) {
+		this.host = host;
+	}
+
+	public int getPort() {
+		return port;
+	}
+
+	public void setPort(int port) {
+		this.port = port;
+	}
+
+	public int getNumThreads() {
+		return numThreads;
+	}
+
+	public void setNumThreads(int numThreads) {
+		this.numThreads = numThreads;
+	}
+
+	public int getMaxRequests() {
+		return maxRequests;
+	}
+
+	public void setMaxRequests(int maxRequests) {
+		this.maxRequests = maxRequests;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	public boolean isEscapeAnnField() {
+		return escapeAnnField;
+	}
+
+	public void setEscapeAnnField(boolean escapeAnnField) {
+		this.escapeAnnField = escapeAnnField;
+	}
+
+	@Override
+	public String toString() {
+		return "JannovarServeOptions [databaseFilePaths=" + databaseFilePaths + ", pathReferenceFASTA="
+				+ pathReferenceFASTA + ", host=" + host + ", port=" + port + ", numThreads=" + numThreads
+				+ ", maxRequests=" + maxRequests + ", batchSize=" + batchSize + ", escapeAnnField=" + escapeAnnField
+				+ ", toString()=" + super.toString() + "]";
+	}
+
+}
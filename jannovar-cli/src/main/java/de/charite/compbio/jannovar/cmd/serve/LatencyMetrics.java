@@ -0,0 +1,147 @@
+package de.charite.compbio.jannovar.cmd.serve;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe request counts and latency statistics of one server endpoint
+ *
+ * The latencies are recorded in a histogram with power-of-two microsecond buckets, such that quantiles are reported
+ * as the upper bound of their bucket.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public final class LatencyMetrics {
+
+	/** Number of histogram buckets, the last one collects all latencies above 2^(NUM_BUCKETS - 2) microseconds */
+	private static final int NUM_BUCKETS = 40;
+
+	/** Name of the endpoint */
+	private final String name;
+	/** Number of completed requests */
+	private final LongAdder numRequests = new LongAdder();
+	/** Number of requests that failed */
+	private final LongAdder numErrors = new LongAdder();
+	/** Number of requests rejected because the server was busy */
+	private final LongAdder numRejected = new LongAdder();
+	/** Number of annotated variants */
+	private final LongAdder numVariants = new LongAdder();
+	/** Sum of latencies in nanoseconds */
+	private final LongAdder totalNanos = new LongAdder();
+	/** Maximal latency in nanoseconds */
+	private final AtomicLong maxNanos = new AtomicLong();
+	/** Histogram of latencies, bucket <code>i</code> counts latencies below 2^i microseconds */
+	private final AtomicLongArray histogram = new AtomicLongArray(NUM_BUCKETS);
+
+	/**
+	 * @param name
+	 *            name of the endpoint
+	 */
+	public LatencyMetrics(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Record a completed request
+	 *
+	 * @param nanos
+	 *            latency of the request in nanoseconds
+	 * @param variants
+	 *            number of variants annotated in the request
+	 * @param failed
+	 *            whether or not the request failed
+	 */
+	public void record(long nanos, long variants, boolean failed) {
+		numRequests.increment();
+		if (failed)
+			numErrors.increment();
+		numVariants.add(variants);
+		totalNanos.add(nanos);
+		maxNanos.accumulateAndGet(nanos, Math::max);
+		histogram.incrementAndGet(bucket(nanos));
+	}
+
+	/** Record a rejected request */
+	public void recordRejected() {
+		numRejected.increment();
+	}
+
+	/** @return histogram bucket for latency of <code>nanos</code> */
+	private static int bucket(long nanos) {
+		final long micros = Math.max(1, nanos / 1000);
+		final int bucket = 64 - Long.numberOfLeadingZeros(micros);
+		return Math.min(bucket, NUM_BUCKETS - 1);
+	}
+
+	/**
+	 * @param quantile
+	 *            quantile between <code>0</code> and <code>1</code>
+	 * @return upper bound of the given latency quantile in milliseconds, <code>0</code> without requests
+	 */
+	public double getQuantileMillis(double quantile) {
+		long total = 0;
+		for (int i = 0; i < NUM_BUCKETS; ++i)
+			total += histogram.get(i);
+		if (total == 0)
+			return 0;
+
+		final long rank = (long) Math.ceil(quantile * total);
+		long seen = 0;
+		for (int i = 0; i < NUM_BUCKETS; ++i) {
+			seen += histogram.get(i);
+			if (seen >= rank && seen > 0)
+				return Math.min((1L << i) / 1000.0, getMaxMillis());
+		}
+		return getMaxMillis();
+	}
+
+	/** @return name of the endpoint */
+	public String getName() {
+		return name;
+	}
+
+	/** @return number of completed requests */
+	public long getNumRequests() {
+		return numRequests.sum();
+	}
+
+	/** @return number of failed requests */
+	public long getNumErrors() {
+		return numErrors.sum();
+	}
+
+	/** @return number of rejected requests */
+	public long getNumRejected() {
+		return numRejected.sum();
+	}
+
+	/** @return number of annotated variants */
+	public long getNumVariants() {
+		return numVariants.sum();
+	}
+
+	/** @return mean latency in milliseconds, <code>0</code> without requests */
+	public double getMeanMillis() {
+		final long n = numRequests.sum();
+		return (n == 0) ? 0 : totalNanos.sum() / (n * 1_000_000.0);
+	}
+
+	/** @return maximal latency in milliseconds */
+	public double getMaxMillis() {
+		return maxNanos.get() / 1_000_000.0;
+	}
+
+	/** @return header line for {@link #toTSV} */
+	public static String tsvHeader() {
+		return "#endpoint\trequests\terrors\trejected\tvariants\tmean_ms\tp50_ms\tp99_ms\tmax_ms";
+	}
+
+	/** @return statistics as a TSV line */
+	public String toTSV() {
+		return String.format("%s\t%d\t%d\t%d\t%d\t%.3f\t%.3f\t%.3f\t%.3f", name, getNumRequests(), getNumErrors(),
+				getNumRejected(), getNumVariants(), getMeanMillis(), getQuantileMillis(0.5), getQuantileMillis(0.99),
+				getMaxMillis());
+	}
+
+}
@@ -0,0 +1,111 @@
+package de.charite.compbio.jannovar.cmd.serve;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.UncheckedJannovarException;
+import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
+import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
+import de.charite.compbio.jannovar.cmd.JannovarCommand;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.JannovarDataSerializer;
+import de.charite.compbio.jannovar.hgvs.AminoAcidCode;
+import de.charite.compbio.jannovar.htsjdk.PagedReferenceSequenceFile;
+import de.charite.compbio.jannovar.htsjdk.VariantContextAnnotator;
+import net.sourceforge.argparse4j.inf.Namespace;
+
+/**
+ * Load annotation databases once and serve annotation requests over local HTTP until the process is stopped
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public class ServeCommand extends JannovarCommand {
+
+	/** Configuration */
+	private JannovarServeOptions options;
+
+	public ServeCommand(String argv[], Namespace args) throws CommandLineParsingException {
+		this.options = new JannovarServeOptions();
+		this.options.setFromArgs(args);
+	}
+
+	@Override
+	public void run() throws JannovarException {
+		System.err.println("Options");
+		System.err.println(options.toString());
+
+		final AnnotationServer server;
+		try {
+			server = new AnnotationServer(loadDatabases(), new InetSocketAddress(options.getHost(), options.getPort()),
+					options.getNumThreads(), options.getMaxRequests(), options.getBatchSize(),
+					options.isUseThreeLetterAminoAcidCode() ? AminoAcidCode.THREE_LETTER : AminoAcidCode.ONE_LETTER,
+					options.isShowAll());
+		} catch (IOException e) {
+			throw new JannovarException("Could not start server on " + options.getHost() + ":" + options.getPort(),
+					e);
+		}
+
+		final CountDownLatch stopped = new CountDownLatch(1);
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			System.err.println("Stopping server...");
+			server.stop(1);
+			stopped.countDown();
+		}));
+
+		server.start();
+		System.err.println("Listening on http://" + options.getHost() + ":" + server.getPort() + "/");
+		try {
+			stopped.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Load the databases from {@link JannovarServeOptions#getDatabaseFilePaths()}
+	 *
+	 * @return the loaded {@link ServedDatabase}s, named after the file name without <code>.ser</code>
+	 * @throws JannovarException
+	 *             on problems with loading the databases
+	 */
+	private List<ServedDatabase> loadDatabases() throws JannovarException {
+		// The request handler threads share one thread-safe reader and its page cache.
+		PagedReferenceSequenceFile fasta = null;
+		if (options.getPathReferenceFASTA() != null) {
+			try {
+				fasta = PagedReferenceSequenceFile.getShared(options.getPathReferenceFASTA());
+			} catch (FileNotFoundException e) {
+				throw new UncheckedJannovarException("Could not load FASTA index", e);
+			}
+		}
+
+		final AnnotationBuilderOptions builderOptions = new AnnotationBuilderOptions();
+		final VariantContextAnnotator.Options vcfOptions = new VariantContextAnnotator.Options(!options.isShowAll(),
+				options.isUseThreeLetterAminoAcidCode() ? AminoAcidCode.THREE_LETTER : AminoAcidCode.ONE_LETTER,
+				options.isEscapeAnnField(), options.isNt3PrimeShifting(), false, false, false);
+
+		ArrayList<ServedDatabase> result = new ArrayList<>();
+		for (String path : options.getDatabaseFilePaths()) {
+			System.err.println("Deserializing transcripts from " + path + "...");
+			final JannovarData data = new JannovarDataSerializer(path).load();
+			result.add(new ServedDatabase(databaseName(path), data, builderOptions, vcfOptions, fasta));
+		}
+		return result;
+	}
+
+	/** @return name of the database at <code>path</code>, the file name without <code>.ser</code> */
+	static String databaseName(String path) {
+		final String fileName = new File(path).getName();
+		if (fileName.endsWith(".ser"))
+			return fileName.substring(0, fileName.length() - ".ser".length());
+		else
+			return fileName;
+	}
+
+}
@@ -0,0 +1,103 @@
+package de.charite.compbio.jannovar.cmd.serve;
+
+import de.charite.compbio.jannovar.annotation.VariantAnnotator;
+import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.hgvs.bridge.CannotTranslateHGVSVariant;
+import de.charite.compbio.jannovar.hgvs.bridge.NucleotideChangeToGenomeVariantTranslator;
+import de.charite.compbio.jannovar.hgvs.nts.variant.SingleAlleleNucleotideVariant;
+import de.charite.compbio.jannovar.htsjdk.VariantContextAnnotator;
+import de.charite.compbio.jannovar.reference.GenomeVariant;
+import htsjdk.samtools.reference.ReferenceSequenceFile;
+
+/**
+ * A {@link JannovarData} object that is kept in memory by the {@link AnnotationServer}, together with the annotators
+ * for it
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public final class ServedDatabase {
+
+	/** Name of the database, used for selecting it in requests */
+	private final String name;
+	/** The loaded database */
+	private final JannovarData jannovarData;
+	/** Annotator for single variants */
+	private final VariantAnnotator variantAnnotator;
+	/** Annotator for VCF records */
+	private final VariantContextAnnotator variantContextAnnotator;
+	/** Translation of HGVS variants, <code>null</code> if no reference FASTA file is available */
+	private final NucleotideChangeToGenomeVariantTranslator translator;
+	/** Reference FASTA file of {@link #translator}, shared between all served databases */
+	private final ReferenceSequenceFile fasta;
+
+	/**
+	 * @param name
+	 *            name of the database
+	 * @param jannovarData
+	 *            the loaded database
+	 * @param builderOptions
+	 *            {@link AnnotationBuilderOptions} for annotating single variants
+	 * @param vcfOptions
+	 *            {@link VariantContextAnnotator.Options} for annotating VCF records
+	 * @param fasta
+	 *            reference FASTA file for translating HGVS variants, may be <code>null</code>
+	 */
+	public ServedDatabase(String name, JannovarData jannovarData, AnnotationBuilderOptions builderOptions,
+			VariantContextAnnotator.Options vcfOptions, ReferenceSequenceFile fasta) {
+		this.name = name;
+		this.jannovarData = jannovarData;
+		this.variantAnnotator = new VariantAnnotator(jannovarData.getRefDict(), jannovarData.getChromosomes(),
+				builderOptions);
+		this.variantContextAnnotator = new VariantContextAnnotator(jannovarData.getRefDict(),
+				jannovarData.getChromosomes(), vcfOptions);
+		this.translator = (fasta == null) ? null : new NucleotideChangeToGenomeVariantTranslator(jannovarData, fasta);
+		this.fasta = fasta;
+	}
+
+	/** @return name of the database */
+	public String getName() {
+		return name;
+	}
+
+	/** @return the loaded database */
+	public JannovarData getJannovarData() {
+		return jannovarData;
+	}
+
+	/** @return annotator for single variants */
+	public VariantAnnotator getVariantAnnotator() {
+		return variantAnnotator;
+	}
+
+	/** @return annotator for VCF records */
+	public VariantContextAnnotator getVariantContextAnnotator() {
+		return variantContextAnnotator;
+	}
+
+	/** @return whether or not HGVS variants can be translated */
+	public boolean canTranslateHGVS() {
+		return translator != null;
+	}
+
+	/**
+	 * Translate HGVS nucleotide variant to genome variant
+	 *
+	 * The reference FASTA file is shared between all served databases, so the translation is serialized on it rather
+	 * than per database.
+	 *
+	 * @param variant
+	 *            the variant to translate
+	 * @return the translated {@link GenomeVariant}
+	 * @throws CannotTranslateHGVSVariant
+	 *             on problems with the translation
+	 */
+	public GenomeVariant translate(SingleAlleleNucleotideVariant variant) throws CannotTranslateHGVSVariant {
+		if (translator == null)
+			throw new CannotTranslateHGVSVariant("No reference FASTA file given, cannot translate HGVS variants");
+		synchronized (fasta) {
+			return translator.translateNucleotideVariantToGenomeVariant(variant, true);
+		}
+	}
+
+}
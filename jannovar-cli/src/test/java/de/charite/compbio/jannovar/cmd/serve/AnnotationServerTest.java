@@ -0,0 +1,124 @@
+package de.charite.compbio.jannovar.cmd.serve;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+
+import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.JannovarDataSerializer;
+import de.charite.compbio.jannovar.hgvs.AminoAcidCode;
+import de.charite.compbio.jannovar.htsjdk.VariantContextAnnotator;
+
+/**
+ * Tests for the {@link AnnotationServer}, running on a free port of localhost
+ */
+public class AnnotationServerTest {
+
+	/** the server under test */
+	private AnnotationServer server;
+
+	@Before
+	public void setUp() throws URISyntaxException, JannovarException, IOException {
+		final String pathToSmallSer = this.getClass().getResource("/hg19_small.ser").toURI().getPath();
+		final JannovarData data = new JannovarDataSerializer(pathToSmallSer).load();
+		final VariantContextAnnotator.Options vcfOptions = new VariantContextAnnotator.Options(true,
+				AminoAcidCode.ONE_LETTER, true, true, false, false, false);
+		final ServedDatabase db = new ServedDatabase("hg19_small", data, new AnnotationBuilderOptions(), vcfOptions,
+				null);
+		server = new AnnotationServer(ImmutableList.of(db), new InetSocketAddress("127.0.0.1", 0), 2, 4, 1,
+				AminoAcidCode.ONE_LETTER, false);
+		server.start();
+	}
+
+	@After
+	public void tearDown() {
+		server.stop(0);
+	}
+
+	/** Perform request and return the response body, checking for the expected status */
+	private String request(String method, String path, byte[] body, int expectedStatus) throws IOException {
+		final URL url = new URL("http://127.0.0.1:" + server.getPort() + path);
+		final HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+		conn.setRequestMethod(method);
+		if (body != null) {
+			conn.setDoOutput(true);
+			try (OutputStream out = conn.getOutputStream()) {
+				out.write(body);
+			}
+		}
+		Assert.assertEquals(expectedStatus, conn.getResponseCode());
+		try (InputStream in = (expectedStatus < 400) ? conn.getInputStream() : conn.getErrorStream()) {
+			return new String(ByteStreams.toByteArray(in), Charsets.UTF_8);
+		}
+	}
+
+	/** @return lines of <code>text</code> that do not start with <code>#</code> */
+	private static List<String> dataLines(String text) {
+		return Splitter.on('\n').omitEmptyStrings().splitToList(text).stream().filter(l -> !l.startsWith("#"))
+				.collect(Collectors.toList());
+	}
+
+	@Test
+	public void testHealthAndDatabases() throws IOException {
+		Assert.assertEquals("OK\n", request("GET", "/health", null, 200));
+		Assert.assertEquals("hg19_small\n", request("GET", "/databases", null, 200));
+	}
+
+	@Test
+	public void testAnnotatePos() throws IOException {
+		final String body = "NC_000001.10:321052C>T\nNC_000001.10:xyz\n";
+		final List<String> lines = dataLines(
+				request("POST", "/annotate-pos?change=NC_000001.10:321052C%3ET", body.getBytes(Charsets.UTF_8), 200));
+
+		Assert.assertEquals(3, lines.size());
+		Assert.assertEquals(lines.get(0), lines.get(1));
+		Assert.assertTrue(lines.get(0).startsWith("NC_000001.10:321052C>T\t"));
+		Assert.assertTrue(lines.get(0).contains("NON_CODING_TRANSCRIPT_EXON_VARIANT"));
+		Assert.assertTrue(lines.get(0).contains("XR_246673.1"));
+		Assert.assertTrue(lines.get(2).startsWith("NC_000001.10:xyz\tERROR\t"));
+
+		Assert.assertEquals(1, server.getMetrics().get("annotate-pos").getNumRequests());
+		Assert.assertEquals(3, server.getMetrics().get("annotate-pos").getNumVariants());
+	}
+
+	@Test
+	public void testErrors() throws IOException {
+		request("GET", "/annotate-pos?db=unknown", null, 404);
+		request("GET", "/annotate-hgvs?hgvs=NM_000138.4:c.1A%3EG", null, 501);
+		request("GET", "/annotate-vcf", null, 405);
+		Assert.assertEquals(1, server.getMetrics().get("annotate-vcf").getNumErrors());
+	}
+
+	@Test
+	public void testAnnotateVCF() throws IOException, URISyntaxException {
+		final File inputFile = new File(this.getClass().getResource("/small.vcf").toURI().getPath());
+		final File expectedFile = new File(this.getClass().getResource("/small.jv.vcf").toURI().getPath());
+
+		final String actual = request("POST", "/annotate-vcf", Files.toByteArray(inputFile), 200);
+
+		final String expected = Files.asCharSource(expectedFile, Charsets.UTF_8).read();
+		Assert.assertEquals(dataLines(expected), dataLines(actual));
+		Assert.assertTrue(actual.contains("##INFO=<ID=ANN,"));
+	}
+
+}
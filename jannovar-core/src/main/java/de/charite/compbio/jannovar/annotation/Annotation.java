@@ -267,6 +267,17 @@ public final class Annotation implements VariantDescription, Comparable<Annotati
 	 * @return VCF annotation string
 	 */
 	public String toVCFAnnoString(String alt, boolean escape, AminoAcidCode code) {
+		VCFAnnotationData data = buildVCFAnnotationData();
+		if (escape)
+			return data.toString(alt, code);
+		else
+			return data.toUnescapedString(alt, code);
+	}
+
+	/**
+	 * @return {@link VCFAnnotationData} with the fields for the VCF annotation string
+	 */
+	VCFAnnotationData buildVCFAnnotationData() {
 		VCFAnnotationData data = new VCFAnnotationData();
 		data.effects = effects;
 		data.impact = getPutativeImpact();
@@ -276,10 +287,7 @@ public final class Annotation implements VariantDescription, Comparable<Annotati
 		data.cdsNTChange = cdsNTChange;
 		data.proteinChange = proteinChange;
 		data.messages = messages;
-		if (escape)
-			return data.toString(alt, code);
-		else
-			return data.toUnescapedString(alt, code);
+		return data;
 	}
 
 	/**
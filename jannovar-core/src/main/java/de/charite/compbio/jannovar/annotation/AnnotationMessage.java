@@ -57,6 +57,11 @@ public enum AnnotationMessage {
 	 * somatic vs. germline).
 	 */
 	INFO_NON_REFERENCE_ANNOTATION,
+	/**
+	 * (non-standard) The structural variant affects more genes than reported, the annotations have been limited to the
+	 * genes with breakpoints and the most severely affected ones.
+	 */
+	INFO_STRUCTURAL_VARIANT_SUMMARIZED,
 	/**
 	 * (non-standard) There was a problem with the annotation problem, if you see this in the output of the program then
 	 * this indicates a bug.
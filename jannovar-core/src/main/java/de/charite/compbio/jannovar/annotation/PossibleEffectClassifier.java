@@ -0,0 +1,60 @@
+package de.charite.compbio.jannovar.annotation;
+
+import com.google.common.collect.ImmutableList;
+
+import de.charite.compbio.jannovar.reference.GenomeCoordinates;
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+
+/**
+ * Cheap classification of the most pathogenic {@link VariantEffect} a change can have in a transcript
+ *
+ * The classification only uses the location of the change relative to the exons of the transcript and does not look at
+ * the transcript sequence. Changes that lie deep within an intron (away from the splice regions) can only yield
+ * intronic, UTR intronic, upstream/downstream, or intergenic effects. For all other changes, no restriction is made.
+ *
+ * This is used in {@link VariantAnnotator#buildBestAnnotations} for skipping the full annotation of transcripts that
+ * cannot yield the highest-impact {@link Annotation}.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+final class PossibleEffectClassifier {
+
+	/** Distance to the exons that guarantees no splice effects, splice regions reach 8 bp into the intron */
+	static final int INTRON_MARGIN = 10;
+
+	/** Most pathogenic effect possible for changes without restriction */
+	static final VariantEffect ANY = VariantEffect.values()[0];
+
+	private PossibleEffectClassifier() {
+	}
+
+	/**
+	 * @param transcript
+	 *            the {@link TranscriptModel} that overlaps with <code>changeInterval</code>
+	 * @param changeInterval
+	 *            the {@link GenomeInterval} of the change
+	 * @return most pathogenic {@link VariantEffect} the change can have in <code>transcript</code>, {@link #ANY} if it
+	 *         cannot be restricted
+	 */
+	static VariantEffect mostPathogenicPossible(TranscriptModel transcript, GenomeInterval changeInterval) {
+		final Strand strand = transcript.getStrand();
+		final int paddedBeginPos = GenomeCoordinates.beginPosOnStrand(changeInterval, strand) - INTRON_MARGIN;
+		final int paddedEndPos = GenomeCoordinates.endPosOnStrand(changeInterval, strand) + INTRON_MARGIN;
+		final ImmutableList<GenomeInterval> exons = transcript.getExonRegions();
+		for (int i = 0; i + 1 < exons.size(); ++i) {
+			final GenomeInterval left = exons.get(i);
+			final GenomeInterval right = exons.get(i + 1);
+			if (paddedBeginPos >= left.getEndPos() && paddedEndPos <= right.getBeginPos()) {
+				// deep intronic, the intronic effects are less pathogenic than all exonic and splicing effects
+				if (transcript.isCoding())
+					return VariantEffect.CODING_TRANSCRIPT_INTRON_VARIANT;
+				else
+					return VariantEffect.NON_CODING_TRANSCRIPT_INTRON_VARIANT;
+			}
+		}
+		return ANY;
+	}
+
+}
@@ -0,0 +1,254 @@
+package de.charite.compbio.jannovar.annotation;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import de.charite.compbio.jannovar.annotation.AnnotationLocation.RankType;
+import de.charite.compbio.jannovar.data.Chromosome;
+import de.charite.compbio.jannovar.impl.intervals.IntervalArray;
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.GenomeVariant;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+
+/**
+ * Gene-level annotation of structural variants
+ *
+ * The affected region is given explicitly (e.g., from the <code>END</code> or <code>SVLEN</code> INFO fields), such
+ * that symbolic alleles can be annotated and no allele sequences are used. All overlapping transcripts are obtained with
+ * a single interval query and classified by the {@link Overlap} of the variant with them. For each gene, only the
+ * transcript with the most severe effect is reported.
+ *
+ * If more than <code>maxGenes</code> genes are affected, the genes with breakpoints are reported first, followed by
+ * the contained genes in the order of their effects, and the annotations get the message
+ * {@link AnnotationMessage#INFO_STRUCTURAL_VARIANT_SUMMARIZED}.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public final class StructuralVariantAnnotator {
+
+	/** Default maximal number of genes to report annotations for */
+	public static final int DEFAULT_MAX_GENES = 100;
+
+	/** Location annotation for the transcript annotations, there is no meaningful rank */
+	private static final AnnotationLocation UNDEFINED_LOCATION = new AnnotationLocation(null, RankType.UNDEFINED,
+			AnnotationLocation.INVALID_RANK, AnnotationLocation.INVALID_RANK, null);
+
+	/** Messages for summarized annotation lists */
+	private static final ImmutableList<AnnotationMessage> SUMMARIZED_MESSAGES = ImmutableList
+			.of(AnnotationMessage.INFO_STRUCTURAL_VARIANT_SUMMARIZED);
+
+	/**
+	 * Overlap of a structural variant with a transcript
+	 */
+	public enum Overlap {
+		/** the transcript is fully contained in the variant */
+		CONTAINED,
+		/** a breakpoint of the variant lies within an exon */
+		BREAKPOINT_IN_EXON,
+		/** the breakpoints lie in introns or outside of the transcript but exons are affected */
+		EXONS_AFFECTED,
+		/** the variant lies within an intron */
+		BREAKPOINT_IN_INTRON;
+	}
+
+	/** {@link Chromosome}s with their {@link TranscriptModel} objects. */
+	private final ImmutableMap<Integer, Chromosome> chromosomeMap;
+
+	/** Maximal number of genes to report annotations for */
+	private final int maxGenes;
+
+	/**
+	 * @param chromosomeMap
+	 *            chromosome map to use for the annotator
+	 * @param maxGenes
+	 *            maximal number of genes to report annotations for
+	 */
+	public StructuralVariantAnnotator(ImmutableMap<Integer, Chromosome> chromosomeMap, int maxGenes) {
+		this.chromosomeMap = chromosomeMap;
+		this.maxGenes = maxGenes;
+	}
+
+	/**
+	 * Build gene-level annotations for a structural variant
+	 *
+	 * @param change
+	 *            the {@link GenomeVariant} to annotate, may have symbolic alleles
+	 * @param svInterval
+	 *            the affected {@link GenomeInterval}, of length zero for insertions and break-ends
+	 * @param type
+	 *            the {@link StructuralVariantType}
+	 * @return {@link VariantAnnotations} with one {@link Annotation} per affected gene or an intergenic annotation
+	 */
+	public VariantAnnotations buildAnnotations(GenomeVariant change, GenomeInterval svInterval,
+			StructuralVariantType type) {
+		final GenomeInterval interval = svInterval.withStrand(Strand.FWD);
+		final Chromosome chr = chromosomeMap.get(interval.getChr());
+
+		List<TranscriptModel> transcripts = ImmutableList.of();
+		if (chr != null) {
+			final IntervalArray<TranscriptModel>.QueryResult qr;
+			if (interval.length() == 0)
+				qr = chr.getTMIntervalTree().findOverlappingWithPoint(interval.getBeginPos());
+			else
+				qr = chr.getTMIntervalTree().findOverlappingWithInterval(interval.getBeginPos(),
+						interval.getEndPos());
+			transcripts = qr.getEntries();
+		}
+		if (transcripts.isEmpty())
+			return new VariantAnnotations(change, ImmutableList.of(new Annotation(null, change,
+					ImmutableList.of(VariantEffect.INTERGENIC_VARIANT, VariantEffect.STRUCTURAL_VARIANT), null, null,
+					null, null)));
+
+		// Select the transcript with the most severe effect for each gene
+		final LinkedHashMap<String, GeneHit> hits = new LinkedHashMap<>();
+		for (TranscriptModel tm : transcripts) {
+			final Overlap overlap = classify(tm, interval, type);
+			final GeneHit hit = new GeneHit(tm, overlap, effectsFor(overlap, type));
+			hits.merge(geneKey(tm), hit, (lhs, rhs) -> (GeneHit.BY_EFFECT.compare(lhs, rhs) <= 0) ? lhs : rhs);
+		}
+
+		// Apply the cap on the number of genes
+		List<GeneHit> selected = new ArrayList<>(hits.values());
+		boolean summarized = false;
+		if (selected.size() > maxGenes) {
+			selected.sort(GeneHit.BY_SUMMARY_PRIORITY);
+			selected = selected.subList(0, maxGenes);
+			summarized = true;
+		}
+
+		final ArrayList<Annotation> annotations = new ArrayList<>(selected.size());
+		for (GeneHit hit : selected)
+			annotations.add(new Annotation(hit.transcript, change, hit.effects, UNDEFINED_LOCATION, null, null, null,
+					summarized ? SUMMARIZED_MESSAGES : ImmutableList.<AnnotationMessage> of()));
+		return new VariantAnnotations(change, annotations);
+	}
+
+	/**
+	 * @param transcript
+	 *            the {@link TranscriptModel} overlapping with <code>interval</code>
+	 * @param interval
+	 *            the forward-strand {@link GenomeInterval} of the variant
+	 * @param type
+	 *            the {@link StructuralVariantType}
+	 * @return {@link VariantEffect}s of the variant on <code>transcript</code>, most severe first
+	 */
+	public static ImmutableList<VariantEffect> buildTranscriptEffects(TranscriptModel transcript,
+			GenomeInterval interval, StructuralVariantType type) {
+		return effectsFor(classify(transcript, interval, type), type);
+	}
+
+	/**
+	 * @param transcript
+	 *            the {@link TranscriptModel} overlapping with <code>interval</code>
+	 * @param interval
+	 *            the forward-strand {@link GenomeInterval} of the variant
+	 * @param type
+	 *            the {@link StructuralVariantType}
+	 * @return {@link Overlap} of the variant with <code>transcript</code>
+	 */
+	static Overlap classify(TranscriptModel transcript, GenomeInterval interval, StructuralVariantType type) {
+		final int begin = interval.getBeginPos();
+		final int end = interval.getEndPos();
+
+		if (type.isPoint() || begin == end) {
+			for (GenomeInterval exon : transcript.getExonRegions()) {
+				final GenomeInterval fwdExon = exon.withStrand(Strand.FWD);
+				if (fwdExon.getBeginPos() <= begin && begin < fwdExon.getEndPos())
+					return Overlap.BREAKPOINT_IN_EXON;
+			}
+			return Overlap.BREAKPOINT_IN_INTRON;
+		}
+
+		final GenomeInterval txRegion = transcript.getTXRegion().withStrand(Strand.FWD);
+		if (begin <= txRegion.getBeginPos() && txRegion.getEndPos() <= end)
+			return Overlap.CONTAINED;
+
+		boolean exonsAffected = false;
+		for (GenomeInterval exon : transcript.getExonRegions()) {
+			final GenomeInterval fwdExon = exon.withStrand(Strand.FWD);
+			// the breakpoints lie between begin - 1 and begin and between end - 1 and end
+			if ((fwdExon.getBeginPos() < begin && begin < fwdExon.getEndPos())
+					|| (fwdExon.getBeginPos() < end && end < fwdExon.getEndPos()))
+				return Overlap.BREAKPOINT_IN_EXON;
+			if (begin < fwdExon.getEndPos() && fwdExon.getBeginPos() < end)
+				exonsAffected = true;
+		}
+		return exonsAffected ? Overlap.EXONS_AFFECTED : Overlap.BREAKPOINT_IN_INTRON;
+	}
+
+	/**
+	 * @return {@link VariantEffect}s for the given <code>overlap</code> and <code>type</code>, most severe first
+	 */
+	static ImmutableList<VariantEffect> effectsFor(Overlap overlap, StructuralVariantType type) {
+		switch (overlap) {
+		case CONTAINED:
+			if (type == StructuralVariantType.DEL)
+				return ImmutableList.of(VariantEffect.TRANSCRIPT_ABLATION, VariantEffect.STRUCTURAL_VARIANT);
+			else
+				return ImmutableList.of(VariantEffect.STRUCTURAL_VARIANT, VariantEffect.GENE_VARIANT);
+		case BREAKPOINT_IN_EXON:
+			if (type == StructuralVariantType.DEL)
+				return ImmutableList.of(VariantEffect.EXON_LOSS_VARIANT, VariantEffect.FEATURE_TRUNCATION,
+						VariantEffect.STRUCTURAL_VARIANT);
+			else if (type == StructuralVariantType.INS)
+				return ImmutableList.of(VariantEffect.STRUCTURAL_VARIANT, VariantEffect.EXON_VARIANT);
+			else
+				return ImmutableList.of(VariantEffect.FEATURE_TRUNCATION, VariantEffect.STRUCTURAL_VARIANT);
+		case EXONS_AFFECTED:
+			if (type == StructuralVariantType.DEL)
+				return ImmutableList.of(VariantEffect.EXON_LOSS_VARIANT, VariantEffect.STRUCTURAL_VARIANT);
+			else if (type == StructuralVariantType.DUP)
+				return ImmutableList.of(VariantEffect.INTERNAL_FEATURE_ELONGATION, VariantEffect.STRUCTURAL_VARIANT);
+			else
+				return ImmutableList.of(VariantEffect.STRUCTURAL_VARIANT, VariantEffect.EXON_VARIANT);
+		case BREAKPOINT_IN_INTRON:
+		default:
+			return ImmutableList.of(VariantEffect.STRUCTURAL_VARIANT, VariantEffect.INTRON_VARIANT);
+		}
+	}
+
+	/** @return key for grouping transcripts by gene */
+	private static String geneKey(TranscriptModel transcript) {
+		if (transcript.getGeneID() != null)
+			return transcript.getGeneID();
+		else if (transcript.getGeneSymbol() != null)
+			return transcript.getGeneSymbol();
+		else
+			return transcript.getAccession();
+	}
+
+	/**
+	 * Transcript selected for a gene, together with its classification
+	 */
+	private static final class GeneHit {
+
+		/** Order by most severe effect, then by transcript */
+		static final Comparator<GeneHit> BY_EFFECT = Comparator
+				.comparing((GeneHit hit) -> hit.effects.get(0)).thenComparing(hit -> hit.transcript);
+
+		/** Order for summarization, genes with breakpoints first */
+		static final Comparator<GeneHit> BY_SUMMARY_PRIORITY = Comparator
+				.comparing((GeneHit hit) -> hit.overlap == Overlap.CONTAINED).thenComparing(BY_EFFECT);
+
+		/** the transcript */
+		final TranscriptModel transcript;
+		/** overlap of the variant with {@link #transcript} */
+		final Overlap overlap;
+		/** effects for {@link #transcript}, most severe first */
+		final ImmutableList<VariantEffect> effects;
+
+		GeneHit(TranscriptModel transcript, Overlap overlap, ImmutableList<VariantEffect> effects) {
+			this.transcript = transcript;
+			this.overlap = overlap;
+			this.effects = effects;
+		}
+
+	}
+
+}
@@ -0,0 +1,87 @@
+package de.charite.compbio.jannovar.annotation;
+
+import de.charite.compbio.jannovar.impl.util.SequenceKernel;
+
+/**
+ * Type of a structural variant, as used by {@link StructuralVariantAnnotator}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public enum StructuralVariantType {
+	/** deletion, <code>&lt;DEL&gt;</code> */
+	DEL,
+	/** duplication, <code>&lt;DUP&gt;</code> */
+	DUP,
+	/** inversion, <code>&lt;INV&gt;</code> */
+	INV,
+	/** copy number variation, <code>&lt;CNV&gt;</code> */
+	CNV,
+	/** insertion, <code>&lt;INS&gt;</code> */
+	INS,
+	/** break-end, e.g. <code>G]17:198982]</code> */
+	BND,
+	/** other or unknown type */
+	OTHER;
+
+	/**
+	 * @return whether or not the variant is described by a single position rather than an interval
+	 */
+	public boolean isPoint() {
+		return this == INS || this == BND;
+	}
+
+	/**
+	 * Determine type from symbolic allele string
+	 *
+	 * Symbolic alleles with sub types, such as <code>&lt;DUP:TANDEM&gt;</code>, are mapped to their top-level type.
+	 * Non-bracketed symbolic alleles are interpreted as break-ends.
+	 *
+	 * @param allele
+	 *            the symbolic allele string from the VCF file
+	 * @return the corresponding {@link StructuralVariantType}
+	 */
+	public static StructuralVariantType fromSymbolicAllele(String allele) {
+		if (allele.length() < 2 || allele.charAt(0) != '<')
+			return BND;
+		int end = allele.indexOf(':');
+		if (end == -1)
+			end = allele.indexOf('>');
+		if (end == -1)
+			return OTHER;
+		switch (allele.substring(1, end)) {
+		case "DEL":
+			return DEL;
+		case "DUP":
+			return DUP;
+		case "INV":
+			return INV;
+		case "CNV":
+			return CNV;
+		case "INS":
+			return INS;
+		default:
+			return OTHER;
+		}
+	}
+
+	/**
+	 * Determine type from literal (and prefix/suffix-trimmed) reference and alternative allele strings
+	 *
+	 * @param ref
+	 *            reference allele string
+	 * @param alt
+	 *            alternative allele string
+	 * @return the corresponding {@link StructuralVariantType}
+	 */
+	public static StructuralVariantType fromLiteral(String ref, String alt) {
+		if (ref.isEmpty())
+			return INS;
+		else if (alt.isEmpty())
+			return DEL;
+		else if (SequenceKernel.isReverseComplement(ref, alt))
+			return INV;
+		else
+			return OTHER;
+	}
+
+}
@@ -1,8 +1,7 @@
 package de.charite.compbio.jannovar.annotation;
 
-import com.google.common.base.CharMatcher;
-import com.google.common.base.Joiner;
-import com.google.common.collect.FluentIterable;
+import java.util.Map;
+
 import com.google.common.collect.ImmutableSortedSet;
 
 import de.charite.compbio.jannovar.annotation.AnnotationLocation.RankType;
@@ -18,7 +17,7 @@ import de.charite.compbio.jannovar.reference.TranscriptProjectionDecorator;
 /**
  * Class for collecting the data for a VCF annotation string.
  *
- * Simplifies building of <code>Object</code> arrays that can then be joined using {@link Joiner}.
+ * Writes the fields directly into a {@link StringBuilder}, escaping on the fly.
  */
 class VCFAnnotationData {
 
@@ -56,6 +55,8 @@ class VCFAnnotationData {
 	public int cdsLength = -1;
 	/** distance */
 	public int distance = -1;
+	/** the transcript, <code>null</code> if not set */
+	public TranscriptModel transcript = null;
 	/** additional messages for the annotation */
 	public ImmutableSortedSet<AnnotationMessage> messages = ImmutableSortedSet.<AnnotationMessage> of();
 
@@ -89,6 +90,7 @@ class VCFAnnotationData {
 	public void setTranscriptAndChange(TranscriptModel tm, GenomeVariant change) {
 		if (tm == null)
 			return;
+		transcript = tm;
 		featureType = "transcript";
 		featureID = tm.getAccession();
 		geneSymbol = tm.getGeneSymbol();
@@ -107,37 +109,143 @@ class VCFAnnotationData {
 	}
 
 	/**
+	 * Append the VCF annotation string to <code>sb</code>
+	 *
+	 * @param sb
+	 *            {@link StringBuilder} to append to
 	 * @param allele
-	 *            String with the allele value to prepend to the returned array
+	 *            alternative allele value to prepend
 	 * @param code
 	 *            Three ore one letter amino acid code
-	 * @return array of objects to be converted to string and joined, the alternative allele is given by
+	 * @param escape
+	 *            whether or not to escape the invalid VCF characters, e.g. <code>'='</code>
+	 * @param transcriptFieldsCache
+	 *            cache for the result of {@link #appendTranscriptFields}, by {@link #transcript} identity, can be
+	 *            <code>null</code>; only used when <code>escape</code> is set
+	 */
+	public void appendTo(StringBuilder sb, String allele, AminoAcidCode code, boolean escape,
+			Map<TranscriptModel, String> transcriptFieldsCache) {
+		append(sb, allele, escape);
+		sb.append('|');
+		boolean first = true;
+		for (VariantEffect effect : effects) {
+			if (!first)
+				sb.append('&');
+			first = false;
+			append(sb, effect.getSequenceOntologyTerm(), escape);
+		}
+		sb.append('|');
+		if (impact != null)
+			append(sb, impact.toString(), escape);
+		sb.append('|');
+		if (transcript != null && escape && transcriptFieldsCache != null) {
+			String fields = transcriptFieldsCache.get(transcript);
+			if (fields == null) {
+				StringBuilder fieldsBuilder = new StringBuilder();
+				appendTranscriptFields(fieldsBuilder, true);
+				fields = fieldsBuilder.toString();
+				transcriptFieldsCache.put(transcript, fields);
+			}
+			sb.append(fields);
+		} else {
+			appendTranscriptFields(sb, escape);
+		}
+		sb.append('|');
+		if (rank != -1)
+			sb.append(rank + 1).append('/').append(totalRank);
+		sb.append('|');
+		if (cdsNTChange != null) {
+			sb.append(isCoding ? "c." : "n.");
+			append(sb, cdsNTChange.toHGVSString(), escape);
+		}
+		sb.append('|');
+		if (proteinChange != null) {
+			sb.append("p.");
+			append(sb, proteinChange.toHGVSString(code), escape);
+		}
+		sb.append('|');
+		if (txPos != -1)
+			sb.append(txPos + 1).append('/').append(txLength);
+		sb.append('|');
+		final boolean hasCDSPos = (cdsPos != -1 && "Coding".equals(featureBioType));
+		if (hasCDSPos)
+			sb.append(cdsPos + 1).append('/').append(cdsLength);
+		sb.append('|');
+		if (hasCDSPos)
+			sb.append(cdsPos / 3 + 1).append('/').append(cdsLength / 3);
+		sb.append('|');
+		if (distance != -1)
+			sb.append(distance);
+		sb.append('|');
+		first = true;
+		for (AnnotationMessage message : messages) {
+			if (!first)
+				sb.append('&');
+			first = false;
+			append(sb, message.toString(), escape);
+		}
+	}
+
+	/**
+	 * Append the fields that only depend on the transcript, from gene symbol to bio type, separated by <code>'|'</code>
 	 */
-	public Object[] toArray(String allele, AminoAcidCode code) {
-		final Joiner joiner = Joiner.on('&').useForNull("");
-		final String effectsString = joiner.join(FluentIterable.from(effects).transform(VariantEffect.TO_SO_TERM));
-		return new Object[] { allele, effectsString, impact, geneSymbol, geneID, featureType, featureID,
-				featureBioType, getRankString(),
-				(cdsNTChange == null) ? cdsNTChange : ((isCoding ? "c." : "n.") + cdsNTChange.toHGVSString()),
-				(proteinChange == null) ? proteinChange : ("p." + proteinChange.toHGVSString(code)), getTXPosString(),
-				getCDSPosString(), getAminoAcidPosString(), getDistanceString(), joiner.join(messages) };
+	private void appendTranscriptFields(StringBuilder sb, boolean escape) {
+		append(sb, geneSymbol, escape);
+		sb.append('|');
+		append(sb, geneID, escape);
+		sb.append('|');
+		append(sb, featureType, escape);
+		sb.append('|');
+		append(sb, featureID, escape);
+		sb.append('|');
+		append(sb, featureBioType, escape);
 	}
 
 	public String toUnescapedString(String allele, AminoAcidCode code) {
-		return Joiner.on('|').useForNull("").join(toArray(allele, code));
+		StringBuilder sb = new StringBuilder();
+		appendTo(sb, allele, code, false, null);
+		return sb.toString();
 	}
 
-	private String escape(String str) {
+	/**
+	 * Append <code>str</code> to <code>sb</code>, optionally escaped, <code>null</code> is written as the empty string
+	 */
+	private static void append(StringBuilder sb, String str, boolean escape) {
+		if (str == null)
+			return;
+		if (!escape) {
+			sb.append(str);
+			return;
+		}
+
 		// Escaping follows the requirements of (1) VCF 4.2 and (2) the "Variant annotations in VCF format document.
 		// We use the strategy of keeping as much as possible reconstructable (bijective mappings, for the
 		// mathematically inclined).
-		String result = CharMatcher.is('%').replaceFrom(str, "%25");
-		result = CharMatcher.is(',').replaceFrom(result, "%2C");
-		result = CharMatcher.is(';').replaceFrom(result, "%3B");
-		result = CharMatcher.is('=').replaceFrom(result, "%3D");
-		result = CharMatcher.is(' ').replaceFrom(result, "%20");
-		result = CharMatcher.is('\t').replaceFrom(result, "%09");
-		return result;
+		for (int i = 0; i < str.length(); ++i) {
+			final char c = str.charAt(i);
+			switch (c) {
+			case '%':
+				sb.append("%25");
+				break;
+			case ',':
+				sb.append("%2C");
+				break;
+			case ';':
+				sb.append("%3B");
+				break;
+			case '=':
+				sb.append("%3D");
+				break;
+			case ' ':
+				sb.append("%20");
+				break;
+			case '\t':
+				sb.append("%09");
+				break;
+			default:
+				sb.append(c);
+			}
+		}
 	}
 
 	/**
@@ -148,41 +256,9 @@ class VCFAnnotationData {
 	 * @return String for putting into the "ANN" field of the VCF file
 	 */
 	public String toString(String allele, AminoAcidCode code) {
-		return escape(toUnescapedString(allele, code));
-	}
-
-	private String getRankString() {
-		if (rank == -1)
-			return null;
-		return Joiner.on('/').join(rank + 1, totalRank);
-	}
-
-	private String getTXPosString() {
-		if (txPos == -1)
-			return null;
-		return Joiner.on('/').join(txPos + 1, txLength);
-	}
-
-	private String getCDSPosString() {
-		if (cdsPos == -1)
-			return null;
-		if (!"Coding".equals(featureBioType))
-			return null;
-		return Joiner.on('/').join(cdsPos + 1, cdsLength);
-	}
-
-	private String getAminoAcidPosString() {
-		if (cdsPos == -1)
-			return null;
-		if (!"Coding".equals(featureBioType))
-			return null;
-		return Joiner.on('/').join(cdsPos / 3 + 1, cdsLength / 3);
-	}
-
-	private String getDistanceString() {
-		if (distance == -1)
-			return null;
-		return Integer.toString(distance);
+		StringBuilder sb = new StringBuilder();
+		appendTo(sb, allele, code, true, null);
+		return sb.toString();
 	}
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,122 @@
+package de.charite.compbio.jannovar.annotation;
+
+import java.util.IdentityHashMap;
+
+import de.charite.compbio.jannovar.hgvs.AminoAcidCode;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+
+/**
+ * Streaming serializer for the escaped values of the VCF <code>ANN</code> field
+ *
+ * The {@link Annotation}s are appended directly into a reused {@link StringBuilder}, separated by <code>','</code>.
+ * The escaped fields that only depend on the transcript (gene symbol, gene ID, feature type, accession, and bio type)
+ * are cached on first use. The result is the same as joining the results of
+ * {@link Annotation#toVCFAnnoString(String, AminoAcidCode)} with <code>','</code>.
+ *
+ * Objects of this class are not thread-safe, use {@link #forCurrentThread} for getting the instance of the current
+ * thread.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public final class VCFAnnotationSerializer {
+
+	/** Upper bound on the number of transcripts to cache the fields of */
+	private static final int MAX_CACHED_TRANSCRIPTS = 100 * 1000;
+
+	/** Upper bound on the buffer capacity that is kept between records */
+	private static final int MAX_KEPT_CAPACITY = 1024 * 1024;
+
+	/** Instance for each thread */
+	private static final ThreadLocal<VCFAnnotationSerializer> INSTANCE = ThreadLocal
+			.withInitial(VCFAnnotationSerializer::new);
+
+	/** Buffer for building the string */
+	private StringBuilder builder = new StringBuilder(4096);
+
+	/** Escaped fields by transcript */
+	private final IdentityHashMap<TranscriptModel, String> transcriptFieldsCache = new IdentityHashMap<>();
+
+	/** Number of {@link Annotation}s appended since the last {@link #reset} */
+	private int count = 0;
+
+	/**
+	 * @return the {@link VCFAnnotationSerializer} of the current thread, already {@link #reset}
+	 */
+	public static VCFAnnotationSerializer forCurrentThread() {
+		return INSTANCE.get().reset();
+	}
+
+	/**
+	 * Clear the buffer for starting a new <code>ANN</code> value
+	 *
+	 * @return <code>this</code>
+	 */
+	public VCFAnnotationSerializer reset() {
+		if (builder.capacity() > MAX_KEPT_CAPACITY)
+			builder = new StringBuilder(4096);
+		else
+			builder.setLength(0);
+		count = 0;
+		return this;
+	}
+
+	/**
+	 * Append escaped VCF annotation string for <code>annotation</code>
+	 *
+	 * @param annotation
+	 *            the {@link Annotation} to append
+	 * @param alt
+	 *            alternative allele
+	 * @param code
+	 *            Three or one letter amino acid code
+	 * @return <code>this</code>
+	 */
+	public VCFAnnotationSerializer append(Annotation annotation, String alt, AminoAcidCode code) {
+		if (transcriptFieldsCache.size() > MAX_CACHED_TRANSCRIPTS)
+			transcriptFieldsCache.clear();
+		if (count++ > 0)
+			builder.append(',');
+		annotation.buildVCFAnnotationData().appendTo(builder, alt, code, true, transcriptFieldsCache);
+		return this;
+	}
+
+	/**
+	 * Append escaped VCF annotation strings for all {@link Annotation}s in <code>annotations</code>
+	 *
+	 * @param annotations
+	 *            the {@link VariantAnnotations} to append
+	 * @param alt
+	 *            alternative allele
+	 * @param code
+	 *            Three or one letter amino acid code
+	 * @return <code>this</code>
+	 */
+	public VCFAnnotationSerializer append(VariantAnnotations annotations, String alt, AminoAcidCode code) {
+		for (Annotation annotation : annotations.getAnnotations())
+			append(annotation, alt, code);
+		return this;
+	}
+
+	/**
+	 * @return number of {@link Annotation}s appended since the last {@link #reset}
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * @return whether or not no {@link Annotation} has been appended since the last {@link #reset}
+	 */
+	public boolean isEmpty() {
+		return count == 0;
+	}
+
+	/**
+	 * @return the <code>ANN</code> value built so far
+	 */
+	@Override
+	public String toString() {
+		return builder.toString();
+	}
+
+}
@@ -1,13 +1,13 @@
 package de.charite.compbio.jannovar.annotation;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import com.google.common.collect.ImmutableMap;
 
 import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderDispatcher;
 import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
-import de.charite.compbio.jannovar.annotation.builders.StructuralVariantAnnotationBuilder;
 import de.charite.compbio.jannovar.data.Chromosome;
 import de.charite.compbio.jannovar.data.ReferenceDictionary;
 import de.charite.compbio.jannovar.impl.intervals.IntervalArray;
@@ -41,6 +41,9 @@ public final class VariantAnnotator {
 	/** {@link Chromosome}s with their {@link TranscriptModel} objects. */
 	final private ImmutableMap<Integer, Chromosome> chromosomeMap;
 
+	/** gene-level annotation of structural variants */
+	final private StructuralVariantAnnotator svAnnotator;
+
 	/**
 	 * Construct new VariantAnnotator, given a chromosome map.
 	 *
@@ -56,6 +59,7 @@ public final class VariantAnnotator {
 		this.refDict = refDict;
 		this.chromosomeMap = chromosomeMap;
 		this.options = options;
+		this.svAnnotator = new StructuralVariantAnnotator(chromosomeMap, StructuralVariantAnnotator.DEFAULT_MAX_GENES);
 	}
 
 	// TODO(holtgrem): Remove this?
@@ -103,14 +107,60 @@ public final class VariantAnnotator {
 	 *             on problems building the annotation list
 	 */
 	public VariantAnnotations buildAnnotations(GenomeVariant change) throws AnnotationException {
+		return buildAnnotations(change, false);
+	}
+
+	/**
+	 * Variant of {@link #buildAnnotations(GenomeVariant)} that only guarantees the highest-impact {@link Annotation}
+	 *
+	 * The {@link VariantAnnotations#getHighestImpactAnnotation} of the result is the same as when using
+	 * {@link #buildAnnotations(GenomeVariant)} but the full annotation is skipped for transcripts that cannot yield
+	 * the highest-impact annotation judging from the location of the change alone (see
+	 * {@link PossibleEffectClassifier}). Thus, the other annotations are only a subset of the full result.
+	 *
+	 * @param change
+	 *            the {@link GenomeVariant} to annotate
+	 * @return {@link VariantAnnotations} for the genome change
+	 * @throws AnnotationException
+	 *             on problems building the annotation list
+	 */
+	public VariantAnnotations buildBestAnnotations(GenomeVariant change) throws AnnotationException {
+		return buildAnnotations(change, true);
+	}
+
+	/**
+	 * Build gene-level annotations for structural variants, including symbolic alleles
+	 *
+	 * See {@link StructuralVariantAnnotator} for details.
+	 *
+	 * @param change
+	 *            the {@link GenomeVariant} to annotate, may have symbolic alleles
+	 * @param svInterval
+	 *            the affected {@link GenomeInterval}, of length zero for insertions and break-ends
+	 * @param type
+	 *            the {@link StructuralVariantType}
+	 * @return {@link VariantAnnotations} with one {@link Annotation} per affected gene
+	 */
+	public VariantAnnotations buildStructuralVariantAnnotations(GenomeVariant change, GenomeInterval svInterval,
+			StructuralVariantType type) {
+		return svAnnotator.buildAnnotations(change, svInterval, type);
+	}
+
+	private VariantAnnotations buildAnnotations(GenomeVariant change, boolean bestOnly) throws AnnotationException {
 		// Short-circuit in the case of symbolic changes/alleles. These could be SVs, large duplications, etc., that are
-		// described as shortcuts in the VCF file. We cannot annotate these yet.
+		// described as shortcuts in the VCF file. The affected region is not known here, use
+		// buildStructuralVariantAnnotations() for these.
 		if (change.isSymbolic())
 			return VariantAnnotations.buildEmptyList(change);
 
 		// Get genomic change interval and reset the factory.
 		final GenomeInterval changeInterval = change.getGenomeInterval();
 
+		// Structural variants given by their sequence are annotated on the gene level.
+		if (change.getRef().length() >= 1000 || change.getAlt().length() >= 1000)
+			return svAnnotator.buildAnnotations(change, changeInterval,
+					StructuralVariantType.fromLiteral(change.getRef(), change.getAlt()));
+
 		// Get the TranscriptModel objects that overlap with changeInterval.
 		final Chromosome chr = chromosomeMap.get(change.getChr());
 		IntervalArray<TranscriptModel>.QueryResult qr;
@@ -126,29 +176,71 @@ public final class VariantAnnotator {
 
 		// Handle the case of no overlapping transcript. Then, create intergenic, upstream, or downstream annotations
 		// and return the result.
-		boolean isStructuralVariant = (change.getRef().length() >= 1000 || change.getAlt().length() >= 1000);
 		if (candidateTranscripts.isEmpty()) {
-			if (isStructuralVariant)
-				buildSVAnnotation(annotations, change, null);
-			else
-				buildNonSVAnnotation(annotations, change, qr.getLeft(), qr.getRight());
+			buildNonSVAnnotation(annotations, change, qr.getLeft(), qr.getRight());
 			return new VariantAnnotations(change, annotations);
 		}
 
 		// If we reach here, then there is at least one transcript that overlaps with the query. Iterate over these
 		// transcripts and collect annotations for each (they are collected in annovarFactory).
+		if (bestOnly && candidateTranscripts.size() > 1) {
+			buildBestNonSVAnnotations(annotations, change, candidateTranscripts);
+			return new VariantAnnotations(change, annotations);
+		}
 		for (TranscriptModel tm : candidateTranscripts)
-			if (isStructuralVariant)
-				buildSVAnnotation(annotations, change, tm);
-			else
-				buildNonSVAnnotation(annotations, change, tm);
+			buildNonSVAnnotation(annotations, change, tm);
 
 		return new VariantAnnotations(change, annotations);
 	}
 
-	private void buildSVAnnotation(List<Annotation> annotations, GenomeVariant change, TranscriptModel transcript)
-			throws AnnotationException {
-		annotations.add(new StructuralVariantAnnotationBuilder(transcript, change).build());
+	/**
+	 * Build annotations for the transcripts from <code>candidates</code> that can yield the highest-impact annotation
+	 *
+	 * The transcripts are processed in the order of their most pathogenic possible effect and skipped if the
+	 * annotation built so far is guaranteed to come first. The resulting annotations are added in the order of
+	 * <code>candidates</code>, as in the full case.
+	 */
+	private void buildBestNonSVAnnotations(List<Annotation> annotations, GenomeVariant change,
+			List<TranscriptModel> candidates) throws AnnotationException {
+		final GenomeInterval changeInterval = change.getGenomeInterval();
+		final VariantEffect[] possible = new VariantEffect[candidates.size()];
+		final Integer[] order = new Integer[candidates.size()];
+		for (int i = 0; i < candidates.size(); ++i) {
+			possible[i] = PossibleEffectClassifier.mostPathogenicPossible(candidates.get(i), changeInterval);
+			order[i] = i;
+		}
+		Arrays.sort(order, (lhs, rhs) -> {
+			final int result = possible[lhs].compareTo(possible[rhs]);
+			if (result != 0)
+				return result;
+			return candidates.get(lhs).compareTo(candidates.get(rhs));
+		});
+
+		final Annotation[] built = new Annotation[candidates.size()];
+		Annotation best = null;
+		for (int i : order) {
+			if (best != null && cannotPrecede(possible[i], candidates.get(i), best))
+				continue;
+			built[i] = new AnnotationBuilderDispatcher(candidates.get(i), change, options).build();
+			if (best == null || built[i].compareTo(best) < 0)
+				best = built[i];
+		}
+
+		for (Annotation annotation : built)
+			if (annotation != null)
+				annotations.add(annotation);
+	}
+
+	/**
+	 * @return whether any annotation for <code>transcript</code> with at most the <code>possible</code> effect is
+	 *         guaranteed to come after <code>best</code> in the {@link Annotation} ordering
+	 */
+	private static boolean cannotPrecede(VariantEffect possible, TranscriptModel transcript, Annotation best) {
+		final VariantEffect bestEffect = best.getMostPathogenicVarType();
+		if (bestEffect == null || best.getTranscript() == null)
+			return false;
+		final int result = possible.compareTo(bestEffect);
+		return result > 0 || (result == 0 && transcript.compareTo(best.getTranscript()) > 0);
 	}
 
 	private void buildNonSVAnnotation(List<Annotation> annotations, GenomeVariant change, TranscriptModel leftNeighbor,
@@ -110,7 +110,7 @@ public final class BlockSubstitutionAnnotationBuilder extends AnnotationBuilder
 		final Translator t = Translator.getTranslator();
 
 		final String wtCDSSeq;
-		final String varCDSSeq;
+		final CharSequence varCDSSeq;
 		final int delFrameShift;
 
 		final String wtAASeq;
@@ -138,7 +138,7 @@ public final class BlockSubstitutionAnnotationBuilder extends AnnotationBuilder
 		public CDSExonicAnnotationBuilder() {
 			this.changeInterval = change.getGenomeInterval();
 			this.wtCDSSeq = projector.getTranscriptStartingAtCDS();
-			this.varCDSSeq = seqChangeHelper.getCDSWithGenomeVariant(change);
+			this.varCDSSeq = seqChangeHelper.getCDSWithGenomeVariantView(change);
 			this.delFrameShift = (varCDSSeq.length() - wtCDSSeq.length()) % 3;
 
 			// Translate the variant CDS sequence.
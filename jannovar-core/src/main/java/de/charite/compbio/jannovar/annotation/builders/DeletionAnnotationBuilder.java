@@ -105,7 +105,7 @@ public final class DeletionAnnotationBuilder extends AnnotationBuilder {
 		final Translator t = Translator.getTranslator();
 
 		final String wtCDSSeq;
-		final String varCDSSeq;
+		final CharSequence varCDSSeq;
 		final int delFrameShift;
 
 		final String wtAASeq;
@@ -128,7 +128,7 @@ public final class DeletionAnnotationBuilder extends AnnotationBuilder {
 		public CDSExonicAnnotationBuilder() {
 			this.changeInterval = change.getGenomeInterval();
 			this.wtCDSSeq = projector.getTranscriptStartingAtCDS();
-			this.varCDSSeq = seqChangeHelper.getCDSWithGenomeVariant(change);
+			this.varCDSSeq = seqChangeHelper.getCDSWithGenomeVariantView(change);
 			this.delFrameShift = DeletionAnnotationBuilder.this.change.getRef().length() % 3;
 
 			// Get the change begin position as CDS coordinate, handling introns and positions outside of CDS.
@@ -150,7 +150,7 @@ public final class InsertionAnnotationBuilder extends AnnotationBuilder {
 		// wild type CDS nucleotide sequence
 		final String wtCDSSeq;
 		// variant CDS nucleotide sequence
-		final String varCDSSeq;
+		final CharSequence varCDSSeq;
 
 		// wild type amino acid sequence
 		final String wtAASeq;
@@ -178,7 +178,7 @@ public final class InsertionAnnotationBuilder extends AnnotationBuilder {
 
 		public CDSExonicAnnotationBuilder() {
 			this.wtCDSSeq = projector.getTranscriptStartingAtCDS();
-			this.varCDSSeq = seqChangeHelper.getCDSWithGenomeVariant(change);
+			this.varCDSSeq = seqChangeHelper.getCDSWithGenomeVariantView(change);
 
 			// Get position of insertion on CDS level, will obtain AA change pos after normalization.
 			this.insertPos = projector.projectGenomeToCDSPosition(change.getGenomePos());
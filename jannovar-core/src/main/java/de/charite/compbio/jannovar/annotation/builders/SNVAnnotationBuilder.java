@@ -15,6 +15,7 @@ import de.charite.compbio.jannovar.hgvs.protein.change.ProteinExtension;
 import de.charite.compbio.jannovar.hgvs.protein.change.ProteinMiscChange;
 import de.charite.compbio.jannovar.hgvs.protein.change.ProteinMiscChangeType;
 import de.charite.compbio.jannovar.hgvs.protein.change.ProteinSubstitution;
+import de.charite.compbio.jannovar.impl.util.SequenceKernel;
 import de.charite.compbio.jannovar.impl.util.Translator;
 import de.charite.compbio.jannovar.reference.CDSPosition;
 import de.charite.compbio.jannovar.reference.GenomeInterval;
@@ -143,9 +144,8 @@ public final class SNVAnnotationBuilder extends AnnotationBuilder {
 				varTypes.add(VariantEffect.STOP_RETAINED_VARIANT);
 			} else { // change in stop codon, AA change
 				varTypes.add(VariantEffect.STOP_LOST);
-				String varNTString = seqChangeHelper.getCDSWithGenomeVariant(change);
-				String varAAString = Translator.getTranslator().translateDNA(varNTString);
-				int stopCodonPos = varAAString.indexOf('*', cdsPos.getPos() / 3);
+				CharSequence varNTs = seqChangeHelper.getCDSWithGenomeVariantView(change);
+				int stopCodonPos = SequenceKernel.indexOfStopCodon(varNTs, 0, varNTs.length(), cdsPos.getPos() / 3);
 				int shift = stopCodonPos - cdsPos.getPos() / 3;
 				proteinChange = ProteinExtension.build(true, wtAA, cdsPos.getPos() / 3, varAA, shift);
 			}
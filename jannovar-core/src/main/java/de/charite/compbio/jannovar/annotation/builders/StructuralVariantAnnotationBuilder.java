@@ -5,9 +5,12 @@ import com.google.common.collect.ImmutableList;
 import de.charite.compbio.jannovar.annotation.Annotation;
 import de.charite.compbio.jannovar.annotation.AnnotationLocation;
 import de.charite.compbio.jannovar.annotation.AnnotationLocation.RankType;
+import de.charite.compbio.jannovar.annotation.StructuralVariantAnnotator;
+import de.charite.compbio.jannovar.annotation.StructuralVariantType;
 import de.charite.compbio.jannovar.annotation.VariantEffect;
 import de.charite.compbio.jannovar.hgvs.nts.change.NucleotideChange;
 import de.charite.compbio.jannovar.reference.GenomeVariant;
+import de.charite.compbio.jannovar.reference.Strand;
 import de.charite.compbio.jannovar.reference.TranscriptModel;
 
 // TODO(holtgrem): Make AnnotationBuilder an interface and rename AnnotationBuilder to AnnotationBuilderBase?
@@ -15,10 +18,14 @@ import de.charite.compbio.jannovar.reference.TranscriptModel;
 /**
  * Class providing static functions for creating {@link Annotation} objects for SVs.
  *
- * This is currently not inheriting from {@link AnnotationBuilder} since it uses non of its functionality.
+ * This is currently not inheriting from {@link AnnotationBuilder} since it uses non of its functionality. The
+ * variant effects are computed by {@link StructuralVariantAnnotator}.
  *
+ * @deprecated use {@link StructuralVariantAnnotator}, which annotates on the gene level, will be removed in the next
+ *             major version
  * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
  */
+@Deprecated
 public final class StructuralVariantAnnotationBuilder {
 
 	/** the transcript to build the annotation for */
@@ -47,65 +54,19 @@ public final class StructuralVariantAnnotationBuilder {
 	 * @return {@link Annotation} for the given {@link #transcript} and {@link #change}.
 	 */
 	public Annotation build() {
-		// Obtain shortcuts.
-		final String ref = change.getRef();
-		final String alt = change.getAlt();
-
-		// Build reverse-complement of alt string.
-		StringBuilder altRC = new StringBuilder(alt).reverse();
-		for (int i = 0; i < altRC.length(); ++i)
-			if (altRC.charAt(i) == 'A')
-				altRC.setCharAt(i, 'T');
-			else if (altRC.charAt(i) == 'T')
-				altRC.setCharAt(i, 'A');
-			else if (altRC.charAt(i) == 'C')
-				altRC.setCharAt(i, 'G');
-			else if (altRC.charAt(i) == 'G')
-				altRC.setCharAt(i, 'C');
-
 		// chromosome/genome level change
 		NucleotideChange ntChange = new GenomicNucleotideChangeBuilder(change).build();
 
-		// TODO(holtgrem): we should care about breakpoints within genes
+		// if transcript is null it is intergenic
+		if (transcript == null)
+			return new Annotation(null, change, ImmutableList.of(VariantEffect.INTERGENIC_VARIANT,
+					VariantEffect.STRUCTURAL_VARIANT), null, ntChange, null, null);
 
 		final AnnotationLocation annoLoc = new AnnotationLocation(null, RankType.UNDEFINED,
 				AnnotationLocation.INVALID_RANK, AnnotationLocation.INVALID_RANK, null);
-
-		if (ref.length() == alt.length() && ref.equals(altRC.toString())) { // SV inversion
-			if (transcript == null) {
-				return new Annotation(null, change, ImmutableList.of(VariantEffect.INTERGENIC_VARIANT,
-						VariantEffect.STRUCTURAL_VARIANT), null, ntChange, null, null);
-			} else {
-				return new Annotation(transcript, change, ImmutableList.of(VariantEffect.STRUCTURAL_VARIANT), annoLoc,
-						ntChange, null, null);
-
-			}
-		} else if (ref.length() == 0) { // SV insertion
-			// if transcript is null it is intergenic
-			if (transcript == null) {
-				return new Annotation(null, change, ImmutableList.of(VariantEffect.INTERGENIC_VARIANT,
-						VariantEffect.STRUCTURAL_VARIANT), null, ntChange, null, null);
-			} else {
-				return new Annotation(transcript, change, ImmutableList.of(VariantEffect.STRUCTURAL_VARIANT), annoLoc,
-						ntChange, null, null);
-			}
-		} else if (alt.length() == 0) { // SV deletion
-			// if tm is null it is intergenic
-			if (transcript == null) {
-				return new Annotation(null, change, ImmutableList.of(VariantEffect.INTERGENIC_VARIANT,
-						VariantEffect.STRUCTURAL_VARIANT), null, ntChange, null, null);
-			} else {
-				return new Annotation(this.transcript, change, ImmutableList.of(VariantEffect.STRUCTURAL_VARIANT),
-						annoLoc, ntChange, null, null);
-			}
-		} else { // SV substitution
-			if (transcript == null) {
-				return new Annotation(null, change, ImmutableList.of(VariantEffect.INTERGENIC_VARIANT,
-						VariantEffect.STRUCTURAL_VARIANT), null, ntChange, null, null);
-			} else {
-				return new Annotation(transcript, change, ImmutableList.of(VariantEffect.STRUCTURAL_VARIANT), annoLoc,
-						ntChange, null, null);
-			}
-		}
+		final StructuralVariantType type = StructuralVariantType.fromLiteral(change.getRef(), change.getAlt());
+		return new Annotation(transcript, change, StructuralVariantAnnotator.buildTranscriptEffects(transcript,
+				change.withStrand(Strand.FWD).getGenomeInterval(), type), annoLoc, ntChange, null, null);
 	}
+
 }
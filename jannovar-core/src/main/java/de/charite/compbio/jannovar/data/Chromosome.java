@@ -1,9 +1,16 @@
 package de.charite.compbio.jannovar.data;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.function.Supplier;
 
+import com.google.common.collect.ImmutableList;
+
+import de.charite.compbio.jannovar.impl.intervals.Interval;
 import de.charite.compbio.jannovar.impl.intervals.IntervalArray;
 import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.TranscriptIntervalEndExtractor;
 import de.charite.compbio.jannovar.reference.TranscriptModel;
 
 /**
@@ -18,6 +25,9 @@ import de.charite.compbio.jannovar.reference.TranscriptModel;
  * Note that the {@link GenomeInterval} objects in the interval tree are defined by the transcription start and stop
  * sites of the isoform.
  *
+ * The {@link IntervalArray} can also be loaded lazily on the first call to {@link #getTMIntervalTree}, e.g., by
+ * {@link ChunkedJannovarDataSerializer} such that only the chromosomes that are queried are read from disk.
+ *
  * @author <a href="mailto:Peter.Robinson@jax.org">Peter N Robinson</a>
  * @author <a href="mailto:marten.jaeger@charite.de">Marten Jaeger</a>
  * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
@@ -35,9 +45,15 @@ public final class Chromosome implements Serializable {
 
 	/**
 	 * An {@link IntervalArray} that contains all of the {@link TranscriptModel} objects for transcripts located on this
-	 * chromosome.
+	 * chromosome, <code>null</code> until loaded by {@link #loader}.
 	 */
-	private final IntervalArray<TranscriptModel> tmIntervalTree;
+	private volatile IntervalArray<TranscriptModel> tmIntervalTree;
+
+	/** loads the transcripts for {@link #tmIntervalTree} on first access, <code>null</code> if already loaded */
+	private transient Supplier<ImmutableList<TranscriptModel>> loader;
+
+	/** the transcripts in the order returned by {@link #loader}, <code>null</code> if not loaded lazily */
+	private transient ImmutableList<TranscriptModel> loadedTranscriptModels;
 
 	/**
 	 * Initialize object.
@@ -53,6 +69,24 @@ public final class Chromosome implements Serializable {
 		this.refDict = refDict;
 		this.chrID = chrID;
 		this.tmIntervalTree = tmIntervalTree;
+		this.loader = null;
+	}
+
+	/**
+	 * Initialize object with an interval tree that is loaded on first access.
+	 *
+	 * @param refDict
+	 *            the {@link ReferenceDictionary} to use
+	 * @param chrID
+	 *            the chromosome
+	 * @param loader
+	 *            loads all transcripts on this chromosome, called at most once
+	 */
+	Chromosome(ReferenceDictionary refDict, int chrID, Supplier<ImmutableList<TranscriptModel>> loader) {
+		this.refDict = refDict;
+		this.chrID = chrID;
+		this.tmIntervalTree = null;
+		this.loader = loader;
 	}
 
 	/** @return reference dictionary to use */
@@ -76,14 +110,52 @@ public final class Chromosome implements Serializable {
 	 * @return Number of genes contained in this chromosome.
 	 */
 	public int getNumberOfGenes() {
-		return this.tmIntervalTree.size();
+		return getTMIntervalTree().size();
+	}
+
+	/** @return whether the {@link IntervalArray} of the chromosome has been loaded already */
+	public boolean isLoaded() {
+		return tmIntervalTree != null;
 	}
 
 	/**
-	 * @return the {@link IntervalArray} of the chromosome.
+	 * @return the {@link IntervalArray} of the chromosome, loaded on first access if necessary.
 	 */
 	public IntervalArray<TranscriptModel> getTMIntervalTree() {
-		return tmIntervalTree;
+		IntervalArray<TranscriptModel> result = tmIntervalTree;
+		if (result == null) {
+			synchronized (this) {
+				result = tmIntervalTree;
+				if (result == null) {
+					loadedTranscriptModels = loader.get();
+					result = new IntervalArray<TranscriptModel>(loadedTranscriptModels,
+							new TranscriptIntervalEndExtractor());
+					tmIntervalTree = result;
+					loader = null;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return the transcripts on this chromosome, in the order they were loaded in if loaded lazily and otherwise in the
+	 *         order of the {@link IntervalArray}
+	 */
+	ImmutableList<TranscriptModel> getTranscriptModels() {
+		final IntervalArray<TranscriptModel> tree = getTMIntervalTree();
+		if (loadedTranscriptModels != null)
+			return loadedTranscriptModels;
+		ImmutableList.Builder<TranscriptModel> builder = ImmutableList.builder();
+		for (Interval<TranscriptModel> itv : tree.getIntervals())
+			builder.add(itv.getValue());
+		return builder.build();
+	}
+
+	/** Load the {@link IntervalArray} before writing, such that lazily loaded chromosomes are written completely */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		getTMIntervalTree();
+		out.defaultWriteObject();
 	}
 
 }
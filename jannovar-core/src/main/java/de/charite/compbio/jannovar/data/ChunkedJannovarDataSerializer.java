@@ -0,0 +1,320 @@
+package de.charite.compbio.jannovar.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import de.charite.compbio.jannovar.UncheckedJannovarException;
+import de.charite.compbio.jannovar.data.impl.VersionComparator;
+import de.charite.compbio.jannovar.impl.util.StringUtil;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+
+// NOTE(holtgrem): Part of the public interface of the Jannovar library.
+
+/**
+ * Manager for serializing {@link JannovarData} objects chromosome by chromosome and deserializing them lazily.
+ *
+ * The file starts with magic bytes that differ from the ones of {@link JannovarDataSerializer}, followed by one
+ * gzip-compressed chunk with the serialized transcripts of each chromosome. After the chunks, a gzip-compressed table
+ * of contents holds the version, the {@link ReferenceDictionary}, and the offset and length of each chunk. The file
+ * ends with the offset of the table of contents as an 8 byte integer.
+ *
+ * Loading only reads the table of contents. The transcripts of a chromosome are read and indexed on the first call to
+ * {@link Chromosome#getTMIntervalTree}, and recorded in the {@link DatabaseLoadReport} of the resulting
+ * {@link JannovarData}. The chunks keep the order of the transcripts in the saved {@link JannovarData}, such that the
+ * accession and gene symbol indices are built in the same order after loading. {@link JannovarDataSerializer#load} detects the chunked layout and uses this class for
+ * loading.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public final class ChunkedJannovarDataSerializer {
+
+	/** magic bytes */
+	private final static byte[] MAGIC_BYTES = { 'J', 'V', 'D', 'C' };
+
+	/** the minimal supported version of Jannovar in this version, first version with the chunked layout */
+	private final String minVersion = "0.25";
+
+	/** the logger object to use */
+	private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+	/** path to file to serialize to or deserialize from */
+	private final String filename;
+
+	/**
+	 * Initialize the (de)serializer with the path to the file to load/save.
+	 *
+	 * @param filename
+	 *            path to the file to deserialize from or serialize to
+	 */
+	public ChunkedJannovarDataSerializer(String filename) {
+		this.filename = filename;
+	}
+
+	/**
+	 * @param filename
+	 *            path to the file to check
+	 * @return whether the file at <code>filename</code> has the chunked layout
+	 * @throws SerializationException
+	 *             on problems reading the file
+	 */
+	public static boolean isChunked(String filename) throws SerializationException {
+		try (FileInputStream fileIn = new FileInputStream(filename)) {
+			byte[] word = new byte[4];
+			return fileIn.read(word) == word.length && Arrays.equals(word, MAGIC_BYTES);
+		} catch (IOException e) {
+			throw new SerializationException(String.format("Could not read %s: %s", filename, e.toString()));
+		}
+	}
+
+	/**
+	 * Serialize a {@link JannovarData} object to a file in the chunked layout.
+	 *
+	 * @param data
+	 *            the {@link JannovarData} object to serialize
+	 * @throws SerializationException
+	 *             on problems with the serialization
+	 */
+	public void save(JannovarData data) throws SerializationException {
+		logger.info(StringUtil.concatenate("Serializing JannovarData in chunks to ", filename));
+		final long startTime = System.nanoTime();
+
+		if (data == null || data.getRefDict().getContigNameToID().isEmpty())
+			throw new SerializationException("Attempting to serialize empty data set");
+
+		final ReferenceDictionary refDict = data.getRefDict();
+		try (FileOutputStream fos = new FileOutputStream(filename)) {
+			fos.write(MAGIC_BYTES);
+			long offset = MAGIC_BYTES.length;
+
+			// group the transcripts by chromosome, in the order of their first transcript
+			final Map<Integer, ImmutableList.Builder<TranscriptModel>> byChrom = new LinkedHashMap<>();
+			for (TranscriptModel tm : data.getTmByAccession().values())
+				byChrom.computeIfAbsent(tm.getChr(), chrID -> ImmutableList.builder()).add(tm);
+			for (Integer chrID : data.getChromosomes().keySet())
+				byChrom.computeIfAbsent(chrID, key -> ImmutableList.builder());
+
+			// write one chunk per chromosome and remember its position
+			final List<TOCEntry> toc = new ArrayList<>();
+			for (Map.Entry<Integer, ImmutableList.Builder<TranscriptModel>> entry : byChrom.entrySet()) {
+				final ImmutableList<TranscriptModel> transcripts = entry.getValue().build();
+
+				final byte[] chunk = compress(transcripts, refDict);
+				fos.write(chunk);
+				toc.add(new TOCEntry(entry.getKey(), offset, chunk.length, transcripts.size()));
+				offset += chunk.length;
+			}
+
+			// write table of contents, followed by its offset
+			ByteArrayOutputStream tocBytes = new ByteArrayOutputStream();
+			try (ObjectOutputStream oos = new ObjectOutputStream(new GZIPOutputStream(tocBytes))) {
+				oos.writeObject(JannovarDataSerializer.getVersion());
+				oos.writeObject(refDict);
+				oos.writeInt(toc.size());
+				for (TOCEntry entry : toc) {
+					oos.writeInt(entry.chrID);
+					oos.writeLong(entry.offset);
+					oos.writeInt(entry.length);
+					oos.writeInt(entry.numTranscripts);
+				}
+			}
+			fos.write(tocBytes.toByteArray());
+			for (int shift = 56; shift >= 0; shift -= 8)
+				fos.write((int) (offset >>> shift));
+		} catch (IOException e) {
+			throw new SerializationException(String.format("Could not serialize data file list: %s", e.toString()));
+		}
+
+		logger.info(String.format("Serialization took %.2f sec.",
+				(System.nanoTime() - startTime) / 1000.0 / 1000.0 / 1000.0));
+	}
+
+	/**
+	 * Read the table of contents of a file in the chunked layout.
+	 *
+	 * The returned {@link JannovarData} loads the transcripts of each chromosome on first access.
+	 *
+	 * @return {@link JannovarData} object yielded by deserialization
+	 * @throws SerializationException
+	 *             on problems with the deserialization
+	 */
+	public JannovarData load() throws SerializationException {
+		logger.info(StringUtil.concatenate("Deserializing table of contents of JannovarData from ", filename));
+		final long startTime = System.nanoTime();
+
+		final ReferenceDictionary refDict;
+		final List<TOCEntry> toc = new ArrayList<>();
+		try (RandomAccessFile file = new RandomAccessFile(filename, "r")) {
+			byte[] word = new byte[4];
+			file.readFully(word);
+			if (!Arrays.equals(word, MAGIC_BYTES))
+				throw new SerializationException(
+						filename + " does not look like a chunked Jannovar database, magic number incorrect!");
+			file.seek(file.length() - 8);
+			final long tocOffset = file.readLong();
+			final byte[] tocBytes = readFully(file, tocOffset, (int) (file.length() - 8 - tocOffset));
+
+			try (ObjectInputStream in = new ObjectInputStream(
+					new GZIPInputStream(new ByteArrayInputStream(tocBytes)))) {
+				String dbVersion = (String) in.readObject();
+				VersionComparator comp = new VersionComparator();
+				if (comp.compare(dbVersion, minVersion) < 0)
+					throw new SerializationException(
+							filename + " was created by Jannovar " + dbVersion + " but we need at least " + minVersion);
+				refDict = (ReferenceDictionary) in.readObject();
+				final int numEntries = in.readInt();
+				for (int i = 0; i < numEntries; ++i)
+					toc.add(new TOCEntry(in.readInt(), in.readLong(), in.readInt(), in.readInt()));
+			}
+		} catch (IOException e) {
+			throw new SerializationException(String.format("Could not deserialize data list: %s", e.toString()));
+		} catch (ClassNotFoundException e) {
+			throw new SerializationException(String.format("Could not deserialized class definition: %s", e.toString()));
+		}
+
+		final DatabaseLoadReport loadReport = new DatabaseLoadReport(filename, toc.size());
+		ImmutableMap.Builder<Integer, Chromosome> builder = ImmutableMap.builder();
+		for (TOCEntry entry : toc)
+			builder.put(entry.chrID, new Chromosome(refDict, entry.chrID, () -> loadChunk(refDict, entry, loadReport)));
+
+		logger.info(String.format("Deserialization of table of contents took %.2f sec.",
+				(System.nanoTime() - startTime) / 1000.0 / 1000.0 / 1000.0));
+		return new JannovarData(refDict, builder.build(), null, loadReport);
+	}
+
+	/**
+	 * Load the transcripts of a chromosome, called on first access to the {@link Chromosome}.
+	 *
+	 * @throws UncheckedJannovarException
+	 *             on problems reading the chunk
+	 */
+	private ImmutableList<TranscriptModel> loadChunk(ReferenceDictionary refDict, TOCEntry entry,
+			DatabaseLoadReport loadReport) {
+		final long startTime = System.nanoTime();
+		final String contigName = refDict.getContigIDToName().get(entry.chrID);
+		logger.debug(StringUtil.concatenate("Loading transcripts of ", contigName, " from ", filename));
+
+		final ImmutableList<TranscriptModel> transcripts;
+		try (RandomAccessFile file = new RandomAccessFile(filename, "r")) {
+			transcripts = decompress(readFully(file, entry.offset, entry.length), refDict);
+		} catch (IOException | ClassNotFoundException e) {
+			throw new UncheckedJannovarException("Could not load transcripts of " + contigName + " from " + filename,
+					e);
+		}
+		if (transcripts.size() != entry.numTranscripts)
+			throw new UncheckedJannovarException("Expected " + entry.numTranscripts + " transcripts of " + contigName
+					+ " in " + filename + " but found " + transcripts.size());
+
+		loadReport.add(contigName + " (" + transcripts.size() + " transcripts)", startTime);
+		return transcripts;
+	}
+
+	/** @return <code>length</code> bytes of <code>file</code>, starting at <code>offset</code> */
+	private static byte[] readFully(RandomAccessFile file, long offset, int length) throws IOException {
+		final byte[] result = new byte[length];
+		file.seek(offset);
+		file.readFully(result);
+		return result;
+	}
+
+	/** @return gzip-compressed serialization of <code>transcripts</code>, without <code>refDict</code> */
+	private static byte[] compress(ImmutableList<TranscriptModel> transcripts, ReferenceDictionary refDict)
+			throws IOException {
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		try (ObjectOutputStream oos = new ChunkOutputStream(new GZIPOutputStream(result))) {
+			oos.writeObject(transcripts);
+		}
+		return result.toByteArray();
+	}
+
+	/** @return transcripts deserialized from <code>chunk</code>, using <code>refDict</code> */
+	@SuppressWarnings("unchecked")
+	private static ImmutableList<TranscriptModel> decompress(byte[] chunk, ReferenceDictionary refDict)
+			throws IOException, ClassNotFoundException {
+		try (ObjectInputStream in = new ChunkInputStream(new GZIPInputStream(new ByteArrayInputStream(chunk)),
+				refDict)) {
+			return (ImmutableList<TranscriptModel>) in.readObject();
+		}
+	}
+
+	/** Placeholder for the {@link ReferenceDictionary}, which is stored only once in the table of contents */
+	private enum SharedReferenceDictionary {
+		INSTANCE
+	}
+
+	/** {@link ObjectOutputStream} that writes {@link SharedReferenceDictionary} for {@link ReferenceDictionary}s */
+	private static final class ChunkOutputStream extends ObjectOutputStream {
+
+		ChunkOutputStream(OutputStream out) throws IOException {
+			super(out);
+			enableReplaceObject(true);
+		}
+
+		@Override
+		protected Object replaceObject(Object obj) throws IOException {
+			return (obj instanceof ReferenceDictionary) ? SharedReferenceDictionary.INSTANCE : obj;
+		}
+
+	}
+
+	/** {@link ObjectInputStream} that resolves {@link SharedReferenceDictionary} to the database's dictionary */
+	private static final class ChunkInputStream extends ObjectInputStream {
+
+		/** the dictionary from the table of contents */
+		private final ReferenceDictionary refDict;
+
+		ChunkInputStream(InputStream in, ReferenceDictionary refDict) throws IOException {
+			super(in);
+			this.refDict = refDict;
+			enableResolveObject(true);
+		}
+
+		@Override
+		protected Object resolveObject(Object obj) throws IOException {
+			return (obj == SharedReferenceDictionary.INSTANCE) ? refDict : obj;
+		}
+
+	}
+
+	/** Entry of the table of contents */
+	private static final class TOCEntry {
+
+		/** numeric chromosome ID */
+		final int chrID;
+		/** offset of the chunk in the file */
+		final long offset;
+		/** length of the chunk in bytes */
+		final int length;
+		/** number of transcripts in the chunk */
+		final int numTranscripts;
+
+		TOCEntry(int chrID, long offset, int length, int numTranscripts) {
+			this.chrID = chrID;
+			this.offset = offset;
+			this.length = length;
+			this.numTranscripts = numTranscripts;
+		}
+
+	}
+
+}
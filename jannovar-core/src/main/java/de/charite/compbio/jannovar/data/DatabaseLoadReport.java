@@ -0,0 +1,121 @@
+package de.charite.compbio.jannovar.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Records which parts of a lazily loaded {@link JannovarData} were loaded and when.
+ *
+ * Times are given relative to the opening of the database file, such that the report shows which chromosomes and
+ * indices were needed to get to the first annotation and how long loading them took.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public final class DatabaseLoadReport {
+
+	/**
+	 * A loaded part of the database
+	 */
+	public static final class Entry {
+
+		/** description of the loaded part, e.g., the chromosome name */
+		private final String what;
+		/** start of the loading, in nanoseconds after opening the database */
+		private final long startNanos;
+		/** time it took to load, in nanoseconds */
+		private final long durationNanos;
+
+		Entry(String what, long startNanos, long durationNanos) {
+			this.what = what;
+			this.startNanos = startNanos;
+			this.durationNanos = durationNanos;
+		}
+
+		/** @return description of the loaded part, e.g., the chromosome name */
+		public String getWhat() {
+			return what;
+		}
+
+		/** @return start of the loading, in nanoseconds after opening the database */
+		public long getStartNanos() {
+			return startNanos;
+		}
+
+		/** @return time it took to load, in nanoseconds */
+		public long getDurationNanos() {
+			return durationNanos;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s at %.3f s, took %.3f s", what, startNanos / 1e9, durationNanos / 1e9);
+		}
+
+	}
+
+	/** path to the database file */
+	private final String filename;
+	/** number of chromosomes in the database */
+	private final int numChromosomes;
+	/** value of {@link System#nanoTime} when opening the database */
+	private final long openTime;
+	/** the parts loaded so far, in the order of loading */
+	private final List<Entry> entries = new ArrayList<>();
+
+	/**
+	 * Start report for a database that is opened now
+	 *
+	 * @param filename
+	 *            path to the database file
+	 * @param numChromosomes
+	 *            number of chromosomes in the database
+	 */
+	DatabaseLoadReport(String filename, int numChromosomes) {
+		this.filename = filename;
+		this.numChromosomes = numChromosomes;
+		this.openTime = System.nanoTime();
+	}
+
+	/**
+	 * Record that loading of <code>what</code> started at <code>startTime</code> and has just finished
+	 *
+	 * @param what
+	 *            description of the loaded part
+	 * @param startTime
+	 *            value of {@link System#nanoTime} when the loading started
+	 */
+	synchronized void add(String what, long startTime) {
+		entries.add(new Entry(what, startTime - openTime, System.nanoTime() - startTime));
+	}
+
+	/** @return path to the database file */
+	public String getFilename() {
+		return filename;
+	}
+
+	/** @return number of chromosomes in the database */
+	public int getNumChromosomes() {
+		return numChromosomes;
+	}
+
+	/** @return the parts of the database loaded so far, in the order of loading */
+	public synchronized ImmutableList<Entry> getEntries() {
+		return ImmutableList.copyOf(entries);
+	}
+
+	/** @return multi-line, human-readable report */
+	@Override
+	public synchronized String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("Lazily loaded from ").append(filename).append(" (").append(numChromosomes)
+				.append(" chromosomes):");
+		if (entries.isEmpty())
+			builder.append(" nothing");
+		for (Entry entry : entries)
+			builder.append("\n  ").append(entry);
+		return builder.toString();
+	}
+
+}
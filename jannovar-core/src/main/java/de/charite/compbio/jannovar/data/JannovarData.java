@@ -1,8 +1,12 @@
 package de.charite.compbio.jannovar.data;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -16,7 +20,10 @@ import de.charite.compbio.jannovar.reference.TranscriptModel;
 /**
  * This data type is used for serialization after downloading.
  *
- * Making this class immutable makes it a convenient serializeable read-only database.
+ * Making this class immutable makes it a convenient serializeable read-only database. The secondary indices by
+ * accession and gene symbol are built on first access, in the order of the transcripts passed to the constructor. They
+ * are still serialized, such that the serialized form stays the same as in earlier versions that build them in the
+ * constructor.
  *
  * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
  */
@@ -29,15 +36,24 @@ public final class JannovarData implements Serializable {
 	/** map from chromosome ID to {@link Chromosome} */
 	private final ImmutableMap<Integer, Chromosome> chromosomes;
 
-	/** map from transcript accession to {@link TranscriptModel} instance. */
-	private final ImmutableMap<String, TranscriptModel> tmByAccession;
+	/** map from transcript accession to {@link TranscriptModel} instance, built on first access. */
+	private volatile ImmutableMap<String, TranscriptModel> tmByAccession;
 
-	/** map from transcript accession to {@link TranscriptModel} instance. */
-	private final ImmutableMultimap<String, TranscriptModel> tmByGeneSymbol;
+	/** map from gene symbol to {@link TranscriptModel} instances, built on first access. */
+	private volatile ImmutableMultimap<String, TranscriptModel> tmByGeneSymbol;
 
 	/** information about reference lengths and identities */
 	private final ReferenceDictionary refDict;
 
+	/**
+	 * the transcripts in the order passed to the constructor, <code>null</code> if they are only available from the
+	 * chromosomes
+	 */
+	private final transient ImmutableList<TranscriptModel> transcriptModels;
+
+	/** records the lazy loading of chromosomes and indices, <code>null</code> if not loaded lazily */
+	private final transient DatabaseLoadReport loadReport;
+
 	/**
 	 * Initialize the object with the given values.
 	 *
@@ -45,12 +61,41 @@ public final class JannovarData implements Serializable {
 	 *            the {@link ReferenceDictionary} to use in this object
 	 * @param transcriptModels
 	 *            the list of {@link TranscriptModel} objects to use in this object
+	 * @throws IllegalArgumentException
+	 *             if two transcripts have the same accession
 	 */
 	public JannovarData(ReferenceDictionary refDict, ImmutableList<TranscriptModel> transcriptModels) {
+		this(refDict, makeChromsomes(refDict, transcriptModels), transcriptModels, null);
+	}
+
+	/**
+	 * Initialize the object with the given values, reusing already built {@link Chromosome}s.
+	 *
+	 * This is used when applying a {@link JannovarDataPatch}, such that only the interval indices of the chromosomes
+	 * with changed transcripts have to be rebuilt, and when loading chromosomes lazily in
+	 * {@link ChunkedJannovarDataSerializer}.
+	 *
+	 * @param refDict
+	 *            the {@link ReferenceDictionary} to use in this object
+	 * @param chromosomes
+	 *            map from chromosome ID to {@link Chromosome}
+	 * @param transcriptModels
+	 *            the {@link TranscriptModel}s of <code>chromosomes</code> in the order for the indices,
+	 *            <code>null</code> to use the order of the chromosomes and of {@link Chromosome#getTranscriptModels}
+	 * @param loadReport
+	 *            the {@link DatabaseLoadReport} to record the loading of chromosomes and indices in, <code>null</code>
+	 *            if not loaded lazily
+	 * @throws IllegalArgumentException
+	 *             if two of the <code>transcriptModels</code> have the same accession
+	 */
+	JannovarData(ReferenceDictionary refDict, ImmutableMap<Integer, Chromosome> chromosomes,
+			ImmutableList<TranscriptModel> transcriptModels, DatabaseLoadReport loadReport) {
+		if (transcriptModels != null)
+			checkAccessionsUnique(transcriptModels);
 		this.refDict = refDict;
-		this.chromosomes = makeChromsomes(refDict, transcriptModels);
-		this.tmByAccession = makeTMByAccession(transcriptModels);
-		this.tmByGeneSymbol = makeTMByGeneSymbol(transcriptModels);
+		this.chromosomes = chromosomes;
+		this.transcriptModels = transcriptModels;
+		this.loadReport = loadReport;
 	}
 
 	/** @return map from chromosome ID to {@link Chromosome} */
@@ -58,14 +103,60 @@ public final class JannovarData implements Serializable {
 		return chromosomes;
 	}
 
-	/** @return map from transcript accession to {@link TranscriptModel} instance. */
+	/**
+	 * Return map from transcript accession to {@link TranscriptModel} instance.
+	 *
+	 * The map is built on the first call, loading all chromosomes that have not been loaded yet.
+	 *
+	 * @return map from transcript accession to {@link TranscriptModel} instance.
+	 */
 	public ImmutableMap<String, TranscriptModel> getTmByAccession() {
-		return tmByAccession;
+		ImmutableMap<String, TranscriptModel> result = tmByAccession;
+		if (result == null) {
+			synchronized (this) {
+				result = tmByAccession;
+				if (result == null) {
+					final long startTime = System.nanoTime();
+					result = makeTMByAccession(getTranscriptModels());
+					if (loadReport != null)
+						loadReport.add("transcript accession index", startTime);
+					tmByAccession = result;
+				}
+			}
+		}
+		return result;
 	}
 
-	/** @return map from transcript accession to {@link TranscriptModel} instance. */
+	/**
+	 * Return map from gene symbol to {@link TranscriptModel} instances.
+	 *
+	 * The map is built on the first call, loading all chromosomes that have not been loaded yet.
+	 *
+	 * @return map from gene symbol to {@link TranscriptModel} instances.
+	 */
 	public ImmutableMultimap<String, TranscriptModel> getTmByGeneSymbol() {
-		return tmByGeneSymbol;
+		ImmutableMultimap<String, TranscriptModel> result = tmByGeneSymbol;
+		if (result == null) {
+			synchronized (this) {
+				result = tmByGeneSymbol;
+				if (result == null) {
+					final long startTime = System.nanoTime();
+					result = makeTMByGeneSymbol(getTranscriptModels());
+					if (loadReport != null)
+						loadReport.add("gene symbol index", startTime);
+					tmByGeneSymbol = result;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return the {@link DatabaseLoadReport} with the chromosomes and indices loaded so far, <code>null</code> if the
+	 *         data was not loaded lazily
+	 */
+	public DatabaseLoadReport getLoadReport() {
+		return loadReport;
 	}
 
 	/** @return information about reference lengths and identities */
@@ -73,6 +164,39 @@ public final class JannovarData implements Serializable {
 		return refDict;
 	}
 
+	/** Build the indices before writing, readers of earlier versions expect them to be present */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		getTmByAccession();
+		getTmByGeneSymbol();
+		out.defaultWriteObject();
+	}
+
+	/**
+	 * @return all {@link TranscriptModel}s, in the order passed to the constructor if known and otherwise in the order
+	 *         of the chromosomes
+	 */
+	private ImmutableList<TranscriptModel> getTranscriptModels() {
+		if (transcriptModels != null)
+			return transcriptModels;
+		ImmutableList.Builder<TranscriptModel> builder = ImmutableList.builder();
+		for (Chromosome chrom : chromosomes.values())
+			builder.addAll(chrom.getTranscriptModels());
+		return builder.build();
+	}
+
+	/**
+	 * Check that the accessions are unique, as {@link #getTmByAccession} requires, without building the map
+	 *
+	 * @throws IllegalArgumentException
+	 *             if two of the <code>transcriptModels</code> have the same accession
+	 */
+	private static void checkAccessionsUnique(ImmutableList<TranscriptModel> transcriptModels) {
+		HashSet<String> accessions = new HashSet<String>(transcriptModels.size() * 2);
+		for (TranscriptModel tm : transcriptModels)
+			if (!accessions.add(tm.getAccession()))
+				throw new IllegalArgumentException("Multiple transcripts with accession " + tm.getAccession());
+	}
+
 	/**
 	 * @param transcriptModels
 	 *            set of {@link TranscriptModel}s to build multi-mapping for
@@ -124,13 +248,26 @@ public final class JannovarData implements Serializable {
 			transcripts.get(transcript.getChr()).add(transcript);
 
 		// Then, construct an interval tree for each chromosome and add the lists of intervals.
-		for (Integer chrID : transcripts.keySet()) {
-			IntervalArray<TranscriptModel> iTree = new IntervalArray<TranscriptModel>(transcripts.get(chrID),
-					new TranscriptIntervalEndExtractor());
-			builder.put(chrID, new Chromosome(refDict, chrID, iTree));
-		}
+		for (Integer chrID : transcripts.keySet())
+			builder.put(chrID, makeChromosome(refDict, chrID, transcripts.get(chrID)));
 
 		return builder.build();
 	}
 
+	/**
+	 * @param refDict
+	 *            the {@link ReferenceDictionary} to use for the construction
+	 * @param chrID
+	 *            numeric chromosome ID
+	 * @param transcriptModels
+	 *            the {@link TranscriptModel}s on the chromosome
+	 * @return {@link Chromosome} with an {@link IntervalArray} of the <code>transcriptModels</code>
+	 */
+	static Chromosome makeChromosome(ReferenceDictionary refDict, int chrID,
+			Collection<TranscriptModel> transcriptModels) {
+		IntervalArray<TranscriptModel> iTree = new IntervalArray<TranscriptModel>(transcriptModels,
+				new TranscriptIntervalEndExtractor());
+		return new Chromosome(refDict, chrID, iTree);
+	}
+
 }
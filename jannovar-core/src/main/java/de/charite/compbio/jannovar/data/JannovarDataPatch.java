@@ -0,0 +1,249 @@
+package de.charite.compbio.jannovar.data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedSet;
+
+import de.charite.compbio.jannovar.Immutable;
+import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+
+// NOTE(holtgrem): Part of the public interface of the Jannovar library.
+
+/**
+ * Difference between two {@link JannovarData} objects, by transcript accession.
+ *
+ * A patch consists of the accessions of transcripts to remove and the transcripts to add; modified transcripts are
+ * removed and added again. Applying a patch with {@link #applyTo} only rebuilds the interval indices of the
+ * chromosomes with changed transcripts.
+ *
+ * Patches record fingerprints of the database they were created against and of the resulting database, such that they
+ * can only be applied to the database they were made for and patch chains can be checked.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+@Immutable
+public final class JannovarDataPatch implements Serializable {
+
+	/** Serial version ID. */
+	private static final long serialVersionUID = 1L;
+
+	/** fingerprint of the database that the patch applies to, see {@link #fingerprint} */
+	private final long baseFingerprint;
+
+	/** fingerprint of the database after applying the patch */
+	private final long resultFingerprint;
+
+	/** accessions of the removed transcripts, including the modified ones */
+	private final ImmutableSortedSet<String> removedAccessions;
+
+	/** the added transcripts, including the modified ones */
+	private final ImmutableList<TranscriptModel> addedTranscripts;
+
+	/** number of modified transcripts, i.e., transcripts in both {@link #removedAccessions} and {@link #addedTranscripts} */
+	private final int numModified;
+
+	/**
+	 * Initialize the object with the given values.
+	 *
+	 * @param baseFingerprint
+	 *            fingerprint of the database that the patch applies to
+	 * @param resultFingerprint
+	 *            fingerprint of the database after applying the patch
+	 * @param removedAccessions
+	 *            accessions of the removed transcripts, including the modified ones
+	 * @param addedTranscripts
+	 *            the added transcripts, including the modified ones
+	 * @param numModified
+	 *            number of modified transcripts
+	 */
+	public JannovarDataPatch(long baseFingerprint, long resultFingerprint,
+			ImmutableSortedSet<String> removedAccessions, ImmutableList<TranscriptModel> addedTranscripts,
+			int numModified) {
+		this.baseFingerprint = baseFingerprint;
+		this.resultFingerprint = resultFingerprint;
+		this.removedAccessions = removedAccessions;
+		this.addedTranscripts = addedTranscripts;
+		this.numModified = numModified;
+	}
+
+	/**
+	 * Compute the patch that transforms <code>base</code> into <code>updated</code>.
+	 *
+	 * Transcripts are matched by accession. A transcript is considered modified if its sequence hash, coordinates, or
+	 * gene information differ.
+	 *
+	 * @param base
+	 *            the {@link JannovarData} to patch
+	 * @param updated
+	 *            the {@link JannovarData} that the patch should yield
+	 * @return the resulting {@link JannovarDataPatch}
+	 */
+	public static JannovarDataPatch diff(JannovarData base, JannovarData updated) {
+		final ImmutableMap<String, TranscriptModel> oldTMs = base.getTmByAccession();
+		final ImmutableMap<String, TranscriptModel> newTMs = updated.getTmByAccession();
+
+		final TreeSet<String> removed = new TreeSet<>();
+		final ImmutableList.Builder<TranscriptModel> added = ImmutableList.builder();
+		int numModified = 0;
+
+		for (String accession : oldTMs.keySet())
+			if (!newTMs.containsKey(accession))
+				removed.add(accession);
+		for (TranscriptModel newTM : newTMs.values()) {
+			final TranscriptModel oldTM = oldTMs.get(newTM.getAccession());
+			if (oldTM == null) {
+				added.add(newTM);
+			} else if (isModified(oldTM, newTM)) {
+				removed.add(oldTM.getAccession());
+				added.add(newTM);
+				++numModified;
+			}
+		}
+
+		return new JannovarDataPatch(fingerprint(base), fingerprint(updated), ImmutableSortedSet.copyOf(removed),
+				added.build(), numModified);
+	}
+
+	/** @return <code>true</code> if <code>newTM</code> differs from <code>oldTM</code> */
+	private static boolean isModified(TranscriptModel oldTM, TranscriptModel newTM) {
+		// compare cached sequence hashes first, the sequences are the largest part of the transcripts
+		if (Objects.hashCode(oldTM.getSequence()) != Objects.hashCode(newTM.getSequence()))
+			return true;
+		return !oldTM.equals(newTM) || !oldTM.getAltGeneIDs().equals(newTM.getAltGeneIDs())
+				|| oldTM.getTXRegion().getStrand() != newTM.getTXRegion().getStrand();
+	}
+
+	/**
+	 * Apply patch to <code>base</code>
+	 *
+	 * @param base
+	 *            the {@link JannovarData} to patch, must have the fingerprint that the patch was created against
+	 * @return the patched {@link JannovarData}
+	 * @throws JannovarException
+	 *             if the patch does not fit <code>base</code>
+	 */
+	public JannovarData applyTo(JannovarData base) throws JannovarException {
+		final long fingerprint = fingerprint(base);
+		if (fingerprint != baseFingerprint)
+			throw new JannovarException(String.format(
+					"Patch was created for database with fingerprint %016x but database has fingerprint %016x",
+					baseFingerprint, fingerprint));
+
+		final ReferenceDictionary refDict = base.getRefDict();
+		final Set<Integer> affectedChroms = new TreeSet<>();
+		for (String accession : removedAccessions) {
+			final TranscriptModel tm = base.getTmByAccession().get(accession);
+			if (tm == null)
+				throw new JannovarException("Patch removes transcript " + accession + " not present in database");
+			affectedChroms.add(tm.getChr());
+		}
+		for (TranscriptModel tm : addedTranscripts) {
+			if (!Objects.equals(refDict.getContigName(tm.getChr()), tm.getTXRegion().getRefDict()
+					.getContigName(tm.getChr())))
+				throw new JannovarException("Patch transcript " + tm.getAccession()
+						+ " is on a contig that is different in the database");
+			affectedChroms.add(tm.getChr());
+		}
+
+		// Collect new list of transcripts, grouped by affected chromosome.
+		final ImmutableList.Builder<TranscriptModel> transcripts = ImmutableList.builder();
+		final Map<Integer, List<TranscriptModel>> affectedTranscripts = new HashMap<>();
+		for (Integer chrID : affectedChroms)
+			affectedTranscripts.put(chrID, new ArrayList<>());
+		for (TranscriptModel tm : base.getTmByAccession().values()) {
+			if (removedAccessions.contains(tm.getAccession()))
+				continue;
+			transcripts.add(tm);
+			if (affectedChroms.contains(tm.getChr()))
+				affectedTranscripts.get(tm.getChr()).add(tm);
+		}
+		for (TranscriptModel tm : addedTranscripts) {
+			transcripts.add(tm);
+			affectedTranscripts.get(tm.getChr()).add(tm);
+		}
+
+		// Reuse the chromosomes without changes, rebuild the interval indices of the others.
+		final ImmutableMap.Builder<Integer, Chromosome> chromosomes = ImmutableMap.builder();
+		for (Map.Entry<Integer, Chromosome> entry : base.getChromosomes().entrySet())
+			if (!affectedChroms.contains(entry.getKey()))
+				chromosomes.put(entry);
+		for (Integer chrID : affectedChroms)
+			chromosomes.put(chrID, JannovarData.makeChromosome(refDict, chrID, affectedTranscripts.get(chrID)));
+
+		final JannovarData result = new JannovarData(refDict, chromosomes.build(), transcripts.build(), null);
+		if (fingerprint(result) != resultFingerprint)
+			throw new JannovarException("Patched database does not have the expected fingerprint");
+		return result;
+	}
+
+	/**
+	 * Compute fingerprint of the transcripts in a {@link JannovarData}, stable between program runs.
+	 *
+	 * The fingerprint combines the accession, sequence hash, and coordinates of each transcript, in the order of the
+	 * accessions.
+	 *
+	 * @param data
+	 *            the {@link JannovarData} to compute the fingerprint for
+	 * @return fingerprint of <code>data</code>
+	 */
+	public static long fingerprint(JannovarData data) {
+		long result = 1125899906842597L;
+		for (String accession : ImmutableSortedSet.copyOf(data.getTmByAccession().keySet())) {
+			final TranscriptModel tm = data.getTmByAccession().get(accession);
+			result = 31 * result + accession.hashCode();
+			result = 31 * result + Objects.hashCode(tm.getSequence());
+			result = 31 * result + tm.getChr();
+			result = 31 * result + tm.getTXRegion().getBeginPos();
+			result = 31 * result + tm.getTXRegion().getEndPos();
+			result = 31 * result + tm.getTXRegion().getStrand().ordinal();
+		}
+		return result;
+	}
+
+	/** @return fingerprint of the database that the patch applies to */
+	public long getBaseFingerprint() {
+		return baseFingerprint;
+	}
+
+	/** @return fingerprint of the database after applying the patch */
+	public long getResultFingerprint() {
+		return resultFingerprint;
+	}
+
+	/** @return accessions of the removed transcripts, including the modified ones */
+	public ImmutableSortedSet<String> getRemovedAccessions() {
+		return removedAccessions;
+	}
+
+	/** @return the added transcripts, including the modified ones */
+	public ImmutableList<TranscriptModel> getAddedTranscripts() {
+		return addedTranscripts;
+	}
+
+	/** @return number of modified transcripts */
+	public int getNumModified() {
+		return numModified;
+	}
+
+	/** @return <code>true</code> if the patch does not change anything */
+	public boolean isEmpty() {
+		return removedAccessions.isEmpty() && addedTranscripts.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return "JannovarDataPatch [added=" + (addedTranscripts.size() - numModified) + ", removed="
+				+ (removedAccessions.size() - numModified) + ", modified=" + numModified + "]";
+	}
+
+}
@@ -0,0 +1,99 @@
+package de.charite.compbio.jannovar.data;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.charite.compbio.jannovar.impl.util.StringUtil;
+
+// NOTE(holtgrem): Part of the public interface of the Jannovar library.
+
+/**
+ * Manager for serializing and deserializing {@link JannovarDataPatch} objects.
+ *
+ * The file layout follows {@link JannovarDataSerializer} but uses different magic bytes, such that patches and
+ * databases cannot be confused.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public final class JannovarDataPatchSerializer {
+
+	/** magic bytes */
+	private final static byte[] MAGIC_BYTES = { 'J', 'V', 'D', 'P' };
+
+	/** the logger object to use */
+	private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+	/** path to file to serialize to or deserialize from */
+	private final String filename;
+
+	/**
+	 * Initialize the (de)serializer with the path to the file to load/save.
+	 *
+	 * @param filename
+	 *            path to the file to deserialize from or serialize to
+	 */
+	public JannovarDataPatchSerializer(String filename) {
+		this.filename = filename;
+	}
+
+	/**
+	 * Serialize a {@link JannovarDataPatch} object to a file.
+	 *
+	 * @param patch
+	 *            the {@link JannovarDataPatch} object to serialize
+	 * @throws SerializationException
+	 *             on problems with the serialization
+	 */
+	public void save(JannovarDataPatch patch) throws SerializationException {
+		logger.info(StringUtil.concatenate("Serializing JannovarDataPatch to ", filename));
+
+		try (FileOutputStream fos = new FileOutputStream(filename)) {
+			// write magic bytes at top of file (before compression)
+			fos.write(MAGIC_BYTES);
+			fos.flush();
+			try (ObjectOutputStream oos = new ObjectOutputStream(new GZIPOutputStream(fos))) {
+				oos.writeObject(JannovarDataSerializer.getVersion());
+				oos.writeObject(patch);
+			}
+		} catch (IOException e) {
+			throw new SerializationException(String.format("Could not serialize patch: %s", e.toString()));
+		}
+	}
+
+	/**
+	 * Deserialize a {@link JannovarDataPatch} object from a file.
+	 *
+	 * @return {@link JannovarDataPatch} object yielded by deserialization
+	 * @throws SerializationException
+	 *             on problems with the deserialization
+	 */
+	public JannovarDataPatch load() throws SerializationException {
+		logger.info(StringUtil.concatenate("Deserializing JannovarDataPatch from ", filename));
+
+		try (FileInputStream fileIn = new FileInputStream(filename)) {
+			// check magic bytes at top of file
+			byte[] word = new byte[4];
+			if (fileIn.read(word) != word.length || !Arrays.equals(word, MAGIC_BYTES))
+				throw new SerializationException(
+						filename + " does not look like a Jannovar database patch, magic number incorrect!");
+			try (ObjectInputStream in = new ObjectInputStream(new GZIPInputStream(fileIn))) {
+				in.readObject(); // version string, only informative
+				return (JannovarDataPatch) in.readObject();
+			}
+		} catch (IOException e) {
+			throw new SerializationException(String.format("Could not deserialize patch: %s", e.toString()));
+		} catch (ClassNotFoundException e) {
+			throw new SerializationException(String.format("Could not deserialized class definition: %s", e.toString()));
+		}
+	}
+
+}
@@ -122,11 +122,16 @@ public final class JannovarDataSerializer {
 	/**
 	 * Deserialize a {@link JannovarData} object from a file.
 	 *
+	 * Files written by {@link ChunkedJannovarDataSerializer} are detected and loaded lazily through it.
+	 *
 	 * @return {@link JannovarData} object yielded by deserialization
 	 * @throws SerializationException
 	 *             on problems with the deserialization
 	 */
 	public JannovarData load() throws SerializationException {
+		if (ChunkedJannovarDataSerializer.isChunked(filename))
+			return new ChunkedJannovarDataSerializer(filename).load();
+
 		logger.info(StringUtil.concatenate("Deserializing JannovarData from ", filename));
 		final long startTime = System.nanoTime();
 
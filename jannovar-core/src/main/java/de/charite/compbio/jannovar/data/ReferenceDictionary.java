@@ -1,7 +1,9 @@
 package de.charite.compbio.jannovar.data;
 
+import java.io.ObjectStreamException;
 import java.io.PrintStream;
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Map.Entry;
 
 import com.google.common.collect.ImmutableMap;
@@ -55,6 +57,15 @@ public class ReferenceDictionary implements Serializable {
 	/** stores a mapping from numeric chromosomeID/contigID to chromosome/contig length */
 	private final ImmutableMap<Integer, Integer> contigLength;
 
+	/** Largest numeric contig id for which dense tables are built */
+	private static final int MAX_DENSE_ID = 1 << 20;
+
+	/** contig lengths indexed by numeric contig id, <code>-1</code> for unknown ids, built from {@link #contigLength} */
+	private transient final int[] lengthTable;
+
+	/** primary contig names indexed by numeric contig id, built from {@link #contigName} */
+	private transient final String[] nameTable;
+
 	/**
 	 * Initialize the object with the given values.
 	 *
@@ -70,6 +81,34 @@ public class ReferenceDictionary implements Serializable {
 		this.contigID = contigID;
 		this.contigName = contigName;
 		this.contigLength = contigLength;
+
+		int maxID = -1;
+		for (Integer id : contigLength.keySet())
+			if (id >= 0 && id < MAX_DENSE_ID)
+				maxID = Math.max(maxID, id);
+		for (Integer id : contigName.keySet())
+			if (id >= 0 && id < MAX_DENSE_ID)
+				maxID = Math.max(maxID, id);
+		this.lengthTable = new int[maxID + 1];
+		Arrays.fill(this.lengthTable, -1);
+		for (Entry<Integer, Integer> entry : contigLength.entrySet())
+			if (entry.getKey() >= 0 && entry.getKey() < MAX_DENSE_ID)
+				this.lengthTable[entry.getKey()] = entry.getValue();
+		this.nameTable = new String[maxID + 1];
+		for (Entry<Integer, String> entry : contigName.entrySet())
+			if (entry.getKey() >= 0 && entry.getKey() < MAX_DENSE_ID)
+				this.nameTable[entry.getKey()] = entry.getValue();
+	}
+
+	/**
+	 * Rebuild the dense tables after deserialization, they are not part of the serialized form.
+	 *
+	 * @return a new {@link ReferenceDictionary} with the same maps
+	 * @throws ObjectStreamException
+	 *             never, required by the serialization protocol
+	 */
+	private Object readResolve() throws ObjectStreamException {
+		return new ReferenceDictionary(contigID, contigName, contigLength);
 	}
 
 	/** @return map from contig name to contig id */
@@ -87,6 +126,37 @@ public class ReferenceDictionary implements Serializable {
 		return contigLength;
 	}
 
+	/**
+	 * Primitive lookup of contig length, without boxing
+	 *
+	 * @param id
+	 *            numeric contig id
+	 * @return length of the contig with the given <code>id</code>
+	 * @throws IllegalArgumentException
+	 *             if the length of the contig is not known
+	 */
+	public int getContigLength(int id) {
+		if (id >= 0 && id < lengthTable.length && lengthTable[id] != -1)
+			return lengthTable[id];
+		final Integer length = contigLength.get(id);
+		if (length == null)
+			throw new IllegalArgumentException("Unknown length of contig with id " + id);
+		return length;
+	}
+
+	/**
+	 * Primitive lookup of primary contig name, without boxing
+	 *
+	 * @param id
+	 *            numeric contig id
+	 * @return primary name of the contig with the given <code>id</code>, <code>null</code> if unknown
+	 */
+	public String getContigName(int id) {
+		if (id >= 0 && id < nameTable.length)
+			return nameTable[id];
+		return contigName.get(id);
+	}
+
 	/**
 	 * Print dictionary to <code>System.err</code> for debugging purposes.
 	 *
@@ -3,21 +3,16 @@ package de.charite.compbio.jannovar.datasource;
 import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.base.Joiner;
-import com.google.common.collect.ImmutableList;
-
 import de.charite.compbio.jannovar.JannovarException;
 import de.charite.compbio.jannovar.hgnc.AltGeneIDType;
 import de.charite.compbio.jannovar.hgnc.HGNCParser;
-import de.charite.compbio.jannovar.hgnc.HGNCRecord;
+import de.charite.compbio.jannovar.impl.parse.IDMappingTable;
 import de.charite.compbio.jannovar.impl.util.PathUtil;
 import de.charite.compbio.jannovar.reference.TranscriptModelBuilder;
 
@@ -31,25 +26,51 @@ public class TranscriptModelBuilderHGNCExtender {
 	/** the logger object to use */
 	private static final Logger LOGGER = LoggerFactory.getLogger(TranscriptModelBuilderHGNCExtender.class);
 
+	/** HGNC columns to extract, in the order of {@link #ALT_ID_TYPES} */
+	private static final String[] HGNC_COLUMNS = { "hgnc_id", "symbol", "alias_symbol", "prev_symbol", "entrez_id",
+			"ensembl_gene_id", "vega_id", "ucsc_id", "refseq_accession", "ccds_id", "uniprot_ids", "pubmed_id", "mgd_id",
+			"rgd_id", "cosmic", "omim_id" };
+
+	/** Alternative gene ID types for the {@link #HGNC_COLUMNS} */
+	private static final AltGeneIDType[] ALT_ID_TYPES = { AltGeneIDType.HGNC_ID, AltGeneIDType.HGNC_SYMBOL,
+			AltGeneIDType.HGNC_ALIAS, AltGeneIDType.HGNC_PREVIOUS, AltGeneIDType.ENTREZ_ID,
+			AltGeneIDType.ENSEMBL_GENE_ID, AltGeneIDType.VEGA_ID, AltGeneIDType.UCSC_ID, AltGeneIDType.REFSEQ_ACCESSION,
+			AltGeneIDType.CCDS_ID, AltGeneIDType.UNIPROT_ID, AltGeneIDType.PUBMED_ID, AltGeneIDType.MGD_ID,
+			AltGeneIDType.RGD_ID, AltGeneIDType.COSMIC_ID, AltGeneIDType.OMIM_ID };
+
+	/** Index of the <tt>symbol</tt> column in {@link #HGNC_COLUMNS} */
+	private static final int SYMBOL_COLUMN = 1;
+
 	/** Path to downloaded HGNC file */
 	private final String basePath;
 
-	/** Extract gene ID from {@link HGNCRecord} */
-	Function<HGNCRecord, List<String>> extractorHGNC;
+	/** Name of the HGNC column with the gene ID, e.g., <tt>entrez_id</tt> */
+	private final String hgncKeyColumn;
 
 	/** Extract gene ID from {@link TranscriptModelBuilder} */
-	Function<TranscriptModelBuilder, String> extractorTX;
+	private final Function<TranscriptModelBuilder, String> extractorTX;
 
-	public TranscriptModelBuilderHGNCExtender(String basePath, Function<HGNCRecord, List<String>> extractorHGNC,
+	/**
+	 * @param basePath
+	 *            path to the directory with the downloaded HGNC file
+	 * @param hgncKeyColumn
+	 *            name of the HGNC column to match the gene ID of the transcripts against, e.g., <tt>entrez_id</tt>
+	 * @param extractorTX
+	 *            extracts the gene ID from a {@link TranscriptModelBuilder}
+	 */
+	public TranscriptModelBuilderHGNCExtender(String basePath, String hgncKeyColumn,
 			Function<TranscriptModelBuilder, String> extractorTX) {
 		super();
 		this.basePath = basePath;
-		this.extractorHGNC = extractorHGNC;
+		this.hgncKeyColumn = hgncKeyColumn;
 		this.extractorTX = extractorTX;
 	}
 
 	/**
 	 * Augment the {@link TranscriptModelBuilder}s with HGNC information
+	 *
+	 * The HGNC file is loaded into an {@link IDMappingTable} keyed by the gene ID column, the builders are then
+	 * augmented in parallel.
 	 * 
 	 * @param builders
 	 *            to augment
@@ -63,57 +84,45 @@ public class TranscriptModelBuilderHGNCExtender {
 		} catch (MalformedURLException e) {
 			throw new JannovarException("Could not parse URL " + HGNCParser.DOWNLOAD_URL, e);
 		}
-		final ImmutableList<HGNCRecord> hgncRecords = new HGNCParser(pathTSV).run();
-
-		// Build data structure for easier access to the records
-		final HashMap<String, HGNCRecord> recordByGeneID = new HashMap<>();
-		for (HGNCRecord record : hgncRecords) {
-			for (String key : extractorHGNC.apply(record)) {
-				recordByGeneID.put(key, record);
-			}
-		}
+		final IDMappingTable table = new HGNCParser(pathTSV).runTable(hgncKeyColumn, HGNC_COLUMNS);
 
 		// Augment the information in builders
-		for (TranscriptModelBuilder builder : builders.values()) {
-			if (extractorTX.apply(builder) == null) {
-				LOGGER.info("Transcript {} has no gene ID, not linking to HGNC",
-						new Object[] { builder.getAccession() });
-				continue;
-			}
-			if (!recordByGeneID.containsKey(extractorTX.apply(builder))) {
-				LOGGER.info("Gene ID not found in HGNC: {}", new Object[] { extractorTX.apply(builder) });
-				continue;
-			}
-			final HGNCRecord hgncRecord = recordByGeneID.get(extractorTX.apply(builder));
-
-			// Update gene symbol/HUGO identifier, after all HGNC is the authority
-			builder.setGeneSymbol(hgncRecord.getSymbol());
-
-			// Assign alternative gene ids
-			final Map<String, String> altIDs = builder.getAltGeneIDs();
-			putValue(altIDs, AltGeneIDType.HGNC_ID.toString(), hgncRecord.getHgncID());
-			putValue(altIDs, AltGeneIDType.HGNC_ID.toString(), hgncRecord.getHgncID());
-			putValue(altIDs, AltGeneIDType.HGNC_SYMBOL.toString(), hgncRecord.getSymbol());
-			putValue(altIDs, AltGeneIDType.HGNC_ALIAS.toString(),
-					Joiner.on(AltGeneIDType.HGNC_ALIAS.getSeparator()).join(hgncRecord.getAliasSymbols()));
-			putValue(altIDs, AltGeneIDType.HGNC_PREVIOUS.toString(),
-					Joiner.on(AltGeneIDType.HGNC_PREVIOUS.getSeparator()).join(hgncRecord.getPrevSymbol()));
-			putValue(altIDs, AltGeneIDType.ENTREZ_ID.toString(), hgncRecord.getEntrezID());
-			putValue(altIDs, AltGeneIDType.ENSEMBL_GENE_ID.toString(), hgncRecord.getEnsemblGeneID());
-			putValue(altIDs, AltGeneIDType.VEGA_ID.toString(), hgncRecord.getVegaID());
-			putValue(altIDs, AltGeneIDType.UCSC_ID.toString(), hgncRecord.getUCSCID());
-			putValue(altIDs, AltGeneIDType.REFSEQ_ACCESSION.toString(), hgncRecord.getRefseqAccession());
-			putValue(altIDs, AltGeneIDType.CCDS_ID.toString(),
-					Joiner.on(AltGeneIDType.CCDS_ID.getSeparator()).join(hgncRecord.getCCDSIDs()));
-			putValue(altIDs, AltGeneIDType.UNIPROT_ID.toString(),
-					Joiner.on(AltGeneIDType.UNIPROT_ID.getSeparator()).join(hgncRecord.getUniprotIDs()));
-			putValue(altIDs, AltGeneIDType.PUBMED_ID.toString(),
-					Joiner.on(AltGeneIDType.PUBMED_ID.getSeparator()).join(hgncRecord.getPubmedIDs()));
-			putValue(altIDs, AltGeneIDType.MGD_ID.toString(), hgncRecord.getMGDID());
-			putValue(altIDs, AltGeneIDType.RGD_ID.toString(), hgncRecord.getRGDID());
-			putValue(altIDs, AltGeneIDType.COSMIC_ID.toString(), hgncRecord.getCosmicID());
-			putValue(altIDs, AltGeneIDType.OMIM_ID.toString(), hgncRecord.getOmimID());
+		builders.values().parallelStream().forEach(builder -> extend(table, builder));
+	}
+
+	/** Augment the information in <code>builder</code> from the matching row of <code>table</code> */
+	private void extend(IDMappingTable table, TranscriptModelBuilder builder) {
+		final String geneID = extractorTX.apply(builder);
+		if (geneID == null) {
+			LOGGER.info("Transcript {} has no gene ID, not linking to HGNC", new Object[] { builder.getAccession() });
+			return;
 		}
+		final int row = table.getRow(geneID);
+		if (row == -1) {
+			LOGGER.info("Gene ID not found in HGNC: {}", new Object[] { geneID });
+			return;
+		}
+
+		// Update gene symbol/HUGO identifier, after all HGNC is the authority
+		builder.setGeneSymbol(table.get(row, SYMBOL_COLUMN));
+
+		// Assign alternative gene ids
+		final Map<String, String> altIDs = builder.getAltGeneIDs();
+		for (int i = 0; i < ALT_ID_TYPES.length; ++i) {
+			final String value = table.get(row, i);
+			putValue(altIDs, ALT_ID_TYPES[i].toString(), ALT_ID_TYPES[i].isMulti() ? unquote(value) : value);
+		}
+	}
+
+	/**
+	 * @return multi-value field <code>value</code> without the surrounding quotes, the values are already separated
+	 *         by {@link AltGeneIDType#getSeparator()}
+	 */
+	private static String unquote(String value) {
+		if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\""))
+			return value.substring(1, value.length() - 1);
+		else
+			return value;
 	}
 
 	/**
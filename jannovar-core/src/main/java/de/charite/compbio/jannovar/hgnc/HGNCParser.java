@@ -12,6 +12,7 @@ import com.google.common.collect.ImmutableList;
 
 import de.charite.compbio.jannovar.Immutable;
 import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.impl.parse.IDMappingTable;
 
 // TODO(holtgrewe): test me
 
@@ -99,6 +100,29 @@ public class HGNCParser {
 		return result.build();
 	}
 
+	/**
+	 * Load the HGNC file into an {@link IDMappingTable}, without building {@link HGNCRecord}s
+	 *
+	 * Multi-value fields are returned as they are in the file, i.e., quoted and separated by <tt>|</tt>.
+	 *
+	 * @param keyColumn
+	 *            name of the column to use as the key, e.g., <tt>entrez_id</tt>
+	 * @param valueColumns
+	 *            names of the columns to extract
+	 * @return {@link IDMappingTable} with the given columns
+	 * @throws JannovarException
+	 *             if there is a problem with opening or reading the file
+	 */
+	public IDMappingTable runTable(String keyColumn, String... valueColumns) throws JannovarException {
+		try {
+			return IDMappingTable.builder(path).keyColumn(keyColumn).valueColumns(valueColumns).load();
+		} catch (FileNotFoundException e) {
+			throw new JannovarException("Problem opening HGNC file", e);
+		} catch (IOException e) {
+			throw new JannovarException("Problem reading HGNC file", e);
+		}
+	}
+
 	private static ImmutableList<String> splitField(String f) {
 		if (f.startsWith("\"") && f.endsWith("\"")) {
 			f = f.substring(1, f.length() - 1);
@@ -0,0 +1,362 @@
+package de.charite.compbio.jannovar.impl.parse;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * Columnar table from a tab-separated ID mapping file, e.g., the HGNC complete set or the UCSC <tt>kgXref</tt> file
+ *
+ * The file is read in one pass, only the key column and the selected value columns are extracted. Values are stored in
+ * one array per column, indexed by row number, and keys are looked up through an open-addressing index into the rows.
+ * If a key occurs in several lines, the last one wins. Short strings (IDs and symbols) are interned through a
+ * process-wide interner such that IDs occurring in several files share one instance.
+ *
+ * Tables are immutable after loading and can be read from several threads.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public final class IDMappingTable {
+
+	/** the logger object to use */
+	private static final Logger LOGGER = LoggerFactory.getLogger(IDMappingTable.class);
+
+	/** Strings up to this length are interned, longer ones (e.g., sequences) are stored as they are */
+	public static final int MAX_INTERN_LENGTH = 64;
+
+	/** Interner shared by all tables */
+	private static final Interner<String> INTERNER = Interners.newWeakInterner();
+
+	/** Path to the file that the table was loaded from */
+	private final String path;
+	/** Number of value columns */
+	private final int numColumns;
+	/** Number of rows */
+	private final int numRows;
+	/** Values, <code>columns[col][row]</code> */
+	private final String[][] columns;
+	/** Slots of the key index, <code>null</code> for empty slots */
+	private final String[] slotKeys;
+	/** Row for the key in the same slot */
+	private final int[] slotRows;
+
+	/** Number of lines read */
+	private final long numLines;
+	/** Number of characters read */
+	private final long numChars;
+	/** Time spent reading, in nanoseconds */
+	private final long elapsedNanos;
+
+	private IDMappingTable(String path, String[] keys, String[][] columns, int numRows, long numLines, long numChars,
+			long elapsedNanos) {
+		this.path = path;
+		this.numColumns = columns.length;
+		this.numRows = numRows;
+		this.columns = columns;
+		this.numLines = numLines;
+		this.numChars = numChars;
+		this.elapsedNanos = elapsedNanos;
+
+		int capacity = 16;
+		while (capacity < 2 * numRows)
+			capacity <<= 1;
+		this.slotKeys = new String[capacity];
+		this.slotRows = new int[capacity];
+		for (int row = 0; row < numRows; ++row) {
+			int slot = findSlot(keys[row]);
+			slotKeys[slot] = keys[row];
+			slotRows[slot] = row;
+		}
+	}
+
+	/**
+	 * @param path
+	 *            path to the file to load, gzip-compressed if ending in <tt>.gz</tt>
+	 * @return {@link Builder} for configuring and loading the table
+	 */
+	public static Builder builder(String path) {
+		return new Builder(path);
+	}
+
+	/** @return path to the file that the table was loaded from */
+	public String getPath() {
+		return path;
+	}
+
+	/** @return number of rows, including those with a key that occurs again later */
+	public int size() {
+		return numRows;
+	}
+
+	/** @return number of value columns */
+	public int getNumColumns() {
+		return numColumns;
+	}
+
+	/**
+	 * @param key
+	 *            key to look up
+	 * @return row for <code>key</code>, <code>-1</code> if the key is not in the table
+	 */
+	public int getRow(String key) {
+		if (key == null)
+			return -1;
+		final int slot = findSlot(key);
+		return (slotKeys[slot] == null) ? -1 : slotRows[slot];
+	}
+
+	/** @return whether or not <code>key</code> is in the table */
+	public boolean containsKey(String key) {
+		return getRow(key) != -1;
+	}
+
+	/**
+	 * @param row
+	 *            row as returned by {@link #getRow}
+	 * @param column
+	 *            index of the value column, in the order given to {@link Builder#valueColumns}
+	 * @return value, the empty string if the line did not have the column
+	 */
+	public String get(int row, int column) {
+		return columns[column][row];
+	}
+
+	/**
+	 * @param key
+	 *            key to look up
+	 * @param column
+	 *            index of the value column, in the order given to {@link Builder#valueColumns}
+	 * @return value, <code>null</code> if the key is not in the table
+	 */
+	public String get(String key, int column) {
+		final int row = getRow(key);
+		return (row == -1) ? null : columns[column][row];
+	}
+
+	/** @return number of lines read from the file */
+	public long getNumLines() {
+		return numLines;
+	}
+
+	/** @return time spent loading the file, in milliseconds */
+	public long getElapsedMillis() {
+		return elapsedNanos / 1_000_000;
+	}
+
+	/** @return lines read per second while loading */
+	public double getLinesPerSecond() {
+		return numLines / Math.max(elapsedNanos / 1e9, 1e-9);
+	}
+
+	/** @return megabytes of (uncompressed) text read per second while loading */
+	public double getMegabytesPerSecond() {
+		return numChars / 1e6 / Math.max(elapsedNanos / 1e9, 1e-9);
+	}
+
+	/** @return slot of <code>key</code>, or the empty slot where it would be inserted */
+	private int findSlot(String key) {
+		final int mask = slotKeys.length - 1;
+		int h = key.hashCode();
+		int slot = (h ^ (h >>> 16)) & mask;
+		while (slotKeys[slot] != null && !slotKeys[slot].equals(key))
+			slot = (slot + 1) & mask;
+		return slot;
+	}
+
+	/** @return <code>s</code>, interned if short enough */
+	private static String intern(String s) {
+		return (s.length() <= MAX_INTERN_LENGTH) ? INTERNER.intern(s) : s;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s: %,d lines, %,d rows in %,d ms (%,.0f lines/s, %.1f MB/s)", path, numLines, numRows,
+				getElapsedMillis(), getLinesPerSecond(), getMegabytesPerSecond());
+	}
+
+	/**
+	 * Configuration for loading an {@link IDMappingTable}
+	 *
+	 * Columns are either given by their 0-based index or, for files with a header line, by their name. Empty lines and
+	 * lines starting with <tt>#</tt> are skipped.
+	 */
+	public static final class Builder {
+
+		/** Path to the file to load */
+		private final String path;
+		/** Index of the key column, if given by index */
+		private int keyIndex = 0;
+		/** Indices of the value columns, if given by index */
+		private int[] valueIndices = new int[0];
+		/** Name of the key column, if given by name */
+		private String keyName = null;
+		/** Names of the value columns, if given by name */
+		private String[] valueNames = null;
+		/** Smallest allowed number of fields in a line */
+		private int minFields = 0;
+		/** Largest allowed number of fields in a line */
+		private int maxFields = Integer.MAX_VALUE;
+
+		private Builder(String path) {
+			this.path = path;
+		}
+
+		/** Use the column with the given 0-based <code>index</code> as the key */
+		public Builder keyColumn(int index) {
+			this.keyIndex = index;
+			this.keyName = null;
+			return this;
+		}
+
+		/** Use the column with the given <code>name</code> in the header line as the key */
+		public Builder keyColumn(String name) {
+			this.keyName = name;
+			return this;
+		}
+
+		/** Extract the columns with the given 0-based <code>indices</code> */
+		public Builder valueColumns(int... indices) {
+			this.valueIndices = indices.clone();
+			this.valueNames = null;
+			return this;
+		}
+
+		/** Extract the columns with the given <code>names</code> in the header line */
+		public Builder valueColumns(String... names) {
+			this.valueNames = names.clone();
+			return this;
+		}
+
+		/** Require between <code>min</code> and <code>max</code> tab-separated fields in each line */
+		public Builder numFields(int min, int max) {
+			this.minFields = min;
+			this.maxFields = max;
+			return this;
+		}
+
+		/**
+		 * Load the file in one pass
+		 *
+		 * @return the loaded {@link IDMappingTable}
+		 * @throws IOException
+		 *             on problems opening or reading the file
+		 * @throws TranscriptParseException
+		 *             on lines with an unexpected number of fields, or missing header columns
+		 */
+		public IDMappingTable load() throws IOException, TranscriptParseException {
+			final long startTime = System.nanoTime();
+			final boolean byName = (keyName != null || valueNames != null);
+			final int numColumns = byName ? (valueNames == null ? 0 : valueNames.length) : valueIndices.length;
+
+			List<String> keys = new ArrayList<>();
+			List<List<String>> values = new ArrayList<>();
+			for (int i = 0; i < numColumns; ++i)
+				values.add(new ArrayList<>());
+
+			int key = keyIndex;
+			int[] indices = valueIndices;
+			boolean[] needed = null;
+			String[] fields = null;
+			long numLines = 0;
+			long numChars = 0;
+
+			try (BufferedReader br = openReader(path)) {
+				String line;
+				while ((line = br.readLine()) != null) {
+					++numLines;
+					numChars += line.length() + 1;
+					if (line.isEmpty() || line.startsWith("#"))
+						continue;
+
+					if (needed == null) {
+						if (byName) {
+							// Resolve the column names from the header line
+							final List<String> header = Arrays.asList(line.split("\t"));
+							key = header.indexOf(keyName);
+							if (key == -1)
+								throw new TranscriptParseException("Column " + keyName + " not in header of " + path);
+							indices = new int[numColumns];
+							for (int i = 0; i < numColumns; ++i)
+								indices[i] = header.indexOf(valueNames[i]);
+						}
+						int maxIndex = key;
+						for (int idx : indices)
+							maxIndex = Math.max(maxIndex, idx);
+						needed = new boolean[maxIndex + 1];
+						needed[key] = true;
+						for (int idx : indices)
+							if (idx >= 0)
+								needed[idx] = true;
+						fields = new String[maxIndex + 1];
+						if (byName)
+							continue;
+					}
+
+					final int numFields = split(line, needed, fields);
+					if (numFields < minFields || numFields > maxFields)
+						throw new TranscriptParseException(String.format(
+								"Bad format for %s: %s. Got %d fields instead of the expected %s.", path, line,
+								numFields, (minFields == maxFields) ? Integer.toString(minFields)
+										: ("at least " + minFields)));
+					keys.add(intern(fields[key] == null ? "" : fields[key]));
+					for (int i = 0; i < numColumns; ++i) {
+						final String value = (indices[i] >= 0) ? fields[indices[i]] : null;
+						values.get(i).add(value == null ? "" : intern(value));
+					}
+				}
+			}
+
+			final int numRows = keys.size();
+			final String[][] columns = new String[numColumns][];
+			for (int i = 0; i < numColumns; ++i)
+				columns[i] = values.get(i).toArray(new String[numRows]);
+			final IDMappingTable result = new IDMappingTable(path, keys.toArray(new String[numRows]), columns,
+					numRows, numLines, numChars, System.nanoTime() - startTime);
+			LOGGER.info("Loaded {}", result);
+			return result;
+		}
+
+		/**
+		 * Split <code>line</code> at tabs, only extracting the <code>needed</code> fields into <code>fields</code>
+		 *
+		 * @return total number of fields in <code>line</code>
+		 */
+		private static int split(String line, boolean[] needed, String[] fields) {
+			Arrays.fill(fields, null);
+			int numFields = 0;
+			int start = 0;
+			while (true) {
+				final int end = line.indexOf('\t', start);
+				if (numFields < needed.length && needed[numFields])
+					fields[numFields] = line.substring(start, (end == -1) ? line.length() : end);
+				++numFields;
+				if (end == -1)
+					return numFields;
+				start = end + 1;
+			}
+		}
+
+		/** @return reader for <code>path</code>, decompressing if the file name ends in <tt>.gz</tt> */
+		private static BufferedReader openReader(String path) throws IOException {
+			InputStream in = new FileInputStream(path);
+			if (path.endsWith(".gz"))
+				in = new GZIPInputStream(in, 64 * 1024);
+			return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+		}
+
+	}
+
+}
@@ -82,8 +82,7 @@ public class EnsemblParser implements TranscriptParser {
 
 		// Augment information in builders with
 		try {
-			new TranscriptModelBuilderHGNCExtender(basePath, r -> Lists.newArrayList(r.getEnsemblGeneID()),
-					tx -> tx.getGeneID()).run(builders);
+			new TranscriptModelBuilderHGNCExtender(basePath, "ensembl_gene_id", tx -> tx.getGeneID()).run(builders);
 		} catch (JannovarException e) {
 			throw new UncheckedJannovarException("Problem extending transcripts with HGNC information", e);
 		}
@@ -83,8 +83,7 @@ public class RefSeqParser implements TranscriptParser {
 
 		// Augment information in builders with
 		try {
-			new TranscriptModelBuilderHGNCExtender(basePath, r -> Lists.newArrayList(r.getEntrezID()),
-					tx -> tx.getGeneID()).run(builders);
+			new TranscriptModelBuilderHGNCExtender(basePath, "entrez_id", tx -> tx.getGeneID()).run(builders);
 		} catch (JannovarException e) {
 			throw new UncheckedJannovarException("Problem extending transcripts with HGNC information", e);
 		}
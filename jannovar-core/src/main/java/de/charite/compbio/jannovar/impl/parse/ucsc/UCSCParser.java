@@ -16,13 +16,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Lists;
 
 import de.charite.compbio.jannovar.JannovarException;
 import de.charite.compbio.jannovar.UncheckedJannovarException;
 import de.charite.compbio.jannovar.data.ReferenceDictionary;
 import de.charite.compbio.jannovar.datasource.TranscriptModelBuilderHGNCExtender;
 import de.charite.compbio.jannovar.hgnc.AltGeneIDType;
+import de.charite.compbio.jannovar.impl.parse.IDMappingTable;
 import de.charite.compbio.jannovar.impl.parse.TranscriptParseException;
 import de.charite.compbio.jannovar.impl.parse.TranscriptParser;
 import de.charite.compbio.jannovar.impl.parse.TranscriptSupportLevelsSetterFromLengths;
@@ -145,8 +145,7 @@ public class UCSCParser implements TranscriptParser {
 
 		// Augment information in builders with
 		try {
-			new TranscriptModelBuilderHGNCExtender(basePath, r -> Lists.newArrayList(r.getEntrezID()),
-					tx -> tx.getGeneID()).run(this.knownGeneMap);
+			new TranscriptModelBuilderHGNCExtender(basePath, "entrez_id", tx -> tx.getGeneID()).run(this.knownGeneMap);
 		} catch (JannovarException e) {
 			throw new UncheckedJannovarException("Problem extending transcripts with HGNC information", e);
 		}
@@ -380,48 +379,25 @@ public class UCSCParser implements TranscriptParser {
 	 * ids. The function than adds an Entrez gene id to the corresponding {@link TranscriptModelBuilder} objects.
 	 */
 	private void parseKnown2LocusLink(String locusPath) throws TranscriptParseException {
-		try {
-			BufferedReader br = getBufferedReaderFromFilePath(locusPath, locusPath.endsWith(".gz"));
-			String line;
-
-			int foundID = 0;
-			int notFoundID = 0;
-
-			while ((line = br.readLine()) != null) {
-				String A[] = line.split("\t");
-				if (A.length != 2) {
-					String msg = String.format("Bad format for UCSC KnownToLocusLink.txt file: %s. "
-							+ "Got %d fields instead of the expected 2.", line, A.length);
-					throw new TranscriptParseException(msg);
-				}
-				String id = A[0];
-				TranscriptModelBuilder tbi = this.knownGeneMap.get(id);
-				if (tbi == null) {
-					/**
-					 * Note: many of these sequences seem to be for genes on scaffolds, e.g., chrUn_gl000243
-					 */
-					notFoundID++;
-					continue;
-				}
-				foundID++;
-				tbi.setGeneID(A[1]);
-			}
-			br.close();
-			LOGGER.info("knownToLocusLink contained ids for {} knownGenes (no ids available for {})", foundID,
-					notFoundID);
-		} catch (FileNotFoundException fnfe) {
-			String s = String.format("Exception while parsing UCSC  knownToLocusLink file at \"%s\"\n%s", locusPath,
-					fnfe.toString());
-			throw new TranscriptParseException(s);
-		} catch (IOException e) {
-			String s = String.format("Exception while parsing UCSC KnownToLocusfile at \"%s\"\n%s", locusPath,
-					e.toString());
-			throw new TranscriptParseException(s);
-		}
+		final IDMappingTable table = loadTable(IDMappingTable.builder(locusPath).keyColumn(0).valueColumns(1)
+				.numFields(2, 2), "knownToLocusLink");
+
+		final long foundID = knownGeneMap.values().parallelStream().filter(tbi -> {
+			final int row = table.getRow(tbi.getAccession());
+			if (row != -1)
+				tbi.setGeneID(table.get(row, 0));
+			return row != -1;
+		}).count();
+		// Note: many of the remaining ids seem to be for genes on scaffolds, e.g., chrUn_gl000243
+		LOGGER.info("knownToLocusLink contained ids for {} knownGenes (no ids available for {})", foundID,
+				table.size() - foundID);
 	}
 
 	/**
-	 * Parse the knownCanonical.txt file and set the transcript support level of {@link #tmb}.
+	 * Parse the knownCanonical.txt file and set the transcript support level of the {@link TranscriptModelBuilder}s.
+	 *
+	 * Transcripts listed in the file get {@link TranscriptSupportLevels#UCSC_CANONICAL}, all others
+	 * {@link TranscriptSupportLevels#LOW_PRIORITY}.
 	 *
 	 * @param knownCanonicalPath
 	 *            path to the knownCanonical.txt file
@@ -429,42 +405,17 @@ public class UCSCParser implements TranscriptParser {
 	 *             in case of problems
 	 */
 	private void parseKnownCanonical(String knownCanonicalPath) throws TranscriptParseException {
-		// assign LOW_PRIORITY to all transcripts
-		for (TranscriptModelBuilder tmb : knownGeneMap.values())
-			tmb.setTranscriptSupportLevel(TranscriptSupportLevels.LOW_PRIORITY);
-
-		// actually parse the file
-		try {
-			BufferedReader br = getBufferedReaderFromFilePath(knownCanonicalPath, knownCanonicalPath.endsWith(".gz"));
-			String line;
-
-			int foundID = 0;
-			int notFoundID = 0;
-
-			while ((line = br.readLine()) != null) {
-				String A[] = line.split("\t");
-				if (A.length != 6) {
-					String msg = String.format("Bad format for UCSC knownCanonicalPath.txt file: %s. "
-							+ "Got %d fields instead of the expected 6.", line, A.length);
-					throw new TranscriptParseException(msg);
-				}
-				final String primaryTranscriptID = A[5];
-				TranscriptModelBuilder tbi = this.knownGeneMap.get(primaryTranscriptID);
-				if (tbi != null)
-					tbi.setTranscriptSupportLevel(TranscriptSupportLevels.UCSC_CANONICAL);
-			}
-			br.close();
-			LOGGER.info("knownCanonicalPath contained ids for {} knownGenes (no ids available for {})", foundID,
-					notFoundID);
-		} catch (FileNotFoundException fnfe) {
-			String s = String.format("Exception while parsing UCSC knownCanonicalPath file at \"%s\"\n%s",
-					knownCanonicalPath, fnfe.toString());
-			throw new TranscriptParseException(s);
-		} catch (IOException e) {
-			String s = String.format("Exception while parsing UCSC knownCanonicalPath at \"%s\"\n%s",
-					knownCanonicalPath, e.toString());
-			throw new TranscriptParseException(s);
-		}
+		final IDMappingTable table = loadTable(
+				IDMappingTable.builder(knownCanonicalPath).keyColumn(5).numFields(6, 6), "knownCanonical");
+
+		final long foundID = knownGeneMap.values().parallelStream().filter(tbi -> {
+			final boolean canonical = table.containsKey(tbi.getAccession());
+			tbi.setTranscriptSupportLevel(
+					canonical ? TranscriptSupportLevels.UCSC_CANONICAL : TranscriptSupportLevels.LOW_PRIORITY);
+			return canonical;
+		}).count();
+		LOGGER.info("knownCanonicalPath contained ids for {} knownGenes (no ids available for {})", foundID,
+				table.size() - foundID);
 	}
 
 	/**
@@ -473,47 +424,17 @@ public class UCSCParser implements TranscriptParser {
 	 * program. The sequences are then added to the corresponding {@link TranscriptModelBuilder} objects.
 	 */
 	private void parseKnownGeneMrna(String mRNAPath) throws TranscriptParseException {
-		try {
-			BufferedReader br = getBufferedReaderFromFilePath(mRNAPath, mRNAPath.endsWith(".gz"));
-			String line;
-			int kgWithNoSequence = 0;
-			int foundSequence = 0;
-
-			while ((line = br.readLine()) != null) {
-				String A[] = line.split("\t");
-				if (A.length != 2) {
-					String msg = String.format("Bad format for UCSC KnownToLocusLink.txt file: %s. "
-							+ "Got %d fields instead of the expected 2.", line, A.length);
-					throw new TranscriptParseException(msg);
-				}
-
-				String id = A[0];
-				String seq = A[1].toUpperCase();
-				TranscriptModelBuilder tbi = this.knownGeneMap.get(id);
-				if (tbi == null) {
-					/**
-					 * Note: many of these sequences seem to be for genes on scaffolds, e.g., chrUn_gl000243
-					 */
-					// System.err.println("Error, could not find FASTA sequence for known gene \""
-					// + id + "\"");
-					kgWithNoSequence++;
-					continue;
-					// System.exit(1);
-				}
-				foundSequence++;
-				tbi.setSequence(seq);
-			}
-			br.close();
-			LOGGER.info("Found {} transcript models from UCSC KnownGenes resource, {} of which had sequences",
-					foundSequence, (foundSequence - kgWithNoSequence));
-		} catch (FileNotFoundException fnfe) {
-			String s = String.format("Could not find file: %s\n%s", mRNAPath, fnfe.toString());
-			throw new TranscriptParseException(s);
-		} catch (IOException ioe) {
-			String s = String.format("Exception while parsing UCSC KnownGene FASTA file at \"%s\"\n%s", mRNAPath,
-					ioe.toString());
-			throw new TranscriptParseException(s);
-		}
+		final IDMappingTable table = loadTable(IDMappingTable.builder(mRNAPath).keyColumn(0).valueColumns(1)
+				.numFields(2, 2), "knownGeneMrna");
+
+		final long foundSequence = knownGeneMap.values().parallelStream().filter(tbi -> {
+			final int row = table.getRow(tbi.getAccession());
+			if (row != -1)
+				tbi.setSequence(table.get(row, 0).toUpperCase());
+			return row != -1;
+		}).count();
+		LOGGER.info("Found {} transcript models from UCSC KnownGenes resource, {} of which had sequences",
+				knownGeneMap.size(), foundSequence);
 	}
 
 	/**
@@ -522,7 +443,7 @@ public class UCSCParser implements TranscriptParser {
 	 * object.
 	 * <P>
 	 * Note that some of the fields are empty, which can cause a problem for Java's split function, which then conflates
-	 * neighboring fields. Therefore, we instead just count the number of tab signs to get to the 5th field.
+	 * neighboring fields. {@link IDMappingTable} keeps empty fields.
 	 * <P>
 	 * uc001aca.2 NM_198317 Q6TDP4 KLH17_HUMAN KLHL17 NM_198317 NP_938073 Homo sapiens kelch-like 17 (Drosophila)
 	 * (KLHL17), mRNA.
@@ -540,57 +461,38 @@ public class UCSCParser implements TranscriptParser {
 	 * </UL>
 	 */
 	private void parseKnownGeneXref(String xRefPath) throws TranscriptParseException {
-		// Error handling can be improved in Java 7.
-		String err = null;
-		BufferedReader br = null;
+		final IDMappingTable table = loadTable(IDMappingTable.builder(xRefPath).keyColumn(0).valueColumns(4)
+				.numFields(8, Integer.MAX_VALUE), "kgXref");
+
+		knownGeneMap.values().parallelStream().forEach(tbi -> {
+			final int row = table.getRow(tbi.getAccession());
+			if (row != -1)
+				tbi.setGeneSymbol(table.get(row, 0));
+		});
+	}
 
+	/**
+	 * Load UCSC cross-reference file into an {@link IDMappingTable}
+	 *
+	 * @param builder
+	 *            configured {@link IDMappingTable.Builder}
+	 * @param name
+	 *            name of the file for error messages
+	 * @return loaded {@link IDMappingTable}
+	 * @throws TranscriptParseException
+	 *             on problems reading or parsing the file
+	 */
+	private static IDMappingTable loadTable(IDMappingTable.Builder builder, String name)
+			throws TranscriptParseException {
 		try {
-			br = getBufferedReaderFromFilePath(xRefPath, xRefPath.endsWith(".gz"));
-			String line;
-			// int kgWithNoXref=0;
-			// int kgWithXref=0;
-
-			while ((line = br.readLine()) != null) {
-				if (line.startsWith("#"))
-					continue; /* Skip comment line */
-				String A[] = line.split("\t");
-				if (A.length < 8) {
-					err = String.format("Error, malformed ucsc xref line: %s\nExpected 8 fields but got %d", line,
-							A.length);
-					throw new TranscriptParseException(err);
-				}
-				String transcriptID = A[0];
-				String geneSymbol = A[4];
-				TranscriptModelBuilder tbi = this.knownGeneMap.get(transcriptID);
-				if (tbi == null) {
-					/**
-					 * Note: many of these sequences seem to be for genes on scaffolds, e.g., chrUn_gl000243
-					 */
-					// System.err.println("Error, could not find xref sequence for known gene \""
-					// + id + "\"");
-					// kgWithNoXref++;
-					continue;
-					// System.exit(1);
-				}
-				// kgWithXref++;
-				tbi.setGeneSymbol(geneSymbol);
-				// System.out.println("x: \"" + geneSymbol + "\"");
-			}
+			return builder.load();
 		} catch (FileNotFoundException fnfe) {
-			err = String.format("Could not find file: %s\n%s", xRefPath, fnfe.toString());
+			throw new TranscriptParseException(
+					String.format("Could not find UCSC %s file\n%s", name, fnfe.toString()));
 		} catch (IOException e) {
-			err = String.format("Exception while parsing UCSC KnownGene xref file at \"%s\"\n%s", xRefPath,
-					e.toString());
-		} finally {
-			if (br != null)
-				try {
-					br.close();
-				} catch (IOException e) {
-					// swallow, nothing we can do about it
-				}
+			throw new TranscriptParseException(
+					String.format("Exception while parsing UCSC %s file\n%s", name, e.toString()));
 		}
-		if (err != null)
-			throw new TranscriptParseException(err);
 	}
 
 	/**
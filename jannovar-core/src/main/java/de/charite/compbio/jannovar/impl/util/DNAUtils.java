@@ -21,31 +21,7 @@ public final class DNAUtils {
 		if (sq.isEmpty())
 			return sq; // deletion, insertion do not need rc
 
-		StringBuffer sb = new StringBuffer();
-		for (int i = sq.length() - 1; i >= 0; i--) {
-			char c = sq.charAt(i);
-			char match = 0;
-			switch (c) {
-			case 'A':
-				match = 'T';
-				break;
-			case 'C':
-				match = 'G';
-				break;
-			case 'G':
-				match = 'C';
-				break;
-			case 'T':
-				match = 'A';
-				break;
-			case 'N':
-				match = 'N';
-				break;
-			}
-			if (match > 0)
-				sb.append(match);
-		}
-		return sb.toString();
+		return SequenceKernel.reverseComplement(sq);
 	}
 
 }
@@ -0,0 +1,320 @@
+package de.charite.compbio.jannovar.impl.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Low-level operations on nucleotide sequences stored as ASCII <code>byte[]</code> arrays.
+ *
+ * Codons are encoded as 6-bit numbers with two bits per base (<code>A=0, C=1, G=2, T=3</code>, first base in the
+ * highest bits), such that the genetic code becomes a 64-entry table lookup. All methods take an offset and a length
+ * so windows of larger sequences can be processed without copying them first.
+ *
+ * The semantics follow {@link Translator} and {@link DNAUtils}: codons containing an <code>N</code> are translated to
+ * <code>X</code>, translation stops at the first codon with other characters, and the reverse complement only keeps
+ * upper-case <code>A</code>, <code>C</code>, <code>G</code>, <code>T</code>, and <code>N</code>.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public final class SequenceKernel {
+
+	/** return value of {@link #codonIndex} for codons containing an <code>N</code> */
+	public static final int AMBIGUOUS_CODON = -2;
+	/** return value of {@link #codonIndex} for codons containing other characters than nucleotides */
+	public static final int INVALID_CODON = -1;
+	/** number of bases copied at once from {@link CharSequence}s, a multiple of three */
+	static final int CHUNK_LENGTH = 3 * 1024;
+
+	/** one-letter amino acid codes, indexed by codon index */
+	private static final char[] CODON_TABLE_1 = "KNKNTTTTRSRSIIMIQHQHPPPPRRRRLLLLEDEDAAAAGGGGVVVV*Y*YSSSS*CWCLFLF"
+			.toCharArray();
+	/** three-letter amino acid codes, indexed by codon index */
+	private static final String[] CODON_TABLE_3 = new String[64];
+	/** 2-bit codes of the nucleotides, indexed by ASCII value, <code>-1</code> for other characters */
+	private static final byte[] NT_CODES = new byte[256];
+	/** complements of the nucleotides, indexed by ASCII value, <code>0</code> for characters that are dropped */
+	private static final byte[] COMPLEMENT = new byte[256];
+
+	static {
+		final String shortCodes = "ACDEFGHIKLMNPQRSTVWY*";
+		final String[] longCodes = { "Ala", "Cys", "Asp", "Glu", "Phe", "Gly", "His", "Ile", "Lys", "Leu", "Met",
+				"Asn", "Pro", "Gln", "Arg", "Ser", "Thr", "Val", "Trp", "Tyr", "*" };
+		for (int i = 0; i < 64; ++i)
+			CODON_TABLE_3[i] = longCodes[shortCodes.indexOf(CODON_TABLE_1[i])];
+
+		Arrays.fill(NT_CODES, (byte) -1);
+		NT_CODES['A'] = 0;
+		NT_CODES['C'] = 1;
+		NT_CODES['G'] = 2;
+		NT_CODES['T'] = 3;
+
+		COMPLEMENT['A'] = 'T';
+		COMPLEMENT['C'] = 'G';
+		COMPLEMENT['G'] = 'C';
+		COMPLEMENT['T'] = 'A';
+		COMPLEMENT['N'] = 'N';
+	}
+
+	private SequenceKernel() {
+	}
+
+	/**
+	 * @param seq
+	 *            ASCII nucleotide sequence
+	 * @param offset
+	 *            offset of the codon's first base in <code>seq</code>, three bases must be available
+	 * @return codon index in <code>[0, 64)</code>, {@link #AMBIGUOUS_CODON}, or {@link #INVALID_CODON}
+	 */
+	public static int codonIndex(byte[] seq, int offset) {
+		return codonIndex(seq[offset], seq[offset + 1], seq[offset + 2]);
+	}
+
+	/**
+	 * Codon access for sequences stored as {@link CharSequence}, e.g., transcript sequences, without copying
+	 *
+	 * @param seq
+	 *            nucleotide sequence
+	 * @param offset
+	 *            offset of the codon's first base in <code>seq</code>, three bases must be available
+	 * @return codon index in <code>[0, 64)</code>, {@link #AMBIGUOUS_CODON}, or {@link #INVALID_CODON}
+	 */
+	public static int codonIndex(CharSequence seq, int offset) {
+		return codonIndex(seq.charAt(offset), seq.charAt(offset + 1), seq.charAt(offset + 2));
+	}
+
+	/** @return codon index of the three given characters, see {@link #codonIndex(CharSequence, int)} */
+	private static int codonIndex(char a, char b, char c) {
+		if (a > 0xFF || b > 0xFF || c > 0xFF)
+			return (a == 'N' || b == 'N' || c == 'N') ? AMBIGUOUS_CODON : INVALID_CODON;
+		return codonIndex((byte) a, (byte) b, (byte) c);
+	}
+
+	/** @return codon index of the three given bases, see {@link #codonIndex(byte[], int)} */
+	private static int codonIndex(byte a, byte b, byte c) {
+		final int ca = NT_CODES[a & 0xFF], cb = NT_CODES[b & 0xFF], cc = NT_CODES[c & 0xFF];
+		if ((ca | cb | cc) >= 0)
+			return (ca << 4) | (cb << 2) | cc;
+		else if (a == 'N' || b == 'N' || c == 'N')
+			return AMBIGUOUS_CODON;
+		else
+			return INVALID_CODON;
+	}
+
+	/**
+	 * @param codonIndex
+	 *            codon index in <code>[0, 64)</code> or {@link #AMBIGUOUS_CODON}
+	 * @return one-letter code of the amino acid, <code>'X'</code> for {@link #AMBIGUOUS_CODON}
+	 */
+	public static char aminoAcid1(int codonIndex) {
+		return (codonIndex == AMBIGUOUS_CODON) ? 'X' : CODON_TABLE_1[codonIndex];
+	}
+
+	/**
+	 * @param codonIndex
+	 *            codon index in <code>[0, 64)</code> or {@link #AMBIGUOUS_CODON}
+	 * @return three-letter code of the amino acid, <code>"X"</code> for {@link #AMBIGUOUS_CODON}
+	 */
+	public static String aminoAcid3(int codonIndex) {
+		return (codonIndex == AMBIGUOUS_CODON) ? "X" : CODON_TABLE_3[codonIndex];
+	}
+
+	/** @return whether the codon with the given index is a stop codon */
+	public static boolean isStopCodon(int codonIndex) {
+		return codonIndex >= 0 && CODON_TABLE_1[codonIndex] == '*';
+	}
+
+	/**
+	 * Translate nucleotide sequence, ignoring trailing bases that do not form a full codon
+	 *
+	 * @param seq
+	 *            ASCII nucleotide sequence
+	 * @param offset
+	 *            offset of the first base to translate
+	 * @param length
+	 *            number of bases to translate
+	 * @param threeLetter
+	 *            whether to use the three-letter amino acid code
+	 * @return the amino acid sequence, ending before the first invalid codon
+	 */
+	public static String translate(byte[] seq, int offset, int length, boolean threeLetter) {
+		return translate(seq, offset, length, threeLetter, false);
+	}
+
+	/**
+	 * Translate nucleotide sequence up to and including the first stop codon
+	 *
+	 * @param seq
+	 *            ASCII nucleotide sequence
+	 * @param offset
+	 *            offset of the first base to translate
+	 * @param length
+	 *            number of bases to translate
+	 * @param threeLetter
+	 *            whether to use the three-letter amino acid code
+	 * @return the amino acid sequence, ending with the first stop codon or before the first invalid codon
+	 */
+	public static String translateUntilStop(byte[] seq, int offset, int length, boolean threeLetter) {
+		return translate(seq, offset, length, threeLetter, true);
+	}
+
+	/** Implementation of {@link #translate} and {@link #translateUntilStop} */
+	private static String translate(byte[] seq, int offset, int length, boolean threeLetter, boolean untilStop) {
+		final int end = offset + length - (length % 3);
+		final StringBuilder result = new StringBuilder(threeLetter ? length : length / 3);
+		for (int i = offset; i < end; i += 3) {
+			final int codon = codonIndex(seq, i);
+			if (codon == INVALID_CODON)
+				break;
+			if (threeLetter)
+				result.append(aminoAcid3(codon));
+			else
+				result.append(aminoAcid1(codon));
+			if (untilStop && isStopCodon(codon))
+				break;
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Translate nucleotide sequence stored as {@link CharSequence}, e.g., a {@link SequenceOverlay}, without copying it
+	 *
+	 * The bases are copied in chunks of {@link #CHUNK_LENGTH} through {@link SequenceOverlay#getChars}, such that long
+	 * sequences are neither copied as a whole nor read one {@link CharSequence#charAt} call at a time.
+	 *
+	 * @param seq
+	 *            nucleotide sequence
+	 * @param offset
+	 *            offset of the first base to translate
+	 * @param length
+	 *            number of bases to translate
+	 * @param threeLetter
+	 *            whether to use the three-letter amino acid code
+	 * @return the amino acid sequence, see {@link #translate(byte[], int, int, boolean)}
+	 */
+	public static String translate(CharSequence seq, int offset, int length, boolean threeLetter) {
+		final int end = offset + length - (length % 3);
+		final StringBuilder result = new StringBuilder(threeLetter ? length : length / 3);
+		final char[] chunk = new char[Math.min(CHUNK_LENGTH, end - offset)];
+		for (int chunkBegin = offset; chunkBegin < end; chunkBegin += chunk.length) {
+			final int chunkLength = Math.min(chunk.length, end - chunkBegin);
+			SequenceOverlay.getChars(seq, chunkBegin, chunkBegin + chunkLength, chunk, 0);
+			for (int i = 0; i < chunkLength; i += 3) {
+				final int codon = codonIndex(chunk[i], chunk[i + 1], chunk[i + 2]);
+				if (codon == INVALID_CODON)
+					return result.toString();
+				if (threeLetter)
+					result.append(aminoAcid3(codon));
+				else
+					result.append(aminoAcid1(codon));
+			}
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Find stop codon in the translation of a nucleotide sequence, without building the amino acid sequence
+	 *
+	 * @param seq
+	 *            ASCII nucleotide sequence
+	 * @param offset
+	 *            offset of the first base to translate
+	 * @param length
+	 *            number of bases to translate
+	 * @param fromCodon
+	 *            number of the first codon to consider
+	 * @return number of the first stop codon at or after <code>fromCodon</code>, <code>-1</code> if the translation
+	 *         ends before, equivalent to <code>translate(seq, offset, length, false).indexOf('*', fromCodon)</code>
+	 */
+	public static int indexOfStopCodon(byte[] seq, int offset, int length, int fromCodon) {
+		final int numCodons = length / 3;
+		for (int i = 0; i < numCodons; ++i) {
+			final int codon = codonIndex(seq, offset + 3 * i);
+			if (codon == INVALID_CODON)
+				return -1;
+			if (i >= fromCodon && isStopCodon(codon))
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Find stop codon in the translation of a nucleotide sequence stored as {@link CharSequence}
+	 *
+	 * @return number of the first stop codon at or after <code>fromCodon</code>, see
+	 *         {@link #indexOfStopCodon(byte[], int, int, int)}
+	 */
+	public static int indexOfStopCodon(CharSequence seq, int offset, int length, int fromCodon) {
+		final int end = offset + length - (length % 3);
+		final char[] chunk = new char[Math.min(CHUNK_LENGTH, end - offset)];
+		int codonNo = 0;
+		for (int chunkBegin = offset; chunkBegin < end; chunkBegin += chunk.length) {
+			final int chunkLength = Math.min(chunk.length, end - chunkBegin);
+			SequenceOverlay.getChars(seq, chunkBegin, chunkBegin + chunkLength, chunk, 0);
+			for (int i = 0; i < chunkLength; i += 3, ++codonNo) {
+				final int codon = codonIndex(chunk[i], chunk[i + 1], chunk[i + 2]);
+				if (codon == INVALID_CODON)
+					return -1;
+				if (codonNo >= fromCodon && isStopCodon(codon))
+					return codonNo;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Reverse complement of a window of a nucleotide sequence, dropping other characters than upper-case
+	 * <code>A</code>, <code>C</code>, <code>G</code>, <code>T</code>, and <code>N</code>
+	 *
+	 * @param seq
+	 *            ASCII nucleotide sequence
+	 * @param offset
+	 *            offset of the window
+	 * @param length
+	 *            length of the window
+	 * @return newly allocated reverse complement
+	 */
+	public static byte[] reverseComplement(byte[] seq, int offset, int length) {
+		final byte[] result = new byte[length];
+		int j = 0;
+		for (int i = offset + length - 1; i >= offset; --i) {
+			final byte c = COMPLEMENT[seq[i] & 0xFF];
+			if (c != 0)
+				result[j++] = c;
+		}
+		return (j == length) ? result : Arrays.copyOf(result, j);
+	}
+
+	/**
+	 * @param seq
+	 *            upper-case nucleotide string
+	 * @return reverse complement of <code>seq</code>, see {@link #reverseComplement(byte[], int, int)}
+	 */
+	public static String reverseComplement(String seq) {
+		final byte[] bytes = seq.getBytes(StandardCharsets.US_ASCII);
+		return new String(reverseComplement(bytes, 0, bytes.length), StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 * Check whether <code>b</code> is the reverse complement of <code>a</code>, without building it
+	 *
+	 * Characters other than <code>A</code>, <code>C</code>, <code>G</code>, and <code>T</code> are considered to be
+	 * their own complement.
+	 *
+	 * @return <code>true</code> if <code>a</code> and <code>b</code> have the same length and <code>b</code> is the
+	 *         reverse complement of <code>a</code>
+	 */
+	public static boolean isReverseComplement(CharSequence a, CharSequence b) {
+		final int len = a.length();
+		if (len != b.length())
+			return false;
+		for (int i = 0; i < len; ++i) {
+			final char x = a.charAt(i);
+			final char y = b.charAt(len - 1 - i);
+			final char yc = (y <= 0xFF && COMPLEMENT[y] != 0) ? (char) COMPLEMENT[y] : y;
+			if (x != yc)
+				return false;
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,167 @@
+package de.charite.compbio.jannovar.impl.util;
+
+import de.charite.compbio.jannovar.Immutable;
+
+/**
+ * Immutable view of a sequence with a single edit applied, without copying the underlying sequence.
+ *
+ * The edit replaces <code>delLength</code> characters at <code>offset</code> by the characters of <code>insert</code>,
+ * such that substitutions, insertions, deletions, and block substitutions can be represented. Character access and
+ * {@link #subSequence} map positions to the base sequence or the inserted characters, so only {@link #toString}
+ * materializes the edited sequence. This is meant for applying variants to long transcript sequences where only the
+ * region around the variant is inspected, e.g., for shifting or translating up to the next stop codon.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+@Immutable
+public final class SequenceOverlay implements CharSequence {
+
+	/** the unedited sequence */
+	private final CharSequence base;
+	/** position of the edit in {@link #base} */
+	private final int offset;
+	/** number of characters of {@link #base} removed at {@link #offset} */
+	private final int delLength;
+	/** characters inserted at {@link #offset} */
+	private final CharSequence insert;
+
+	/**
+	 * Construct overlay of <code>base</code> with <code>base[offset, offset + delLength)</code> replaced by
+	 * <code>insert</code>
+	 *
+	 * @param base
+	 *            the sequence to edit, must not change during the lifetime of the overlay
+	 * @param offset
+	 *            zero-based position of the edit in <code>base</code>
+	 * @param delLength
+	 *            number of characters to remove
+	 * @param insert
+	 *            characters to insert
+	 * @throws IndexOutOfBoundsException
+	 *             if the deleted range is not within <code>base</code>
+	 */
+	public SequenceOverlay(CharSequence base, int offset, int delLength, CharSequence insert) {
+		if (offset < 0 || delLength < 0 || offset + delLength > base.length())
+			throw new IndexOutOfBoundsException("Edit [" + offset + ", " + (offset + delLength)
+					+ ") out of bounds for sequence of length " + base.length());
+		this.base = base;
+		this.offset = offset;
+		this.delLength = delLength;
+		this.insert = insert;
+	}
+
+	/** @return overlay of <code>base</code> with the character at <code>offset</code> replaced by <code>c</code> */
+	public static SequenceOverlay substitution(CharSequence base, int offset, char c) {
+		return new SequenceOverlay(base, offset, 1, String.valueOf(c));
+	}
+
+	/** @return overlay of <code>base</code> with <code>insert</code> inserted before <code>offset</code> */
+	public static SequenceOverlay insertion(CharSequence base, int offset, CharSequence insert) {
+		return new SequenceOverlay(base, offset, 0, insert);
+	}
+
+	@Override
+	public int length() {
+		return base.length() - delLength + insert.length();
+	}
+
+	@Override
+	public char charAt(int index) {
+		if (index < 0 || index >= length())
+			throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + length());
+		if (index < offset)
+			return base.charAt(index);
+		else if (index < offset + insert.length())
+			return insert.charAt(index - offset);
+		else
+			return base.charAt(index - insert.length() + delLength);
+	}
+
+	/**
+	 * Return view of the characters in <code>[start, end)</code>
+	 *
+	 * Windows left or right of the edit are delegated to the base sequence, windows overlapping with the edit are again
+	 * {@link SequenceOverlay}s.
+	 */
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		if (start < 0 || end > length() || start > end)
+			throw new IndexOutOfBoundsException("Range [" + start + ", " + end + ") out of bounds for length "
+					+ length());
+		final int insEnd = offset + insert.length();
+		if (start == end)
+			return "";
+		else if (end <= offset)
+			return base.subSequence(start, end);
+		else if (start >= insEnd)
+			return base.subSequence(start - insert.length() + delLength, end - insert.length() + delLength);
+
+		// The window overlaps with the edit, keep the deleted range in the base window.
+		final int baseBegin = Math.min(start, offset);
+		final int numRight = Math.max(0, end - insEnd);
+		final CharSequence newBase = base.subSequence(baseBegin, offset + delLength + numRight);
+		final CharSequence newInsert = insert.subSequence(Math.max(0, Math.min(start - offset, insert.length())),
+				Math.max(0, Math.min(end - offset, insert.length())));
+		return new SequenceOverlay(newBase, offset - baseBegin, delLength, newInsert);
+	}
+
+	/**
+	 * Copy the characters in <code>[srcBegin, srcEnd)</code> to <code>dst</code>, like {@link String#getChars}
+	 *
+	 * The parts left and right of the edit are copied from the base sequence in bulk.
+	 */
+	public void getChars(int srcBegin, int srcEnd, char[] dst, int dstBegin) {
+		if (srcBegin < 0 || srcEnd > length() || srcBegin > srcEnd)
+			throw new IndexOutOfBoundsException("Range [" + srcBegin + ", " + srcEnd + ") out of bounds for length "
+					+ length());
+		final int insEnd = offset + insert.length();
+		if (srcBegin < offset) {
+			final int end = Math.min(srcEnd, offset);
+			getChars(base, srcBegin, end, dst, dstBegin);
+			dstBegin += end - srcBegin;
+			srcBegin = end;
+		}
+		if (srcBegin < srcEnd && srcBegin < insEnd) {
+			final int end = Math.min(srcEnd, insEnd);
+			getChars(insert, srcBegin - offset, end - offset, dst, dstBegin);
+			dstBegin += end - srcBegin;
+			srcBegin = end;
+		}
+		if (srcBegin < srcEnd)
+			getChars(base, srcBegin - insert.length() + delLength, srcEnd - insert.length() + delLength, dst,
+					dstBegin);
+	}
+
+	/**
+	 * Copy the characters in <code>[srcBegin, srcEnd)</code> of <code>seq</code> to <code>dst</code>, in bulk for
+	 * {@link String}s and {@link SequenceOverlay}s
+	 *
+	 * @param seq
+	 *            the sequence to copy from
+	 * @param srcBegin
+	 *            offset of the first character to copy
+	 * @param srcEnd
+	 *            offset after the last character to copy
+	 * @param dst
+	 *            the array to copy to
+	 * @param dstBegin
+	 *            offset in <code>dst</code> to copy to
+	 */
+	public static void getChars(CharSequence seq, int srcBegin, int srcEnd, char[] dst, int dstBegin) {
+		if (seq instanceof String)
+			((String) seq).getChars(srcBegin, srcEnd, dst, dstBegin);
+		else if (seq instanceof SequenceOverlay)
+			((SequenceOverlay) seq).getChars(srcBegin, srcEnd, dst, dstBegin);
+		else
+			for (int i = srcBegin; i < srcEnd; ++i)
+				dst[dstBegin + i - srcBegin] = seq.charAt(i);
+	}
+
+	@Override
+	public String toString() {
+		final char[] result = new char[length()];
+		getChars(0, result.length, result, 0);
+		return new String(result);
+	}
+
+}
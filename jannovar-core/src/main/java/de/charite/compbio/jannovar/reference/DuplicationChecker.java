@@ -20,12 +20,12 @@ public final class DuplicationChecker {
 	public static boolean isDuplication(String ref, String insertion, int pos) {
 		if (pos + insertion.length() <= ref.length()) {
 			// can be duplication with string after pos
-			if (ref.substring(pos, pos + insertion.length()).equals(insertion))
+			if (ref.regionMatches(pos, insertion, 0, insertion.length()))
 				return true;
 		}
 		if (pos >= insertion.length()) {
 			// can be duplication with string before pos
-			if (ref.substring(pos - insertion.length(), pos).equals(insertion))
+			if (ref.regionMatches(pos - insertion.length(), insertion, 0, insertion.length()))
 				return true;
 		}
 		return false;
@@ -0,0 +1,149 @@
+package de.charite.compbio.jannovar.reference;
+
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+
+/**
+ * Static helpers for coordinate arithmetic on primitive values, without allocating {@link GenomePosition} or
+ * {@link GenomeInterval} objects.
+ *
+ * A genome position can be packed into a <code>long</code> value, storing the chromosome in the upper 31 bits, the
+ * strand in bit 32, and the zero-based position in the lower 32 bits (as two's complement, such that positions left of
+ * the chromosome begin survive the round trip).
+ *
+ * Strand conversion follows {@link GenomePosition#withStrand} and {@link GenomeInterval#withStrand}: a position
+ * <code>pos</code> becomes <code>length - pos - 1</code>, and an interval boundary <code>b</code> becomes
+ * <code>length - b</code> (with begin and end swapping their roles).
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public final class GenomeCoordinates {
+
+	/** mask for the position part of a packed position */
+	private static final long POS_MASK = 0xFFFFFFFFL;
+	/** bit that is set for positions on the reverse strand */
+	private static final long REVERSE_BIT = 1L << 32;
+	/** shift of the chromosome part of a packed position */
+	private static final int CHR_SHIFT = 33;
+
+	private GenomeCoordinates() {
+	}
+
+	/**
+	 * @param chr
+	 *            numeric chromosome id, must be non-negative
+	 * @param strand
+	 *            the {@link Strand} of the position
+	 * @param pos
+	 *            zero-based position on <code>strand</code>
+	 * @return packed representation of the position
+	 */
+	public static long pack(int chr, Strand strand, int pos) {
+		return ((long) chr << CHR_SHIFT) | (strand.isReverse() ? REVERSE_BIT : 0) | (pos & POS_MASK);
+	}
+
+	/**
+	 * @param pos
+	 *            the {@link GenomePosition} to pack
+	 * @return packed representation of <code>pos</code>
+	 */
+	public static long pack(GenomePosition pos) {
+		return pack(pos.getChr(), pos.getStrand(), pos.getPos());
+	}
+
+	/** @return numeric chromosome id of the <code>packed</code> position */
+	public static int chr(long packed) {
+		return (int) (packed >>> CHR_SHIFT);
+	}
+
+	/** @return {@link Strand} of the <code>packed</code> position */
+	public static Strand strand(long packed) {
+		return ((packed & REVERSE_BIT) != 0) ? Strand.REV : Strand.FWD;
+	}
+
+	/** @return zero-based position of the <code>packed</code> position */
+	public static int pos(long packed) {
+		return (int) (packed & POS_MASK);
+	}
+
+	/**
+	 * @param refDict
+	 *            {@link ReferenceDictionary} with the chromosome lengths
+	 * @param packed
+	 *            the packed position
+	 * @param strand
+	 *            the target {@link Strand}
+	 * @return the <code>packed</code> position converted to <code>strand</code>
+	 */
+	public static long withStrand(ReferenceDictionary refDict, long packed, Strand strand) {
+		if (strand(packed) == strand)
+			return packed;
+		final int chr = chr(packed);
+		return pack(chr, strand, flipPos(refDict, chr, pos(packed)));
+	}
+
+	/**
+	 * @param refDict
+	 *            {@link ReferenceDictionary} to use for the result
+	 * @param packed
+	 *            the packed position
+	 * @return {@link GenomePosition} for the <code>packed</code> position
+	 */
+	public static GenomePosition toGenomePosition(ReferenceDictionary refDict, long packed) {
+		return new GenomePosition(refDict, strand(packed), chr(packed), pos(packed));
+	}
+
+	/**
+	 * @return zero-based position <code>pos</code> on chromosome <code>chr</code> converted to the other strand
+	 */
+	public static int flipPos(ReferenceDictionary refDict, int chr, int pos) {
+		return refDict.getContigLength(chr) - pos - 1;
+	}
+
+	/**
+	 * @return interval boundary <code>boundary</code> on chromosome <code>chr</code> converted to the other strand; a
+	 *         begin position becomes an end position and vice versa
+	 */
+	public static int flipBoundary(ReferenceDictionary refDict, int chr, int boundary) {
+		return refDict.getContigLength(chr) - boundary;
+	}
+
+	/**
+	 * @param pos
+	 *            the {@link GenomePosition} to convert
+	 * @param strand
+	 *            the target {@link Strand}
+	 * @return zero-based position of <code>pos</code> on <code>strand</code>
+	 */
+	public static int posOnStrand(GenomePosition pos, Strand strand) {
+		if (pos.getStrand() == strand)
+			return pos.getPos();
+		return flipPos(pos.getRefDict(), pos.getChr(), pos.getPos());
+	}
+
+	/**
+	 * @param itv
+	 *            the {@link GenomeInterval} to convert
+	 * @param strand
+	 *            the target {@link Strand}
+	 * @return zero-based begin position of <code>itv</code> on <code>strand</code>
+	 */
+	public static int beginPosOnStrand(GenomeInterval itv, Strand strand) {
+		if (itv.getStrand() == strand)
+			return itv.getBeginPos();
+		return flipBoundary(itv.getRefDict(), itv.getChr(), itv.getEndPos());
+	}
+
+	/**
+	 * @param itv
+	 *            the {@link GenomeInterval} to convert
+	 * @param strand
+	 *            the target {@link Strand}
+	 * @return zero-based end position of <code>itv</code> on <code>strand</code>
+	 */
+	public static int endPosOnStrand(GenomeInterval itv, Strand strand) {
+		if (itv.getStrand() == strand)
+			return itv.getEndPos();
+		return flipBoundary(itv.getRefDict(), itv.getChr(), itv.getBeginPos());
+	}
+
+}
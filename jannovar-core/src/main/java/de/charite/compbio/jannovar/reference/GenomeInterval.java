@@ -75,10 +75,8 @@ public final class GenomeInterval implements Serializable, Comparable<GenomeInte
 			this.beginPos = other.beginPos;
 			this.endPos = other.endPos;
 		} else {
-			int beginPos = refDict.getContigIDToLength().get(other.chr) - other.beginPos;
-			int endPos = refDict.getContigIDToLength().get(other.chr) - other.endPos;
-			this.endPos = beginPos;
-			this.beginPos = endPos;
+			this.beginPos = GenomeCoordinates.flipBoundary(refDict, other.chr, other.endPos);
+			this.endPos = GenomeCoordinates.flipBoundary(refDict, other.chr, other.beginPos);
 		}
 	}
 
@@ -117,8 +115,10 @@ public final class GenomeInterval implements Serializable, Comparable<GenomeInte
 		return endPos;
 	}
 
-	/** convert into GenomeInterval of the given strand */
+	/** convert into GenomeInterval of the given strand, <code>this</code> if already on <code>strand</code> */
 	public GenomeInterval withStrand(Strand strand) {
+		if (strand == this.strand)
+			return this;
 		return new GenomeInterval(this, strand);
 	}
 
@@ -143,10 +143,9 @@ public final class GenomeInterval implements Serializable, Comparable<GenomeInte
 	public GenomeInterval intersection(GenomeInterval other) {
 		if (chr != other.chr)
 			return new GenomeInterval(refDict, strand, chr, beginPos, beginPos, PositionType.ZERO_BASED);
-		other = other.withStrand(strand);
 
-		int beginPos = Math.max(this.beginPos, other.beginPos);
-		int endPos = Math.min(this.endPos, other.endPos);
+		int beginPos = Math.max(this.beginPos, GenomeCoordinates.beginPosOnStrand(other, strand));
+		int endPos = Math.min(this.endPos, GenomeCoordinates.endPosOnStrand(other, strand));
 		if (endPos < beginPos)
 			beginPos = endPos;
 
@@ -161,10 +160,9 @@ public final class GenomeInterval implements Serializable, Comparable<GenomeInte
 	public GenomeInterval union(GenomeInterval other) {
 		if (chr != other.chr)
 			return new GenomeInterval(refDict, strand, chr, beginPos, beginPos, PositionType.ZERO_BASED);
-		other = other.withStrand(strand);
 
-		int beginPos = Math.min(this.beginPos, other.beginPos);
-		int endPos = Math.max(this.endPos, other.endPos);
+		int beginPos = Math.min(this.beginPos, GenomeCoordinates.beginPosOnStrand(other, strand));
+		int endPos = Math.max(this.endPos, GenomeCoordinates.endPosOnStrand(other, strand));
 		if (endPos < beginPos)
 			beginPos = endPos;
 
@@ -179,9 +177,7 @@ public final class GenomeInterval implements Serializable, Comparable<GenomeInte
 	public boolean isLeftOf(GenomePosition pos) {
 		if (chr != pos.getChr())
 			return false; // wrong chromosome
-		if (pos.getStrand() != strand)
-			pos = pos.withStrand(strand); // ensure that we are on the correct strand
-		return (pos.getPos() >= endPos);
+		return (GenomeCoordinates.posOnStrand(pos, strand) >= endPos);
 	}
 
 	/**
@@ -192,9 +188,7 @@ public final class GenomeInterval implements Serializable, Comparable<GenomeInte
 	public boolean isRightOf(GenomePosition pos) {
 		if (chr != pos.getChr())
 			return false; // wrong chromosome
-		if (pos.getStrand() != strand)
-			pos = pos.withStrand(strand); // ensure that we are on the correct strand
-		return (pos.getPos() < beginPos);
+		return (GenomeCoordinates.posOnStrand(pos, strand) < beginPos);
 	}
 
 	/**
@@ -205,9 +199,7 @@ public final class GenomeInterval implements Serializable, Comparable<GenomeInte
 	public boolean isLeftOfGap(GenomePosition pos) {
 		if (chr != pos.getChr())
 			return false; // wrong chromosome
-		if (pos.getStrand() != strand)
-			pos = pos.withStrand(strand); // ensure that we are on the correct strand
-		return (pos.getPos() >= endPos);
+		return (GenomeCoordinates.posOnStrand(pos, strand) >= endPos);
 	}
 
 	/**
@@ -218,9 +210,7 @@ public final class GenomeInterval implements Serializable, Comparable<GenomeInte
 	public boolean isRightOfGap(GenomePosition pos) {
 		if (chr != pos.getChr())
 			return false; // wrong chromosome
-		if (pos.getStrand() != strand)
-			pos = pos.withStrand(strand); // ensure that we are on the correct strand
-		return (pos.getPos() <= beginPos);
+		return (GenomeCoordinates.posOnStrand(pos, strand) <= beginPos);
 	}
 
 	/**
@@ -231,9 +221,8 @@ public final class GenomeInterval implements Serializable, Comparable<GenomeInte
 	public boolean contains(GenomePosition pos) {
 		if (chr != pos.getChr())
 			return false; // wrong chromosome
-		if (pos.getStrand() != strand)
-			pos = pos.withStrand(strand); // ensure that we are on the correct strand
-		return (pos.getPos() >= beginPos && pos.getPos() < endPos);
+		final int p = GenomeCoordinates.posOnStrand(pos, strand); // ensure that we are on the correct strand
+		return (p >= beginPos && p < endPos);
 	}
 
 	/**
@@ -245,9 +234,9 @@ public final class GenomeInterval implements Serializable, Comparable<GenomeInte
 		// TODO(holtgrem): Test this.
 		if (chr != other.chr)
 			return false; // wrong chromosome
-		if (other.strand != strand)
-			other = other.withStrand(strand); // ensure that we are on the correct strand
-		return (other.beginPos >= beginPos && other.endPos <= endPos);
+		// ensure that we are on the correct strand
+		return (GenomeCoordinates.beginPosOnStrand(other, strand) >= beginPos
+				&& GenomeCoordinates.endPosOnStrand(other, strand) <= endPos);
 	}
 
 	/**
@@ -275,8 +264,8 @@ public final class GenomeInterval implements Serializable, Comparable<GenomeInte
 		// TODO(holtgrem): add test for this
 		if (chr != other.chr)
 			return false;
-		other = other.withStrand(strand);
-		return (other.beginPos < endPos && beginPos < other.endPos);
+		return (GenomeCoordinates.beginPosOnStrand(other, strand) < endPos
+				&& beginPos < GenomeCoordinates.endPosOnStrand(other, strand));
 	}
 
 	/*
@@ -286,10 +275,9 @@ public final class GenomeInterval implements Serializable, Comparable<GenomeInte
 	 */
 	@Override
 	public String toString() {
-		if (strand.isReverse())
-			return withStrand(Strand.FWD).toString();
-
-		return StringUtil.concatenate(refDict.getContigIDToName().get(chr), ":g.", beginPos + 1, "_", endPos);
+		return StringUtil.concatenate(refDict.getContigName(chr), ":g.",
+				GenomeCoordinates.beginPosOnStrand(this, Strand.FWD) + 1, "_",
+				GenomeCoordinates.endPosOnStrand(this, Strand.FWD));
 	}
 
 	/*
@@ -299,15 +287,13 @@ public final class GenomeInterval implements Serializable, Comparable<GenomeInte
 	 */
 	@Override
 	public int hashCode() {
-		if (strand.isReverse())
-			return withStrand(Strand.FWD).hashCode();
-
+		// hash the forward strand representation
 		final int prime = 31;
 		int result = 1;
-		result = prime * result + beginPos;
+		result = prime * result + GenomeCoordinates.beginPosOnStrand(this, Strand.FWD);
 		result = prime * result + chr;
-		result = prime * result + endPos;
-		result = prime * result + strand.hashCode();
+		result = prime * result + GenomeCoordinates.endPosOnStrand(this, Strand.FWD);
+		result = prime * result + Strand.FWD.hashCode();
 		return result;
 	}
 
@@ -325,23 +311,20 @@ public final class GenomeInterval implements Serializable, Comparable<GenomeInte
 		if (getClass() != obj.getClass())
 			return false;
 		GenomeInterval other = (GenomeInterval) obj;
-		other = other.withStrand(strand);
-		if (beginPos != other.beginPos)
-			return false;
 		if (chr != other.chr)
 			return false;
-		if (endPos != other.endPos)
+		if (beginPos != GenomeCoordinates.beginPosOnStrand(other, strand))
 			return false;
-		if (strand != other.strand)
+		if (endPos != GenomeCoordinates.endPosOnStrand(other, strand))
 			return false;
 		return true;
 	}
 
 	@Override
 	public int compareTo(GenomeInterval other) {
-		other = other.withStrand(strand);
-		return ComparisonChain.start().compare(getChr(), other.getChr()).compare(getBeginPos(), other.getBeginPos())
-				.compare(getEndPos(), other.getEndPos()).result();
+		return ComparisonChain.start().compare(getChr(), other.getChr())
+				.compare(getBeginPos(), GenomeCoordinates.beginPosOnStrand(other, strand))
+				.compare(getEndPos(), GenomeCoordinates.endPosOnStrand(other, strand)).result();
 	}
 
 }
@@ -78,7 +78,7 @@ public final class GenomePosition implements Serializable, Comparable<GenomePosi
 		if (strand == other.strand)
 			this.pos = other.pos;
 		else
-			this.pos = refDict.getContigIDToLength().get(other.chr) - other.pos - 1;
+			this.pos = GenomeCoordinates.flipPos(refDict, other.chr, other.pos);
 	}
 
 	/** @return reference dictionary to use for coordinate translation */
@@ -101,8 +101,10 @@ public final class GenomePosition implements Serializable, Comparable<GenomePosi
 		return pos;
 	}
 
-	/** convert into GenomePosition of the given strand */
+	/** convert into GenomePosition of the given strand, <code>this</code> if already on <code>strand</code> */
 	public GenomePosition withStrand(Strand strand) {
+		if (strand == this.strand)
+			return this;
 		return new GenomePosition(this, strand);
 	}
 
@@ -110,9 +112,7 @@ public final class GenomePosition implements Serializable, Comparable<GenomePosi
 	 * @return <tt>true</tt> if this position is left of the other (on this strand).
 	 */
 	public boolean isLt(GenomePosition other) {
-		if (other.strand != strand)
-			other = other.withStrand(strand);
-		return (pos < other.pos);
+		return (pos < GenomeCoordinates.posOnStrand(other, strand));
 	}
 
 	/**
@@ -121,9 +121,7 @@ public final class GenomePosition implements Serializable, Comparable<GenomePosi
 	public boolean isLeq(GenomePosition other) {
 		if (other.chr != chr)
 			return false;
-		if (other.strand != strand)
-			other = other.withStrand(strand);
-		return (pos <= other.pos);
+		return (pos <= GenomeCoordinates.posOnStrand(other, strand));
 	}
 
 	/**
@@ -132,9 +130,7 @@ public final class GenomePosition implements Serializable, Comparable<GenomePosi
 	public boolean isGt(GenomePosition other) {
 		if (other.chr != chr)
 			return false;
-		if (other.strand != strand)
-			other = other.withStrand(strand);
-		return (pos > other.pos);
+		return (pos > GenomeCoordinates.posOnStrand(other, strand));
 	}
 
 	/**
@@ -143,9 +139,7 @@ public final class GenomePosition implements Serializable, Comparable<GenomePosi
 	public boolean isGeq(GenomePosition other) {
 		if (other.chr != chr)
 			return false;
-		if (other.strand != strand)
-			other = other.withStrand(strand);
-		return (pos >= other.pos);
+		return (pos >= GenomeCoordinates.posOnStrand(other, strand));
 	}
 
 	/**
@@ -154,9 +148,7 @@ public final class GenomePosition implements Serializable, Comparable<GenomePosi
 	public boolean isEq(GenomePosition other) {
 		if (other.chr != chr)
 			return false;
-		if (other.strand != strand)
-			other = other.withStrand(strand);
-		return (pos == other.pos);
+		return (pos == GenomeCoordinates.posOnStrand(other, strand));
 	}
 
 	/**
@@ -170,9 +162,7 @@ public final class GenomePosition implements Serializable, Comparable<GenomePosi
 	public int differenceTo(GenomePosition pos) {
 		if (chr != pos.chr)
 			throw new InvalidCoordinateException("Coordinates are on different chromosomes " + this + " vs. " + pos);
-		if (pos.strand != strand)
-			pos = pos.withStrand(strand);
-		return (this.pos - pos.pos);
+		return (this.pos - GenomeCoordinates.posOnStrand(pos, strand));
 	}
 
 	/**
@@ -223,10 +213,8 @@ public final class GenomePosition implements Serializable, Comparable<GenomePosi
 	 */
 	@Override
 	public String toString() {
-		if (strand.isReverse())
-			return withStrand(Strand.FWD).toString();
-
-		return StringUtil.concatenate(refDict.getContigIDToName().get(chr), ":g.", pos + 1);
+		return StringUtil.concatenate(refDict.getContigName(chr), ":g.",
+				GenomeCoordinates.posOnStrand(this, Strand.FWD) + 1);
 	}
 
 	/*
@@ -236,14 +224,12 @@ public final class GenomePosition implements Serializable, Comparable<GenomePosi
 	 */
 	@Override
 	public int hashCode() {
-		if (strand.isReverse())
-			return withStrand(Strand.FWD).hashCode();
-
+		// hash the forward strand representation
 		final int prime = 31;
 		int result = 1;
 		result = prime * result + chr;
-		result = prime * result + pos;
-		result = prime * result + strand.hashCode();
+		result = prime * result + GenomeCoordinates.posOnStrand(this, Strand.FWD);
+		result = prime * result + Strand.FWD.hashCode();
 		return result;
 	}
 
@@ -261,16 +247,10 @@ public final class GenomePosition implements Serializable, Comparable<GenomePosi
 		if (getClass() != obj.getClass())
 			return false;
 
-		if (strand.isReverse())
-			return withStrand(Strand.FWD).equals(obj);
 		GenomePosition other = (GenomePosition) obj;
-		other = other.withStrand(Strand.FWD);
-
-		if (strand != other.strand)
-			return false;
 		if (chr != other.chr)
 			return false;
-		return pos == other.pos;
+		return GenomeCoordinates.posOnStrand(this, Strand.FWD) == GenomeCoordinates.posOnStrand(other, Strand.FWD);
 	}
 
 	public int compareTo(GenomePosition other) {
@@ -177,9 +177,11 @@ public final class GenomeVariant implements VariantDescription {
 	}
 
 	/**
-	 * @return the GenomeChange on the given strand
+	 * @return the GenomeChange on the given strand, <code>this</code> if already on <code>strand</code>
 	 */
 	public GenomeVariant withStrand(Strand strand) {
+		if (strand == pos.getStrand())
+			return this;
 		return new GenomeVariant(this, strand);
 	}
 
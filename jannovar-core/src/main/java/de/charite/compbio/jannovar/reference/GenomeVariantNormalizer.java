@@ -1,5 +1,6 @@
 package de.charite.compbio.jannovar.reference;
 
+import de.charite.compbio.jannovar.impl.util.SequenceOverlay;
 
 /**
  * Helper code for the normalization of {@link GenomeVariant}s.
@@ -57,15 +58,13 @@ public final class GenomeVariantNormalizer {
 		if (change.getGenomePos().getStrand() != transcript.getStrand()) // ensure that we have the correct strand
 			change = change.withStrand(transcript.getStrand());
 
-		// Insert the ALT bases at the position indicated by txPos.
+		// Insert the ALT bases at the position indicated by txPos, using an overlay instead of copying the transcript.
 		int pos = txPos.getPos();
-		StringBuilder builder = new StringBuilder(transcript.getSequence());
-		builder.insert(pos, change.getAlt());
+		final CharSequence seq = SequenceOverlay.insertion(transcript.getSequence(), pos, change.getAlt());
 
 		// Execute algorithm and compute the shift.
 		int shift = 0;
 		final int LEN = change.getAlt().length();
-		final String seq = builder.toString();
 		final int maxPos = Math.min(seq.length(), transcript.transcriptLength());
 		while ((pos + LEN < maxPos) && (seq.charAt(pos) == seq.charAt(pos + LEN))) {
 			++shift;
@@ -85,7 +84,7 @@ public final class GenomeVariantNormalizer {
 		if (shift == 0) // only rebuild if shift > 0
 			return change;
 		else
-			return new GenomeVariant(shiftedPos, "", seq.substring(pos, pos + LEN));
+			return new GenomeVariant(shiftedPos, "", seq.subSequence(pos, pos + LEN).toString());
 	}
 
 	/**
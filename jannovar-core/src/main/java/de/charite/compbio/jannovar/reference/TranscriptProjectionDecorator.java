@@ -73,23 +73,31 @@ public final class TranscriptProjectionDecorator {
 		if (!transcript.getTXRegion().contains(pos)) // guard against incorrect position
 			throw new ProjectionException("Position " + pos + " is not in the transcript region "
 					+ transcript.getTXRegion());
-		pos = pos.withStrand(transcript.getStrand());
 
+		final int transcriptPos = transcriptOffset(GenomeCoordinates.posOnStrand(pos, transcript.getStrand()));
+		if (transcriptPos == -1)
+			throw new ProjectionException("Position " + pos + " does not lie in an exon.");
+		return new TranscriptPosition(transcript, transcriptPos, PositionType.ZERO_BASED);
+	}
+
+	/**
+	 * Primitive coordinate conversion from genome position to transcript position.
+	 *
+	 * @param pos
+	 *            zero-based genome position on the strand of the transcript, on the transcript's chromosome
+	 * @return zero-based position on the transcript, <code>-1</code> if <code>pos</code> does not lie in an exon
+	 */
+	private int transcriptOffset(int pos) {
 		// Look through all exons, find containing one, and compute the position.
+		final Strand strand = transcript.getStrand();
 		int tOffset = 0; // offset in transcript
 		for (GenomeInterval region : transcript.getExonRegions()) {
-			if (region.contains(pos)) {
-				// Note that we have to use *the region's position* as the base object for the difference operation so
-				// the case of the transcript on the reverse strand but position on forward strand is handled correctly.
-				// Consequently, we have to *subtract* this difference from transcriptPos.
-				int posInExon = pos.differenceTo(region.getGenomeBeginPos());
-				int transcriptPos = tOffset + posInExon;
-				return new TranscriptPosition(transcript, transcriptPos, PositionType.ZERO_BASED);
-			}
+			final int beginPos = GenomeCoordinates.beginPosOnStrand(region, strand);
+			if (pos >= beginPos && pos < GenomeCoordinates.endPosOnStrand(region, strand))
+				return tOffset + pos - beginPos;
 			tOffset += region.length();
 		}
-
-		throw new ProjectionException("Position " + pos + " does not lie in an exon.");
+		return -1;
 	}
 
 	/**
@@ -106,13 +114,15 @@ public final class TranscriptProjectionDecorator {
 	public CDSPosition genomeToCDSPos(GenomePosition pos) throws ProjectionException {
 		if (!transcript.getCDSRegion().contains(pos)) // guard against incorrect position
 			throw new ProjectionException("Position " + pos + " is not in the CDS region " + transcript.getCDSRegion());
-		pos = pos.withStrand(transcript.getStrand());
 
 		// first convert from genome to transcript position
-		TranscriptPosition txPos = genomeToTranscriptPos(pos);
+		final int txPos = genomeToTranscriptPos(pos).getPos();
 		// now, compute offset of CDS start in transcript and shift txPos by this to obtain CDS position
-		TranscriptPosition cdsStartPos = genomeToTranscriptPos(transcript.getCDSRegion().getGenomeBeginPos());
-		return new CDSPosition(txPos.getTranscript(), txPos.getPos() - cdsStartPos.getPos(), PositionType.ZERO_BASED);
+		final int cdsStartPos = transcriptOffset(
+				GenomeCoordinates.beginPosOnStrand(transcript.getCDSRegion(), transcript.getStrand()));
+		if (cdsStartPos == -1)
+			throw new ProjectionException("CDS begin position does not lie in an exon.");
+		return new CDSPosition(transcript, txPos - cdsStartPos, PositionType.ZERO_BASED);
 	}
 
 	/**
@@ -123,14 +133,15 @@ public final class TranscriptProjectionDecorator {
 	 * @return the corresponding genome position for pos, will be on the same strand as the transcript
 	 */
 	public TranscriptPosition cdsToTranscriptPos(CDSPosition pos) {
-		final GenomePosition cdsBeginPos = transcript.getCDSRegion().getGenomeBeginPos();
+		final Strand strand = transcript.getCDSRegion().getStrand();
+		final int cdsBeginPos = transcript.getCDSRegion().getBeginPos();
 
 		int currPos = 0; // current transcript position
 		for (GenomeInterval region : transcript.getExonRegions()) {
-			if (region.getGenomeEndPos().isLeq(cdsBeginPos)) {
+			if (GenomeCoordinates.endPosOnStrand(region, strand) <= cdsBeginPos) {
 				currPos += region.length();
 			} else {
-				currPos += cdsBeginPos.differenceTo(region.getGenomeBeginPos());
+				currPos += cdsBeginPos - GenomeCoordinates.beginPosOnStrand(region, strand);
 				break;
 			}
 		}
@@ -170,7 +181,8 @@ public final class TranscriptProjectionDecorator {
 		int currPos = 0; // relative begin position of current exon
 		for (GenomeInterval region : transcript.getExonRegions()) {
 			if (targetPos < currPos + region.length())
-				return region.getGenomeBeginPos().shifted(targetPos - currPos);
+				return new GenomePosition(region.getRefDict(), region.getStrand(), region.getChr(),
+						region.getBeginPos() + targetPos - currPos);
 			currPos += region.length();
 		}
 
@@ -247,11 +259,13 @@ public final class TranscriptProjectionDecorator {
 		if (transcript.getTXRegion().isLeftOf(pos) || transcript.getTXRegion().isRightOf(pos))
 			return INVALID_EXON_ID;
 
-		// find exon containing pos or return null
-		GenomeInterval posBase = new GenomeInterval(pos, 1); // region of referenced base
+		// find exon containing the referenced base or return null
+		final Strand strand = transcript.getStrand();
+		final int p = pos.getPos();
 		int i = 0;
 		for (GenomeInterval region : transcript.getExonRegions()) {
-			if (region.contains(posBase))
+			if (GenomeCoordinates.beginPosOnStrand(region, strand) <= p
+					&& p + 1 <= GenomeCoordinates.endPosOnStrand(region, strand))
 				return i;
 			++i;
 		}
@@ -1,10 +1,14 @@
 package de.charite.compbio.jannovar.reference;
 
 import de.charite.compbio.jannovar.Immutable;
+import de.charite.compbio.jannovar.impl.util.SequenceOverlay;
 
 /**
  * Helper class for getting updated transcript sequence for deletions and block substitutions.
  *
+ * The <code>...View</code> methods return the updated sequence as a {@link SequenceOverlay} of the transcript
+ * sequence, such that the (potentially very long) transcript sequence is not copied for each variant.
+ *
  * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
  */
 @Immutable
@@ -31,6 +35,17 @@ public final class TranscriptSequenceChangeHelper {
 	 * @return transcript string with applied {@link GenomeVariant}
 	 */
 	public String getTranscriptWithChange(GenomeVariant change) {
+		return getTranscriptWithChangeView(change).toString();
+	}
+
+	/**
+	 * Like {@link #getTranscriptWithChange} but returning a view of the transcript sequence instead of a copy.
+	 *
+	 * @param change
+	 *            {@link GenomeVariant} to apply to the transcript
+	 * @return transcript sequence with applied {@link GenomeVariant}
+	 */
+	public CharSequence getTranscriptWithChangeView(GenomeVariant change) {
 		change = change.withStrand(transcript.getStrand());
 
 		switch (change.getType()) {
@@ -45,7 +60,7 @@ public final class TranscriptSequenceChangeHelper {
 		}
 	}
 
-	private String getTranscriptWithPointInRefAffected(GenomeVariant change) {
+	private CharSequence getTranscriptWithPointInRefAffected(GenomeVariant change) {
 		// Short-circuit in the case of change that does not affect the transcript.
 		TranscriptSequenceOntologyDecorator soDecorator = new TranscriptSequenceOntologyDecorator(transcript);
 		if (!transcript.getTXRegion().overlapsWith(change.getGenomeInterval())
@@ -61,16 +76,14 @@ public final class TranscriptSequenceChangeHelper {
 			throw new Error("Bug: should be able to get transcript pos for CDS exon position");
 		}
 
-		// Update base in string using StringBuilder.
-		StringBuilder builder = new StringBuilder(transcript.getSequence());
+		// Overlay updated base(s) over the transcript sequence.
 		if (change.getType() == GenomeVariantType.SNV)
-			builder.setCharAt(tPos.getPos(), change.getAlt().charAt(0));
+			return SequenceOverlay.substitution(transcript.getSequence(), tPos.getPos(), change.getAlt().charAt(0));
 		else
-			builder.insert(tPos.getPos(), change.getAlt());
-		return builder.toString();
+			return SequenceOverlay.insertion(transcript.getSequence(), tPos.getPos(), change.getAlt());
 	}
 
-	private String getTranscriptWithRangeInRefAffected(GenomeVariant change) {
+	private CharSequence getTranscriptWithRangeInRefAffected(GenomeVariant change) {
 		// Short-circuit in the case of change that does not affect the transcript.
 		if (!transcript.getTXRegion().overlapsWith(change.getGenomeInterval()))
 			return transcript.getSequence();
@@ -93,11 +106,10 @@ public final class TranscriptSequenceChangeHelper {
 			throw new Error("Bug: should be able to translate change end position to transcript position.");
 		}
 
-		// Build resulting transcript string.
-		StringBuilder builder = new StringBuilder(transcript.getSequence());
-		builder.delete(tBeginPos.getPos(), tEndPos.getPos());
-		builder.insert(tBeginPos.getPos(), change.getAlt());
-		return builder.toString();
+		// Overlay the change over the transcript sequence, clamping the deletion like StringBuilder.delete() does.
+		final String seq = transcript.getSequence();
+		final int delEnd = Math.min(tEndPos.getPos(), seq.length());
+		return new SequenceOverlay(seq, tBeginPos.getPos(), delEnd - tBeginPos.getPos(), change.getAlt());
 	}
 
 	/**
@@ -142,6 +154,17 @@ public final class TranscriptSequenceChangeHelper {
 	 * @return CDS of transcript with applied {@link GenomeVariant}
 	 */
 	public String getCDSWithGenomeVariant(GenomeVariant change) {
+		return getCDSWithGenomeVariantView(change).toString();
+	}
+
+	/**
+	 * Like {@link #getCDSWithGenomeVariant} but returning a view of the transcript sequence instead of a copy.
+	 *
+	 * @param change
+	 *            {@link GenomeVariant} to apply to the CDS region of the transcript
+	 * @return CDS of transcript with applied {@link GenomeVariant}
+	 */
+	public CharSequence getCDSWithGenomeVariantView(GenomeVariant change) {
 		change = change.withStrand(transcript.getStrand());
 
 		switch (change.getType()) {
@@ -156,12 +179,12 @@ public final class TranscriptSequenceChangeHelper {
 		}
 	}
 
-	private String getCDSWithPointInRefAffected(GenomeVariant change) {
+	private CharSequence getCDSWithPointInRefAffected(GenomeVariant change) {
 		TranscriptProjectionDecorator projector = new TranscriptProjectionDecorator(transcript);
 		TranscriptSequenceOntologyDecorator soDecorator = new TranscriptSequenceOntologyDecorator(transcript);
 
 		// Obtain CDS transcript sequence.
-		String cdsSeq = projector.getTranscriptStartingAtCDS();
+		CharSequence cdsSeq = getTranscriptStartingAtCDSView(projector);
 
 		// Short-circuit in the case of change that does not affect the transcript.
 		if (change.getType() == GenomeVariantType.SNV) {
@@ -179,21 +202,19 @@ public final class TranscriptSequenceChangeHelper {
 		// Get transcript position for the change position.
 		CDSPosition cdsChangePos = projector.projectGenomeToCDSPosition(change.getGenomePos());
 
-		// Update base in string using StringBuilder.
-		StringBuilder builder = new StringBuilder(cdsSeq);
+		// Overlay updated base(s) over the CDS sequence.
 		if (change.getType() == GenomeVariantType.SNV)
-			builder.setCharAt(cdsChangePos.getPos(), change.getAlt().charAt(0));
+			return SequenceOverlay.substitution(cdsSeq, cdsChangePos.getPos(), change.getAlt().charAt(0));
 		else
-			builder.insert(cdsChangePos.getPos(), change.getAlt());
-		return builder.toString();
+			return SequenceOverlay.insertion(cdsSeq, cdsChangePos.getPos(), change.getAlt());
 	}
 
-	private String getCDSWithRangeInRefAffected(GenomeVariant change) {
+	private CharSequence getCDSWithRangeInRefAffected(GenomeVariant change) {
 		TranscriptProjectionDecorator projector = new TranscriptProjectionDecorator(transcript);
 		TranscriptSequenceOntologyDecorator soDecorator = new TranscriptSequenceOntologyDecorator(transcript);
 
 		// Obtain CDS transcript sequence.
-		String cdsSeq = projector.getTranscriptStartingAtCDS();
+		CharSequence cdsSeq = getTranscriptStartingAtCDSView(projector);
 
 		// Short-circuit in the case of change that does not affect the transcript.
 		if (!transcript.getCDSRegion().overlapsWith(change.getGenomeInterval())
@@ -208,10 +229,25 @@ public final class TranscriptSequenceChangeHelper {
 		GenomePosition changeEndPos = change.getGenomeInterval().getGenomeEndPos();
 		CDSPosition cdsChangeEndPos = projector.projectGenomeToCDSPosition(changeEndPos);
 
-		// Build resulting transcript string.
-		StringBuilder builder = new StringBuilder(cdsSeq);
-		builder.delete(cdsChangeBeginPos.getPos(), cdsChangeEndPos.getPos());
-		builder.insert(cdsChangeBeginPos.getPos(), change.getAlt());
-		return builder.toString();
+		// Overlay the change over the CDS sequence, clamping the deletion like StringBuilder.delete() does.
+		final int delEnd = Math.min(cdsChangeEndPos.getPos(), cdsSeq.length());
+		return new SequenceOverlay(cdsSeq, cdsChangeBeginPos.getPos(), delEnd - cdsChangeBeginPos.getPos(),
+				change.getAlt());
+	}
+
+	/**
+	 * @return view of the transcript sequence starting at the CDS, like
+	 *         {@link TranscriptProjectionDecorator#getTranscriptStartingAtCDS} but without copying, as a
+	 *         {@link SequenceOverlay} that deletes the 5' UTR such that it can be copied from in bulk
+	 */
+	private CharSequence getTranscriptStartingAtCDSView(TranscriptProjectionDecorator projector) {
+		final String seq = transcript.getSequence();
+		try {
+			final int cdsBegin = projector.genomeToTranscriptPos(transcript.getCDSRegion().getGenomeBeginPos())
+					.getPos();
+			return new SequenceOverlay(seq, 0, cdsBegin, "");
+		} catch (ProjectionException e) {
+			throw new Error("Bug: CDS begin must be translatable into transcript positions");
+		}
 	}
 }
@@ -0,0 +1,141 @@
+package de.charite.compbio.jannovar.annotation;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import de.charite.compbio.jannovar.annotation.StructuralVariantAnnotator.Overlap;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.GenomePosition;
+import de.charite.compbio.jannovar.reference.GenomeVariant;
+import de.charite.compbio.jannovar.reference.HG19RefDictBuilder;
+import de.charite.compbio.jannovar.reference.PositionType;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import de.charite.compbio.jannovar.reference.TranscriptModelBuilder;
+import de.charite.compbio.jannovar.reference.TranscriptModelFactory;
+
+public class StructuralVariantAnnotatorTest {
+
+	/** this test uses this static hg19 reference dictionary */
+	static final ReferenceDictionary refDict = HG19RefDictBuilder.build();
+
+	/** two-exon transcript of gene 1 */
+	TranscriptModel twoExons;
+	/** single-exon transcript of gene 1 */
+	TranscriptModel singleExon;
+	/** single-exon transcript of gene 2 */
+	TranscriptModel otherGene;
+	/** data with the transcripts above */
+	JannovarData data;
+
+	@Before
+	public void setUp() {
+		twoExons = buildTranscript(
+				"uc000aaa.1	chr1	+	1000	2100	1010	2090	2	1000,2000,	1100,2100,	P12345	uc000aaa.1", "1");
+		singleExon = buildTranscript(
+				"uc000aab.1	chr1	+	1000	2100	1010	2090	1	1000,	2100,	P12346	uc000aab.1", "1");
+		otherGene = buildTranscript(
+				"uc000aac.1	chr1	-	5000	5200	5010	5190	1	5000,	5200,	P12347	uc000aac.1", "2");
+		data = new JannovarData(refDict, ImmutableList.of(twoExons, singleExon, otherGene));
+	}
+
+	private static TranscriptModel buildTranscript(String knownGenesLine, String geneID) {
+		TranscriptModelBuilder builder = TranscriptModelFactory.parseKnownGenesLine(refDict, knownGenesLine);
+		builder.setGeneSymbol("GENE" + geneID);
+		builder.setGeneID(geneID);
+		return builder.build();
+	}
+
+	private static GenomeInterval buildInterval(int beginPos, int endPos) {
+		return new GenomeInterval(refDict, Strand.FWD, 1, beginPos, endPos, PositionType.ZERO_BASED);
+	}
+
+	private static GenomeVariant buildSymbolic(int pos, String alt) {
+		return new GenomeVariant(new GenomePosition(refDict, Strand.FWD, 1, pos - 1, PositionType.ZERO_BASED), "N",
+				alt);
+	}
+
+	@Test
+	public void testTypeFromAllele() {
+		Assert.assertEquals(StructuralVariantType.DEL, StructuralVariantType.fromSymbolicAllele("<DEL>"));
+		Assert.assertEquals(StructuralVariantType.DUP, StructuralVariantType.fromSymbolicAllele("<DUP:TANDEM>"));
+		Assert.assertEquals(StructuralVariantType.OTHER, StructuralVariantType.fromSymbolicAllele("<XYZ>"));
+		Assert.assertEquals(StructuralVariantType.BND, StructuralVariantType.fromSymbolicAllele("G]17:198982]"));
+		Assert.assertEquals(StructuralVariantType.DEL, StructuralVariantType.fromLiteral("ACGT", ""));
+		Assert.assertEquals(StructuralVariantType.INS, StructuralVariantType.fromLiteral("", "ACGT"));
+		Assert.assertEquals(StructuralVariantType.INV, StructuralVariantType.fromLiteral("AACG", "CGTT"));
+		Assert.assertEquals(StructuralVariantType.OTHER, StructuralVariantType.fromLiteral("AACG", "CCCC"));
+	}
+
+	@Test
+	public void testClassify() {
+		final StructuralVariantType del = StructuralVariantType.DEL;
+		Assert.assertEquals(Overlap.CONTAINED,
+				StructuralVariantAnnotator.classify(twoExons, buildInterval(900, 2200), del));
+		Assert.assertEquals(Overlap.BREAKPOINT_IN_EXON,
+				StructuralVariantAnnotator.classify(twoExons, buildInterval(1050, 3000), del));
+		Assert.assertEquals(Overlap.EXONS_AFFECTED,
+				StructuralVariantAnnotator.classify(twoExons, buildInterval(1500, 3000), del));
+		Assert.assertEquals(Overlap.BREAKPOINT_IN_INTRON,
+				StructuralVariantAnnotator.classify(twoExons, buildInterval(1200, 1300), del));
+		Assert.assertEquals(Overlap.BREAKPOINT_IN_EXON,
+				StructuralVariantAnnotator.classify(singleExon, buildInterval(1200, 1300), del));
+		Assert.assertEquals(Overlap.BREAKPOINT_IN_INTRON,
+				StructuralVariantAnnotator.classify(twoExons, buildInterval(1200, 1200), StructuralVariantType.INS));
+	}
+
+	@Test
+	public void testOneAnnotationPerGene() {
+		StructuralVariantAnnotator annotator = new StructuralVariantAnnotator(data.getChromosomes(),
+				StructuralVariantAnnotator.DEFAULT_MAX_GENES);
+		VariantAnnotations annos = annotator.buildAnnotations(buildSymbolic(1200, "<DEL>"), buildInterval(1200, 1300),
+				StructuralVariantType.DEL);
+
+		Assert.assertEquals(1, annos.getAnnotations().size());
+		Annotation anno = annos.getHighestImpactAnnotation();
+		Assert.assertEquals("uc000aab.1", anno.getTranscript().getAccession());
+		Assert.assertEquals(ImmutableSet.of(VariantEffect.EXON_LOSS_VARIANT, VariantEffect.FEATURE_TRUNCATION,
+				VariantEffect.STRUCTURAL_VARIANT), anno.getEffects());
+		Assert.assertTrue(anno.getMessages().isEmpty());
+	}
+
+	@Test
+	public void testSummarized() {
+		StructuralVariantAnnotator annotator = new StructuralVariantAnnotator(data.getChromosomes(), 1);
+		VariantAnnotations annos = annotator.buildAnnotations(buildSymbolic(900, "<DEL>"), buildInterval(900, 5100),
+				StructuralVariantType.DEL);
+
+		// gene 1 is contained, the gene with the breakpoint is kept
+		Assert.assertEquals(1, annos.getAnnotations().size());
+		Annotation anno = annos.getHighestImpactAnnotation();
+		Assert.assertEquals("uc000aac.1", anno.getTranscript().getAccession());
+		Assert.assertEquals(ImmutableSet.of(AnnotationMessage.INFO_STRUCTURAL_VARIANT_SUMMARIZED),
+				anno.getMessages());
+	}
+
+	@Test
+	public void testContainedAndIntergenic() {
+		StructuralVariantAnnotator annotator = new StructuralVariantAnnotator(data.getChromosomes(),
+				StructuralVariantAnnotator.DEFAULT_MAX_GENES);
+
+		VariantAnnotations contained = annotator.buildAnnotations(buildSymbolic(900, "<DEL>"),
+				buildInterval(900, 5300), StructuralVariantType.DEL);
+		Assert.assertEquals(2, contained.getAnnotations().size());
+		for (Annotation anno : contained.getAnnotations())
+			Assert.assertEquals(VariantEffect.TRANSCRIPT_ABLATION, anno.getMostPathogenicVarType());
+
+		VariantAnnotations intergenic = annotator.buildAnnotations(buildSymbolic(10000, "<DUP>"),
+				buildInterval(10000, 20000), StructuralVariantType.DUP);
+		Assert.assertEquals(1, intergenic.getAnnotations().size());
+		Assert.assertNull(intergenic.getHighestImpactAnnotation().getTranscript());
+		Assert.assertEquals(VariantEffect.INTERGENIC_VARIANT,
+				intergenic.getHighestImpactAnnotation().getMostPathogenicVarType());
+	}
+
+}
@@ -0,0 +1,93 @@
+package de.charite.compbio.jannovar.annotation;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+
+import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderDispatcher;
+import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.hgvs.AminoAcidCode;
+import de.charite.compbio.jannovar.reference.GenomePosition;
+import de.charite.compbio.jannovar.reference.GenomeVariant;
+import de.charite.compbio.jannovar.reference.HG19RefDictBuilder;
+import de.charite.compbio.jannovar.reference.PositionType;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import de.charite.compbio.jannovar.reference.TranscriptModelBuilder;
+import de.charite.compbio.jannovar.reference.TranscriptModelFactory;
+
+public class VCFAnnotationSerializerTest {
+
+	/** this test uses this static hg19 reference dictionary */
+	static final ReferenceDictionary refDict = HG19RefDictBuilder.build();
+	/** small coding transcript on the forward strand, with characters to escape in the gene symbol and ID */
+	TranscriptModel transcript;
+	/** missense annotation */
+	Annotation missense;
+	/** upstream annotation */
+	Annotation upstream;
+	/** annotation with message only */
+	Annotation error;
+
+	@Before
+	public void setUp() throws InvalidGenomeVariant {
+		TranscriptModelBuilder builder = TranscriptModelFactory.parseKnownGenesLine(refDict,
+				"uc000tst.1	chr1	+	1000	1100	1010	1091	1	1000,	1100,	P12345	uc000tst.1");
+		builder.setSequence("CCCCCCCCCC" + "ATG" + Joiner.on("").join(ImmutableList.of("GCT", "GCT", "GCT", "GCT",
+				"GCT", "GCT", "GCT", "GCT", "GCT", "GCT", "GCT", "GCT", "GCT", "GCT", "GCT", "GCT", "GCT", "GCT", "GCT",
+				"GCT", "GCT", "GCT", "GCT", "GCT", "GCT")) + "TAA" + "CCCCCCCCC");
+		builder.setGeneSymbol("GENE 1;X");
+		builder.setGeneID("ID=1,2");
+		transcript = builder.build();
+
+		AnnotationBuilderOptions options = new AnnotationBuilderOptions();
+		GenomeVariant snv = new GenomeVariant(new GenomePosition(refDict, Strand.FWD, 1, 1016,
+				PositionType.ZERO_BASED), "G", "A");
+		missense = new AnnotationBuilderDispatcher(transcript, snv, options).build();
+		GenomeVariant upstreamSNV = new GenomeVariant(new GenomePosition(refDict, Strand.FWD, 1, 900,
+				PositionType.ZERO_BASED), "C", "T");
+		upstream = new AnnotationBuilderDispatcher(transcript, upstreamSNV, options).build();
+		error = new Annotation(ImmutableList.of(AnnotationMessage.ERROR_PROBLEM_DURING_ANNOTATION));
+	}
+
+	@Test
+	public void testSameAsToVCFAnnoString() {
+		VCFAnnotationSerializer serializer = VCFAnnotationSerializer.forCurrentThread();
+		serializer.append(missense, "A", AminoAcidCode.ONE_LETTER);
+		serializer.append(upstream, "T", AminoAcidCode.THREE_LETTER);
+		serializer.append(error, "T", AminoAcidCode.ONE_LETTER);
+
+		Assert.assertEquals(3, serializer.getCount());
+		Assert.assertEquals(
+				Joiner.on(',').join(missense.toVCFAnnoString("A", AminoAcidCode.ONE_LETTER),
+						upstream.toVCFAnnoString("T", AminoAcidCode.THREE_LETTER),
+						error.toVCFAnnoString("T", AminoAcidCode.ONE_LETTER)),
+				serializer.toString());
+	}
+
+	@Test
+	public void testCachedTranscriptFieldsAreEscaped() {
+		VCFAnnotationSerializer serializer = VCFAnnotationSerializer.forCurrentThread();
+		serializer.append(missense, "A", AminoAcidCode.ONE_LETTER);
+		final String first = serializer.toString();
+		Assert.assertTrue(first.contains("|GENE%201%3BX|ID%3D1%2C2|transcript|uc000tst.1|Coding|"));
+
+		// second serialization uses the cached fields
+		serializer.reset();
+		Assert.assertTrue(serializer.isEmpty());
+		serializer.append(missense, "A", AminoAcidCode.ONE_LETTER);
+		Assert.assertEquals(first, serializer.toString());
+		Assert.assertEquals(missense.toVCFAnnoString("A", AminoAcidCode.ONE_LETTER), first);
+	}
+
+	@Test
+	public void testUnescapedString() {
+		Assert.assertEquals("T|upstream_gene_variant|MODIFIER|GENE 1;X|ID=1,2|transcript|uc000tst.1|Coding|||||||99|",
+				upstream.toVCFAnnoString("T", false, AminoAcidCode.ONE_LETTER));
+	}
+
+}
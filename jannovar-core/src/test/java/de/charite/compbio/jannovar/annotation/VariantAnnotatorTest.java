@@ -0,0 +1,102 @@
+package de.charite.compbio.jannovar.annotation;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+
+import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.hgvs.AminoAcidCode;
+import de.charite.compbio.jannovar.reference.GenomePosition;
+import de.charite.compbio.jannovar.reference.GenomeVariant;
+import de.charite.compbio.jannovar.reference.HG19RefDictBuilder;
+import de.charite.compbio.jannovar.reference.PositionType;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import de.charite.compbio.jannovar.reference.TranscriptModelBuilder;
+import de.charite.compbio.jannovar.reference.TranscriptModelFactory;
+
+public class VariantAnnotatorTest {
+
+	/** this test uses this static hg19 reference dictionary */
+	static final ReferenceDictionary refDict = HG19RefDictBuilder.build();
+
+	/** annotator for two two-exon transcripts and a single-exon transcript within their first intron */
+	VariantAnnotator annotator;
+
+	@Before
+	public void setUp() {
+		TranscriptModel twoExonsA = buildTranscript(
+				"uc000aaa.1	chr1	+	1000	2100	1010	2090	2	1000,2000,	1100,2100,	P12345	uc000aaa.1",
+				Strings.repeat("C", 10) + "ATG" + Strings.repeat("GCT", 58) + "TAA" + Strings.repeat("C", 10));
+		TranscriptModel twoExonsB = buildTranscript(
+				"uc000aab.1	chr1	+	1000	2100	1010	2090	2	1000,2000,	1100,2100,	P12346	uc000aab.1",
+				Strings.repeat("C", 10) + "ATG" + Strings.repeat("GCT", 58) + "TAA" + Strings.repeat("C", 10));
+		TranscriptModel singleExon = buildTranscript(
+				"uc000aac.1	chr1	+	1400	1600	1410	1593	1	1400,	1600,	P12347	uc000aac.1",
+				Strings.repeat("C", 10) + "ATG" + Strings.repeat("GCT", 59) + "TAA" + Strings.repeat("C", 7));
+		JannovarData data = new JannovarData(refDict, ImmutableList.of(twoExonsA, twoExonsB, singleExon));
+		annotator = new VariantAnnotator(refDict, data.getChromosomes(), new AnnotationBuilderOptions());
+	}
+
+	private static TranscriptModel buildTranscript(String knownGenesLine, String sequence) {
+		TranscriptModelBuilder builder = TranscriptModelFactory.parseKnownGenesLine(refDict, knownGenesLine);
+		builder.setSequence(sequence);
+		builder.setGeneSymbol("GENE");
+		builder.setGeneID("1");
+		return builder.build();
+	}
+
+	private static GenomeVariant buildSNV(int pos, String ref, String alt) {
+		return new GenomeVariant(new GenomePosition(refDict, Strand.FWD, 1, pos, PositionType.ZERO_BASED), ref, alt);
+	}
+
+	private static void assertSameBest(VariantAnnotations expected, VariantAnnotations actual) {
+		Assert.assertEquals(expected.getHighestImpactAnnotation().toVCFAnnoString("A", AminoAcidCode.ONE_LETTER),
+				actual.getHighestImpactAnnotation().toVCFAnnoString("A", AminoAcidCode.ONE_LETTER));
+	}
+
+	@Test
+	public void testBestSkipsIntronicTranscripts() throws AnnotationException {
+		// missense in the single-exon transcript, deep intronic in the two-exon transcripts
+		GenomeVariant change = buildSNV(1500, "G", "A");
+
+		VariantAnnotations full = annotator.buildAnnotations(change);
+		VariantAnnotations best = annotator.buildBestAnnotations(change);
+
+		Assert.assertEquals(3, full.getAnnotations().size());
+		Assert.assertEquals(1, best.getAnnotations().size());
+		Assert.assertEquals("uc000aac.1", best.getHighestImpactAnnotation().getTranscript().getAccession());
+		assertSameBest(full, best);
+	}
+
+	@Test
+	public void testBestAllIntronic() throws AnnotationException {
+		// deep intronic in the two-exon transcripts only, the first by transcript order wins
+		GenomeVariant change = buildSNV(1200, "C", "A");
+
+		VariantAnnotations full = annotator.buildAnnotations(change);
+		VariantAnnotations best = annotator.buildBestAnnotations(change);
+
+		Assert.assertEquals(2, full.getAnnotations().size());
+		Assert.assertEquals(1, best.getAnnotations().size());
+		assertSameBest(full, best);
+	}
+
+	@Test
+	public void testBestNearSpliceSiteNotSkipped() throws AnnotationException {
+		// close to the exon boundary, all transcripts must be annotated in full
+		GenomeVariant change = buildSNV(1102, "C", "A");
+
+		VariantAnnotations full = annotator.buildAnnotations(change);
+		VariantAnnotations best = annotator.buildBestAnnotations(change);
+
+		Assert.assertEquals(full.getAnnotations().size(), best.getAnnotations().size());
+		assertSameBest(full, best);
+	}
+
+}
@@ -0,0 +1,143 @@
+package de.charite.compbio.jannovar.annotation.builders;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.reference.GenomePosition;
+import de.charite.compbio.jannovar.reference.GenomeVariant;
+import de.charite.compbio.jannovar.reference.HG19RefDictBuilder;
+import de.charite.compbio.jannovar.reference.PositionType;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+
+/**
+ * Timing and allocation measurement for the structural variant inversion and the coding indel paths
+ *
+ * Only uses builders that exist before and after the byte-level sequence kernel, such that the same test can be run
+ * against both versions. Ignored by default, remove the {@link Ignore} annotation to run it.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public class SequenceKernelPerformanceTest {
+
+	/** this test uses this static hg19 reference dictionary */
+	static final ReferenceDictionary refDict = HG19RefDictBuilder.build();
+
+	/** length of the inverted sequence */
+	static final int INVERSION_LENGTH = 10000;
+	/** number of rounds over the inversions for warmup and for measurement */
+	static final int INVERSION_ROUNDS = 1000;
+	/** number of rounds over the indels for warmup and for measurement */
+	static final int INDEL_ROUNDS = 200;
+
+	/** transcript on forward strand, ZBTB48 from {@link DeletionAnnotationBuilderTest} */
+	TranscriptModel transcript;
+	/** literal inversions within {@link #transcript} */
+	List<GenomeVariant> inversions;
+	/** 1 bp deletions and insertions at each CDS position of {@link #transcript} */
+	List<GenomeVariant> indels;
+
+	@Before
+	public void setUp() {
+		DeletionAnnotationBuilderTest other = new DeletionAnnotationBuilderTest();
+		other.setUp();
+		transcript = other.infoForward;
+
+		Random rng = new Random(42);
+		inversions = new ArrayList<>();
+		for (int i = 0; i < 10; ++i) {
+			StringBuilder ref = new StringBuilder();
+			for (int j = 0; j < INVERSION_LENGTH; ++j)
+				ref.append("ACGT".charAt(rng.nextInt(4)));
+			// make sure that the alleles are not trimmed
+			ref.setCharAt(0, 'A');
+			ref.setCharAt(INVERSION_LENGTH - 1, 'C');
+			StringBuilder alt = new StringBuilder();
+			for (int j = INVERSION_LENGTH - 1; j >= 0; --j)
+				alt.append("TGCA".charAt("ACGT".indexOf(ref.charAt(j))));
+			inversions.add(new GenomeVariant(new GenomePosition(refDict, Strand.FWD, 1, 6640062 + 10 * i,
+					PositionType.ZERO_BASED), ref.toString(), alt.toString()));
+		}
+
+		indels = new ArrayList<>();
+		final int cdsBegin = transcript.getCDSRegion().getBeginPos();
+		final int cdsEnd = transcript.getCDSRegion().getEndPos();
+		for (int pos = cdsBegin; pos < cdsEnd; pos += 7) {
+			final GenomePosition gPos = new GenomePosition(refDict, Strand.FWD, 1, pos, PositionType.ZERO_BASED);
+			indels.add(new GenomeVariant(gPos, "", "A"));
+			indels.add(new GenomeVariant(gPos, "N", ""));
+		}
+	}
+
+	/** @return checksum over the annotation of all inversions */
+	@SuppressWarnings("deprecation")
+	private long runInversionRound() {
+		long result = 0;
+		for (GenomeVariant change : inversions) {
+			result += new GenomicNucleotideChangeBuilder(change).build().toHGVSString().length();
+			result += new StructuralVariantAnnotationBuilder(transcript, change).build().getEffects().size();
+		}
+		return result;
+	}
+
+	/** @return checksum over the annotation of all indels */
+	private long runIndelRound() throws Exception {
+		long result = 0;
+		for (GenomeVariant change : indels) {
+			if (change.getRef().isEmpty())
+				result += new InsertionAnnotationBuilder(transcript, change, new AnnotationBuilderOptions()).build()
+						.getEffects().size();
+			else
+				result += new DeletionAnnotationBuilder(transcript, change, new AnnotationBuilderOptions()).build()
+						.getEffects().size();
+		}
+		return result;
+	}
+
+	/** Round to measure */
+	private interface Round {
+		long run() throws Exception;
+	}
+
+	/** Warm up and measure <code>round</code>, print the results per variant */
+	private static void measure(String name, int numVariants, int numRounds, Round round) throws Exception {
+		long checksum = 0;
+		for (int i = 0; i < numRounds; ++i)
+			checksum += round.run();
+
+		final com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		final long threadID = Thread.currentThread().getId();
+		final long startBytes = threadBean.getThreadAllocatedBytes(threadID);
+		final long startTime = System.nanoTime();
+		for (int i = 0; i < numRounds; ++i)
+			checksum -= round.run();
+		final long elapsed = System.nanoTime() - startTime;
+		final long allocated = threadBean.getThreadAllocatedBytes(threadID) - startBytes;
+
+		final long numRecords = (long) numRounds * numVariants;
+		System.err.println(String.format("%s: %.1f us/variant, %.1f KiB/variant (checksum %d)", name,
+				elapsed / 1000.0 / numRecords, allocated / 1024.0 / numRecords, checksum));
+	}
+
+	@Ignore("Measurement only, prints timing and allocation, run manually.")
+	@Test
+	public void testMeasureInversions() throws Exception {
+		measure("SV inversions of " + INVERSION_LENGTH + " bp", inversions.size(), INVERSION_ROUNDS,
+				this::runInversionRound);
+	}
+
+	@Ignore("Measurement only, prints timing and allocation, run manually.")
+	@Test
+	public void testMeasureIndels() throws Exception {
+		measure("CDS indels", indels.size(), INDEL_ROUNDS, this::runIndelRound);
+	}
+
+}
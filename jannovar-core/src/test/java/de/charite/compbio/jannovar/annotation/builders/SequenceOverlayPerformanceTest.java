@@ -0,0 +1,124 @@
+package de.charite.compbio.jannovar.annotation.builders;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.reference.GenomePosition;
+import de.charite.compbio.jannovar.reference.GenomeVariant;
+import de.charite.compbio.jannovar.reference.HG19RefDictBuilder;
+import de.charite.compbio.jannovar.reference.PositionType;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import de.charite.compbio.jannovar.reference.TranscriptModelBuilder;
+import de.charite.compbio.jannovar.reference.TranscriptModelFactory;
+
+/**
+ * Timing and allocation measurement for indels in a long transcript, where applying the variant to the whole
+ * transcript sequence dominates
+ *
+ * Only uses builders that exist before and after the sequence overlay, such that the same test can be run against
+ * both versions. Ignored by default, remove the {@link Ignore} annotation to run it.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public class SequenceOverlayPerformanceTest {
+
+	/** this test uses this static hg19 reference dictionary */
+	static final ReferenceDictionary refDict = HG19RefDictBuilder.build();
+
+	/** begin position of the transcript */
+	static final int TX_BEGIN = 1000000;
+	/** length of the 5' and 3' UTR */
+	static final int UTR_LENGTH = 1000;
+	/** number of codons in the CDS, including start and stop codon, about the size of the TTN CDS */
+	static final int NUM_CODONS = 33000;
+	/** distance of the indels in the CDS */
+	static final int INDEL_DISTANCE = 331;
+	/** number of rounds for warmup and for measurement */
+	static final int NUM_ROUNDS = 20;
+
+	/** single-exon transcript with an open reading frame of {@link #NUM_CODONS} */
+	TranscriptModel transcript;
+	/** 1 bp deletions and insertions in the CDS of {@link #transcript} */
+	List<GenomeVariant> indels;
+
+	@Before
+	public void setUp() {
+		Random rng = new Random(42);
+		StringBuilder seq = new StringBuilder();
+		for (int i = 0; i < UTR_LENGTH; ++i)
+			seq.append("ACGT".charAt(rng.nextInt(4)));
+		seq.append("ATG");
+		while (seq.length() < UTR_LENGTH + 3 * (NUM_CODONS - 1)) {
+			final String codon = "" + "ACGT".charAt(rng.nextInt(4)) + "ACGT".charAt(rng.nextInt(4))
+					+ "ACGT".charAt(rng.nextInt(4));
+			if (!codon.equals("TAA") && !codon.equals("TAG") && !codon.equals("TGA"))
+				seq.append(codon);
+		}
+		seq.append("TAA");
+		for (int i = 0; i < UTR_LENGTH; ++i)
+			seq.append("ACGT".charAt(rng.nextInt(4)));
+
+		final int txEnd = TX_BEGIN + seq.length();
+		final int cdsBegin = TX_BEGIN + UTR_LENGTH;
+		final int cdsEnd = cdsBegin + 3 * NUM_CODONS;
+		TranscriptModelBuilder builder = TranscriptModelFactory.parseKnownGenesLine(refDict,
+				"uc999aaa.1	chr1	+	" + TX_BEGIN + "	" + txEnd + "	" + cdsBegin + "	" + cdsEnd + "	1	" + TX_BEGIN
+						+ ",	" + txEnd + ",	P99999	uc999aaa.1");
+		builder.setSequence(seq.toString());
+		builder.setGeneSymbol("LONG");
+		transcript = builder.build();
+
+		indels = new ArrayList<>();
+		for (int pos = cdsBegin + 3; pos < cdsEnd - 3; pos += INDEL_DISTANCE) {
+			final GenomePosition gPos = new GenomePosition(refDict, Strand.FWD, 1, pos, PositionType.ZERO_BASED);
+			indels.add(new GenomeVariant(gPos, "", "A"));
+			indels.add(new GenomeVariant(gPos, "N", ""));
+		}
+	}
+
+	/** @return checksum over the annotation of all indels */
+	private long runRound() throws Exception {
+		long result = 0;
+		for (GenomeVariant change : indels) {
+			if (change.getRef().isEmpty())
+				result += new InsertionAnnotationBuilder(transcript, change, new AnnotationBuilderOptions()).build()
+						.getEffects().size();
+			else
+				result += new DeletionAnnotationBuilder(transcript, change, new AnnotationBuilderOptions()).build()
+						.getEffects().size();
+		}
+		return result;
+	}
+
+	@Ignore("Measurement only, prints timing and allocation, run manually.")
+	@Test
+	public void testMeasureIndelsInLongTranscript() throws Exception {
+		long checksum = 0;
+		for (int i = 0; i < NUM_ROUNDS; ++i)
+			checksum += runRound();
+
+		final com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		final long threadID = Thread.currentThread().getId();
+		final long startBytes = threadBean.getThreadAllocatedBytes(threadID);
+		final long startTime = System.nanoTime();
+		for (int i = 0; i < NUM_ROUNDS; ++i)
+			checksum -= runRound();
+		final long elapsed = System.nanoTime() - startTime;
+		final long allocated = threadBean.getThreadAllocatedBytes(threadID) - startBytes;
+
+		final long numVariants = (long) NUM_ROUNDS * indels.size();
+		System.err.println(String.format("indels in %d bp transcript: %.1f us/variant, %.1f KiB/variant (checksum %d)",
+				transcript.getSequence().length(), elapsed / 1000.0 / numVariants, allocated / 1024.0 / numVariants,
+				checksum));
+	}
+
+}
@@ -22,6 +22,7 @@ import de.charite.compbio.jannovar.reference.TranscriptModelFactory;
  *
  * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
  */
+@SuppressWarnings("deprecation")
 public class StructuralVariantAnnotationBuilderTest {
 
 	/** this test uses this static hg19 reference dictionary */
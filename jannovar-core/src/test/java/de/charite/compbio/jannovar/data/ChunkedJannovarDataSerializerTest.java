@@ -0,0 +1,139 @@
+package de.charite.compbio.jannovar.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.ImmutableList;
+
+import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.reference.HG19RefDictBuilder;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import de.charite.compbio.jannovar.reference.TranscriptModelBuilder;
+import de.charite.compbio.jannovar.reference.TranscriptModelFactory;
+
+/**
+ * Tests for {@link ChunkedJannovarDataSerializer}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public class ChunkedJannovarDataSerializerTest {
+
+	/** this test uses this static hg19 reference dictionary */
+	static final ReferenceDictionary refDict = HG19RefDictBuilder.build();
+
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	/** transcript on chr1 */
+	TranscriptModel first;
+	/** transcript on chr2 */
+	TranscriptModel second;
+	/** transcript on chr1 of the same gene as {@link #first}, starting before it */
+	TranscriptModel third;
+
+	/** path to the chunked database file */
+	String path;
+
+	@Before
+	public void setUp() throws IOException, JannovarException {
+		first = buildTranscript(
+				"uc000aaa.1	chr1	+	1000	2100	1010	2090	2	1000,2000,	1100,2100,	P12345	uc000aaa.1", "GENE1");
+		second = buildTranscript(
+				"uc000aab.1	chr2	-	5000	5200	5010	5190	1	5000,	5200,	P12346	uc000aab.1", "GENE2");
+		third = buildTranscript(
+				"uc000aac.1	chr1	+	500	2100	510	2090	2	500,2000,	600,2100,	P12347	uc000aac.1", "GENE1");
+
+		path = new File(tmpFolder.getRoot(), "chunked.ser").getPath();
+		new ChunkedJannovarDataSerializer(path)
+				.save(new JannovarData(refDict, ImmutableList.of(first, second, third)));
+	}
+
+	private static TranscriptModel buildTranscript(String knownGenesLine, String geneSymbol) {
+		TranscriptModelBuilder builder = TranscriptModelFactory.parseKnownGenesLine(refDict, knownGenesLine);
+		builder.setGeneSymbol(geneSymbol);
+		builder.setGeneID(geneSymbol);
+		builder.setSequence("ACGT");
+		return builder.build();
+	}
+
+	@Test
+	public void testLoadsChromosomesOnFirstAccess() throws JannovarException {
+		Assert.assertTrue(ChunkedJannovarDataSerializer.isChunked(path));
+		final JannovarData data = new JannovarDataSerializer(path).load();
+
+		Assert.assertEquals(refDict.getContigNameToID(), data.getRefDict().getContigNameToID());
+		Assert.assertEquals(refDict.getContigIDToName().size(), data.getChromosomes().size());
+		for (Chromosome chrom : data.getChromosomes().values())
+			Assert.assertFalse(chrom.isLoaded());
+		Assert.assertTrue(data.getLoadReport().getEntries().isEmpty());
+
+		final ImmutableList<TranscriptModel> entries = data.getChromosomes().get(2).getTMIntervalTree()
+				.findOverlappingWithInterval(5100, 5101).getEntries();
+		Assert.assertEquals(ImmutableList.of(second), entries);
+		// the reference dictionary is shared with the table of contents instead of deserialized per chunk
+		Assert.assertSame(data.getRefDict(), entries.get(0).getTXRegion().getRefDict());
+		Assert.assertTrue(data.getChromosomes().get(2).isLoaded());
+		Assert.assertFalse(data.getChromosomes().get(1).isLoaded());
+		Assert.assertEquals(1, data.getLoadReport().getEntries().size());
+		Assert.assertEquals("2 (1 transcripts)", data.getLoadReport().getEntries().get(0).getWhat());
+	}
+
+	@Test
+	public void testSecondaryIndicesLoadAllChromosomes() throws JannovarException {
+		final JannovarData data = new JannovarDataSerializer(path).load();
+
+		Assert.assertEquals(second, data.getTmByGeneSymbol().get("GENE2").iterator().next());
+		Assert.assertEquals(first, data.getTmByAccession().get("uc000aaa.1"));
+		for (Chromosome chrom : data.getChromosomes().values())
+			Assert.assertTrue(chrom.isLoaded());
+		Assert.assertEquals(refDict.getContigIDToName().size() + 2, data.getLoadReport().getEntries().size());
+	}
+
+	@Test
+	public void testIndicesKeepTranscriptOrder() throws JannovarException {
+		final JannovarData data = new JannovarDataSerializer(path).load();
+
+		Assert.assertEquals(ImmutableList.of(first, third), ImmutableList.copyOf(data.getTmByGeneSymbol().get("GENE1")));
+		Assert.assertEquals(ImmutableList.of("uc000aaa.1", "uc000aac.1", "uc000aab.1"),
+				ImmutableList.copyOf(data.getTmByAccession().keySet()));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDuplicateAccessionRejected() {
+		new JannovarData(refDict, ImmutableList.of(first, second, first));
+	}
+
+	@Test
+	public void testReserializeLazilyLoaded() throws IOException, JannovarException {
+		final String copyPath = new File(tmpFolder.getRoot(), "copy.ser").getPath();
+		new JannovarDataSerializer(copyPath).save(new JannovarDataSerializer(path).load());
+
+		Assert.assertFalse(ChunkedJannovarDataSerializer.isChunked(copyPath));
+		final JannovarData copy = new JannovarDataSerializer(copyPath).load();
+		Assert.assertNull(copy.getLoadReport());
+		Assert.assertEquals(first, copy.getTmByAccession().get("uc000aaa.1"));
+		Assert.assertEquals(second, copy.getTmByAccession().get("uc000aab.1"));
+	}
+
+	@Test
+	public void testIndicesAreSerialized() throws Exception {
+		final String copyPath = new File(tmpFolder.getRoot(), "copy.ser").getPath();
+		new JannovarDataSerializer(copyPath).save(new JannovarDataSerializer(path).load());
+
+		// readers of earlier versions access the indices directly after deserialization
+		final JannovarData copy = new JannovarDataSerializer(copyPath).load();
+		for (String name : ImmutableList.of("tmByAccession", "tmByGeneSymbol")) {
+			final Field field = JannovarData.class.getDeclaredField(name);
+			field.setAccessible(true);
+			Assert.assertNotNull(field.get(copy));
+		}
+	}
+
+}
@@ -0,0 +1,112 @@
+package de.charite.compbio.jannovar.data;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedSet;
+
+import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.reference.HG19RefDictBuilder;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import de.charite.compbio.jannovar.reference.TranscriptModelBuilder;
+import de.charite.compbio.jannovar.reference.TranscriptModelFactory;
+
+public class JannovarDataPatchTest {
+
+	/** this test uses this static hg19 reference dictionary */
+	static final ReferenceDictionary refDict = HG19RefDictBuilder.build();
+
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	/** transcript on chr1, unchanged */
+	TranscriptModel unchanged;
+	/** transcript on chr1, removed in the update */
+	TranscriptModel removed;
+	/** transcript on chr2, with changed sequence in the update */
+	TranscriptModel modifiedOld;
+	/** updated version of {@link #modifiedOld} */
+	TranscriptModel modifiedNew;
+	/** transcript on chr3, added in the update */
+	TranscriptModel added;
+
+	JannovarData base;
+	JannovarData updated;
+
+	@Before
+	public void setUp() {
+		unchanged = buildTranscript(
+				"uc000aaa.1	chr1	+	1000	2100	1010	2090	2	1000,2000,	1100,2100,	P12345	uc000aaa.1", "ACGT");
+		removed = buildTranscript(
+				"uc000aab.1	chr1	+	1000	2100	1010	2090	1	1000,	2100,	P12346	uc000aab.1", "ACGT");
+		modifiedOld = buildTranscript(
+				"uc000aac.1	chr2	-	5000	5200	5010	5190	1	5000,	5200,	P12347	uc000aac.1", "ACGT");
+		modifiedNew = buildTranscript(
+				"uc000aac.1	chr2	-	5000	5200	5010	5190	1	5000,	5200,	P12347	uc000aac.1", "ACGA");
+		added = buildTranscript(
+				"uc000aad.1	chr3	+	7000	7200	7010	7190	1	7000,	7200,	P12348	uc000aad.1", "ACGT");
+
+		base = new JannovarData(refDict, ImmutableList.of(unchanged, removed, modifiedOld));
+		updated = new JannovarData(refDict, ImmutableList.of(unchanged, modifiedNew, added));
+	}
+
+	private static TranscriptModel buildTranscript(String knownGenesLine, String sequence) {
+		TranscriptModelBuilder builder = TranscriptModelFactory.parseKnownGenesLine(refDict, knownGenesLine);
+		builder.setGeneSymbol("GENE1");
+		builder.setGeneID("1");
+		builder.setSequence(sequence);
+		return builder.build();
+	}
+
+	@Test
+	public void testDiff() {
+		final JannovarDataPatch patch = JannovarDataPatch.diff(base, updated);
+
+		Assert.assertEquals(ImmutableSortedSet.of("uc000aab.1", "uc000aac.1"), patch.getRemovedAccessions());
+		Assert.assertEquals(ImmutableList.of(modifiedNew, added), patch.getAddedTranscripts());
+		Assert.assertEquals(1, patch.getNumModified());
+		Assert.assertTrue(JannovarDataPatch.diff(base, base).isEmpty());
+	}
+
+	@Test
+	public void testApplyTo() throws JannovarException {
+		final JannovarData patched = JannovarDataPatch.diff(base, updated).applyTo(base);
+
+		Assert.assertEquals(updated.getTmByAccession().keySet(), patched.getTmByAccession().keySet());
+		Assert.assertSame(modifiedNew, patched.getTmByAccession().get("uc000aac.1"));
+		Assert.assertEquals(JannovarDataPatch.fingerprint(updated), JannovarDataPatch.fingerprint(patched));
+		Assert.assertEquals(ImmutableList.of(added),
+				patched.getChromosomes().get(3).getTMIntervalTree().findOverlappingWithInterval(7100, 7101)
+						.getEntries());
+		// chr1 only lost a transcript, chromosomes without changes are reused as they are
+		Assert.assertEquals(1, patched.getChromosomes().get(1).getTMIntervalTree().size());
+		Assert.assertSame(base.getChromosomes().get(1), JannovarDataPatch.diff(base, base).applyTo(base)
+				.getChromosomes().get(1));
+	}
+
+	@Test(expected = JannovarException.class)
+	public void testApplyToWrongBase() throws JannovarException {
+		JannovarDataPatch.diff(base, updated).applyTo(updated);
+	}
+
+	@Test
+	public void testSerialization() throws IOException, JannovarException {
+		final File file = tmpFolder.newFile("patch.ser");
+		final JannovarDataPatch patch = JannovarDataPatch.diff(base, updated);
+		new JannovarDataPatchSerializer(file.getPath()).save(patch);
+
+		final JannovarDataPatch loaded = new JannovarDataPatchSerializer(file.getPath()).load();
+		Assert.assertEquals(patch.getRemovedAccessions(), loaded.getRemovedAccessions());
+		Assert.assertEquals(patch.getAddedTranscripts(), loaded.getAddedTranscripts());
+		Assert.assertEquals(patch.getResultFingerprint(), loaded.getResultFingerprint());
+		Assert.assertEquals(JannovarDataPatch.fingerprint(updated), JannovarDataPatch.fingerprint(loaded.applyTo(base)));
+	}
+
+}
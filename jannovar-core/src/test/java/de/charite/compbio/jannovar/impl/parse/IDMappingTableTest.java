@@ -0,0 +1,76 @@
+package de.charite.compbio.jannovar.impl.parse;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.io.Files;
+
+/**
+ * Tests for {@link IDMappingTable}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public class IDMappingTableTest {
+
+	File tmpDir;
+
+	@Before
+	public void setUp() {
+		tmpDir = Files.createTempDir();
+	}
+
+	/** @return path to file with the given <code>lines</code> */
+	private String writeFile(String name, String... lines) throws IOException {
+		File file = new File(tmpDir, name);
+		try (PrintWriter writer = new PrintWriter(file)) {
+			for (String line : lines)
+				writer.println(line);
+		}
+		return file.getPath();
+	}
+
+	@Test
+	public void testByIndex() throws Exception {
+		String path = writeFile("kgXref.txt", "#kgID\tmRNA", "uc001aaa.3\tNM_1\t\t\tGENE1", "uc001aab.1\tNM_2", "",
+				"uc001aaa.3\tNM_3\t\t\tGENE3");
+		IDMappingTable table = IDMappingTable.builder(path).keyColumn(0).valueColumns(4, 1).load();
+
+		Assert.assertEquals(3, table.size());
+		Assert.assertEquals(5, table.getNumLines());
+		Assert.assertEquals("GENE3", table.get("uc001aaa.3", 0));
+		Assert.assertEquals("NM_3", table.get("uc001aaa.3", 1));
+		Assert.assertEquals("", table.get("uc001aab.1", 0));
+		Assert.assertEquals("NM_2", table.get("uc001aab.1", 1));
+		Assert.assertEquals(-1, table.getRow("uc001aac.1"));
+		Assert.assertNull(table.get("uc001aac.1", 0));
+	}
+
+	@Test
+	public void testByName() throws Exception {
+		String path = writeFile("hgnc.txt", "hgnc_id\tsymbol\talias_symbol\tentrez_id",
+				"HGNC:1\tA1BG\t\"ABG|GAB\"\t1", "HGNC:2\tA2M\t\t2");
+		IDMappingTable table = IDMappingTable.builder(path).keyColumn("entrez_id")
+				.valueColumns("symbol", "alias_symbol", "omim_id").load();
+
+		Assert.assertEquals(2, table.size());
+		final int row = table.getRow("1");
+		Assert.assertEquals("A1BG", table.get(row, 0));
+		Assert.assertEquals("\"ABG|GAB\"", table.get(row, 1));
+		Assert.assertEquals("", table.get(row, 2));
+		Assert.assertEquals("A2M", table.get("2", 0));
+		Assert.assertSame(table.get("2", 0), IDMappingTable.builder(path).keyColumn("entrez_id")
+				.valueColumns("symbol").load().get("2", 0));
+	}
+
+	@Test(expected = TranscriptParseException.class)
+	public void testNumFields() throws Exception {
+		String path = writeFile("knownToLocusLink.txt", "uc001aaa.3\t1", "uc001aab.1\t2\t3");
+		IDMappingTable.builder(path).keyColumn(0).valueColumns(1).numFields(2, 2).load();
+	}
+
+}
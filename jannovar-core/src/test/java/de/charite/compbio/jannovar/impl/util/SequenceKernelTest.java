@@ -0,0 +1,64 @@
+package de.charite.compbio.jannovar.impl.util;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link SequenceKernel}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public class SequenceKernelTest {
+
+	private static byte[] bytes(String s) {
+		return s.getBytes(StandardCharsets.US_ASCII);
+	}
+
+	@Test
+	public void testCodonIndex() {
+		Assert.assertEquals(0, SequenceKernel.codonIndex(bytes("AAA"), 0));
+		Assert.assertEquals(63, SequenceKernel.codonIndex(bytes("TTT"), 0));
+		Assert.assertEquals(14, SequenceKernel.codonIndex("CCATGCC", 2));
+		Assert.assertEquals('M', SequenceKernel.aminoAcid1(14));
+		Assert.assertEquals("Met", SequenceKernel.aminoAcid3(14));
+		Assert.assertEquals(SequenceKernel.AMBIGUOUS_CODON, SequenceKernel.codonIndex(bytes("ANG"), 0));
+		Assert.assertEquals(SequenceKernel.INVALID_CODON, SequenceKernel.codonIndex(bytes("AXG"), 0));
+		Assert.assertTrue(SequenceKernel.isStopCodon(SequenceKernel.codonIndex("TGA", 0)));
+	}
+
+	@Test
+	public void testTranslate() {
+		final byte[] seq = bytes("CCATGTAGAGTNNNXXXATG");
+		Assert.assertEquals("M*SX", SequenceKernel.translate(seq, 2, 18, false));
+		Assert.assertEquals("Met*SerX", SequenceKernel.translate(seq, 2, 18, true));
+		Assert.assertEquals("M*", SequenceKernel.translateUntilStop(seq, 2, 18, false));
+		Assert.assertEquals(1, SequenceKernel.indexOfStopCodon(seq, 2, 18, 0));
+		Assert.assertEquals(-1, SequenceKernel.indexOfStopCodon(seq, 2, 18, 2));
+	}
+
+	@Test
+	public void testTranslateMatchesTranslator() {
+		final String seq = "ATGGCCAAGTTTCTGCCCGAATAACGNTGGTGA";
+		Assert.assertEquals(Translator.getTranslator().translateDNA(seq),
+				SequenceKernel.translate(bytes(seq), 0, seq.length(), false));
+		Assert.assertEquals(Translator.getTranslator().translateDNA3(seq),
+				SequenceKernel.translate(bytes(seq), 0, seq.length(), true));
+	}
+
+	@Test
+	public void testReverseComplement() {
+		Assert.assertEquals("NACGT", SequenceKernel.reverseComplement("ACGTxN"));
+		Assert.assertArrayEquals(bytes("GCA"), SequenceKernel.reverseComplement(bytes("TTGCTT"), 1, 3));
+	}
+
+	@Test
+	public void testIsReverseComplement() {
+		Assert.assertTrue(SequenceKernel.isReverseComplement("AACG", "CGTT"));
+		Assert.assertTrue(SequenceKernel.isReverseComplement("ANG", "CNT"));
+		Assert.assertFalse(SequenceKernel.isReverseComplement("AACG", "CGTA"));
+		Assert.assertFalse(SequenceKernel.isReverseComplement("AACG", "CGT"));
+	}
+
+}
@@ -0,0 +1,85 @@
+package de.charite.compbio.jannovar.impl.util;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link SequenceOverlay}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public class SequenceOverlayTest {
+
+	/** @return result of applying the edit with a {@link StringBuilder} */
+	private static String edit(String base, int offset, int delLength, String insert) {
+		return new StringBuilder(base).delete(offset, offset + delLength).insert(offset, insert).toString();
+	}
+
+	@Test
+	public void testEdits() {
+		Assert.assertEquals("ACXT", SequenceOverlay.substitution("ACGT", 2, 'X').toString());
+		Assert.assertEquals("AXXCGT", SequenceOverlay.insertion("ACGT", 1, "XX").toString());
+		Assert.assertEquals("ACGTXX", SequenceOverlay.insertion("ACGT", 4, "XX").toString());
+		Assert.assertEquals("AT", new SequenceOverlay("ACGT", 1, 2, "").toString());
+		Assert.assertEquals("AXT", new SequenceOverlay("ACGT", 1, 2, "X").toString());
+	}
+
+	@Test
+	public void testCharAtAndSubSequenceMatchCopy() {
+		final String base = "AACCGGTTAC";
+		final String[] inserts = { "", "X", "XYZ" };
+		for (String insert : inserts)
+			for (int offset = 0; offset <= base.length(); ++offset)
+				for (int delLength = 0; offset + delLength <= base.length(); ++delLength) {
+					final String expected = edit(base, offset, delLength, insert);
+					final SequenceOverlay overlay = new SequenceOverlay(base, offset, delLength, insert);
+					Assert.assertEquals(expected.length(), overlay.length());
+					for (int i = 0; i < expected.length(); ++i)
+						Assert.assertEquals(expected.charAt(i), overlay.charAt(i));
+					for (int start = 0; start <= expected.length(); ++start)
+						for (int end = start; end <= expected.length(); ++end) {
+							Assert.assertEquals(expected.substring(start, end),
+									overlay.subSequence(start, end).toString());
+							final char[] chars = new char[end - start];
+							overlay.getChars(start, end, chars, 0);
+							Assert.assertEquals(expected.substring(start, end), new String(chars));
+						}
+				}
+	}
+
+	@Test
+	public void testTranslate() {
+		final SequenceOverlay overlay = SequenceOverlay.insertion("ATGAAACCCTAG", 3, "T");
+		Assert.assertEquals(Translator.getTranslator().translateDNA(overlay.toString()),
+				Translator.getTranslator().translateDNA(overlay));
+		Assert.assertEquals(1, SequenceKernel.indexOfStopCodon(overlay, 0, overlay.length(), 0));
+	}
+
+	@Test
+	public void testTranslateAcrossChunks() {
+		Random rng = new Random(42);
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 3 * SequenceKernel.CHUNK_LENGTH + 100; ++i)
+			builder.append("ACGT".charAt(rng.nextInt(4)));
+		final String base = builder.toString();
+
+		// overlay of an overlay, as for the CDS view of a transcript with a variant
+		final SequenceOverlay cds = new SequenceOverlay(base, 0, 10, "");
+		final SequenceOverlay overlay = new SequenceOverlay(cds, SequenceKernel.CHUNK_LENGTH - 1, 2, "GGGG");
+		final String expected = overlay.toString();
+		Assert.assertEquals(edit(base.substring(10), SequenceKernel.CHUNK_LENGTH - 1, 2, "GGGG"), expected);
+		Assert.assertEquals(Translator.getTranslator().translateDNA(expected),
+				Translator.getTranslator().translateDNA(overlay));
+		for (int fromCodon : new int[] { 0, SequenceKernel.CHUNK_LENGTH / 3, SequenceKernel.CHUNK_LENGTH })
+			Assert.assertEquals(Translator.getTranslator().translateDNA(expected).indexOf('*', fromCodon),
+					SequenceKernel.indexOfStopCodon(overlay, 0, overlay.length(), fromCodon));
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testEditOutOfBounds() {
+		new SequenceOverlay("ACGT", 3, 2, "");
+	}
+
+}
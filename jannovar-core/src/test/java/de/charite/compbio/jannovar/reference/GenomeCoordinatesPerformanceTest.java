@@ -0,0 +1,94 @@
+package de.charite.compbio.jannovar.reference;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+
+/**
+ * Timing and allocation measurement for the strand arithmetic of {@link GenomePosition} and {@link GenomeInterval}
+ *
+ * Only uses the public API of the coordinate classes, such that the same test can be run against versions before
+ * {@link GenomeCoordinates}. Ignored by default, remove the {@link Ignore} annotation to run it.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public class GenomeCoordinatesPerformanceTest {
+
+	/** this test uses this static hg19 reference dictionary */
+	static final ReferenceDictionary refDict = HG19RefDictBuilder.build();
+
+	/** number of positions and intervals to query */
+	static final int NUM_ITEMS = 10000;
+	/** number of rounds over the items for warmup and for measurement */
+	static final int NUM_ROUNDS = 200;
+
+	/** positions on random strands */
+	GenomePosition[] positions;
+	/** intervals on random strands */
+	GenomeInterval[] intervals;
+
+	@Before
+	public void setUp() {
+		Random rng = new Random(42);
+		positions = new GenomePosition[NUM_ITEMS];
+		intervals = new GenomeInterval[NUM_ITEMS];
+		for (int i = 0; i < NUM_ITEMS; ++i) {
+			final Strand strand = rng.nextBoolean() ? Strand.FWD : Strand.REV;
+			final int begin = 1000000 + rng.nextInt(1000000);
+			positions[i] = new GenomePosition(refDict, strand, 1, begin, PositionType.ZERO_BASED);
+			final GenomeInterval fwdItv = new GenomeInterval(refDict, Strand.FWD, 1, begin, begin + rng.nextInt(5000),
+					PositionType.ZERO_BASED);
+			intervals[i] = rng.nextBoolean() ? fwdItv : fwdItv.withStrand(Strand.REV);
+		}
+	}
+
+	/** @return checksum over mixed-strand queries of all items against their neighbours */
+	private long runRound() {
+		long result = 0;
+		for (int i = 0; i < NUM_ITEMS; ++i) {
+			final GenomePosition pos = positions[i];
+			final GenomeInterval itv = intervals[(i + 1) % NUM_ITEMS];
+			final GenomeInterval other = intervals[(i + 7) % NUM_ITEMS];
+			if (itv.contains(pos))
+				result += 1;
+			if (itv.isLeftOf(pos))
+				result += 2;
+			if (itv.overlapsWith(other))
+				result += 3;
+			result += pos.compareTo(positions[(i + 3) % NUM_ITEMS]);
+			result += itv.withStrand(pos.getStrand()).getBeginPos();
+			result += itv.hashCode();
+		}
+		return result;
+	}
+
+	@Ignore("Measurement only, prints timing and allocation, run manually.")
+	@Test
+	public void testMeasureMixedStrandQueries() {
+		long checksum = 0;
+		for (int i = 0; i < NUM_ROUNDS; ++i)
+			checksum += runRound();
+
+		final com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		final long threadID = Thread.currentThread().getId();
+		final long startBytes = threadBean.getThreadAllocatedBytes(threadID);
+		final long startTime = System.nanoTime();
+		for (int i = 0; i < NUM_ROUNDS; ++i)
+			checksum -= runRound();
+		final long elapsed = System.nanoTime() - startTime;
+		final long allocated = threadBean.getThreadAllocatedBytes(threadID) - startBytes;
+
+		Assert.assertEquals(0, checksum);
+		final long numRecords = (long) NUM_ROUNDS * NUM_ITEMS;
+		System.err.println(String.format("mixed-strand queries: %.1f ns/record, %.1f bytes/record",
+				elapsed / (double) numRecords, allocated / (double) numRecords));
+	}
+
+}
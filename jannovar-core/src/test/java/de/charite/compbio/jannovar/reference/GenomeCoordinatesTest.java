@@ -0,0 +1,78 @@
+package de.charite.compbio.jannovar.reference;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+
+public class GenomeCoordinatesTest {
+
+	/** this test uses this static hg19 reference dictionary */
+	static final ReferenceDictionary refDict = HG19RefDictBuilder.build();
+
+	@Test
+	public void testPackRoundTrip() {
+		final long packed = GenomeCoordinates.pack(24, Strand.REV, 59373565);
+		Assert.assertEquals(24, GenomeCoordinates.chr(packed));
+		Assert.assertEquals(Strand.REV, GenomeCoordinates.strand(packed));
+		Assert.assertEquals(59373565, GenomeCoordinates.pos(packed));
+
+		final long negative = GenomeCoordinates.pack(1, Strand.FWD, -10);
+		Assert.assertEquals(1, GenomeCoordinates.chr(negative));
+		Assert.assertEquals(Strand.FWD, GenomeCoordinates.strand(negative));
+		Assert.assertEquals(-10, GenomeCoordinates.pos(negative));
+	}
+
+	@Test
+	public void testWithStrandMatchesGenomePosition() {
+		final GenomePosition fwdPos = new GenomePosition(refDict, Strand.FWD, 1, 1000, PositionType.ZERO_BASED);
+		final long packed = GenomeCoordinates.withStrand(refDict, GenomeCoordinates.pack(fwdPos), Strand.REV);
+
+		Assert.assertEquals(fwdPos.withStrand(Strand.REV), GenomeCoordinates.toGenomePosition(refDict, packed));
+		Assert.assertEquals(249249620, GenomeCoordinates.pos(packed));
+		Assert.assertEquals(1000, GenomeCoordinates.pos(GenomeCoordinates.withStrand(refDict, packed, Strand.FWD)));
+	}
+
+	@Test
+	public void testIntervalOnStrand() {
+		final GenomeInterval fwdItv = new GenomeInterval(refDict, Strand.FWD, 1, 1000, 1100, PositionType.ZERO_BASED);
+		final GenomeInterval revItv = fwdItv.withStrand(Strand.REV);
+
+		Assert.assertEquals(revItv.getBeginPos(), GenomeCoordinates.beginPosOnStrand(fwdItv, Strand.REV));
+		Assert.assertEquals(revItv.getEndPos(), GenomeCoordinates.endPosOnStrand(fwdItv, Strand.REV));
+		Assert.assertEquals(1000, GenomeCoordinates.beginPosOnStrand(revItv, Strand.FWD));
+		Assert.assertEquals(1100, GenomeCoordinates.endPosOnStrand(revItv, Strand.FWD));
+	}
+
+	@Test
+	public void testWithSameStrandDoesNotCopy() {
+		final GenomePosition pos = new GenomePosition(refDict, Strand.FWD, 1, 1000, PositionType.ZERO_BASED);
+		final GenomeInterval itv = new GenomeInterval(pos, 10);
+
+		Assert.assertSame(pos, pos.withStrand(Strand.FWD));
+		Assert.assertSame(itv, itv.withStrand(Strand.FWD));
+	}
+
+	@Test
+	public void testReferenceDictionaryTables() throws IOException, ClassNotFoundException {
+		Assert.assertEquals(249250621, refDict.getContigLength(1));
+		Assert.assertEquals("1", refDict.getContigName(1));
+
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(refDict);
+		}
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			final ReferenceDictionary copy = (ReferenceDictionary) in.readObject();
+			Assert.assertEquals(249250621, copy.getContigLength(1));
+			Assert.assertEquals("1", copy.getContigName(1));
+		}
+	}
+
+}
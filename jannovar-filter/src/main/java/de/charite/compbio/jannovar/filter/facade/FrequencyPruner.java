@@ -0,0 +1,170 @@
+package de.charite.compbio.jannovar.filter.facade;
+
+import com.google.common.collect.ImmutableMap;
+import de.charite.compbio.jannovar.filter.impl.var.VariantThresholdFilterAnnotator;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.vcf.VCFHeader;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Pruning of common variants directly after the frequency database lookups
+ *
+ * <p>
+ * A variant is considered common if its highest allele frequency from ExAC, dbSNP, and gnomAD
+ * (see {@link VariantThresholdFilterAnnotator#getHighestAlleleFrequency}) is above both the AD and
+ * the AR frequency threshold. Such variants can either be dropped or flagged with the
+ * corresponding FILTER values, in which case the following annotation steps can be wrapped with
+ * {@link #guard} such that they are skipped for the common variants.
+ * </p>
+ *
+ * <p>
+ * The frequency is only computed once per variant, in {@link #keep} or {@link #flagIfCommon}. The guarded steps
+ * recognize flagged variants by their FILTER values (see {@link #isFlagged}), such that variants that already carry
+ * both values in the input are skipped as well.
+ * </p>
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public class FrequencyPruner {
+
+	/** What to do with common variants */
+	public enum Mode {
+		/** Add FILTER values and skip the following annotation steps */
+		FLAG,
+		/** Remove from the output */
+		DROP;
+	}
+
+	/** Configuration with the frequency thresholds and database prefixes */
+	private final ThresholdFilterOptions options;
+
+	/** What to do with common variants */
+	private final Mode mode;
+
+	/** Frequency above which a variant is considered common */
+	private final double maxFrequency;
+
+	/** Number of variants found to be common */
+	private final LongAdder numCommon = new LongAdder();
+
+	/** Number of variants for which the step was skipped, by name of the guarded step */
+	private final Map<String, LongAdder> skipCounts = new LinkedHashMap<>();
+
+	public FrequencyPruner(ThresholdFilterOptions options, Mode mode) {
+		this.options = options;
+		this.mode = mode;
+		this.maxFrequency =
+				Math.max(options.getMaxAlleleFrequencyAd(), options.getMaxAlleleFrequencyAr());
+	}
+
+	/** @return what to do with common variants */
+	public Mode getMode() {
+		return mode;
+	}
+
+	/**
+	 * Add FILTER header lines in {@link Mode#FLAG} mode
+	 *
+	 * @param header The {@link VCFHeader} to extend.
+	 */
+	public void addHeaders(VCFHeader header) {
+		if (mode == Mode.FLAG)
+			new ThresholdFilterHeaderExtender(options).addFrequencyHeaders(header);
+	}
+
+	/**
+	 * @param vc {@link VariantContext} to check
+	 * @return whether or not <code>vc</code> is a common variant
+	 */
+	public boolean isCommon(VariantContext vc) {
+		return VariantThresholdFilterAnnotator.getHighestAlleleFrequency(options, vc) > maxFrequency;
+	}
+
+	/**
+	 * @param vc {@link VariantContext} to check
+	 * @return whether or not <code>vc</code> has been flagged as common by {@link #flagIfCommon}
+	 */
+	public static boolean isFlagged(VariantContext vc) {
+		final Set<String> filters = vc.getFilters();
+		return filters.contains(ThresholdFilterHeaderExtender.FILTER_VAR_MAX_FREQUENCY_AD)
+				&& filters.contains(ThresholdFilterHeaderExtender.FILTER_VAR_MAX_FREQUENCY_AR);
+	}
+
+	/**
+	 * Count <code>vc</code> if common, for use in <code>Stream.filter()</code> in {@link Mode#DROP}
+	 * mode
+	 *
+	 * @param vc {@link VariantContext} to check
+	 * @return whether or not to keep <code>vc</code>, i.e., it is not common
+	 */
+	public boolean keep(VariantContext vc) {
+		if (!isCommon(vc))
+			return true;
+		numCommon.increment();
+		return false;
+	}
+
+	/**
+	 * Add frequency FILTER values to <code>vc</code> if common, for {@link Mode#FLAG} mode
+	 *
+	 * @param vc {@link VariantContext} to check
+	 * @return copy of <code>vc</code> with FILTER values if common, <code>vc</code> otherwise
+	 */
+	public VariantContext flagIfCommon(VariantContext vc) {
+		if (!isCommon(vc))
+			return vc;
+		numCommon.increment();
+		HashSet<String> filters = new HashSet<>(vc.getFilters());
+		filters.add(ThresholdFilterHeaderExtender.FILTER_VAR_MAX_FREQUENCY_AD);
+		filters.add(ThresholdFilterHeaderExtender.FILTER_VAR_MAX_FREQUENCY_AR);
+		return new VariantContextBuilder(vc).filters(filters).make();
+	}
+
+	/**
+	 * Wrap annotation step such that it is skipped for common variants, as flagged by the preceding
+	 * {@link #flagIfCommon} step
+	 *
+	 * <p>
+	 * Must be called before the resulting stream is consumed, the counting of the skipped variants
+	 * is thread-safe.
+	 * </p>
+	 *
+	 * @param name Name of the step, for {@link #getSkipCounts}
+	 * @param step The annotation step to wrap
+	 * @return wrapped step
+	 */
+	public Function<VariantContext, VariantContext> guard(String name,
+			Function<VariantContext, VariantContext> step) {
+		if (mode == Mode.DROP)
+			return step; // common variants do not reach the step
+		final LongAdder counter = skipCounts.computeIfAbsent(name, key -> new LongAdder());
+		return vc -> {
+			if (isFlagged(vc)) {
+				counter.increment();
+				return vc;
+			} else {
+				return step.apply(vc);
+			}
+		};
+	}
+
+	/** @return number of variants found to be common so far */
+	public long getNumCommon() {
+		return numCommon.sum();
+	}
+
+	/** @return number of skipped variants, by name of the guarded step, in order of registration */
+	public ImmutableMap<String, Long> getSkipCounts() {
+		ImmutableMap.Builder<String, Long> builder = ImmutableMap.builder();
+		for (Map.Entry<String, LongAdder> entry : skipCounts.entrySet())
+			builder.put(entry.getKey(), entry.getValue().sum());
+		return builder.build();
+	}
+
+}
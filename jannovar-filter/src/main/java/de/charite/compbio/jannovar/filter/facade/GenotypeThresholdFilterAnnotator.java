@@ -1,10 +1,15 @@
 package de.charite.compbio.jannovar.filter.facade;
 
 import de.charite.compbio.jannovar.filter.impl.gt.GenotypeFilterAnnotator;
+import de.charite.compbio.jannovar.filter.impl.gt.GenotypeFilterPlan;
+import de.charite.compbio.jannovar.filter.impl.gt.SupportedVarCaller;
 import htsjdk.variant.variantcontext.Genotype;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.vcf.VCFHeader;
 import java.util.ArrayList;
+import java.util.Map;
+import java.util.stream.IntStream;
 
 /**
  * Perform annotation (sof-filtering) based on coverage/alternative allele fraction/genotype call
@@ -14,6 +19,12 @@ import java.util.ArrayList;
  */
 public class GenotypeThresholdFilterAnnotator {
 
+	/** Smallest number of samples for which the genotypes are processed in parallel */
+	public static final int PARALLEL_MIN_SAMPLES = 1024;
+
+	/** Number of samples processed in one chunk */
+	private static final int CHUNK_SIZE = 256;
+
 	/** Configuration for the threshold-based filter */
 	private final ThresholdFilterOptions options;
 
@@ -25,29 +36,75 @@ public class GenotypeThresholdFilterAnnotator {
 		this.gtAnnotator = new GenotypeFilterAnnotator(this.options);
 	}
 
+	/**
+	 * Construct annotator for the file with the given <code>header</code>
+	 *
+	 * The variant caller is guessed once from the FORMAT lines of <code>header</code> instead of for
+	 * each genotype, see {@link GenotypeFilterPlan#compile}.
+	 *
+	 * @param options configuration for the threshold-based filter
+	 * @param header {@link VCFHeader} of the file to annotate
+	 * @param sampleCallers per-sample override of the variant caller guessed from <code>header</code>
+	 */
+	public GenotypeThresholdFilterAnnotator(ThresholdFilterOptions options, VCFHeader header,
+			Map<String, SupportedVarCaller> sampleCallers) {
+		this.options = options;
+		this.gtAnnotator =
+				new GenotypeFilterAnnotator(GenotypeFilterPlan.compile(this.options, header, sampleCallers));
+	}
+
 	/**
 	 * Annotate VariantContext with the threshold-based filters.
 	 *
+	 * Only the genotypes for which at least one filter applies are rebuilt, the filter names are only
+	 * looked up for these. For records with at least
+	 * {@link #PARALLEL_MIN_SAMPLES} samples, the samples are processed in parallel chunks.
+	 *
 	 * @param vc the {@link VariantContext} to annotate
-	 * @return copy of <code>vc</code> with applied annotations
+	 * @return copy of <code>vc</code> with applied annotations, <code>vc</code> itself if no filter
+	 *         applies to any genotype
 	 */
 	public VariantContext annotateVariantContext(VariantContext vc) {
-		VariantContextBuilder builder = new VariantContextBuilder(vc);
-		annotateGenotypes(builder, vc);
-		return builder.make();
+		// Decode the genotypes on the calling thread, the lazy decoding is not thread-safe
+		final Genotype[] gts = vc.getGenotypes().toArray(new Genotype[0]);
+		final Genotype[] updated = new Genotype[gts.length];
+
+		final int numChunks = (gts.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		IntStream chunks = IntStream.range(0, numChunks);
+		if (gts.length >= PARALLEL_MIN_SAMPLES)
+			chunks = chunks.parallel();
+		final boolean anyChanged = chunks.map(chunk -> annotateGenotypes(gts, updated, chunk * CHUNK_SIZE,
+				Math.min(gts.length, (chunk + 1) * CHUNK_SIZE))).sum() > 0;
+		if (!anyChanged)
+			return vc;
+
+		ArrayList<Genotype> result = new ArrayList<>(gts.length);
+		for (int i = 0; i < gts.length; ++i)
+			result.add((updated[i] == null) ? gts[i] : updated[i]);
+		return new VariantContextBuilder(vc).genotypes(result).make();
 	}
 
 	/**
-	 * Annotate genotypes individually in <code>vc</code>
-	 * 
-	 * @param builder the {@link VariantContextBuilder} used for building variant
-	 * @param vc {@link VariantContext} to annotate
+	 * Annotate genotypes <code>gts[beginIdx]</code> to <code>gts[endIdx - 1]</code>, writing changed
+	 * genotypes to <code>updated</code>
+	 *
+	 * @param gts the {@link Genotype}s to annotate
+	 * @param updated array to write the updated {@link Genotype}s to, unchanged entries stay
+	 *        <code>null</code>
+	 * @param beginIdx first index to process
+	 * @param endIdx index after the last one to process
+	 * @return number of changed genotypes
 	 */
-	private void annotateGenotypes(VariantContextBuilder builder, VariantContext vc) {
-		ArrayList<Genotype> gts = new ArrayList<>();
-		for (Genotype gt : vc.getGenotypes())
-			gts.add(gtAnnotator.gtWithAppliedFilters(gt));
-		builder.genotypes(gts);
+	private int annotateGenotypes(Genotype[] gts, Genotype[] updated, int beginIdx, int endIdx) {
+		int numChanged = 0;
+		for (int i = beginIdx; i < endIdx; ++i) {
+			final int mask = gtAnnotator.getFilterMask(gts[i]);
+			if (mask != 0) {
+				updated[i] = gtAnnotator.gtWithFilters(gts[i], GenotypeFilterPlan.getFilterNames(mask));
+				++numChanged;
+			}
+		}
+		return numChanged;
 	}
 
 }
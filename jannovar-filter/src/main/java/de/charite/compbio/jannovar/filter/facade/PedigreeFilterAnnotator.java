@@ -40,10 +40,14 @@ public class PedigreeFilterAnnotator {
 	/** Mapping from individual to {@link Pedigree} */
 	private final Pedigree pedigree;
 
+	/** Siblings of each {@link Person} in {@link #pedigree} */
+	private final ImmutableMap<Person, ImmutableList<Person>> siblings;
+
 	public PedigreeFilterAnnotator(PedigreeFilterOptions options, Pedigree pedigree) {
 		super();
 		this.options = options;
 		this.pedigree = pedigree;
+		this.siblings = new PedigreeQueryDecorator(pedigree).buildSiblings();
 	}
 
 	/**
@@ -64,14 +68,14 @@ public class PedigreeFilterAnnotator {
 
 		// First, collect extra FT entries without "is parent filtered"
 		Map<String, List<String>> extraFts = new HashMap<>();
+		Map<String, Allele> deNovoAlleles = new HashMap<>();
 		for (Genotype gt : vc.getGenotypes()) {
 			// Enforce registration of samples in extraFts.
 			extraFts.put(gt.getSampleName(), new ArrayList<>());
 
-			GenotypeBuilder gtBuilder = new GenotypeBuilder(gt);
-
 			// Get de novo allele, null if not de novo
 			final Allele deNovoAllele = getDeNovoAllele(vc, gt.getSampleName());
+			deNovoAlleles.put(gt.getSampleName(), deNovoAllele);
 			if (deNovoAllele != null) {
 				final List<String> sampleFts = extraFts.get(gt.getSampleName());
 
@@ -113,7 +117,7 @@ public class PedigreeFilterAnnotator {
 				gtBuilder.filters(extraFts.get(gt.getSampleName()));
 			}
 
-			final Allele deNovoAllele = getDeNovoAllele(vc, gt.getSampleName());
+			final Allele deNovoAllele = deNovoAlleles.get(gt.getSampleName());
 			gtBuilder.attribute(PedigreeFilterHeaderExtender.FORMAT_GT_DE_NOVO,
 					(deNovoAllele != null) ? "Y" : "N");
 
@@ -218,9 +222,6 @@ public class PedigreeFilterAnnotator {
 		// This is only called when de novo, thus genotypes of parents exit and fit
 		final Person index = this.pedigree.getNameToMember().get(sampleName).getPerson();
 
-		final PedigreeQueryDecorator pedigreeDecorator = new PedigreeQueryDecorator(pedigree);
-		final ImmutableMap<Person, ImmutableList<Person>> siblings =
-				pedigreeDecorator.buildSiblings();
 		for (Person sibling : siblings.get(index)) {
 			final Genotype gtSibling = vc.getGenotype(sibling.getName());
 			if (gtSibling.countAllele(deNovoAllele) != 0) {
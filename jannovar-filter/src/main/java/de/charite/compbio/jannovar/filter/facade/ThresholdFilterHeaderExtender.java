@@ -84,6 +84,15 @@ public class ThresholdFilterHeaderExtender {
 		header.addMetaDataLine(new VCFFilterHeaderLine(FILTER_VAR_ALL_AFFECTED_GTS_FILTERED,
 				"The genotype calls of all affected individuals have been filtered for this variant."));
 
+		addFrequencyHeaders(header);
+	}
+
+	/**
+	 * Add header entries for the frequency-based variant filters only.
+	 *
+	 * @param header The {@link VCFHeader} to extend.
+	 */
+	public void addFrequencyHeaders(VCFHeader header) {
 		header.addMetaDataLine(new VCFFilterHeaderLine(FILTER_VAR_MAX_FREQUENCY_AD,
 				"Variant frequency >" + options.getMaxAlleleFrequencyAd()
 						+ " (threshold for AD inheritance), variant will be annotated with "
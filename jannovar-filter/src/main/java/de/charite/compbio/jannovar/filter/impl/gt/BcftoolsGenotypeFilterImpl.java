@@ -21,9 +21,14 @@ public class BcftoolsGenotypeFilterImpl implements GenotypeFilterImpl {
 
 	@Override
 	public double getAlternativeAlleleFraction(Genotype gt) {
+		return getAlternativeAlleleFraction(gt, getCoverage(gt));
+	}
+
+	@Override
+	public double getAlternativeAlleleFraction(Genotype gt, int coverage) {
 		String strValue = (String) gt.getExtendedAttribute("DPR");
 		String[] arr = strValue.split(",");
-		return (getCoverage(gt) - Integer.parseInt(arr[0])) / (double) getCoverage(gt);
+		return (coverage - Integer.parseInt(arr[0])) / (double) coverage;
 	}
 
 	@Override
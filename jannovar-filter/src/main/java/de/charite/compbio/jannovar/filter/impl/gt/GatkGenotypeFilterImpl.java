@@ -21,13 +21,18 @@ public class GatkGenotypeFilterImpl implements GenotypeFilterImpl {
 
 	@Override
 	public double getAlternativeAlleleFraction(Genotype gt) {
+		return getAlternativeAlleleFraction(gt, gt.getDP());
+	}
+
+	@Override
+	public double getAlternativeAlleleFraction(Genotype gt, int coverage) {
 		int[] ads = gt.getAD();
 		if (ads == null)
 			return 0.0;
 		int sum = 0;
 		for (int i = 1; i < ads.length; ++i)
 			sum += ads[i];
-		return ((double) sum) / gt.getDP();
+		return ((double) sum) / coverage;
 	}
 
 	@Override
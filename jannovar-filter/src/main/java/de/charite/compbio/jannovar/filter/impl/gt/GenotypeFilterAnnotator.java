@@ -1,12 +1,10 @@
 package de.charite.compbio.jannovar.filter.impl.gt;
 
 import java.util.ArrayList;
+import java.util.List;
 
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableList.Builder;
-import com.google.common.collect.ImmutableMap;
 
-import de.charite.compbio.jannovar.filter.facade.ThresholdFilterHeaderExtender;
 import de.charite.compbio.jannovar.filter.facade.ThresholdFilterOptions;
 import htsjdk.variant.variantcontext.Genotype;
 import htsjdk.variant.variantcontext.GenotypeBuilder;
@@ -18,75 +16,63 @@ import htsjdk.variant.variantcontext.GenotypeBuilder;
  */
 public class GenotypeFilterAnnotator {
 
-	/** Mapping from supported variant caller to the actual genotype filter implementation */
-	private final ImmutableMap<SupportedVarCaller, GenotypeFilterImpl> impls;
-
-	/** Threshold based filter configuration */
-	private final ThresholdFilterOptions options;
+	/** Compiled threshold based filter configuration */
+	private final GenotypeFilterPlan plan;
 
 	public GenotypeFilterAnnotator(ThresholdFilterOptions options) {
-		this.options = options;
+		this(new GenotypeFilterPlan(options));
+	}
 
-		ImmutableMap.Builder<SupportedVarCaller, GenotypeFilterImpl> builder = ImmutableMap.builder();
-		builder.put(SupportedVarCaller.GATK_CALLER, new GatkGenotypeFilterImpl());
-		builder.put(SupportedVarCaller.BCFTOOLS, new BcftoolsGenotypeFilterImpl());
-		builder.put(SupportedVarCaller.FREEBAYES, new FreebayesGenotypeFilterImpl());
-		builder.put(SupportedVarCaller.PLATYPUS, new PlatypusGenotypeFilterImpl());
-		impls = builder.build();
+	public GenotypeFilterAnnotator(GenotypeFilterPlan plan) {
+		this.plan = plan;
 	}
 
 	/** Augment genotype with the given filters and return modified GenotypeBuilder */
 	public Genotype gtWithAppliedFilters(Genotype gt) {
+		return gtWithFilters(gt, getFiltersFor(gt));
+	}
+
+	/**
+	 * Return copy of <code>gt</code> with <code>extraFilters</code> added to its FT field
+	 *
+	 * @param gt
+	 *            {@link Genotype} to copy
+	 * @param extraFilters
+	 *            filters to add, e.g., as returned by {@link #getFiltersFor}
+	 * @return updated copy of <code>gt</code>
+	 */
+	public Genotype gtWithFilters(Genotype gt, List<String> extraFilters) {
 		GenotypeBuilder gtBuilder = new GenotypeBuilder(gt);
 
 		ArrayList<String> filters = new ArrayList<>();
 		if (gt.isFiltered())
 			filters.add(gt.getFilters());
-		filters.addAll(getFiltersFor(gt));
+		filters.addAll(extraFilters);
 		gtBuilder.filters(filters);
 
 		return gtBuilder.make();
 	}
 
-	public ImmutableList<String> getFiltersFor(Genotype gt) {
-		GenotypeFilterImpl impl = impls.get(SupportedVarCaller.guessFromGenotype(gt));
-		ImmutableList.Builder<String> builder = ImmutableList.builder();
-		checkCoverage(gt, builder, impl);
-		checkGenotypeQuality(gt, builder, impl);
-		checkAaf(gt, builder, impl);
-		return builder.build();
-	}
-
-	private void checkCoverage(Genotype gt, Builder<String> builder, GenotypeFilterImpl impl) {
-		if (gt.isHet()) {
-			if (impl.getCoverage(gt) < options.getMinGtCovHet())
-				builder.add(ThresholdFilterHeaderExtender.FILTER_GT_MIN_COV_HET);
-		} else if (!gt.isHomRef()) {
-			if (impl.getCoverage(gt) < options.getMinGtCovHomAlt())
-				builder.add(ThresholdFilterHeaderExtender.FILTER_GT_MIN_COV_HOM_ALT);
-		}
-		if (impl.getCoverage(gt) > options.getMaxCov())
-			builder.add(ThresholdFilterHeaderExtender.FILTER_GT_MAX_COV);
+	/**
+	 * Compute the threshold-based filters that apply to <code>gt</code>
+	 *
+	 * @param gt
+	 *            {@link Genotype} to compute the filters for
+	 * @return bit mask of the <code>GenotypeFilterPlan.FILTER_*</code> constants, <code>0</code> if none applies
+	 */
+	public int getFilterMask(Genotype gt) {
+		return plan.getFilterMask(gt);
 	}
 
-	private void checkGenotypeQuality(Genotype gt, Builder<String> builder, GenotypeFilterImpl impl) {
-		if (impl.getGenotypeQuality(gt) < options.getMinGtGq())
-			builder.add(ThresholdFilterHeaderExtender.FILTER_GT_MIN_GQ);
-	}
-
-	private void checkAaf(Genotype gt, Builder<String> builder, GenotypeFilterImpl impl) {
-		if (gt.isHet()) {
-			if (impl.getAlternativeAlleleFraction(gt) < options.getMinGtAafHet())
-				builder.add(ThresholdFilterHeaderExtender.FILTER_GT_MIN_AAF_HET);
-			if (impl.getAlternativeAlleleFraction(gt) > options.getMaxGtAafHet())
-				builder.add(ThresholdFilterHeaderExtender.FILTER_GT_MAX_AAF_HET);
-		} else if (gt.isHomRef()) {
-			if (impl.getAlternativeAlleleFraction(gt) > options.getMaxGtAafHomRef())
-				builder.add(ThresholdFilterHeaderExtender.FILTER_GT_MAX_AAF_HOM_REF);
-		} else {
-			if (impl.getAlternativeAlleleFraction(gt) < options.getMinGtAafHomAlt())
-				builder.add(ThresholdFilterHeaderExtender.FILTER_GT_MIN_AAF_HOM_ALT);
-		}
+	/**
+	 * Compute the threshold-based filters that apply to <code>gt</code>
+	 *
+	 * @param gt
+	 *            {@link Genotype} to compute the filters for
+	 * @return list of filters to add, empty if none applies
+	 */
+	public ImmutableList<String> getFiltersFor(Genotype gt) {
+		return GenotypeFilterPlan.getFilterNames(plan.getFilterMask(gt));
 	}
 
 }
@@ -18,6 +18,14 @@ public interface GenotypeFilterImpl {
 	/** @return overall alternative allele fraction */
 	public double getAlternativeAlleleFraction(Genotype gt);
 
+	/**
+	 * @return overall alternative allele fraction, given the <code>coverage</code> as previously returned by
+	 *         {@link #getCoverage}
+	 */
+	public default double getAlternativeAlleleFraction(Genotype gt, int coverage) {
+		return getAlternativeAlleleFraction(gt);
+	}
+
 	/** @return allele fraction for the given <code>alleleNo</code> (0 is reference, 1.. alternative alleles) */
 	public double getAlleleFraction(Genotype gt, int alleleNo);
 
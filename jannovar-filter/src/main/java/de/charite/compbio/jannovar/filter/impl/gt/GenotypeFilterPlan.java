@@ -0,0 +1,210 @@
+package de.charite.compbio.jannovar.filter.impl.gt;
+
+import java.util.Map;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import de.charite.compbio.jannovar.filter.facade.ThresholdFilterHeaderExtender;
+import de.charite.compbio.jannovar.filter.facade.ThresholdFilterOptions;
+import htsjdk.variant.variantcontext.Genotype;
+import htsjdk.variant.variantcontext.GenotypeType;
+import htsjdk.variant.vcf.VCFHeader;
+
+/**
+ * Genotype-wise part of {@link ThresholdFilterOptions}, compiled for one input file
+ *
+ * The thresholds are copied into fields and the {@link GenotypeFilterImpl} to use is chosen once when the plan is
+ * built, usually from the VCF header (see {@link #compile}), optionally overridden per sample. {@link #getFilterMask}
+ * then extracts coverage, genotype quality, and alternative allele fraction once per genotype and reports the failed
+ * filters as a bit mask of the <code>FILTER_*</code> constants. The filter names are only looked up through
+ * {@link #getFilterNames} for genotypes that fail at least one filter.
+ *
+ * Genotypes lacking the FORMAT fields of the chosen caller (see {@link SupportedVarCaller#hasFormatFields}), e.g.,
+ * no-calls, sparse FORMAT fields, or genotypes of another caller in a merged file, are still dispatched through
+ * {@link SupportedVarCaller#guessFromGenotype}, as are all genotypes if the caller could not be determined.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public final class GenotypeFilterPlan {
+
+	/** Bit for {@link ThresholdFilterHeaderExtender#FILTER_GT_MIN_COV_HET} */
+	public static final int FILTER_MIN_COV_HET = 1 << 0;
+	/** Bit for {@link ThresholdFilterHeaderExtender#FILTER_GT_MIN_COV_HOM_ALT} */
+	public static final int FILTER_MIN_COV_HOM_ALT = 1 << 1;
+	/** Bit for {@link ThresholdFilterHeaderExtender#FILTER_GT_MAX_COV} */
+	public static final int FILTER_MAX_COV = 1 << 2;
+	/** Bit for {@link ThresholdFilterHeaderExtender#FILTER_GT_MIN_GQ} */
+	public static final int FILTER_MIN_GQ = 1 << 3;
+	/** Bit for {@link ThresholdFilterHeaderExtender#FILTER_GT_MIN_AAF_HET} */
+	public static final int FILTER_MIN_AAF_HET = 1 << 4;
+	/** Bit for {@link ThresholdFilterHeaderExtender#FILTER_GT_MAX_AAF_HET} */
+	public static final int FILTER_MAX_AAF_HET = 1 << 5;
+	/** Bit for {@link ThresholdFilterHeaderExtender#FILTER_GT_MAX_AAF_HOM_REF} */
+	public static final int FILTER_MAX_AAF_HOM_REF = 1 << 6;
+	/** Bit for {@link ThresholdFilterHeaderExtender#FILTER_GT_MIN_AAF_HOM_ALT} */
+	public static final int FILTER_MIN_AAF_HOM_ALT = 1 << 7;
+
+	/** Filter names, index <code>i</code> corresponds to bit <code>1 &lt;&lt; i</code> */
+	private static final ImmutableList<String> FILTER_NAMES = ImmutableList.of(
+			ThresholdFilterHeaderExtender.FILTER_GT_MIN_COV_HET, ThresholdFilterHeaderExtender.FILTER_GT_MIN_COV_HOM_ALT,
+			ThresholdFilterHeaderExtender.FILTER_GT_MAX_COV, ThresholdFilterHeaderExtender.FILTER_GT_MIN_GQ,
+			ThresholdFilterHeaderExtender.FILTER_GT_MIN_AAF_HET, ThresholdFilterHeaderExtender.FILTER_GT_MAX_AAF_HET,
+			ThresholdFilterHeaderExtender.FILTER_GT_MAX_AAF_HOM_REF,
+			ThresholdFilterHeaderExtender.FILTER_GT_MIN_AAF_HOM_ALT);
+
+	/** Filter name lists for all masks, shared between all genotypes with the same mask */
+	private static final ImmutableList<ImmutableList<String>> FILTER_NAME_LISTS = buildFilterNameLists();
+
+	/** Mapping from supported variant caller to the actual genotype filter implementation */
+	private static final ImmutableMap<SupportedVarCaller, GenotypeFilterImpl> IMPLS = ImmutableMap.of(
+			SupportedVarCaller.GATK_CALLER, new GatkGenotypeFilterImpl(), SupportedVarCaller.BCFTOOLS,
+			new BcftoolsGenotypeFilterImpl(), SupportedVarCaller.FREEBAYES, new FreebayesGenotypeFilterImpl(),
+			SupportedVarCaller.PLATYPUS, new PlatypusGenotypeFilterImpl());
+
+	/** Caller used for all samples without override, <code>null</code> to guess for each genotype */
+	private final SupportedVarCaller caller;
+	/** Per-sample overrides of {@link #caller} */
+	private final ImmutableMap<String, SupportedVarCaller> sampleCallers;
+
+	private final int minGtCovHet;
+	private final int minGtCovHomAlt;
+	private final int maxCov;
+	private final int minGtGq;
+	private final double minGtAafHet;
+	private final double maxGtAafHet;
+	private final double minGtAafHomAlt;
+	private final double maxGtAafHomRef;
+
+	/**
+	 * Construct plan that guesses the caller for each genotype
+	 *
+	 * @param options
+	 *            threshold configuration
+	 */
+	public GenotypeFilterPlan(ThresholdFilterOptions options) {
+		this(options, null, ImmutableMap.of());
+	}
+
+	/**
+	 * Construct plan with fixed caller
+	 *
+	 * @param options
+	 *            threshold configuration
+	 * @param caller
+	 *            the caller for all samples not in <code>sampleCallers</code>, <code>null</code> to guess for each
+	 *            genotype
+	 * @param sampleCallers
+	 *            per-sample override of <code>caller</code>, e.g., for files merged from the output of several callers
+	 */
+	public GenotypeFilterPlan(ThresholdFilterOptions options, SupportedVarCaller caller,
+			Map<String, SupportedVarCaller> sampleCallers) {
+		this.caller = caller;
+		this.sampleCallers = ImmutableMap.copyOf(sampleCallers);
+
+		this.minGtCovHet = options.getMinGtCovHet();
+		this.minGtCovHomAlt = options.getMinGtCovHomAlt();
+		this.maxCov = options.getMaxCov();
+		this.minGtGq = options.getMinGtGq();
+		this.minGtAafHet = options.getMinGtAafHet();
+		this.maxGtAafHet = options.getMaxGtAafHet();
+		this.minGtAafHomAlt = options.getMinGtAafHomAlt();
+		this.maxGtAafHomRef = options.getMaxGtAafHomRef();
+	}
+
+	/**
+	 * Compile plan for the file with the given <code>header</code>
+	 *
+	 * @param options
+	 *            threshold configuration
+	 * @param header
+	 *            {@link VCFHeader} to guess the caller from, see {@link SupportedVarCaller#guessFromHeader}
+	 * @param sampleCallers
+	 *            per-sample override of the caller guessed from <code>header</code>
+	 * @return compiled {@link GenotypeFilterPlan}
+	 */
+	public static GenotypeFilterPlan compile(ThresholdFilterOptions options, VCFHeader header,
+			Map<String, SupportedVarCaller> sampleCallers) {
+		return new GenotypeFilterPlan(options, SupportedVarCaller.guessFromHeader(header), sampleCallers);
+	}
+
+	/** @return caller used for samples without override, <code>null</code> if guessed for each genotype */
+	public SupportedVarCaller getCaller() {
+		return caller;
+	}
+
+	/**
+	 * Compute the threshold-based filters that apply to <code>gt</code>
+	 *
+	 * @param gt
+	 *            {@link Genotype} to compute the filters for
+	 * @return bit mask of the <code>FILTER_*</code> constants, <code>0</code> if no filter applies
+	 */
+	public int getFilterMask(Genotype gt) {
+		final GenotypeFilterImpl gtImpl = getImpl(gt);
+		final int coverage = gtImpl.getCoverage(gt);
+		final int gq = gtImpl.getGenotypeQuality(gt);
+		final double aaf = gtImpl.getAlternativeAlleleFraction(gt, coverage);
+
+		int mask = 0;
+		final GenotypeType type = gt.getType();
+		if (type == GenotypeType.HET) {
+			if (coverage < minGtCovHet)
+				mask |= FILTER_MIN_COV_HET;
+			if (aaf < minGtAafHet)
+				mask |= FILTER_MIN_AAF_HET;
+			if (aaf > maxGtAafHet)
+				mask |= FILTER_MAX_AAF_HET;
+		} else if (type == GenotypeType.HOM_REF) {
+			if (aaf > maxGtAafHomRef)
+				mask |= FILTER_MAX_AAF_HOM_REF;
+		} else {
+			if (coverage < minGtCovHomAlt)
+				mask |= FILTER_MIN_COV_HOM_ALT;
+			if (aaf < minGtAafHomAlt)
+				mask |= FILTER_MIN_AAF_HOM_ALT;
+		}
+		if (coverage > maxCov)
+			mask |= FILTER_MAX_COV;
+		if (gq < minGtGq)
+			mask |= FILTER_MIN_GQ;
+		return mask;
+	}
+
+	/**
+	 * @param mask
+	 *            bit mask as returned by {@link #getFilterMask}
+	 * @return names of the filters in <code>mask</code>, in the order of the <code>FILTER_*</code> bits
+	 */
+	public static ImmutableList<String> getFilterNames(int mask) {
+		return FILTER_NAME_LISTS.get(mask);
+	}
+
+	/** @return {@link GenotypeFilterImpl} to use for <code>gt</code> */
+	private GenotypeFilterImpl getImpl(Genotype gt) {
+		SupportedVarCaller result = null;
+		if (!gt.isNoCall()) {
+			if (!sampleCallers.isEmpty())
+				result = sampleCallers.get(gt.getSampleName());
+			if (result == null)
+				result = caller;
+		}
+		if (result == null || !result.hasFormatFields(gt))
+			result = SupportedVarCaller.guessFromGenotype(gt);
+		return IMPLS.get(result);
+	}
+
+	/** @return list of filter names for each mask */
+	private static ImmutableList<ImmutableList<String>> buildFilterNameLists() {
+		ImmutableList.Builder<ImmutableList<String>> result = ImmutableList.builder();
+		for (int mask = 0; mask < (1 << FILTER_NAMES.size()); ++mask) {
+			ImmutableList.Builder<String> names = ImmutableList.builder();
+			for (int i = 0; i < FILTER_NAMES.size(); ++i)
+				if ((mask & (1 << i)) != 0)
+					names.add(FILTER_NAMES.get(i));
+			result.add(names.build());
+		}
+		return result.build();
+	}
+
+}
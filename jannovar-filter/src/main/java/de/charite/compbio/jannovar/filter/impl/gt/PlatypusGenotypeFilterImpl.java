@@ -22,7 +22,11 @@ public class PlatypusGenotypeFilterImpl implements GenotypeFilterImpl {
 
 	@Override
 	public double getAlternativeAlleleFraction(Genotype gt) {
-		int coverage = getCoverage(gt);
+		return getAlternativeAlleleFraction(gt, getCoverage(gt));
+	}
+
+	@Override
+	public double getAlternativeAlleleFraction(Genotype gt, int coverage) {
 		int numVar = Integer.parseInt(((String) gt.getExtendedAttribute("NV")).split(",")[0]);
 		return ((double) numVar) / coverage;
 	}
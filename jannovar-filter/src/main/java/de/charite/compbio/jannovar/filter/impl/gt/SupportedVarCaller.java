@@ -1,6 +1,7 @@
 package de.charite.compbio.jannovar.filter.impl.gt;
 
 import htsjdk.variant.variantcontext.Genotype;
+import htsjdk.variant.vcf.VCFHeader;
 
 /**
  * Enumeration of suported variant caller
@@ -37,4 +38,48 @@ public enum SupportedVarCaller {
 		}
 	}
 
+	/**
+	 * @param gt
+	 *            {@link Genotype} to check
+	 * @return whether or not <code>gt</code> has the caller-specific FORMAT fields that the genotype filter
+	 *         implementation for this caller reads
+	 */
+	public boolean hasFormatFields(Genotype gt) {
+		switch (this) {
+		case BCFTOOLS:
+			return gt.hasAnyAttribute("DPR");
+		case FREEBAYES:
+			return gt.hasAnyAttribute("RO") && gt.hasAnyAttribute("AO");
+		case PLATYPUS:
+			return gt.hasAnyAttribute("NR") && gt.hasAnyAttribute("NV");
+		default:
+			return true; // the GATK implementation copes with missing fields
+		}
+	}
+
+	/**
+	 * Guess the variant caller once for a whole file, using the same rules as {@link #guessFromGenotype} on the FORMAT
+	 * lines declared in <code>header</code>
+	 *
+	 * @param header
+	 *            {@link VCFHeader} of the file
+	 * @return {@link SupportedVarCaller} as guessed from the FORMAT lines of <code>header</code>, <code>null</code> if
+	 *         the header does not identify the caller
+	 */
+	public static SupportedVarCaller guessFromHeader(VCFHeader header) {
+		if (header.hasFormatLine("DP") && header.hasFormatLine("DV") && header.hasFormatLine("DPR")) {
+			return BCFTOOLS;
+		} else if (header.hasFormatLine("GQ") && header.hasFormatLine("RO") && header.hasFormatLine("QR")
+				&& header.hasFormatLine("AO") && header.hasFormatLine("QA")) {
+			return FREEBAYES;
+		} else if (header.hasFormatLine("AD") && header.hasFormatLine("DP") && header.hasFormatLine("GQ")
+				&& header.hasFormatLine("PL")) {
+			return GATK_CALLER;
+		} else if (header.hasFormatLine("GQ") && header.hasFormatLine("NR") && header.hasFormatLine("NV")) {
+			return PLATYPUS;
+		} else {
+			return null;
+		}
+	}
+
 }
@@ -39,24 +39,51 @@ public class VariantThresholdFilterAnnotator {
 	 * Annotate FILTER of <code>vc</code> with genotype-based filters and based on the list of
 	 * affected samples
 	 * 
-	 * @param builder {@link VariantContextBuilder} to create new variant context for
 	 * @param vc {@link VariantContext} to annotate
-	 * @return reference to <code>builder</code> after the update
+	 * @return copy of <code>vc</code> with updated FILTER column, <code>vc</code> itself if the
+	 *         filters were already applied and no filter was added
 	 */
 	public VariantContext annotateVariantContext(VariantContext vc) {
-		VariantContextBuilder builder = new VariantContextBuilder(vc);
-		
-		// If all genotype calls are filtered out then add filter to variant-level FILTER column
+		// If all genotype calls are filtered out then add filter to variant-level FILTER column;
+		// only the affecteds' genotypes are looked up instead of walking all genotypes
 		HashSet<String> filters = new HashSet<String>(vc.getFilters());
 		if (!affecteds.isEmpty()) {
-			HashSet<String> unfilteredAffecteds = new HashSet<>(affecteds);
-			for (Genotype gt : vc.getGenotypes())
-				if (affecteds.contains(gt.getSampleName()) && gt.isFiltered())
-					unfilteredAffecteds.remove(gt.getSampleName());
-			if (unfilteredAffecteds.isEmpty())
+			boolean allFiltered = true;
+			for (String affected : affecteds) {
+				final Genotype gt = vc.getGenotype(affected);
+				if (gt == null || !gt.isFiltered()) {
+					allFiltered = false;
+					break;
+				}
+			}
+			if (allFiltered)
 				filters.add(ThresholdFilterHeaderExtender.FILTER_VAR_ALL_AFFECTED_GTS_FILTERED);
 		}
 
+		final double highestAf = getHighestAlleleFrequency(options, vc);
+		if (highestAf > 0) {
+			if (highestAf > options.getMaxAlleleFrequencyAd())
+				filters.add(ThresholdFilterHeaderExtender.FILTER_VAR_MAX_FREQUENCY_AD);
+			if (highestAf > options.getMaxAlleleFrequencyAr())
+				filters.add(ThresholdFilterHeaderExtender.FILTER_VAR_MAX_FREQUENCY_AR);
+		}
+
+		// Keep record if nothing changes; note that "." is written as "PASS" after applying filters
+		if (vc.filtersWereApplied() && filters.size() == vc.getFilters().size())
+			return vc;
+		return new VariantContextBuilder(vc).filters(filters).make();
+	}
+
+	/**
+	 * Get highest allele frequency of <code>vc</code> from the ExAC, dbSNP, and gnomAD annotations
+	 *
+	 * @param options {@link ThresholdFilterOptions} with the prefixes of the database annotations
+	 * @param vc {@link VariantContext} to get the frequency for
+	 * @return highest allele frequency, <code>-1</code> if <code>vc</code> has none of the
+	 *         annotations
+	 */
+	public static double getHighestAlleleFrequency(ThresholdFilterOptions options,
+			VariantContext vc) {
 		// Check best frequency from EXAC
 		final String keyExacBestAf = options.getExacPrefix() + "BEST_AF";
 		@SuppressWarnings("unchecked")
@@ -88,17 +115,8 @@ public class VariantThresholdFilterAnnotator {
 		final double gnomAdExomesAf =
 				(gnomadExomesAfs == null) ? -1 : Collections.max(gnomadExomesAfs);
 		// Get maximum of all frequencies
-		final double highestAf = Collections
+		return Collections
 				.max(ImmutableList.of(exacBestAf, dbSnpBestAf, gnomAdGenomesAf, gnomAdExomesAf));
-		if (highestAf > 0) {
-			if (highestAf > options.getMaxAlleleFrequencyAd())
-				filters.add(ThresholdFilterHeaderExtender.FILTER_VAR_MAX_FREQUENCY_AD);
-			if (highestAf > options.getMaxAlleleFrequencyAr())
-				filters.add(ThresholdFilterHeaderExtender.FILTER_VAR_MAX_FREQUENCY_AR);
-		}
-
-		builder.filters(filters);
-		return builder.make();
 	}
 
 }
@@ -0,0 +1,85 @@
+package de.charite.compbio.jannovar.filter.impl.facade;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import de.charite.compbio.jannovar.filter.facade.FrequencyPruner;
+import de.charite.compbio.jannovar.filter.facade.ThresholdFilterHeaderExtender;
+import de.charite.compbio.jannovar.filter.facade.ThresholdFilterOptions;
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import java.util.ArrayList;
+import java.util.function.Function;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for {@link FrequencyPruner}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public class FrequencyPrunerTest {
+
+	ThresholdFilterOptions options;
+	VariantContext common;
+	VariantContext rare;
+	VariantContext unknown;
+
+	@Before
+	public void setUp() {
+		options = ThresholdFilterOptions.buildDefaultOptions();
+		common = buildVariant(0.5);
+		rare = buildVariant(0.0001);
+		unknown = buildVariant(-1);
+	}
+
+	/** Build variant with the given ExAC frequency, none if negative */
+	private VariantContext buildVariant(double exacAf) {
+		VariantContextBuilder builder = new VariantContextBuilder("test", "1", 17452, 17452,
+				ImmutableList.of(Allele.create("G", true), Allele.create("A")));
+		if (exacAf >= 0) {
+			ArrayList<Double> afs = new ArrayList<>();
+			afs.add(exacAf);
+			builder.attribute(options.getExacPrefix() + "BEST_AF", afs);
+		}
+		return builder.make();
+	}
+
+	@Test
+	public void testDrop() {
+		FrequencyPruner pruner = new FrequencyPruner(options, FrequencyPruner.Mode.DROP);
+
+		Assert.assertFalse(pruner.keep(common));
+		Assert.assertTrue(pruner.keep(rare));
+		Assert.assertTrue(pruner.keep(unknown));
+		Assert.assertEquals(1, pruner.getNumCommon());
+
+		Function<VariantContext, VariantContext> step = vc -> vc;
+		Assert.assertSame(step, pruner.guard("step", step));
+		Assert.assertTrue(pruner.getSkipCounts().isEmpty());
+	}
+
+	@Test
+	public void testFlagAndGuard() {
+		FrequencyPruner pruner = new FrequencyPruner(options, FrequencyPruner.Mode.FLAG);
+
+		VariantContext flagged = pruner.flagIfCommon(common);
+		Assert.assertTrue(flagged.getFilters().contains(ThresholdFilterHeaderExtender.FILTER_VAR_MAX_FREQUENCY_AD));
+		Assert.assertTrue(flagged.getFilters().contains(ThresholdFilterHeaderExtender.FILTER_VAR_MAX_FREQUENCY_AR));
+		Assert.assertSame(rare, pruner.flagIfCommon(rare));
+		Assert.assertEquals(1, pruner.getNumCommon());
+
+		Function<VariantContext, VariantContext> step = pruner.guard("step",
+				vc -> new VariantContextBuilder(vc).attribute("STEP", true).make());
+		Assert.assertTrue(FrequencyPruner.isFlagged(flagged));
+		Assert.assertFalse(FrequencyPruner.isFlagged(rare));
+		Assert.assertSame(flagged, step.apply(flagged));
+		// the guard only checks the FILTER values set by flagIfCommon() instead of the frequency
+		Assert.assertTrue(step.apply(common).hasAttribute("STEP"));
+		Assert.assertTrue(step.apply(rare).hasAttribute("STEP"));
+		Assert.assertTrue(step.apply(unknown).hasAttribute("STEP"));
+		Assert.assertEquals(ImmutableMap.of("step", 1L), pruner.getSkipCounts());
+	}
+
+}
@@ -1,8 +1,14 @@
 package de.charite.compbio.jannovar.filter.impl.facade;
 
+import com.google.common.collect.ImmutableList;
 import de.charite.compbio.jannovar.filter.facade.GenotypeThresholdFilterAnnotator;
 import de.charite.compbio.jannovar.filter.facade.ThresholdFilterOptions;
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.Genotype;
+import htsjdk.variant.variantcontext.GenotypeBuilder;
 import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import java.util.ArrayList;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -40,4 +46,46 @@ public class TresholdFilterAnnotatorTest extends TresholdFilterTestBase {
 				updatedVC.toString());
 	}
 
+	/**
+	 * Test that records where no genotype filter applies are returned unchanged
+	 */
+	@Test
+	public void testAnnotateVariantNoFilterApplies() throws Exception {
+		String headerLines = GATK_HEADER;
+		String vcfLine = "1\t17452\t.\tG\tA\t35.74\t.\t.\tGT:AD:DP:GQ:PL\t0/1:10,10:20:99:63,6,0\n";
+		VariantContext variant = writeAndReadVcfLine(vcfLine, headerLines);
+
+		Assert.assertSame(variant, annotator.annotateVariantContext(variant));
+	}
+
+	/**
+	 * Test that in records with many samples only the filtered genotypes are rebuilt
+	 */
+	@Test
+	public void testAnnotateWideVariant() throws Exception {
+		final Allele ref = Allele.create("G", true);
+		final Allele alt = Allele.create("A");
+		ArrayList<Genotype> gts = new ArrayList<>();
+		for (int i = 0; i < 3 * GenotypeThresholdFilterAnnotator.PARALLEL_MIN_SAMPLES; ++i) {
+			// every third sample has too low coverage
+			final int dp = (i % 3 == 0) ? 2 : 20;
+			gts.add(new GenotypeBuilder("sample" + i, ImmutableList.of(ref, alt)).DP(dp).GQ(99)
+					.AD(new int[] { dp / 2, dp / 2 }).PL(new int[] { 63, 6, 0 }).make());
+		}
+		VariantContext variant = new VariantContextBuilder("test", "1", 17452, 17452,
+				ImmutableList.of(ref, alt)).genotypes(gts).make();
+
+		VariantContext updatedVC = annotator.annotateVariantContext(variant);
+
+		Assert.assertEquals(gts.size(), updatedVC.getNSamples());
+		for (int i = 0; i < gts.size(); ++i) {
+			final Genotype gt = updatedVC.getGenotype("sample" + i);
+			if (i % 3 == 0) {
+				Assert.assertEquals("MinCovHet", gt.getFilters());
+			} else {
+				Assert.assertSame(gts.get(i), gt);
+			}
+		}
+	}
+
 }
@@ -0,0 +1,114 @@
+package de.charite.compbio.jannovar.filter.impl.gt;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import de.charite.compbio.jannovar.filter.facade.ThresholdFilterHeaderExtender;
+import de.charite.compbio.jannovar.filter.facade.ThresholdFilterOptions;
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.Genotype;
+import htsjdk.variant.variantcontext.GenotypeBuilder;
+import htsjdk.variant.vcf.VCFFormatHeaderLine;
+import htsjdk.variant.vcf.VCFHeader;
+import htsjdk.variant.vcf.VCFHeaderLine;
+import htsjdk.variant.vcf.VCFHeaderLineType;
+
+/**
+ * Tests for {@link GenotypeFilterPlan}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public class GenotypeFilterPlanTest {
+
+	ThresholdFilterOptions options;
+	Allele ref;
+	Allele alt;
+
+	@Before
+	public void setUp() {
+		options = ThresholdFilterOptions.buildDefaultOptions();
+		ref = Allele.create("A", true);
+		alt = Allele.create("C");
+	}
+
+	/** @return GATK-style heterozygous genotype for <code>sample</code> */
+	private Genotype buildGatkHet(String sample, int refCount, int altCount, int gq) {
+		return new GenotypeBuilder(sample, Arrays.asList(ref, alt)).DP(refCount + altCount)
+				.AD(new int[] { refCount, altCount }).GQ(gq).make();
+	}
+
+	@Test
+	public void testFilterMask() {
+		GenotypeFilterPlan plan = new GenotypeFilterPlan(options, SupportedVarCaller.GATK_CALLER, ImmutableMap.of());
+		Assert.assertEquals(SupportedVarCaller.GATK_CALLER, plan.getCaller());
+
+		Assert.assertEquals(0, plan.getFilterMask(buildGatkHet("individual", 15, 15, 60)));
+		Assert.assertEquals(GenotypeFilterPlan.FILTER_MIN_GQ,
+				plan.getFilterMask(buildGatkHet("individual", 15, 15, 5)));
+		Assert.assertEquals(GenotypeFilterPlan.FILTER_MIN_COV_HET | GenotypeFilterPlan.FILTER_MIN_AAF_HET,
+				plan.getFilterMask(buildGatkHet("individual", 5, 0, 60)));
+	}
+
+	@Test
+	public void testFilterNames() {
+		Assert.assertEquals(ImmutableList.of(), GenotypeFilterPlan.getFilterNames(0));
+		Assert.assertEquals(
+				ImmutableList.of(ThresholdFilterHeaderExtender.FILTER_GT_MIN_COV_HET,
+						ThresholdFilterHeaderExtender.FILTER_GT_MIN_GQ,
+						ThresholdFilterHeaderExtender.FILTER_GT_MIN_AAF_HOM_ALT),
+				GenotypeFilterPlan.getFilterNames(GenotypeFilterPlan.FILTER_MIN_COV_HET
+						| GenotypeFilterPlan.FILTER_MIN_GQ | GenotypeFilterPlan.FILTER_MIN_AAF_HOM_ALT));
+	}
+
+	@Test
+	public void testSampleOverride() {
+		GenotypeFilterPlan plan = new GenotypeFilterPlan(options, SupportedVarCaller.GATK_CALLER,
+				ImmutableMap.of("platypus", SupportedVarCaller.PLATYPUS));
+
+		// NR/NV are ignored for GATK, the GATK fields are missing for Platypus
+		Genotype gatk = new GenotypeBuilder("gatk", Arrays.asList(ref, alt)).DP(30).AD(new int[] { 15, 15 }).GQ(60)
+				.attribute("NR", "30").attribute("NV", "2").make();
+		Genotype platypus = new GenotypeBuilder("platypus", Arrays.asList(ref, alt)).GQ(60).attribute("NR", "30")
+				.attribute("NV", "2").make();
+		Assert.assertEquals(0, plan.getFilterMask(gatk));
+		Assert.assertEquals(GenotypeFilterPlan.FILTER_MIN_AAF_HET, plan.getFilterMask(platypus));
+	}
+
+	@Test
+	public void testNoCallIsGuessed() {
+		GenotypeFilterPlan plan = new GenotypeFilterPlan(options, SupportedVarCaller.FREEBAYES, ImmutableMap.of());
+
+		// would fail on the missing RO/AO fields with the Freebayes implementation
+		Genotype noCall = new GenotypeBuilder("individual", Arrays.asList(Allele.NO_CALL, Allele.NO_CALL)).make();
+		Assert.assertEquals(new GenotypeFilterAnnotator(options).getFilterMask(noCall), plan.getFilterMask(noCall));
+	}
+
+	@Test
+	public void testMissingCallerFieldsAreGuessed() {
+		// FORMAT lines of a file merged from GATK and bcftools calls, guessed as bcftools
+		Set<VCFHeaderLine> lines = new HashSet<>();
+		for (String id : new String[] { "GT", "AD", "DP", "DV", "DPR", "GQ", "PL" })
+			lines.add(new VCFFormatHeaderLine(id, 1, VCFHeaderLineType.String, id));
+		GenotypeFilterPlan plan = GenotypeFilterPlan.compile(options, new VCFHeader(lines), ImmutableMap.of());
+		Assert.assertEquals(SupportedVarCaller.BCFTOOLS, plan.getCaller());
+
+		// would fail on the missing DPR field with the bcftools implementation
+		Genotype gatk = buildGatkHet("individual", 5, 0, 60);
+		Assert.assertEquals(new GenotypeFilterAnnotator(options).getFilterMask(gatk), plan.getFilterMask(gatk));
+		Assert.assertEquals(GenotypeFilterPlan.FILTER_MIN_COV_HET | GenotypeFilterPlan.FILTER_MIN_AAF_HET,
+				plan.getFilterMask(gatk));
+
+		Genotype bcftools = new GenotypeBuilder("individual", Arrays.asList(ref, alt)).DP(30).GQ(60)
+				.attribute("DV", "15").attribute("DPR", "15,15").make();
+		Assert.assertEquals(0, plan.getFilterMask(bcftools));
+	}
+
+}
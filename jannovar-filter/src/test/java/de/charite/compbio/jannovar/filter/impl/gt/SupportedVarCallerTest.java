@@ -1,10 +1,17 @@
 package de.charite.compbio.jannovar.filter.impl.gt;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import org.junit.Assert;
 import org.junit.Test;
 
 import htsjdk.variant.variantcontext.Genotype;
 import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFFormatHeaderLine;
+import htsjdk.variant.vcf.VCFHeader;
+import htsjdk.variant.vcf.VCFHeaderLine;
+import htsjdk.variant.vcf.VCFHeaderLineType;
 
 /**
  * Tests for the SupportedVarCaller enum
@@ -62,4 +69,25 @@ public class SupportedVarCallerTest extends GenotypeFilterTestBase {
 		Assert.assertEquals(SupportedVarCaller.PLATYPUS, SupportedVarCaller.guessFromGenotype(gt));
 	}
 
+	/** @return {@link VCFHeader} with String FORMAT lines for the given <code>ids</code> */
+	private static VCFHeader buildHeader(String... ids) {
+		Set<VCFHeaderLine> lines = new HashSet<>();
+		for (String id : ids)
+			lines.add(new VCFFormatHeaderLine(id, 1, VCFHeaderLineType.String, id));
+		return new VCFHeader(lines);
+	}
+
+	@Test
+	public void testGuessFromHeader() {
+		Assert.assertEquals(SupportedVarCaller.BCFTOOLS,
+				SupportedVarCaller.guessFromHeader(buildHeader("GT", "PL", "DP", "DV", "DPR", "GQ")));
+		Assert.assertEquals(SupportedVarCaller.FREEBAYES,
+				SupportedVarCaller.guessFromHeader(buildHeader("GT", "GQ", "DP", "RO", "QR", "AO", "QA", "GL")));
+		Assert.assertEquals(SupportedVarCaller.GATK_CALLER,
+				SupportedVarCaller.guessFromHeader(buildHeader("GT", "AD", "DP", "GQ", "PL")));
+		Assert.assertEquals(SupportedVarCaller.PLATYPUS,
+				SupportedVarCaller.guessFromHeader(buildHeader("GT", "GL", "GOF", "GQ", "NR", "NV")));
+		Assert.assertNull(SupportedVarCaller.guessFromHeader(buildHeader("GT")));
+	}
+
 }
@@ -0,0 +1,335 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+
+import com.google.common.io.ByteStreams;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.util.RuntimeIOException;
+import htsjdk.tribble.SimpleFeature;
+import htsjdk.tribble.index.tabix.TabixFormat;
+import htsjdk.tribble.index.tabix.TabixIndexCreator;
+import htsjdk.tribble.util.TabixUtils;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.writer.Options;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.variantcontext.writer.VariantContextWriterBuilder;
+import htsjdk.variant.vcf.VCFEncoder;
+import htsjdk.variant.vcf.VCFHeader;
+
+/**
+ * Write shards of a VCF file bgzip-compressed and concatenate them by copying their compressed blocks
+ *
+ * Each shard is written through a {@link VariantContextWriter} from {@link #openShardWriter}, which stores the
+ * records in BGZF blocks without the VCF header and the virtual file offsets of the records in a file next to the
+ * shard. {@link #gather} then writes the header once and copies the compressed blocks of the shards, without inflating
+ * and parsing the records again. The tabix index is built from the stored offsets, shifted by the position of each
+ * shard in the output file.
+ *
+ * The shard writers may be used from different threads, one thread per writer.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public final class BgzfVCFShardGatherer {
+
+	/** Extension of the file with the record offsets next to each shard file */
+	private static final String OFFSETS_EXTENSION = ".offsets";
+
+	/** Compression level for the shards and the header */
+	private final int compressionLevel;
+	/** Header of the output, from the first shard writer that writes one */
+	private VCFHeader header = null;
+
+	/**
+	 * Construct gatherer
+	 *
+	 * @param compressionLevel
+	 *            compression level between <code>0</code> and <code>9</code>
+	 */
+	public BgzfVCFShardGatherer(int compressionLevel) {
+		this.compressionLevel = compressionLevel;
+	}
+
+	/**
+	 * Open writer for one shard
+	 *
+	 * The header passed to {@link VariantContextWriter#writeHeader} is not written to the shard but used for the
+	 * output of {@link #gather}, all shards must use the same header.
+	 *
+	 * @param shardFile
+	 *            path to the shard file to write
+	 * @return {@link VariantContextWriter} for the shard
+	 * @throws IOException
+	 *             on problems opening the shard file
+	 */
+	public VariantContextWriter openShardWriter(File shardFile) throws IOException {
+		return new ShardWriter(shardFile);
+	}
+
+	/**
+	 * Remove shard file and the file with its record offsets
+	 *
+	 * @param shardFile
+	 *            path to the shard file, as given to {@link #openShardWriter}
+	 */
+	public static void deleteShard(File shardFile) {
+		shardFile.delete();
+		offsetsFile(shardFile).delete();
+	}
+
+	/**
+	 * Write the header and the shards into <code>outputFile</code>, optionally with tabix index
+	 *
+	 * @param shardFiles
+	 *            the shard files written through {@link #openShardWriter}, in the order of output
+	 * @param outputFile
+	 *            path to the output file, should end in <code>.vcf.gz</code>
+	 * @param generateIndex
+	 *            whether or not to write a tabix index next to <code>outputFile</code>
+	 * @throws IOException
+	 *             on problems reading the shards or writing the output
+	 */
+	public void gather(List<File> shardFiles, File outputFile, boolean generateIndex) throws IOException {
+		final VCFHeader header = getHeader();
+		if (header == null)
+			throw new IllegalStateException("No shard writer has written a VCF header");
+		final SAMSequenceDictionary seqDict = header.getSequenceDictionary();
+		final TabixIndexCreator indexCreator;
+		if (!generateIndex)
+			indexCreator = null;
+		else if (seqDict == null)
+			indexCreator = new TabixIndexCreator(TabixFormat.VCF);
+		else
+			indexCreator = new TabixIndexCreator(seqDict, TabixFormat.VCF);
+
+		long address = 0;
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(outputFile))) {
+			final byte[] headerBlocks = compressHeader(header);
+			out.write(headerBlocks);
+			address += headerBlocks.length;
+
+			for (File shardFile : shardFiles) {
+				final long length = copyBlocks(shardFile, out);
+				if (indexCreator != null)
+					addOffsets(shardFile, address, indexCreator);
+				address += length;
+			}
+
+			out.write(ParallelBgzfOutputStream.EOF_BLOCK);
+		}
+
+		if (indexCreator != null)
+			indexCreator.finalizeIndex(address << 16)
+					.write(new File(outputFile.getPath() + TabixUtils.STANDARD_INDEX_EXTENSION));
+	}
+
+	/** @return header for the output, <code>null</code> if none has been written yet */
+	private synchronized VCFHeader getHeader() {
+		return header;
+	}
+
+	/** Use <code>header</code> for the output unless a shard writer has already written one */
+	private synchronized void registerHeader(VCFHeader header) {
+		if (this.header == null)
+			this.header = header;
+	}
+
+	/** @return path to the file with the record offsets of <code>shardFile</code> */
+	private static File offsetsFile(File shardFile) {
+		return new File(shardFile.getPath() + OFFSETS_EXTENSION);
+	}
+
+	/** @return BGZF blocks with the text of <code>header</code>, without end-of-file marker */
+	private byte[] compressHeader(VCFHeader header) throws IOException {
+		// Let htsjdk format the header so the output is the same as with the sequential writer
+		ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+		VariantContextWriterBuilder builder = new VariantContextWriterBuilder();
+		builder.unsetOption(Options.INDEX_ON_THE_FLY);
+		builder.setOption(Options.ALLOW_MISSING_FIELDS_IN_HEADER);
+		builder.setOutputStream(headerBytes);
+		try (VariantContextWriter headerWriter = builder.build()) {
+			headerWriter.writeHeader(header);
+		}
+
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (ParallelBgzfOutputStream out = new ParallelBgzfOutputStream(compressed, 1, compressionLevel)) {
+			headerBytes.writeTo(out);
+		}
+		final byte[] result = compressed.toByteArray();
+		return Arrays.copyOf(result, result.length - ParallelBgzfOutputStream.EOF_BLOCK.length);
+	}
+
+	/**
+	 * Copy the compressed blocks of <code>shardFile</code> to <code>out</code>, without the end-of-file marker
+	 *
+	 * @return number of bytes copied
+	 */
+	private static long copyBlocks(File shardFile, OutputStream out) throws IOException {
+		final byte[] eofBlock = ParallelBgzfOutputStream.EOF_BLOCK;
+		final long length = shardFile.length() - eofBlock.length;
+		try (RandomAccessFile file = new RandomAccessFile(shardFile, "r")) {
+			final byte[] tail = new byte[eofBlock.length];
+			if (length >= 0) {
+				file.seek(length);
+				file.readFully(tail);
+			}
+			if (!Arrays.equals(eofBlock, tail))
+				throw new IOException("Shard file " + shardFile + " does not end with a BGZF end-of-file marker");
+		}
+		try (InputStream in = new FileInputStream(shardFile)) {
+			ByteStreams.copy(ByteStreams.limit(in, length), out);
+		}
+		return length;
+	}
+
+	/**
+	 * Pass the records of <code>shardFile</code> to <code>indexCreator</code>, with the virtual file offsets shifted
+	 * by <code>address</code>
+	 */
+	private static void addOffsets(File shardFile, long address, TabixIndexCreator indexCreator) throws IOException {
+		try (DataInputStream in = new DataInputStream(
+				new BufferedInputStream(new FileInputStream(offsetsFile(shardFile))))) {
+			while (in.readBoolean()) {
+				final String contig = in.readUTF();
+				final int start = in.readInt();
+				final int end = in.readInt();
+				final long virtualOffset = in.readLong();
+				indexCreator.addFeature(new SimpleFeature(contig, start, end), virtualOffset + (address << 16));
+			}
+		}
+	}
+
+	/**
+	 * Writes the records of one shard without header, and their virtual file offsets
+	 */
+	private final class ShardWriter implements VariantContextWriter {
+
+		/** Path to the shard file */
+		private final File shardFile;
+		/** The compressing output stream */
+		private final ParallelBgzfOutputStream outStream;
+		/** The record offsets, each record is preceded by <code>true</code> and the last one followed by false */
+		private final DataOutputStream offsetsStream;
+		/** Records whose blocks have not been written yet */
+		private final ArrayDeque<PendingRecord> pendingRecords = new ArrayDeque<>();
+
+		/** Encoder for the VCF records, set in {@link #writeHeader} */
+		private VCFEncoder vcfEncoder;
+		/** Whether or not there was an error writing */
+		private boolean error = false;
+
+		ShardWriter(File shardFile) throws IOException {
+			this.shardFile = shardFile;
+			this.outStream = new ParallelBgzfOutputStream(new BufferedOutputStream(new FileOutputStream(shardFile)),
+					1, compressionLevel);
+			this.offsetsStream = new DataOutputStream(
+					new BufferedOutputStream(new FileOutputStream(offsetsFile(shardFile))));
+			this.outStream.setBlockListener(this::blockWritten);
+		}
+
+		@Override
+		public void writeHeader(VCFHeader header) {
+			registerHeader(header);
+			setHeader(header);
+		}
+
+		@Override
+		public void setHeader(VCFHeader header) {
+			vcfEncoder = new VCFEncoder(header, true, false);
+		}
+
+		@Override
+		public void add(VariantContext vc) {
+			if (vcfEncoder == null)
+				throw new IllegalStateException("The VCF header must be written before records can be added");
+			pendingRecords.add(new PendingRecord(vc.getContig(), vc.getStart(), vc.getEnd(),
+					outStream.getBlockNumber(), outStream.getBlockOffset()));
+			try {
+				outStream.write((vcfEncoder.encode(vc) + "\n").getBytes(StandardCharsets.UTF_8));
+			} catch (IOException e) {
+				error = true;
+				throw new RuntimeIOException("Problem writing to " + shardFile, e);
+			}
+		}
+
+		@Override
+		public boolean checkError() {
+			return error;
+		}
+
+		@Override
+		public void close() {
+			try {
+				try {
+					outStream.close();
+				} finally {
+					offsetsStream.writeBoolean(false);
+					offsetsStream.close();
+				}
+			} catch (IOException e) {
+				error = true;
+				throw new RuntimeIOException("Problem closing " + shardFile, e);
+			}
+		}
+
+		/** Write the offsets of the records starting in the written block */
+		private void blockWritten(long blockNumber, long blockAddress) {
+			try {
+				while (!pendingRecords.isEmpty() && pendingRecords.peekFirst().blockNumber == blockNumber) {
+					final PendingRecord record = pendingRecords.removeFirst();
+					offsetsStream.writeBoolean(true);
+					offsetsStream.writeUTF(record.contig);
+					offsetsStream.writeInt(record.start);
+					offsetsStream.writeInt(record.end);
+					offsetsStream.writeLong((blockAddress << 16) | record.blockOffset);
+				}
+			} catch (IOException e) {
+				error = true;
+				throw new RuntimeIOException("Problem writing record offsets of " + shardFile, e);
+			}
+		}
+
+	}
+
+	/**
+	 * A record whose virtual file offset is not known yet
+	 */
+	private static final class PendingRecord {
+
+		/** Contig of the record */
+		final String contig;
+		/** 1-based begin position of the record */
+		final int start;
+		/** 1-based end position of the record */
+		final int end;
+		/** Number of the block that the record starts in */
+		final long blockNumber;
+		/** Offset of the record in the uncompressed block */
+		final int blockOffset;
+
+		PendingRecord(String contig, int start, int end, long blockNumber, int blockOffset) {
+			this.contig = contig;
+			this.start = start;
+			this.end = end;
+			this.blockNumber = blockNumber;
+			this.blockOffset = blockOffset;
+		}
+
+	}
+
+}
@@ -1,7 +1,7 @@
 package de.charite.compbio.jannovar.htsjdk;
 
 import htsjdk.samtools.SAMSequenceRecord;
-import htsjdk.samtools.reference.IndexedFastaSequenceFile;
+import htsjdk.samtools.reference.ReferenceSequenceFile;
 import htsjdk.samtools.reference.ReferenceSequence;
 import de.charite.compbio.jannovar.UncheckedJannovarException;
 import de.charite.compbio.jannovar.data.JannovarData;
@@ -9,7 +9,8 @@ import de.charite.compbio.jannovar.reference.GenomeInterval;
 import de.charite.compbio.jannovar.reference.Strand;
 
 /**
- * Extract sequence for a {@link GenomeInterval} from a {@link IndexedFastaSequenceFile}.
+ * Extract sequence for a {@link GenomeInterval} from a {@link ReferenceSequenceFile}, e.g., a shared
+ * {@link PagedReferenceSequenceFile}.
  *
  * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
  */
@@ -18,9 +19,9 @@ public class GenomeRegionSequenceExtractor {
 	/** Jannovar database for mapping between canonical name and name in FASTA */
 	final JannovarData jannovarData;
 	/** object to load sequences from */
-	IndexedFastaSequenceFile indexedFile;
+	ReferenceSequenceFile indexedFile;
 
-	public GenomeRegionSequenceExtractor(JannovarData jannovarData, IndexedFastaSequenceFile indexedFile) {
+	public GenomeRegionSequenceExtractor(JannovarData jannovarData, ReferenceSequenceFile indexedFile) {
 		super();
 		this.jannovarData = jannovarData;
 		this.indexedFile = indexedFile;
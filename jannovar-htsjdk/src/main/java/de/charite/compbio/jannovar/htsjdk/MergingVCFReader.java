@@ -0,0 +1,287 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.UncheckedJannovarException;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFCompoundHeaderLine;
+import htsjdk.variant.vcf.VCFContigHeaderLine;
+import htsjdk.variant.vcf.VCFHeader;
+import htsjdk.variant.vcf.VCFHeaderLine;
+import htsjdk.variant.vcf.VCFHeaderVersion;
+import htsjdk.variant.vcf.VCFIDHeaderLine;
+
+/**
+ * Merge several coordinate-sorted VCF or BCF files into one coordinate-sorted stream of {@link VariantContext}s
+ *
+ * This is meant for files sharded by region, e.g., one file per chromosome or per batch of variant calls. All files
+ * must have the same samples in the same order. The merged header is the header of the first file, extended by the
+ * header lines of the other files through {@link VCFHeader#addMetaDataLine}, in the same way as the output header is
+ * extended in {@link VariantContextWriterConstructionHelper}. <tt>INFO</tt> and <tt>FORMAT</tt> lines with the same ID
+ * must agree in everything but the description and all sequence dictionaries (contig lines) must be the same.
+ *
+ * Each file is decoded, including the genotypes, by its own {@link ReadAheadVCFReader}, on a reader thread that reads
+ * ahead up to a fixed number of batches of records. The records are merged on the calling thread by contig index in
+ * the sequence dictionary, then by begin position. Records with the same position are returned in the order of the
+ * input files. A file that is not sorted by coordinate is reported through an {@link UncheckedJannovarException} when
+ * the merge reaches the offending record. A single file is read ahead in the same way, but its order is kept as it is.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public final class MergingVCFReader implements CloseableIterator<VariantContext> {
+
+	/** The merged VCF header */
+	private final VCFHeader header;
+	/** Sequence dictionary of {@link #header}, defines the contig order when merging several files */
+	private final SAMSequenceDictionary seqDict;
+	/** One reader per input file */
+	private final List<Input> inputs;
+	/** Inputs with a current record, ordered by that record */
+	private final PriorityQueue<Input> heads;
+	/** Whether or not the first record of each input has been read */
+	private boolean started = false;
+	/** Whether or not {@link #close} has been called */
+	private boolean closed = false;
+
+	/**
+	 * Open the given files with the default batch size and queue depth, inflating on the reader threads
+	 *
+	 * @param files
+	 *            the coordinate-sorted VCF or BCF files to merge
+	 * @throws JannovarException
+	 *             on problems opening the files or if their headers are not compatible
+	 */
+	public MergingVCFReader(List<File> files) throws JannovarException {
+		this(files, ReadAheadVCFReader.DEFAULT_BATCH_SIZE, ReadAheadVCFReader.DEFAULT_QUEUE_DEPTH, 0);
+	}
+
+	/**
+	 * Open the given files and merge their headers
+	 *
+	 * @param files
+	 *            the coordinate-sorted VCF or BCF files to merge
+	 * @param batchSize
+	 *            number of records per batch handed from a reader thread to the merge
+	 * @param queueDepth
+	 *            number of batches to read ahead per input file
+	 * @param inflaterThreads
+	 *            number of threads per bgzip-compressed VCF file for inflating its BGZF blocks, <code>0</code> to
+	 *            inflate on the reader thread
+	 * @throws JannovarException
+	 *             on problems opening the files or if their headers are not compatible
+	 */
+	public MergingVCFReader(List<File> files, int batchSize, int queueDepth, int inflaterThreads)
+			throws JannovarException {
+		if (files.isEmpty())
+			throw new IllegalArgumentException("At least one file must be given");
+
+		this.inputs = new ArrayList<>();
+		try {
+			for (File file : files) {
+				try {
+					inputs.add(new Input(inputs.size(),
+							new ReadAheadVCFReader(file, batchSize, queueDepth, inflaterThreads)));
+				} catch (IOException e) {
+					throw new JannovarException("Problem opening VCF file " + file, e);
+				}
+			}
+			this.header = mergeHeaders(inputs);
+		} catch (JannovarException | RuntimeException e) {
+			for (Input input : inputs)
+				input.reader.close();
+			throw e;
+		}
+		this.seqDict = header.getSequenceDictionary();
+		this.heads = new PriorityQueue<>(inputs.size(), (lhs, rhs) -> {
+			if (lhs.headContig != rhs.headContig)
+				return Integer.compare(lhs.headContig, rhs.headContig);
+			if (lhs.head.getStart() != rhs.head.getStart())
+				return Integer.compare(lhs.head.getStart(), rhs.head.getStart());
+			return Integer.compare(lhs.index, rhs.index);
+		});
+	}
+
+	/**
+	 * Merge the headers of <code>inputs</code>
+	 *
+	 * @return merged {@link VCFHeader}
+	 * @throws JannovarException
+	 *             if the headers are not compatible
+	 */
+	private static VCFHeader mergeHeaders(List<Input> inputs) throws JannovarException {
+		final Input first = inputs.get(0);
+		final VCFHeader result = new VCFHeader(first.header);
+		SAMSequenceDictionary seqDict = result.getSequenceDictionary();
+
+		// Header lines with an ID, by key and ID, to detect conflicting definitions
+		final Map<String, VCFHeaderLine> idLines = new HashMap<>();
+		for (VCFHeaderLine line : result.getMetaDataInInputOrder())
+			if (line instanceof VCFIDHeaderLine)
+				idLines.put(line.getKey() + ":" + ((VCFIDHeaderLine) line).getID(), line);
+
+		for (Input input : inputs.subList(1, inputs.size())) {
+			if (!input.header.getGenotypeSamples().equals(first.header.getGenotypeSamples()))
+				throw new JannovarException("Samples of " + input.file + " differ from those of " + first.file);
+
+			final SAMSequenceDictionary otherDict = input.header.getSequenceDictionary();
+			if (seqDict == null && otherDict != null) {
+				seqDict = otherDict;
+				result.setSequenceDictionary(otherDict);
+			} else if (otherDict != null && !otherDict.isSameDictionary(seqDict)) {
+				throw new JannovarException("Contig lines of " + input.file + " differ from those of the other files");
+			}
+
+			for (VCFHeaderLine line : input.header.getMetaDataInInputOrder()) {
+				if (line instanceof VCFContigHeaderLine || VCFHeaderVersion.isFormatString(line.getKey()))
+					continue;
+				if (line instanceof VCFIDHeaderLine) {
+					final String key = line.getKey() + ":" + ((VCFIDHeaderLine) line).getID();
+					final VCFHeaderLine existing = idLines.get(key);
+					if (existing == null) {
+						idLines.put(key, line);
+						result.addMetaDataLine(line);
+					} else if (line instanceof VCFCompoundHeaderLine && !((VCFCompoundHeaderLine) line)
+							.equalsExcludingDescription((VCFCompoundHeaderLine) existing)) {
+						throw new JannovarException("Conflicting definitions of " + key + " in " + input.file
+								+ ": " + existing + " vs. " + line);
+					}
+				} else if (!result.getMetaDataInInputOrder().contains(line)) {
+					result.addMetaDataLine(line);
+				}
+			}
+		}
+
+		if (inputs.size() > 1 && (seqDict == null || seqDict.isEmpty()))
+			throw new JannovarException("Merging VCF files requires contig lines in the header");
+		return result;
+	}
+
+	/** @return the merged VCF header */
+	public VCFHeader getFileHeader() {
+		return header;
+	}
+
+	/** @return read-ahead statistics of each input file, in the order of the files */
+	public List<ReadAheadVCFReader.Statistics> getStatistics() {
+		List<ReadAheadVCFReader.Statistics> result = new ArrayList<>();
+		for (Input input : inputs)
+			result.add(input.reader.getStatistics());
+		return result;
+	}
+
+	/** Start the reader threads and fill {@link #heads} with the first record of each input, if not done yet */
+	private void start() {
+		if (started)
+			return;
+		started = true;
+		for (Input input : inputs)
+			input.reader.start();
+		for (Input input : inputs)
+			if (input.advance())
+				heads.add(input);
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (closed)
+			return false;
+		start();
+		return !heads.isEmpty();
+	}
+
+	@Override
+	public VariantContext next() {
+		if (!hasNext())
+			throw new NoSuchElementException();
+		final Input input = heads.poll();
+		final VariantContext result = input.head;
+		if (input.advance())
+			heads.add(input);
+		return result;
+	}
+
+	/** Stop the reader threads and close the input files */
+	@Override
+	public void close() {
+		if (closed)
+			return;
+		closed = true;
+		for (Input input : inputs)
+			input.reader.close();
+		heads.clear();
+	}
+
+	/**
+	 * One input file with its current record
+	 */
+	private final class Input {
+
+		/** Index of the input file, used for breaking ties */
+		private final int index;
+		/** The input file */
+		private final File file;
+		/** Reader for the input file, reading ahead on its own thread */
+		private final ReadAheadVCFReader reader;
+		/** Header of the input file */
+		private final VCFHeader header;
+
+		/** Current record */
+		private VariantContext head = null;
+		/** Contig index of {@link #head} */
+		private int headContig = -1;
+
+		Input(int index, ReadAheadVCFReader reader) {
+			this.index = index;
+			this.file = reader.getFile();
+			this.reader = reader;
+			this.header = reader.getFileHeader();
+		}
+
+		/**
+		 * Move to the next record, checking the sort order if there are several inputs
+		 *
+		 * @return whether or not there is a next record
+		 */
+		boolean advance() {
+			if (!reader.hasNext()) {
+				head = null;
+				return false;
+			}
+
+			final VariantContext prev = head;
+			final int prevContig = headContig;
+			head = reader.next();
+			if (inputs.size() == 1)
+				return true; // nothing to merge, keep the order of the file
+
+			headContig = getContigIndex(head);
+			if (prev != null && (headContig < prevContig
+					|| (headContig == prevContig && head.getStart() < prev.getStart())))
+				throw new UncheckedJannovarException("VCF file " + file + " is not sorted by coordinate, seen "
+						+ head.getContig() + ":" + head.getStart() + " after " + prev.getContig() + ":"
+						+ prev.getStart());
+			return true;
+		}
+
+		/** @return index of the contig of <code>vc</code> in the merged sequence dictionary */
+		private int getContigIndex(VariantContext vc) {
+			final int result = seqDict.getSequenceIndex(vc.getContig());
+			if (result == -1)
+				throw new UncheckedJannovarException("Contig " + vc.getContig() + " of VCF file " + file
+						+ " is not in the contig lines of the header");
+			return result;
+		}
+
+	}
+
+}
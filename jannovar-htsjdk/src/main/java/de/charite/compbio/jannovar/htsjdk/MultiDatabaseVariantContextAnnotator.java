@@ -0,0 +1,202 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import de.charite.compbio.jannovar.UncheckedJannovarException;
+import de.charite.compbio.jannovar.annotation.VariantAnnotations;
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+
+/**
+ * Annotates {@link VariantContext}s against several transcript databases in one pass
+ *
+ * Each database has its own {@link VariantContextAnnotator}, configured to write into its own INFO field through
+ * {@link VariantContextAnnotator.Options#getInfoFieldName}. Optionally, the annotations of the databases are built
+ * concurrently on a pool of worker threads. They are always written to the record on the calling thread, in the order
+ * of the annotators. The off-target filter {@link VariantEffectHeaderExtender#FILTER_EFFECT_OFF_EXOME} is decided
+ * over all databases instead: it is set if it is enabled for any annotator, the variant is off-target in at least one
+ * database, and it is not on-target in any database.
+ *
+ * The contig of each record is resolved once for all databases whose {@link ReferenceDictionary} has the same contig
+ * names and IDs as the one of the first database.
+ *
+ * Each annotator is only used by one thread at a time.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public final class MultiDatabaseVariantContextAnnotator {
+
+	/** the annotators, one for each database */
+	private final ImmutableList<VariantContextAnnotator> annotators;
+	/** for each annotator, whether or not it uses the contig resolution of the first annotator */
+	private final boolean[] sharesContigs;
+	/** pool for building the annotations concurrently, <code>null</code> for building them on the calling thread */
+	private final ThreadPoolExecutor executor;
+
+	/**
+	 * Construct annotator
+	 *
+	 * @param annotators
+	 *            the {@link VariantContextAnnotator}s to use, with distinct INFO field names
+	 * @param numThreads
+	 *            number of threads for building the annotations concurrently, <code>0</code> for building them on the
+	 *            calling thread
+	 */
+	public MultiDatabaseVariantContextAnnotator(List<VariantContextAnnotator> annotators, int numThreads) {
+		this.annotators = ImmutableList.copyOf(annotators);
+		this.sharesContigs = new boolean[this.annotators.size()];
+		for (int i = 0; i < this.annotators.size(); ++i)
+			this.sharesContigs[i] = this.annotators.get(0).getRefDict().getContigNameToID()
+					.equals(this.annotators.get(i).getRefDict().getContigNameToID());
+		if (numThreads > 0 && this.annotators.size() > 1) {
+			// Idle threads terminate, such that the pool does not need to be shut down explicitly.
+			this.executor = new ThreadPoolExecutor(numThreads, numThreads, 1, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<>(), r -> {
+						Thread t = new Thread(r, "database-annotator");
+						t.setDaemon(true);
+						return t;
+					});
+			this.executor.allowCoreThreadTimeOut(true);
+		} else {
+			this.executor = null;
+		}
+	}
+
+	/** @return the annotators, one for each database */
+	public ImmutableList<VariantContextAnnotator> getAnnotators() {
+		return annotators;
+	}
+
+	/**
+	 * Annotate variant <code>vc</code> against all databases and return annotated variant
+	 *
+	 * @param vc
+	 *            {@link VariantContext} to annotate
+	 * @return the annotated {@link VariantContext}
+	 */
+	public VariantContext annotateVariantContext(VariantContext vc) {
+		// Resolve the contig once for all annotators sharing the contigs of the first one
+		Integer sharedChr = null;
+		InvalidCoordinatesException sharedError = null;
+		if (!annotators.isEmpty() && !vc.getAlternateAlleles().isEmpty()) {
+			try {
+				sharedChr = annotators.get(0).resolveContig(vc);
+			} catch (InvalidCoordinatesException e) {
+				sharedError = e;
+			}
+		}
+
+		List<ImmutableList<VariantAnnotations>> results = new ArrayList<>();
+		List<InvalidCoordinatesException> errors = new ArrayList<>();
+		if (executor == null) {
+			for (int i = 0; i < annotators.size(); ++i) {
+				try {
+					results.add(buildAnnotations(i, vc, sharedChr, sharedError));
+					errors.add(null);
+				} catch (InvalidCoordinatesException e) {
+					results.add(null);
+					errors.add(e);
+				}
+			}
+		} else {
+			// Building the annotations does not modify vc, so it can be shared by the workers. The annotations are
+			// only applied once all workers are done with vc.
+			final VariantContext input = vc;
+			final Integer chr = sharedChr;
+			final InvalidCoordinatesException error = sharedError;
+			List<Future<ImmutableList<VariantAnnotations>>> futures = new ArrayList<>();
+			for (int i = 0; i < annotators.size(); ++i) {
+				final int annotatorID = i;
+				futures.add(executor.submit(() -> buildAnnotations(annotatorID, input, chr, error)));
+			}
+
+			for (Future<ImmutableList<VariantAnnotations>> future : futures) {
+				try {
+					results.add(future.get());
+					errors.add(null);
+				} catch (ExecutionException e) {
+					if (!(e.getCause() instanceof InvalidCoordinatesException))
+						throw new UncheckedJannovarException("Problem annotating " + vc, e.getCause());
+					results.add(null);
+					errors.add((InvalidCoordinatesException) e.getCause());
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new UncheckedJannovarException("Interrupted while annotating " + vc, e);
+				}
+			}
+		}
+
+		// The off-target filter is decided over all databases: a variant that is on-target in any database is kept.
+		boolean offTargetFilterEnabled = false;
+		boolean offTargetInAny = false;
+		boolean onTargetInAny = false;
+		for (int i = 0; i < annotators.size(); ++i) {
+			final VariantContextAnnotator annotator = annotators.get(i);
+			if (errors.get(i) != null) {
+				annotator.putErrorAnnotation(vc, ImmutableSet.of(errors.get(i).getAnnotationMessage()));
+				continue;
+			}
+			vc = annotator.applyAnnotations(vc, results.get(i), false);
+			offTargetFilterEnabled = offTargetFilterEnabled || annotator.getOptions().isOffTargetFilterEnabled();
+			if (annotator.isOffTarget(results.get(i)))
+				offTargetInAny = true;
+			else if (hasAnnotations(results.get(i)))
+				onTargetInAny = true;
+		}
+		vc.getCommonInfo().removeAttribute(""); // remove leading/trailing comma
+		if (offTargetFilterEnabled && offTargetInAny && !onTargetInAny) {
+			Set<String> filters = new HashSet<>(vc.getFilters());
+			filters.add(VariantEffectHeaderExtender.FILTER_EFFECT_OFF_EXOME);
+			vc = new VariantContextBuilder(vc).filters(filters).make();
+		}
+		return vc;
+	}
+
+	/**
+	 * Build the annotations of <code>vc</code> with annotator <code>i</code>, using the shared contig resolution if
+	 * possible
+	 *
+	 * @param i
+	 *            index of the annotator
+	 * @param vc
+	 *            {@link VariantContext} to annotate, remains unchanged
+	 * @param sharedChr
+	 *            contig ID resolved by the first annotator, <code>null</code> if not resolved
+	 * @param sharedError
+	 *            the error on resolving the contig with the first annotator, <code>null</code> if there was none
+	 * @return {@link ImmutableList} of {@link VariantAnnotations}s, one for each alternative allele
+	 * @throws InvalidCoordinatesException
+	 *             in the case of problems with resolving coordinates
+	 */
+	private ImmutableList<VariantAnnotations> buildAnnotations(int i, VariantContext vc, Integer sharedChr,
+			InvalidCoordinatesException sharedError) throws InvalidCoordinatesException {
+		final VariantContextAnnotator annotator = annotators.get(i);
+		if (!sharesContigs[i] || (sharedChr == null && sharedError == null))
+			return annotator.buildConfiguredAnnotations(vc);
+		else if (sharedError != null)
+			throw sharedError;
+		else
+			return annotator.buildConfiguredAnnotations(vc, sharedChr);
+	}
+
+	/** @return whether or not there is any annotation in <code>annos</code> */
+	private static boolean hasAnnotations(List<VariantAnnotations> annos) {
+		for (VariantAnnotations alleleAnnos : annos)
+			if (!alleleAnnos.getAnnotations().isEmpty())
+				return true;
+		return false;
+	}
+
+}
@@ -0,0 +1,308 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.charite.compbio.jannovar.UncheckedJannovarException;
+import htsjdk.samtools.SAMException;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.reference.FastaSequenceIndex;
+import htsjdk.samtools.reference.FastaSequenceIndexEntry;
+import htsjdk.samtools.reference.IndexedFastaSequenceFile;
+import htsjdk.samtools.reference.ReferenceSequence;
+import htsjdk.samtools.reference.ReferenceSequenceFile;
+
+/**
+ * Thread-safe random access to an uncompressed, FAI-indexed FASTA file through a bounded LRU cache of decoded pages.
+ *
+ * Each contig is split into pages of a fixed number of bases. A page is read with a positional read on a shared
+ * {@link FileChannel} and stored without line breaks, such that subsequent requests for nearby bases (as issued by
+ * variant normalization or HGVS projection) are served from memory. Concurrent readers only synchronize for the cache
+ * lookup, not for the file access.
+ *
+ * Use {@link #getShared} to obtain a process-wide instance per FASTA file, such that all components work on the same
+ * cache instead of opening their own {@link IndexedFastaSequenceFile}s. Shared instances must not be closed.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public final class PagedReferenceSequenceFile implements ReferenceSequenceFile {
+
+	/** Default number of bases per page */
+	public static final int DEFAULT_PAGE_SIZE = 64 * 1024;
+
+	/** Default maximal number of pages to keep, 64 MiB of sequence with the default page size */
+	public static final int DEFAULT_MAX_PAGES = 1024;
+
+	/** Process-wide instances, by canonical path of the FASTA file */
+	private static final Map<String, PagedReferenceSequenceFile> SHARED = new ConcurrentHashMap<>();
+
+	/** Path to the FASTA file */
+	private final File fastaFile;
+	/** FAI index of {@link #fastaFile} */
+	private final FastaSequenceIndex index;
+	/** Sequence dictionary from the <tt>.dict</tt> file, <code>null</code> if there is none */
+	private final SAMSequenceDictionary sequenceDictionary;
+	/** Channel for reading from {@link #fastaFile} */
+	private final FileChannel channel;
+	/** Number of bases per page */
+	private final int pageSize;
+	/** Maximal number of pages in {@link #pages} */
+	private final int maxPages;
+	/** Decoded pages by contig index (upper 32 bits) and page number (lower 32 bits), in LRU order */
+	private final LinkedHashMap<Long, byte[]> pages;
+
+	/** Number of page requests served from the cache */
+	private final AtomicLong pageHits = new AtomicLong();
+	/** Number of page requests that required reading from the file */
+	private final AtomicLong pageMisses = new AtomicLong();
+	/** Number of bytes read from the file */
+	private final AtomicLong bytesRead = new AtomicLong();
+
+	/** Index of the next contig for {@link #nextSequence} */
+	private int nextContig = 0;
+
+	/**
+	 * Open FASTA file with default page size and number of pages
+	 *
+	 * @param fastaFile
+	 *            path to the FASTA file, the FAI file is expected next to it
+	 * @throws FileNotFoundException
+	 *             if the FASTA or FAI file could not be found
+	 */
+	public PagedReferenceSequenceFile(File fastaFile) throws FileNotFoundException {
+		this(fastaFile, DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES);
+	}
+
+	/**
+	 * Open FASTA file
+	 *
+	 * @param fastaFile
+	 *            path to the FASTA file, the FAI file is expected next to it
+	 * @param pageSize
+	 *            number of bases per page
+	 * @param maxPages
+	 *            maximal number of pages to keep in memory
+	 * @throws FileNotFoundException
+	 *             if the FASTA or FAI file could not be found
+	 */
+	public PagedReferenceSequenceFile(File fastaFile, int pageSize, int maxPages) throws FileNotFoundException {
+		if (pageSize <= 0 || maxPages <= 0)
+			throw new IllegalArgumentException("Page size and number of pages must be positive");
+		this.fastaFile = fastaFile;
+		this.pageSize = pageSize;
+		this.maxPages = maxPages;
+		this.pages = new LinkedHashMap<Long, byte[]>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+				return size() > PagedReferenceSequenceFile.this.maxPages;
+			}
+		};
+
+		// Let htsjdk locate and parse the FAI and dictionary files.
+		try (IndexedFastaSequenceFile fasta = new IndexedFastaSequenceFile(fastaFile)) {
+			this.sequenceDictionary = fasta.getSequenceDictionary();
+		} catch (FileNotFoundException e) {
+			throw e;
+		} catch (IOException e) {
+			throw new UncheckedJannovarException("Problem reading FASTA index of " + fastaFile, e);
+		}
+		this.index = new FastaSequenceIndex(new File(fastaFile.getPath() + ".fai"));
+
+		try {
+			this.channel = FileChannel.open(fastaFile.toPath(), StandardOpenOption.READ);
+		} catch (IOException e) {
+			throw new UncheckedJannovarException("Could not open FASTA file " + fastaFile, e);
+		}
+	}
+
+	/**
+	 * Return process-wide instance for the given FASTA file, opening it on first use
+	 *
+	 * @param fastaPath
+	 *            path to the FASTA file
+	 * @return shared {@link PagedReferenceSequenceFile} for <code>fastaPath</code>
+	 * @throws FileNotFoundException
+	 *             if the FASTA or FAI file could not be found
+	 */
+	public static PagedReferenceSequenceFile getShared(String fastaPath) throws FileNotFoundException {
+		final String key;
+		try {
+			key = new File(fastaPath).getCanonicalPath();
+		} catch (IOException e) {
+			throw new UncheckedJannovarException("Could not resolve path " + fastaPath, e);
+		}
+		synchronized (SHARED) {
+			PagedReferenceSequenceFile result = SHARED.get(key);
+			if (result == null) {
+				result = new PagedReferenceSequenceFile(new File(fastaPath));
+				SHARED.put(key, result);
+			}
+			return result;
+		}
+	}
+
+	@Override
+	public SAMSequenceDictionary getSequenceDictionary() {
+		return sequenceDictionary;
+	}
+
+	@Override
+	public synchronized ReferenceSequence nextSequence() {
+		int i = 0;
+		for (FastaSequenceIndexEntry entry : index) {
+			if (i++ == nextContig) {
+				++nextContig;
+				return getSequence(entry.getContig());
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public synchronized void reset() {
+		nextContig = 0;
+	}
+
+	@Override
+	public boolean isIndexed() {
+		return true;
+	}
+
+	@Override
+	public ReferenceSequence getSequence(String contig) {
+		return getSubsequenceAt(contig, 1, index.getIndexEntry(contig).getSize());
+	}
+
+	/**
+	 * Get subsequence of a contig, with the same semantics as {@link IndexedFastaSequenceFile#getSubsequenceAt}
+	 *
+	 * @param contig
+	 *            name of the contig
+	 * @param start
+	 *            one-based start position
+	 * @param stop
+	 *            one-based, inclusive end position
+	 * @return {@link ReferenceSequence} with the bases in <code>[start, stop]</code>
+	 */
+	@Override
+	public ReferenceSequence getSubsequenceAt(String contig, long start, long stop) {
+		if (start > stop + 1)
+			throw new SAMException(String.format("Malformed query; start point %d lies after end point %d", start,
+					stop));
+		final FastaSequenceIndexEntry entry = index.getIndexEntry(contig);
+		if (stop > entry.getSize())
+			throw new SAMException("Query asks for data past end of contig");
+
+		final byte[] result = new byte[(int) (stop - start + 1)];
+		int filled = 0;
+		long pos = start - 1; // zero-based
+		while (filled < result.length) {
+			final int pageNo = (int) (pos / pageSize);
+			final int offset = (int) (pos % pageSize);
+			final byte[] page = getPage(entry, pageNo);
+			final int len = Math.min(result.length - filled, page.length - offset);
+			System.arraycopy(page, offset, result, filled, len);
+			filled += len;
+			pos += len;
+		}
+		return new ReferenceSequence(contig, entry.getSequenceIndex(), result);
+	}
+
+	/** @return page <code>pageNo</code> of the contig described by <code>entry</code>, from the cache if possible */
+	private byte[] getPage(FastaSequenceIndexEntry entry, int pageNo) {
+		final Long key = ((long) entry.getSequenceIndex() << 32) | pageNo;
+		synchronized (pages) {
+			final byte[] page = pages.get(key);
+			if (page != null) {
+				pageHits.incrementAndGet();
+				return page;
+			}
+		}
+
+		// Read outside of the lock, concurrent misses on the same page at worst read it twice.
+		pageMisses.incrementAndGet();
+		final byte[] page = readPage(entry, pageNo);
+		synchronized (pages) {
+			pages.put(key, page);
+		}
+		return page;
+	}
+
+	/** Read page <code>pageNo</code> of the contig described by <code>entry</code> from the file */
+	private byte[] readPage(FastaSequenceIndexEntry entry, int pageNo) {
+		final long firstBase = (long) pageNo * pageSize;
+		final int numBases = (int) Math.min(pageSize, entry.getSize() - firstBase);
+		final long begin = fileOffset(entry, firstBase);
+		final long end = fileOffset(entry, firstBase + numBases - 1) + 1;
+
+		final ByteBuffer buffer = ByteBuffer.allocate((int) (end - begin));
+		try {
+			while (buffer.hasRemaining())
+				if (channel.read(buffer, begin + buffer.position()) < 0)
+					throw new SAMException("Unexpected end of FASTA file " + fastaFile);
+		} catch (IOException e) {
+			throw new SAMException("Problem reading from FASTA file " + fastaFile, e);
+		}
+		bytesRead.addAndGet(buffer.capacity());
+
+		// Remove the line breaks.
+		final byte[] raw = buffer.array();
+		final byte[] page = new byte[numBases];
+		int j = 0;
+		for (int i = 0; i < raw.length && j < numBases; ++i)
+			if (raw[i] != '\n' && raw[i] != '\r')
+				page[j++] = raw[i];
+		return page;
+	}
+
+	/** @return offset of the zero-based position <code>pos</code> of a contig in the FASTA file */
+	private static long fileOffset(FastaSequenceIndexEntry entry, long pos) {
+		return entry.getLocation() + (pos / entry.getBasesPerLine()) * entry.getBytesPerLine()
+				+ pos % entry.getBasesPerLine();
+	}
+
+	/** @return number of page requests served from the cache */
+	public long getPageHits() {
+		return pageHits.get();
+	}
+
+	/** @return number of page requests that required reading from the file */
+	public long getPageMisses() {
+		return pageMisses.get();
+	}
+
+	/** @return number of bytes read from the FASTA file */
+	public long getBytesRead() {
+		return bytesRead.get();
+	}
+
+	/** @return number of pages currently cached */
+	public int getNumCachedPages() {
+		synchronized (pages) {
+			return pages.size();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	@Override
+	public String toString() {
+		return "PagedReferenceSequenceFile [fastaFile=" + fastaFile + ", pageSize=" + pageSize + ", maxPages="
+				+ maxPages + ", pageHits=" + pageHits + ", pageMisses=" + pageMisses + ", bytesRead=" + bytesRead
+				+ "]";
+	}
+
+}
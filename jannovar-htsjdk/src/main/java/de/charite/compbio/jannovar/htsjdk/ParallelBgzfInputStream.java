@@ -0,0 +1,277 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * {@link InputStream} reading BGZF with the block decompression distributed over a pool of threads
+ *
+ * The compressed blocks are read from the underlying stream on the calling thread, inflated by a fixed pool of worker
+ * threads, and returned in their original order. BGZF blocks are independent of each other, so the workers can inflate
+ * the blocks ahead of the one currently being read. This is the reading counterpart of
+ * {@link ParallelBgzfOutputStream}.
+ *
+ * This class is not thread-safe, all calls must come from the same thread.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public final class ParallelBgzfInputStream extends InputStream {
+
+	/** The stream to read the compressed blocks from */
+	private final InputStream in;
+	/** Thread pool for the decompression */
+	private final ExecutorService executor;
+	/** Number of blocks that are inflated ahead of the current one */
+	private final int maxPendingBlocks;
+	/** Blocks in decompression, in file order */
+	private final ArrayDeque<Future<byte[]>> pendingBlocks = new ArrayDeque<>();
+	/** Inflater for each worker thread */
+	private final ThreadLocal<Inflater> inflater = ThreadLocal.withInitial(this::newInflater);
+	/** All inflaters created by the worker threads, ended in {@link #close} */
+	private final ConcurrentLinkedQueue<Inflater> inflaters = new ConcurrentLinkedQueue<>();
+
+	/** Uncompressed data of the current block */
+	private byte[] buffer = new byte[0];
+	/** Position of the next byte in {@link #buffer} */
+	private int bufferPos = 0;
+	/** Whether or not the end of {@link #in} has been reached */
+	private boolean endOfInput = false;
+	/** Number of blocks read so far */
+	private long numBlocks = 0;
+	/** Whether or not the stream has been closed */
+	private boolean closed = false;
+
+	/**
+	 * Construct stream
+	 *
+	 * @param in
+	 *            the {@link InputStream} to read the compressed data from
+	 * @param numThreads
+	 *            number of threads to use for decompression
+	 */
+	public ParallelBgzfInputStream(InputStream in, int numThreads) {
+		if (numThreads < 1)
+			throw new IllegalArgumentException("Number of threads must be positive but was " + numThreads);
+		this.in = in;
+		this.executor = Executors.newFixedThreadPool(numThreads, r -> {
+			Thread t = new Thread(r, "bgzf-inflater");
+			t.setDaemon(true);
+			return t;
+		});
+		this.maxPendingBlocks = 2 * numThreads;
+	}
+
+	/**
+	 * @param file
+	 *            the file to check
+	 * @return whether or not <code>file</code> starts with a BGZF block header
+	 * @throws IOException
+	 *             on problems reading the file
+	 */
+	public static boolean isBgzf(File file) throws IOException {
+		final byte[] header = new byte[ParallelBgzfOutputStream.BLOCK_HEADER_LENGTH];
+		try (InputStream stream = new FileInputStream(file)) {
+			return readFully(stream, header, 0, header.length) == header.length && isBlockHeader(header);
+		}
+	}
+
+	/**
+	 * @return number of BGZF blocks read from the underlying stream so far
+	 */
+	public long getNumBlocks() {
+		return numBlocks;
+	}
+
+	@Override
+	public int read() throws IOException {
+		while (bufferPos == buffer.length)
+			if (!nextBlock())
+				return -1;
+		return buffer[bufferPos++] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0)
+			return 0;
+		while (bufferPos == buffer.length)
+			if (!nextBlock())
+				return -1;
+		final int count = Math.min(len, buffer.length - bufferPos);
+		System.arraycopy(buffer, bufferPos, b, off, count);
+		bufferPos += count;
+		return count;
+	}
+
+	@Override
+	public int available() {
+		return buffer.length - bufferPos;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed)
+			return;
+		closed = true;
+		try {
+			in.close();
+		} finally {
+			executor.shutdownNow();
+			endInflaters();
+		}
+	}
+
+	/** @return new raw {@link Inflater}, to be ended in {@link #close} */
+	private Inflater newInflater() {
+		final Inflater result = new Inflater(true);
+		inflaters.add(result);
+		return result;
+	}
+
+	/** Wait for the worker threads to finish and free the native memory of their inflaters */
+	private void endInflaters() throws InterruptedIOException {
+		try {
+			// the workers only inflate single blocks and stop quickly
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for BGZF decompression threads");
+		}
+		Inflater i;
+		while ((i = inflaters.poll()) != null)
+			i.end();
+	}
+
+	/**
+	 * Make the next block the current one
+	 *
+	 * @return whether or not there was a next block
+	 */
+	private boolean nextBlock() throws IOException {
+		fillPendingBlocks();
+		if (pendingBlocks.isEmpty())
+			return false;
+		try {
+			buffer = pendingBlocks.removeFirst().get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for BGZF block decompression");
+		} catch (ExecutionException e) {
+			throw new IOException("Problem decompressing BGZF block", e.getCause());
+		}
+		bufferPos = 0;
+		return true;
+	}
+
+	/** Read compressed blocks and hand them to the thread pool until enough blocks are pending */
+	private void fillPendingBlocks() throws IOException {
+		while (!endOfInput && pendingBlocks.size() < maxPendingBlocks) {
+			final byte[] block = readBlock();
+			if (block == null)
+				endOfInput = true;
+			else
+				pendingBlocks.add(executor.submit(() -> inflateBlock(block, inflater.get())));
+		}
+	}
+
+	/** @return the next compressed block, <code>null</code> at the end of the stream */
+	private byte[] readBlock() throws IOException {
+		final byte[] header = new byte[ParallelBgzfOutputStream.BLOCK_HEADER_LENGTH];
+		final int headerLength = readFully(in, header, 0, header.length);
+		if (headerLength == 0)
+			return null;
+		if (headerLength < header.length)
+			throw new EOFException("Truncated BGZF block header after block " + numBlocks);
+		if (!isBlockHeader(header))
+			throw new IOException("Invalid BGZF block header after block " + numBlocks);
+
+		final int blockSize = getShort(header, 16) + 1;
+		if (blockSize < ParallelBgzfOutputStream.BLOCK_HEADER_LENGTH + ParallelBgzfOutputStream.BLOCK_FOOTER_LENGTH)
+			throw new IOException("Invalid BGZF block size " + blockSize + " after block " + numBlocks);
+		final byte[] block = new byte[blockSize];
+		System.arraycopy(header, 0, block, 0, header.length);
+		if (readFully(in, block, header.length, blockSize - header.length) < blockSize - header.length)
+			throw new EOFException("Truncated BGZF block after block " + numBlocks);
+		numBlocks += 1;
+		return block;
+	}
+
+	/**
+	 * Decompress one BGZF block
+	 *
+	 * @param block
+	 *            the complete BGZF block, including header and footer
+	 * @param inflater
+	 *            raw {@link Inflater} to use for decompression
+	 * @return the uncompressed data
+	 * @throws IOException
+	 *             if the block is corrupt
+	 */
+	static byte[] inflateBlock(byte[] block, Inflater inflater) throws IOException {
+		final int footerPos = block.length - ParallelBgzfOutputStream.BLOCK_FOOTER_LENGTH;
+		final int expectedCrc = getInt(block, footerPos);
+		final int uncompressedLength = getInt(block, footerPos + 4);
+
+		final byte[] result = new byte[uncompressedLength];
+		if (uncompressedLength == 0)
+			return result; // e.g., the terminating empty block
+		inflater.reset();
+		inflater.setInput(block, ParallelBgzfOutputStream.BLOCK_HEADER_LENGTH,
+				footerPos - ParallelBgzfOutputStream.BLOCK_HEADER_LENGTH);
+		try {
+			if (inflater.inflate(result) != uncompressedLength || !inflater.finished())
+				throw new IOException("Unexpected size of uncompressed BGZF block");
+		} catch (DataFormatException e) {
+			throw new IOException("Corrupt BGZF block", e);
+		}
+
+		final CRC32 crc = new CRC32();
+		crc.update(result, 0, uncompressedLength);
+		if ((int) crc.getValue() != expectedCrc)
+			throw new IOException("CRC mismatch in BGZF block");
+		return result;
+	}
+
+	/** @return whether or not <code>header</code> is a BGZF block header as written by bgzip and htsjdk */
+	private static boolean isBlockHeader(byte[] header) {
+		return header[0] == 0x1f && header[1] == (byte) 0x8b && header[2] == 0x08 && (header[3] & 0x04) != 0
+				&& getShort(header, 10) == 6 && header[12] == 'B' && header[13] == 'C' && getShort(header, 14) == 2;
+	}
+
+	/** @return number of bytes read into <code>buf</code>, less than <code>len</code> only at the end of the stream */
+	private static int readFully(InputStream stream, byte[] buf, int off, int len) throws IOException {
+		int total = 0;
+		while (total < len) {
+			final int count = stream.read(buf, off + total, len - total);
+			if (count == -1)
+				break;
+			total += count;
+		}
+		return total;
+	}
+
+	/** Read little-endian unsigned 16 bit value */
+	private static int getShort(byte[] buf, int pos) {
+		return (buf[pos] & 0xff) | ((buf[pos + 1] & 0xff) << 8);
+	}
+
+	/** Read little-endian 32 bit value */
+	private static int getInt(byte[] buf, int pos) {
+		return getShort(buf, pos) | (getShort(buf, pos + 2) << 16);
+	}
+
+}
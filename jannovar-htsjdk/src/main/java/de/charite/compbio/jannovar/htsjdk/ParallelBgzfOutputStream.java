@@ -0,0 +1,332 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * {@link OutputStream} writing BGZF with the block compression distributed over a pool of threads
+ *
+ * The data is cut into blocks on the calling thread, the blocks are deflated by a fixed pool of worker threads, and the
+ * compressed blocks are written out in their original order on the calling thread again. The result is standard BGZF,
+ * including the terminating empty block, that can be read by <code>tabix</code> and htsjdk.
+ *
+ * Virtual file pointers are not known at the time the data is written as the blocks are compressed asynchronously.
+ * Instead, callers can use {@link #getBlockNumber} and {@link #getBlockOffset} to obtain the position of the next byte
+ * and register a {@link BlockListener} that is notified of the file address of each block once it has been written.
+ *
+ * This class is not thread-safe, all calls must come from the same thread.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public final class ParallelBgzfOutputStream extends OutputStream {
+
+	/** Number of uncompressed bytes per block, same as in bgzip, such that even stored blocks fit into 64 KiB */
+	static final int UNCOMPRESSED_BLOCK_SIZE = 0xff00;
+	/** Largest allowed size of a compressed BGZF block, including header and footer */
+	static final int MAX_BLOCK_SIZE = 64 * 1024;
+	/** Length of the BGZF block header */
+	static final int BLOCK_HEADER_LENGTH = 18;
+	/** Length of the BGZF block footer (CRC32 and ISIZE) */
+	static final int BLOCK_FOOTER_LENGTH = 8;
+	/** The empty BGZF block marking the end of the file */
+	static final byte[] EOF_BLOCK = new byte[] { 0x1f, (byte) 0x8b, 0x08, 0x04, 0x00, 0x00, 0x00, 0x00, 0x00,
+			(byte) 0xff, 0x06, 0x00, 0x42, 0x43, 0x02, 0x00, 0x1b, 0x00, 0x03, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00,
+			0x00, 0x00, 0x00 };
+
+	/**
+	 * Interface for being notified of the file address of written blocks
+	 */
+	public interface BlockListener {
+
+		/**
+		 * Called after a block has been written
+		 *
+		 * @param blockNumber
+		 *            0-based number of the block, as returned by {@link ParallelBgzfOutputStream#getBlockNumber}
+		 * @param blockAddress
+		 *            offset of the compressed block in the output file
+		 */
+		void blockWritten(long blockNumber, long blockAddress);
+
+	}
+
+	/** The stream to write the compressed blocks to */
+	private final OutputStream out;
+	/** Compression level to use, as in {@link Deflater} */
+	private final int compressionLevel;
+	/** Thread pool for the compression */
+	private final ExecutorService executor;
+	/** Number of blocks that may be queued before the calling thread waits for a block to be written */
+	private final int maxPendingBlocks;
+	/** Blocks in compression, in file order */
+	private final ArrayDeque<Future<byte[]>> pendingBlocks = new ArrayDeque<>();
+	/** Deflater for each worker thread */
+	private final ThreadLocal<Deflater> deflater;
+	/** Fallback deflater for each worker thread for data that does not compress into one block */
+	private final ThreadLocal<Deflater> noCompressionDeflater;
+	/** All deflaters created by the worker threads, ended in {@link #close} */
+	private final ConcurrentLinkedQueue<Deflater> deflaters = new ConcurrentLinkedQueue<>();
+
+	/** Listener to notify on written blocks, <code>null</code> for none */
+	private BlockListener blockListener;
+	/** Buffer with the uncompressed data of the current block */
+	private byte[] buffer = new byte[UNCOMPRESSED_BLOCK_SIZE];
+	/** Number of bytes in {@link #buffer} */
+	private int bufferLength = 0;
+	/** Number of the current block */
+	private long blockNumber = 0;
+	/** Number of the next block to write to {@link #out} */
+	private long nextBlockToWrite = 0;
+	/** Number of compressed bytes written to {@link #out} so far */
+	private long address = 0;
+	/** Whether or not the stream has been closed */
+	private boolean closed = false;
+
+	/**
+	 * Construct stream
+	 *
+	 * @param out
+	 *            the {@link OutputStream} to write the compressed data to
+	 * @param numThreads
+	 *            number of threads to use for compression
+	 * @param compressionLevel
+	 *            compression level between <code>0</code> and <code>9</code>
+	 */
+	public ParallelBgzfOutputStream(OutputStream out, int numThreads, int compressionLevel) {
+		if (numThreads < 1)
+			throw new IllegalArgumentException("Number of threads must be positive but was " + numThreads);
+		if (compressionLevel < Deflater.NO_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION)
+			throw new IllegalArgumentException("Invalid compression level " + compressionLevel);
+		this.out = out;
+		this.compressionLevel = compressionLevel;
+		this.executor = Executors.newFixedThreadPool(numThreads, r -> {
+			Thread t = new Thread(r, "bgzf-deflater");
+			t.setDaemon(true);
+			return t;
+		});
+		this.maxPendingBlocks = 2 * numThreads;
+		this.deflater = ThreadLocal.withInitial(() -> newDeflater(this.compressionLevel));
+		this.noCompressionDeflater = ThreadLocal.withInitial(() -> newDeflater(Deflater.NO_COMPRESSION));
+	}
+
+	/**
+	 * @return the compression level
+	 */
+	public int getCompressionLevel() {
+		return compressionLevel;
+	}
+
+	/**
+	 * @param blockListener
+	 *            listener to notify on written blocks, <code>null</code> for none
+	 */
+	public void setBlockListener(BlockListener blockListener) {
+		this.blockListener = blockListener;
+	}
+
+	/**
+	 * @return 0-based number of the block that the next byte will be written to
+	 */
+	public long getBlockNumber() {
+		return blockNumber;
+	}
+
+	/**
+	 * @return offset of the next byte in the uncompressed data of the block {@link #getBlockNumber}
+	 */
+	public int getBlockOffset() {
+		return bufferLength;
+	}
+
+	/**
+	 * @return number of compressed bytes written to the underlying stream so far
+	 */
+	public long getAddress() {
+		return address;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		buffer[bufferLength++] = (byte) b;
+		if (bufferLength == buffer.length)
+			submitBlock();
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			final int count = Math.min(len, buffer.length - bufferLength);
+			System.arraycopy(b, off, buffer, bufferLength, count);
+			bufferLength += count;
+			off += count;
+			len -= count;
+			if (bufferLength == buffer.length)
+				submitBlock();
+		}
+	}
+
+	/**
+	 * Compress the current, possibly partial, block and wait until all blocks have been written to the underlying
+	 * stream
+	 *
+	 * After this call, {@link #getAddress} is the file offset of the next block.
+	 *
+	 * @throws IOException
+	 *             on problems with compression or writing
+	 */
+	public void drain() throws IOException {
+		if (bufferLength > 0)
+			submitBlock();
+		while (!pendingBlocks.isEmpty())
+			writeFirstPendingBlock();
+	}
+
+	@Override
+	public void flush() throws IOException {
+		drain();
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed)
+			return;
+		closed = true;
+		try {
+			drain();
+			out.write(EOF_BLOCK);
+			address += EOF_BLOCK.length;
+			out.close();
+		} finally {
+			executor.shutdownNow();
+			endDeflaters();
+		}
+	}
+
+	/** @return new raw {@link Deflater} with the given <code>level</code>, to be ended in {@link #close} */
+	private Deflater newDeflater(int level) {
+		final Deflater result = new Deflater(level, true);
+		deflaters.add(result);
+		return result;
+	}
+
+	/** Wait for the worker threads to finish and free the native memory of their deflaters */
+	private void endDeflaters() throws InterruptedIOException {
+		try {
+			// the workers only compress single blocks and stop quickly
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for BGZF compression threads");
+		}
+		Deflater d;
+		while ((d = deflaters.poll()) != null)
+			d.end();
+	}
+
+	/** Hand the current block to the thread pool and start a new one, write out blocks if too many are pending */
+	private void submitBlock() throws IOException {
+		final byte[] data = buffer;
+		final int length = bufferLength;
+		pendingBlocks.add(executor
+				.submit(() -> compressBlock(data, length, deflater.get(), noCompressionDeflater.get())));
+		buffer = new byte[UNCOMPRESSED_BLOCK_SIZE];
+		bufferLength = 0;
+		blockNumber += 1;
+
+		while (pendingBlocks.size() > maxPendingBlocks)
+			writeFirstPendingBlock();
+	}
+
+	/** Wait for the first pending block to be compressed and write it out */
+	private void writeFirstPendingBlock() throws IOException {
+		final byte[] block;
+		try {
+			block = pendingBlocks.removeFirst().get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for BGZF block compression");
+		} catch (ExecutionException e) {
+			throw new IOException("Problem compressing BGZF block", e.getCause());
+		}
+		out.write(block);
+		if (blockListener != null)
+			blockListener.blockWritten(nextBlockToWrite, address);
+		nextBlockToWrite += 1;
+		address += block.length;
+	}
+
+	/**
+	 * Compress <code>data</code> into one BGZF block
+	 *
+	 * @param data
+	 *            buffer with the uncompressed data
+	 * @param length
+	 *            number of bytes to use from <code>data</code>, at most {@link #UNCOMPRESSED_BLOCK_SIZE}
+	 * @param deflater
+	 *            raw {@link Deflater} to use for compression
+	 * @param noCompressionDeflater
+	 *            raw {@link Deflater} without compression, used when the data does not compress into one block
+	 * @return the complete BGZF block
+	 */
+	static byte[] compressBlock(byte[] data, int length, Deflater deflater, Deflater noCompressionDeflater) {
+		final byte[] compressed = new byte[MAX_BLOCK_SIZE - BLOCK_HEADER_LENGTH - BLOCK_FOOTER_LENGTH];
+		int compressedLength = deflate(data, length, deflater, compressed);
+		if (compressedLength < 0)
+			compressedLength = deflate(data, length, noCompressionDeflater, compressed);
+		if (compressedLength < 0)
+			throw new IllegalStateException("Data does not fit into BGZF block even without compression");
+
+		final CRC32 crc = new CRC32();
+		crc.update(data, 0, length);
+
+		final int blockSize = BLOCK_HEADER_LENGTH + compressedLength + BLOCK_FOOTER_LENGTH;
+		final byte[] block = new byte[blockSize];
+		block[0] = 0x1f; // ID1
+		block[1] = (byte) 0x8b; // ID2
+		block[2] = 0x08; // CM = deflate
+		block[3] = 0x04; // FLG = FEXTRA, MTIME is left at 0
+		block[9] = (byte) 0xff; // OS = unknown
+		putShort(block, 10, 6); // XLEN
+		block[12] = 'B'; // SI1
+		block[13] = 'C'; // SI2
+		putShort(block, 14, 2); // SLEN
+		putShort(block, 16, blockSize - 1); // BSIZE
+		System.arraycopy(compressed, 0, block, BLOCK_HEADER_LENGTH, compressedLength);
+		putInt(block, BLOCK_HEADER_LENGTH + compressedLength, (int) crc.getValue());
+		putInt(block, BLOCK_HEADER_LENGTH + compressedLength + 4, length);
+		return block;
+	}
+
+	/** @return number of bytes written to <code>compressed</code> or <code>-1</code> if it was too small */
+	private static int deflate(byte[] data, int length, Deflater deflater, byte[] compressed) {
+		deflater.reset();
+		deflater.setInput(data, 0, length);
+		deflater.finish();
+		final int compressedLength = deflater.deflate(compressed, 0, compressed.length);
+		return deflater.finished() ? compressedLength : -1;
+	}
+
+	/** Write little-endian 16 bit value */
+	private static void putShort(byte[] buf, int pos, int value) {
+		buf[pos] = (byte) value;
+		buf[pos + 1] = (byte) (value >>> 8);
+	}
+
+	/** Write little-endian 32 bit value */
+	private static void putInt(byte[] buf, int pos, int value) {
+		putShort(buf, pos, value);
+		putShort(buf, pos + 2, value >>> 16);
+	}
+
+}
@@ -0,0 +1,169 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.util.RuntimeIOException;
+import htsjdk.tribble.index.Index;
+import htsjdk.tribble.index.tabix.TabixFormat;
+import htsjdk.tribble.index.tabix.TabixIndexCreator;
+import htsjdk.tribble.util.TabixUtils;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.writer.Options;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.variantcontext.writer.VariantContextWriterBuilder;
+import htsjdk.variant.vcf.VCFEncoder;
+import htsjdk.variant.vcf.VCFHeader;
+
+/**
+ * {@link VariantContextWriter} for bgzip-compressed VCF files that compresses in multiple threads
+ *
+ * The VCF lines are encoded on the calling thread and the compression is performed by a
+ * {@link ParallelBgzfOutputStream}. Optionally, a tabix index is built from the block offsets as the blocks are written
+ * and stored next to the output file on {@link #close}.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public final class ParallelBgzfVariantContextWriter implements VariantContextWriter {
+
+	/** Path to the output file */
+	private final File outputFile;
+	/** The compressing output stream */
+	private final ParallelBgzfOutputStream outStream;
+	/** Creates the tabix index, <code>null</code> if no index is to be built */
+	private final TabixIndexCreator indexCreator;
+	/** Records not yet passed to {@link #indexCreator}, their blocks have not been written yet */
+	private final ArrayDeque<PendingRecord> pendingRecords = new ArrayDeque<>();
+
+	/** Encoder for the VCF records, set in {@link #writeHeader} */
+	private VCFEncoder vcfEncoder;
+	/** Whether or not there was an error writing */
+	private boolean error = false;
+
+	/**
+	 * Construct writer
+	 *
+	 * @param outputFile
+	 *            path to the output file
+	 * @param seqDict
+	 *            {@link SAMSequenceDictionary} for the index, can be <code>null</code>
+	 * @param generateIndex
+	 *            whether or not to write a tabix index
+	 * @param numThreads
+	 *            number of threads to use for compression
+	 * @param compressionLevel
+	 *            compression level between <code>0</code> and <code>9</code>
+	 * @throws IOException
+	 *             on problems opening the output file
+	 */
+	public ParallelBgzfVariantContextWriter(File outputFile, SAMSequenceDictionary seqDict, boolean generateIndex,
+			int numThreads, int compressionLevel) throws IOException {
+		this.outputFile = outputFile;
+		this.outStream = new ParallelBgzfOutputStream(new BufferedOutputStream(new FileOutputStream(outputFile)),
+				numThreads, compressionLevel);
+		if (!generateIndex)
+			this.indexCreator = null;
+		else if (seqDict == null)
+			this.indexCreator = new TabixIndexCreator(TabixFormat.VCF);
+		else
+			this.indexCreator = new TabixIndexCreator(seqDict, TabixFormat.VCF);
+		if (this.indexCreator != null)
+			this.outStream.setBlockListener(this::blockWritten);
+	}
+
+	@Override
+	public void writeHeader(VCFHeader header) {
+		// Let htsjdk format the header so the output is the same as with the sequential writer
+		ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+		VariantContextWriterBuilder builder = new VariantContextWriterBuilder();
+		builder.unsetOption(Options.INDEX_ON_THE_FLY);
+		builder.setOption(Options.ALLOW_MISSING_FIELDS_IN_HEADER);
+		builder.setOutputStream(headerBytes);
+		try (VariantContextWriter headerWriter = builder.build()) {
+			headerWriter.writeHeader(header);
+		}
+
+		vcfEncoder = new VCFEncoder(header, true, false);
+		write(headerBytes.toByteArray());
+	}
+
+	@Override
+	public void setHeader(VCFHeader header) {
+		vcfEncoder = new VCFEncoder(header, true, false);
+	}
+
+	@Override
+	public void add(VariantContext vc) {
+		if (vcfEncoder == null)
+			throw new IllegalStateException("The VCF header must be written before records can be added");
+		if (indexCreator != null)
+			pendingRecords.add(new PendingRecord(vc, outStream.getBlockNumber(), outStream.getBlockOffset()));
+		write((vcfEncoder.encode(vc) + "\n").getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public boolean checkError() {
+		return error;
+	}
+
+	@Override
+	public void close() {
+		try {
+			outStream.drain();
+			final long endPointer = outStream.getAddress() << 16;
+			outStream.close();
+			if (indexCreator != null) {
+				Index index = indexCreator.finalizeIndex(endPointer);
+				index.write(new File(outputFile.getPath() + TabixUtils.STANDARD_INDEX_EXTENSION));
+			}
+		} catch (IOException e) {
+			error = true;
+			throw new RuntimeIOException("Problem closing " + outputFile, e);
+		}
+	}
+
+	/** Write <code>bytes</code> to {@link #outStream}, converting exceptions */
+	private void write(byte[] bytes) {
+		try {
+			outStream.write(bytes);
+		} catch (IOException e) {
+			error = true;
+			throw new RuntimeIOException("Problem writing to " + outputFile, e);
+		}
+	}
+
+	/** Pass the records starting in the written block to the {@link #indexCreator} */
+	private void blockWritten(long blockNumber, long blockAddress) {
+		while (!pendingRecords.isEmpty() && pendingRecords.peekFirst().blockNumber == blockNumber) {
+			final PendingRecord record = pendingRecords.removeFirst();
+			indexCreator.addFeature(record.vc, (blockAddress << 16) | record.blockOffset);
+		}
+	}
+
+	/**
+	 * A record whose virtual file offset is not known yet
+	 */
+	private static final class PendingRecord {
+
+		/** The record */
+		final VariantContext vc;
+		/** Number of the block that the record starts in */
+		final long blockNumber;
+		/** Offset of the record in the uncompressed block */
+		final int blockOffset;
+
+		PendingRecord(VariantContext vc, long blockNumber, int blockOffset) {
+			this.vc = vc;
+			this.blockNumber = blockNumber;
+			this.blockOffset = blockOffset;
+		}
+
+	}
+
+}
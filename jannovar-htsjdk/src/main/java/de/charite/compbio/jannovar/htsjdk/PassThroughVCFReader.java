@@ -0,0 +1,159 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.google.common.base.Joiner;
+
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.samtools.util.IOUtil;
+import htsjdk.samtools.util.RuntimeIOException;
+import htsjdk.tribble.readers.LineIteratorImpl;
+import htsjdk.tribble.readers.SynchronousLineReader;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFCodec;
+import htsjdk.variant.vcf.VCFHeader;
+
+/**
+ * Reads the site-level columns of a VCF file while keeping the genotype columns as text.
+ *
+ * Each record is split after the <tt>INFO</tt> column. The first eight columns are decoded into a
+ * {@link VariantContext} without genotypes, the <tt>FORMAT</tt> and sample columns are kept as they are and can be
+ * obtained through {@link #getSampleColumns} until the next call to {@link #next}. Together with
+ * {@link PassThroughVCFWriter}, this allows for site-level annotation of VCF files with many samples without decoding
+ * and re-encoding the genotypes.
+ *
+ * The records must be consumed in order, one at a time, e.g., by a sequential {@link java.util.stream.Stream} with
+ * <code>map()</code> and <code>filter()</code> steps only.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public final class PassThroughVCFReader implements CloseableIterator<VariantContext> {
+
+	/** Number of site-level columns, <tt>CHROM</tt> to <tt>INFO</tt> */
+	private static final int NUM_SITE_COLUMNS = 8;
+
+	/** Path to the input file */
+	private final File vcfFile;
+	/** Reader for the input file, plain text or (b)gzip-compressed */
+	private final BufferedReader reader;
+	/** The complete VCF header, including the samples */
+	private final VCFHeader fileHeader;
+	/** Codec for decoding the site-level columns, configured with a header without samples */
+	private final VCFCodec sitesCodec;
+
+	/** The next line to decode, <code>null</code> at the end of the file */
+	private String nextLine;
+	/** Genotype columns of the record last returned by {@link #next}, <code>null</code> if there are none */
+	private String sampleColumns;
+
+	/**
+	 * Open VCF file and read its header
+	 *
+	 * @param vcfFile
+	 *            path to the VCF file to read, can be plain text or (b)gzip-compressed
+	 * @throws IOException
+	 *             on problems reading the header
+	 */
+	public PassThroughVCFReader(File vcfFile) throws IOException {
+		this.vcfFile = vcfFile;
+		this.reader = IOUtil.openFileForBufferedReading(vcfFile);
+
+		List<String> headerLines = new ArrayList<>();
+		String line;
+		while ((line = reader.readLine()) != null && line.startsWith("#"))
+			headerLines.add(line);
+		this.nextLine = line;
+		if (headerLines.isEmpty() || !headerLines.get(headerLines.size() - 1).startsWith("#CHROM"))
+			throw new IOException("VCF file " + vcfFile + " does not have a #CHROM header line");
+
+		this.fileHeader = (VCFHeader) new VCFCodec().readActualHeader(toLineIterator(headerLines));
+
+		// Decode the sites with a header that has no genotype columns.
+		final String chromLine = headerLines.remove(headerLines.size() - 1);
+		headerLines.add(truncateColumns(chromLine));
+		this.sitesCodec = new VCFCodec();
+		this.sitesCodec.readActualHeader(toLineIterator(headerLines));
+	}
+
+	/** @return {@link LineIteratorImpl} over the given lines */
+	static LineIteratorImpl toLineIterator(List<String> lines) {
+		return new LineIteratorImpl(new SynchronousLineReader(new StringReader(Joiner.on('\n').join(lines))));
+	}
+
+	/** @return index of the tab separating the site-level from the genotype columns, <code>-1</code> if none */
+	private static int siteColumnsEnd(String line) {
+		int pos = -1;
+		for (int i = 0; i < NUM_SITE_COLUMNS; ++i) {
+			pos = line.indexOf('\t', pos + 1);
+			if (pos == -1)
+				return -1;
+		}
+		return pos;
+	}
+
+	/** @return <code>line</code> with only the site-level columns */
+	private static String truncateColumns(String line) {
+		final int pos = siteColumnsEnd(line);
+		return (pos == -1) ? line : line.substring(0, pos);
+	}
+
+	/** @return the complete VCF header, including the samples */
+	public VCFHeader getFileHeader() {
+		return fileHeader;
+	}
+
+	/**
+	 * @return the <tt>FORMAT</tt> and sample columns of the record last returned by {@link #next}, as in the input
+	 *         file, or <code>null</code> if the record has none
+	 */
+	public String getSampleColumns() {
+		return sampleColumns;
+	}
+
+	@Override
+	public boolean hasNext() {
+		return nextLine != null;
+	}
+
+	@Override
+	public VariantContext next() {
+		if (nextLine == null)
+			throw new NoSuchElementException();
+
+		final String line = nextLine;
+		final int pos = siteColumnsEnd(line);
+		final VariantContext vc;
+		if (pos == -1) {
+			vc = sitesCodec.decode(line);
+			sampleColumns = null;
+		} else {
+			vc = sitesCodec.decode(line.substring(0, pos));
+			sampleColumns = line.substring(pos + 1);
+		}
+
+		try {
+			do {
+				nextLine = reader.readLine();
+			} while (nextLine != null && nextLine.isEmpty());
+		} catch (IOException e) {
+			throw new RuntimeIOException("Problem reading from " + vcfFile, e);
+		}
+		return vc;
+	}
+
+	@Override
+	public void close() {
+		try {
+			reader.close();
+		} catch (IOException e) {
+			throw new RuntimeIOException("Problem closing " + vcfFile, e);
+		}
+	}
+
+}
@@ -0,0 +1,115 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import htsjdk.samtools.util.RuntimeIOException;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.writer.Options;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.variantcontext.writer.VariantContextWriterBuilder;
+import htsjdk.variant.vcf.VCFEncoder;
+import htsjdk.variant.vcf.VCFHeader;
+
+/**
+ * {@link VariantContextWriter} for the records read by a {@link PassThroughVCFReader}
+ *
+ * The site-level columns are encoded from the {@link VariantContext}, such that added <tt>INFO</tt> fields and
+ * changed <tt>FILTER</tt> values are written, and the <tt>FORMAT</tt> and sample columns are copied from
+ * {@link PassThroughVCFReader#getSampleColumns} as they are. Thus, {@link #add} must be called for the record last
+ * returned by the reader, or not at all if the record is to be dropped.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public final class PassThroughVCFWriter implements VariantContextWriter {
+
+	/** Name of the output for error messages */
+	private final String outputName;
+	/** The stream to write to */
+	private final OutputStream outStream;
+	/** The reader that provides the genotype columns */
+	private final PassThroughVCFReader source;
+
+	/** Encoder for the site-level columns, set in {@link #writeHeader} */
+	private VCFEncoder vcfEncoder;
+	/** Whether or not there was an error writing */
+	private boolean error = false;
+
+	/**
+	 * Construct writer
+	 *
+	 * @param outStream
+	 *            the {@link OutputStream} to write to, possibly compressing, is closed in {@link #close}
+	 * @param outputName
+	 *            name of the output for error messages
+	 * @param source
+	 *            the {@link PassThroughVCFReader} that provides the genotype columns
+	 */
+	public PassThroughVCFWriter(OutputStream outStream, String outputName, PassThroughVCFReader source) {
+		this.outStream = outStream;
+		this.outputName = outputName;
+		this.source = source;
+	}
+
+	@Override
+	public void writeHeader(VCFHeader header) {
+		// Let htsjdk format the header so the output is the same as with the sequential writer
+		ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+		VariantContextWriterBuilder builder = new VariantContextWriterBuilder();
+		builder.unsetOption(Options.INDEX_ON_THE_FLY);
+		builder.setOption(Options.ALLOW_MISSING_FIELDS_IN_HEADER);
+		builder.setOutputStream(headerBytes);
+		try (VariantContextWriter headerWriter = builder.build()) {
+			headerWriter.writeHeader(header);
+		}
+
+		setHeader(header);
+		write(headerBytes.toByteArray());
+	}
+
+	@Override
+	public void setHeader(VCFHeader header) {
+		// The records have no genotypes, so encode them with a header without samples.
+		vcfEncoder = new VCFEncoder(new VCFHeader(header.getMetaDataInInputOrder()), true, false);
+	}
+
+	@Override
+	public void add(VariantContext vc) {
+		if (vcfEncoder == null)
+			throw new IllegalStateException("The VCF header must be written before records can be added");
+		final String sampleColumns = source.getSampleColumns();
+		final StringBuilder line = new StringBuilder(vcfEncoder.encode(vc));
+		if (sampleColumns != null)
+			line.append('\t').append(sampleColumns);
+		line.append('\n');
+		write(line.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public boolean checkError() {
+		return error;
+	}
+
+	@Override
+	public void close() {
+		try {
+			outStream.close();
+		} catch (IOException e) {
+			error = true;
+			throw new RuntimeIOException("Problem closing " + outputName, e);
+		}
+	}
+
+	/** Write <code>bytes</code> to {@link #outStream}, converting exceptions */
+	private void write(byte[] bytes) {
+		try {
+			outStream.write(bytes);
+		} catch (IOException e) {
+			error = true;
+			throw new RuntimeIOException("Problem writing to " + outputName, e);
+		}
+	}
+
+}
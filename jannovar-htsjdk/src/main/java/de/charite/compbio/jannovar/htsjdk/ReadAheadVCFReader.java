@@ -0,0 +1,470 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import de.charite.compbio.jannovar.UncheckedJannovarException;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.samtools.util.IOUtil;
+import htsjdk.variant.variantcontext.GenotypesContext;
+import htsjdk.variant.variantcontext.LazyGenotypesContext;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFCodec;
+import htsjdk.variant.vcf.VCFFileReader;
+import htsjdk.variant.vcf.VCFHeader;
+
+/**
+ * Reads a VCF or BCF file on a dedicated thread, ahead of the consumer
+ *
+ * The reader thread decompresses and parses the records, including the genotypes, and hands them to the consumer in
+ * batches through a bounded queue. For bgzip-compressed VCF files, the BGZF blocks can additionally be inflated by a
+ * pool of threads through {@link ParallelBgzfInputStream}. BCF files are read through {@link VCFFileReader} on the
+ * reader thread.
+ *
+ * The occupancy of the queue is recorded in {@link Statistics}. If the queue is mostly empty when the consumer takes a
+ * batch, the consumer is waiting for the input (decompression, parsing, or I/O are the bottleneck). If the queue is
+ * mostly full when the reader thread puts a batch, the reader is waiting for the consumer.
+ *
+ * All methods except {@link #getStatistics} must be called from the same thread.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public final class ReadAheadVCFReader implements CloseableIterator<VariantContext> {
+
+	/** Default number of records per batch */
+	public static final int DEFAULT_BATCH_SIZE = 1000;
+	/** Default number of batches in the queue */
+	public static final int DEFAULT_QUEUE_DEPTH = 4;
+
+	/** Batch marking the end of the file */
+	private static final List<VariantContext> END_OF_INPUT = Collections.emptyList();
+
+	/**
+	 * Occupancy statistics of the queue between the reader thread and the consumer
+	 */
+	public static final class Statistics {
+
+		/** The file that was read */
+		private final File file;
+		/** Capacity of the queue, in batches */
+		private final int queueDepth;
+		/** Number of batches taken by the consumer */
+		private final long numBatches;
+		/** Number of records taken by the consumer */
+		private final long numRecords;
+		/** Sum of the number of batches in the queue, each time before the consumer took a batch */
+		private final long occupancySum;
+		/** Number of times the consumer found the queue empty and waited */
+		private final long numEmptyTakes;
+		/** Time that the consumer waited, in nanoseconds */
+		private final long takeWaitNanos;
+		/** Number of times the reader thread found the queue full and waited */
+		private final long numFullPuts;
+		/** Time that the reader thread waited, in nanoseconds */
+		private final long putWaitNanos;
+
+		Statistics(File file, int queueDepth, long numBatches, long numRecords, long occupancySum,
+				long numEmptyTakes, long takeWaitNanos, long numFullPuts, long putWaitNanos) {
+			this.file = file;
+			this.queueDepth = queueDepth;
+			this.numBatches = numBatches;
+			this.numRecords = numRecords;
+			this.occupancySum = occupancySum;
+			this.numEmptyTakes = numEmptyTakes;
+			this.takeWaitNanos = takeWaitNanos;
+			this.numFullPuts = numFullPuts;
+			this.putWaitNanos = putWaitNanos;
+		}
+
+		/** @return the file that was read */
+		public File getFile() {
+			return file;
+		}
+
+		/** @return capacity of the queue, in batches */
+		public int getQueueDepth() {
+			return queueDepth;
+		}
+
+		/** @return number of batches taken by the consumer */
+		public long getNumBatches() {
+			return numBatches;
+		}
+
+		/** @return number of records taken by the consumer */
+		public long getNumRecords() {
+			return numRecords;
+		}
+
+		/** @return mean number of batches in the queue when the consumer took one */
+		public double getMeanOccupancy() {
+			return (numBatches == 0) ? 0 : occupancySum / (double) numBatches;
+		}
+
+		/** @return fraction of the batches for which the consumer found the queue empty and waited */
+		public double getEmptyFraction() {
+			return (numBatches == 0) ? 0 : numEmptyTakes / (double) numBatches;
+		}
+
+		/** @return fraction of the batches for which the reader thread found the queue full and waited */
+		public double getFullFraction() {
+			return (numBatches == 0) ? 0 : numFullPuts / (double) numBatches;
+		}
+
+		/** @return time that the consumer waited for the reader thread, in milliseconds */
+		public long getConsumerWaitMillis() {
+			return takeWaitNanos / 1_000_000;
+		}
+
+		/** @return time that the reader thread waited for the consumer, in milliseconds */
+		public long getReaderWaitMillis() {
+			return putWaitNanos / 1_000_000;
+		}
+
+		/** @return whether or not the consumer waited for the input more often than the reader for the consumer */
+		public boolean isInputBound() {
+			return numEmptyTakes > numFullPuts;
+		}
+
+		@Override
+		public String toString() {
+			return String.format(
+					"%s: %,d records in %,d batches, mean queue occupancy %.2f of %d, queue empty for %.1f%% of "
+							+ "batches (consumer waited %,d ms), full for %.1f%% (reader waited %,d ms)",
+					file, numRecords, numBatches, getMeanOccupancy(), queueDepth, 100.0 * getEmptyFraction(),
+					getConsumerWaitMillis(), 100.0 * getFullFraction(), getReaderWaitMillis());
+		}
+
+	}
+
+	/** The input file */
+	private final File file;
+	/** Header of the input file */
+	private final VCFHeader header;
+	/** Records as decoded on the reader thread */
+	private final Iterator<VariantContext> source;
+	/** Closes the input file */
+	private final AutoCloseable sourceCloser;
+	/** Number of records per batch */
+	private final int batchSize;
+	/** Capacity of {@link #queue} */
+	private final int queueDepth;
+	/** Batches read ahead by {@link #thread} */
+	private final BlockingQueue<List<VariantContext>> queue;
+	/** Thread decoding the input file */
+	private final Thread thread;
+	/** Problem on {@link #thread}, rethrown on the consumer thread */
+	private volatile Throwable error = null;
+
+	/** Current batch, <code>null</code> before the first one */
+	private List<VariantContext> batch = null;
+	/** Position of the next record in {@link #batch} */
+	private int pos = 0;
+	/** Whether or not the reader thread has been started */
+	private boolean started = false;
+	/** Whether or not {@link #close} has been called */
+	private boolean closed = false;
+
+	/** Number of batches taken, only written by the consumer */
+	private volatile long numBatches = 0;
+	/** Number of records taken, only written by the consumer */
+	private volatile long numRecords = 0;
+	/** Sum of the queue sizes before each take, only written by the consumer */
+	private volatile long occupancySum = 0;
+	/** Number of takes from the empty queue, only written by the consumer */
+	private volatile long numEmptyTakes = 0;
+	/** Time spent waiting in takes, only written by the consumer */
+	private volatile long takeWaitNanos = 0;
+	/** Number of puts into the full queue, only written by the reader thread */
+	private volatile long numFullPuts = 0;
+	/** Time spent waiting in puts, only written by the reader thread */
+	private volatile long putWaitNanos = 0;
+
+	/**
+	 * Open the given file with the default batch size and queue depth, inflating on the reader thread
+	 *
+	 * @param file
+	 *            the VCF or BCF file to read
+	 * @throws IOException
+	 *             on problems opening the file or reading its header
+	 */
+	public ReadAheadVCFReader(File file) throws IOException {
+		this(file, DEFAULT_BATCH_SIZE, DEFAULT_QUEUE_DEPTH, 0);
+	}
+
+	/**
+	 * Open the given file and read its header
+	 *
+	 * @param file
+	 *            the VCF or BCF file to read
+	 * @param batchSize
+	 *            number of records per batch
+	 * @param queueDepth
+	 *            number of batches that the reader thread can read ahead
+	 * @param inflaterThreads
+	 *            number of threads for inflating the BGZF blocks of a bgzip-compressed VCF file, <code>0</code> to
+	 *            inflate on the reader thread
+	 * @throws IOException
+	 *             on problems opening the file or reading its header
+	 */
+	public ReadAheadVCFReader(File file, int batchSize, int queueDepth, int inflaterThreads) throws IOException {
+		if (batchSize < 1 || queueDepth < 1)
+			throw new IllegalArgumentException(
+					"Batch size and queue depth must be positive but were " + batchSize + " and " + queueDepth);
+		if (inflaterThreads < 0)
+			throw new IllegalArgumentException(
+					"Number of inflater threads must not be negative but was " + inflaterThreads);
+		this.file = file;
+		this.batchSize = batchSize;
+		this.queueDepth = queueDepth;
+		this.queue = new ArrayBlockingQueue<>(queueDepth);
+
+		if (file.getName().endsWith(".bcf")) {
+			final VCFFileReader reader = new VCFFileReader(file, false);
+			this.header = reader.getFileHeader();
+			this.source = reader.iterator();
+			this.sourceCloser = reader;
+		} else {
+			final BufferedReader reader = openText(file, inflaterThreads);
+			try {
+				final TextVCFIterator iter = new TextVCFIterator(file, reader);
+				this.header = iter.header;
+				this.source = iter;
+				this.sourceCloser = reader;
+			} catch (IOException | RuntimeException e) {
+				reader.close();
+				throw e;
+			}
+		}
+
+		this.thread = new Thread(this::readAhead, "vcf-reader");
+		this.thread.setDaemon(true);
+	}
+
+	/** @return reader for the text VCF <code>file</code>, inflating BGZF in parallel if configured */
+	private static BufferedReader openText(File file, int inflaterThreads) throws IOException {
+		if (inflaterThreads > 0 && ParallelBgzfInputStream.isBgzf(file))
+			return new BufferedReader(new InputStreamReader(
+					new ParallelBgzfInputStream(new FileInputStream(file), inflaterThreads), StandardCharsets.UTF_8),
+					64 * 1024);
+		else
+			return IOUtil.openFileForBufferedReading(file);
+	}
+
+	/** @return the input file */
+	public File getFile() {
+		return file;
+	}
+
+	/** @return the VCF header of the file */
+	public VCFHeader getFileHeader() {
+		return header;
+	}
+
+	/** @return snapshot of the queue occupancy statistics, can be called from any thread */
+	public Statistics getStatistics() {
+		return new Statistics(file, queueDepth, numBatches, numRecords, occupancySum, numEmptyTakes, takeWaitNanos,
+				numFullPuts, putWaitNanos);
+	}
+
+	/** Body of the reader thread */
+	private void readAhead() {
+		try {
+			List<VariantContext> current = new ArrayList<>(batchSize);
+			while (source.hasNext()) {
+				final VariantContext vc = source.next();
+				// Decode the genotypes here instead of on the consumer thread
+				final GenotypesContext gc = vc.getGenotypes();
+				if (gc instanceof LazyGenotypesContext)
+					((LazyGenotypesContext) gc).decode();
+				current.add(vc);
+				if (current.size() == batchSize) {
+					put(current);
+					current = new ArrayList<>(batchSize);
+				}
+			}
+			if (!current.isEmpty())
+				put(current);
+			queue.put(END_OF_INPUT);
+		} catch (InterruptedException e) {
+			// closed before the end of the file
+		} catch (Throwable e) {
+			error = e;
+			try {
+				queue.put(END_OF_INPUT);
+			} catch (InterruptedException e2) {
+				// closed, nobody is waiting for the end marker
+			}
+		}
+	}
+
+	/** Put <code>batch</code> into the queue, recording whether the reader thread had to wait */
+	private void put(List<VariantContext> batch) throws InterruptedException {
+		if (!queue.offer(batch)) {
+			final long startTime = System.nanoTime();
+			queue.put(batch);
+			numFullPuts += 1;
+			putWaitNanos += System.nanoTime() - startTime;
+		}
+	}
+
+	/** Take the next batch from the queue, recording the occupancy for all but the end marker */
+	private List<VariantContext> take() {
+		final int occupancy = queue.size();
+		final long startTime = (occupancy == 0) ? System.nanoTime() : 0;
+		final List<VariantContext> result;
+		try {
+			result = queue.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new UncheckedJannovarException("Interrupted while reading " + file, e);
+		}
+		if (result != END_OF_INPUT) {
+			occupancySum += occupancy;
+			if (occupancy == 0) {
+				numEmptyTakes += 1;
+				takeWaitNanos += System.nanoTime() - startTime;
+			}
+		}
+		return result;
+	}
+
+	/** Start reading ahead, done by {@link #hasNext} if not called before */
+	public void start() {
+		if (!started && !closed) {
+			started = true;
+			thread.start();
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (closed)
+			return false;
+		start();
+		if (batch == null || pos == batch.size()) {
+			if (batch == END_OF_INPUT)
+				return false;
+			batch = take();
+			pos = 0;
+			if (batch == END_OF_INPUT) {
+				if (error != null)
+					throw new UncheckedJannovarException("Problem reading " + file, error);
+				return false;
+			}
+			numBatches += 1;
+			numRecords += batch.size();
+		}
+		return true;
+	}
+
+	@Override
+	public VariantContext next() {
+		if (!hasNext())
+			throw new NoSuchElementException();
+		return batch.get(pos++);
+	}
+
+	/** Stop the reader thread and close the input file */
+	@Override
+	public void close() {
+		if (closed)
+			return;
+		closed = true;
+		if (started) {
+			thread.interrupt();
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		try {
+			sourceCloser.close();
+		} catch (Exception e) {
+			throw new UncheckedJannovarException("Problem closing " + file, e);
+		}
+	}
+
+	/**
+	 * Decodes the records of a text VCF file through {@link VCFCodec}, as {@link PassThroughVCFReader} does for the
+	 * site-level columns
+	 */
+	private static final class TextVCFIterator implements Iterator<VariantContext> {
+
+		/** The input file */
+		private final File file;
+		/** Reader for the input file */
+		private final BufferedReader reader;
+		/** Header of the input file */
+		private final VCFHeader header;
+		/** Codec for decoding the records */
+		private final VCFCodec codec = new VCFCodec();
+		/** The next record, <code>null</code> at the end of the file */
+		private VariantContext nextRecord;
+
+		TextVCFIterator(File file, BufferedReader reader) throws IOException {
+			this.file = file;
+			this.reader = reader;
+
+			List<String> headerLines = new ArrayList<>();
+			String line;
+			while ((line = reader.readLine()) != null && line.startsWith("#"))
+				headerLines.add(line);
+			if (headerLines.isEmpty() || !headerLines.get(headerLines.size() - 1).startsWith("#CHROM"))
+				throw new IOException("VCF file " + file + " does not have a #CHROM header line");
+			this.header = (VCFHeader) codec.readActualHeader(PassThroughVCFReader.toLineIterator(headerLines));
+			this.nextRecord = decodeFrom(line);
+		}
+
+		@Override
+		public boolean hasNext() {
+			return nextRecord != null;
+		}
+
+		@Override
+		public VariantContext next() {
+			if (nextRecord == null)
+				throw new NoSuchElementException();
+			final VariantContext vc = nextRecord;
+			try {
+				nextRecord = decodeFrom(reader.readLine());
+			} catch (IOException e) {
+				throw new UncheckedJannovarException("Problem reading from " + file, e);
+			}
+			return vc;
+		}
+
+		/**
+		 * Decode the next record, starting at <code>line</code>
+		 *
+		 * Lines for which {@link VCFCodec#decode} returns <code>null</code>, i.e., empty lines and comment lines after
+		 * the header, are skipped as htsjdk's feature reader does.
+		 *
+		 * @return the next record, <code>null</code> at the end of the file
+		 */
+		private VariantContext decodeFrom(String line) throws IOException {
+			for (; line != null; line = reader.readLine()) {
+				if (line.isEmpty())
+					continue;
+				final VariantContext vc = codec.decode(line);
+				if (vc != null)
+					return vc;
+			}
+			return null;
+		}
+
+	}
+
+}
@@ -0,0 +1,96 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.VariantContext;
+
+/**
+ * Lets the reference blocks of gVCF files bypass annotation and filtration steps
+ *
+ * A record is considered a reference block if it has no alternative allele besides the <tt>&lt;NON_REF&gt;</tt> (GATK)
+ * or <tt>&lt;*&gt;</tt> (bcftools) placeholders, see {@link #isReferenceBlock}. This also includes records without
+ * any alternative allele. The steps of an annotation pipeline can be wrapped with {@link #guard} such that they return
+ * reference blocks unchanged, and {@link #count} keeps track of the number of passed through and annotated records.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public final class ReferenceBlockBypass implements Predicate<VariantContext> {
+
+	/** Placeholder allele for any non-reference allele, as written by GATK */
+	public static final String NON_REF_ALLELE = "<NON_REF>";
+	/** Placeholder allele for any non-reference allele, as written by bcftools */
+	public static final String UNSPECIFIED_ALLELE = "<*>";
+
+	/** Number of reference blocks seen by {@link #count} */
+	private final LongAdder numPassedThrough = new LongAdder();
+	/** Number of records with real alternative alleles seen by {@link #count} */
+	private final LongAdder numAnnotated = new LongAdder();
+
+	/**
+	 * @param allele
+	 *            the {@link Allele} to check
+	 * @return whether or not <code>allele</code> is a gVCF placeholder for any non-reference allele
+	 */
+	public static boolean isNonRefAllele(Allele allele) {
+		if (!allele.isSymbolic())
+			return false;
+		final String name = allele.getDisplayString();
+		return NON_REF_ALLELE.equals(name) || UNSPECIFIED_ALLELE.equals(name);
+	}
+
+	/**
+	 * @param vc
+	 *            the {@link VariantContext} to check
+	 * @return whether or not <code>vc</code> has no alternative alleles besides the gVCF placeholders
+	 */
+	public static boolean isReferenceBlock(VariantContext vc) {
+		for (Allele allele : vc.getAlternateAlleles())
+			if (!isNonRefAllele(allele))
+				return false;
+		return true;
+	}
+
+	/** @return whether or not <code>vc</code> is a reference block, see {@link #isReferenceBlock} */
+	@Override
+	public boolean test(VariantContext vc) {
+		return isReferenceBlock(vc);
+	}
+
+	/**
+	 * Count <code>vc</code> as passed through or annotated, for use in <code>Stream.peek()</code>
+	 *
+	 * @param vc
+	 *            {@link VariantContext} to count
+	 */
+	public void count(VariantContext vc) {
+		if (isReferenceBlock(vc))
+			numPassedThrough.increment();
+		else
+			numAnnotated.increment();
+	}
+
+	/**
+	 * Wrap annotation step such that it returns reference blocks unchanged
+	 *
+	 * @param step
+	 *            The annotation step to wrap
+	 * @return wrapped step
+	 */
+	public Function<VariantContext, VariantContext> guard(Function<VariantContext, VariantContext> step) {
+		return vc -> isReferenceBlock(vc) ? vc : step.apply(vc);
+	}
+
+	/** @return number of reference blocks counted so far */
+	public long getNumPassedThrough() {
+		return numPassedThrough.sum();
+	}
+
+	/** @return number of records with real alternative alleles counted so far */
+	public long getNumAnnotated() {
+		return numAnnotated.sum();
+	}
+
+}
@@ -1,6 +1,5 @@
 package de.charite.compbio.jannovar.htsjdk;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -17,6 +16,8 @@ import com.google.common.collect.ImmutableSet;
 
 import de.charite.compbio.jannovar.annotation.Annotation;
 import de.charite.compbio.jannovar.annotation.AnnotationMessage;
+import de.charite.compbio.jannovar.annotation.StructuralVariantType;
+import de.charite.compbio.jannovar.annotation.VCFAnnotationSerializer;
 import de.charite.compbio.jannovar.annotation.VariantAnnotations;
 import de.charite.compbio.jannovar.annotation.VariantAnnotator;
 import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
@@ -24,6 +25,7 @@ import de.charite.compbio.jannovar.data.Chromosome;
 import de.charite.compbio.jannovar.data.JannovarData;
 import de.charite.compbio.jannovar.data.ReferenceDictionary;
 import de.charite.compbio.jannovar.hgvs.AminoAcidCode;
+import de.charite.compbio.jannovar.reference.GenomeInterval;
 import de.charite.compbio.jannovar.reference.GenomePosition;
 import de.charite.compbio.jannovar.reference.GenomeVariant;
 import de.charite.compbio.jannovar.reference.PositionType;
@@ -32,6 +34,7 @@ import de.charite.compbio.jannovar.reference.TranscriptModel;
 import htsjdk.variant.variantcontext.Allele;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.vcf.VCFConstants;
 
 /**
  * Helper class for generating {@link VariantAnnotations} objects from {@link VariantContext}s.
@@ -77,6 +80,15 @@ public final class VariantContextAnnotator {
 		/** Whether or not non-consensus splice region counts as off-target */
 		private boolean offTargetFilterIntronicSpliceIsOffTarget;
 
+		/** Name of the INFO field to write the annotations to (defaults to <code>"ANN"</code>) */
+		private final String infoFieldName;
+
+		/**
+		 * Whether or not the input is a gVCF file, in which case the <tt>&lt;NON_REF&gt;</tt> and <tt>&lt;*&gt;</tt>
+		 * placeholder alleles are not annotated (defaults to <code>false</code>)
+		 */
+		private final boolean gvcfMode;
+
 		/**
 		 * Constructor
 		 */
@@ -88,6 +100,8 @@ public final class VariantContextAnnotator {
 			offTargetFilterEnabled = false;
 			offTargetFilterUtrIsOffTarget = false;
 			offTargetFilterIntronicSpliceIsOffTarget = false;
+			infoFieldName = VariantEffectHeaderExtender.INFO_ANN;
+			gvcfMode = false;
 		}
 
 		/**
@@ -116,6 +130,41 @@ public final class VariantContextAnnotator {
 		public Options(boolean oneAnnotationOnly, AminoAcidCode code, boolean escapeAnnField, boolean nt3PrimeShifting,
 				boolean offTargetFilterEnabled, boolean offTargetFilterUtrIsOffTarget,
 				boolean offTargetFilterIntronicSpliceIsOffTarget) {
+			this(oneAnnotationOnly, code, escapeAnnField, nt3PrimeShifting, offTargetFilterEnabled,
+					offTargetFilterUtrIsOffTarget, offTargetFilterIntronicSpliceIsOffTarget,
+					VariantEffectHeaderExtender.INFO_ANN);
+		}
+
+		/**
+		 * Constructor using fields, with a custom INFO field name
+		 *
+		 * See {@link #Options(boolean, AminoAcidCode, boolean, boolean, boolean, boolean, boolean)} for the other
+		 * parameters.
+		 *
+		 * @param infoFieldName
+		 *            name of the INFO field to write the annotations to, e.g., <code>"ANN_REFSEQ"</code> when
+		 *            annotating against several databases
+		 */
+		public Options(boolean oneAnnotationOnly, AminoAcidCode code, boolean escapeAnnField, boolean nt3PrimeShifting,
+				boolean offTargetFilterEnabled, boolean offTargetFilterUtrIsOffTarget,
+				boolean offTargetFilterIntronicSpliceIsOffTarget, String infoFieldName) {
+			this(oneAnnotationOnly, code, escapeAnnField, nt3PrimeShifting, offTargetFilterEnabled,
+					offTargetFilterUtrIsOffTarget, offTargetFilterIntronicSpliceIsOffTarget, infoFieldName, false);
+		}
+
+		/**
+		 * Constructor using fields, with a custom INFO field name and gVCF mode
+		 *
+		 * See {@link #Options(boolean, AminoAcidCode, boolean, boolean, boolean, boolean, boolean, String)} for the
+		 * other parameters.
+		 *
+		 * @param gvcfMode
+		 *            whether or not the input is a gVCF file, such that the <tt>&lt;NON_REF&gt;</tt> and
+		 *            <tt>&lt;*&gt;</tt> placeholder alleles are left without annotation
+		 */
+		public Options(boolean oneAnnotationOnly, AminoAcidCode code, boolean escapeAnnField, boolean nt3PrimeShifting,
+				boolean offTargetFilterEnabled, boolean offTargetFilterUtrIsOffTarget,
+				boolean offTargetFilterIntronicSpliceIsOffTarget, String infoFieldName, boolean gvcfMode) {
 			this.oneAnnotationOnly = oneAnnotationOnly;
 			this.aminoAcidCode = code;
 			this.escapeAnnField = escapeAnnField;
@@ -123,6 +172,8 @@ public final class VariantContextAnnotator {
 			this.offTargetFilterEnabled = offTargetFilterEnabled;
 			this.offTargetFilterUtrIsOffTarget = offTargetFilterUtrIsOffTarget;
 			this.offTargetFilterIntronicSpliceIsOffTarget = offTargetFilterIntronicSpliceIsOffTarget;
+			this.infoFieldName = infoFieldName;
+			this.gvcfMode = gvcfMode;
 		}
 
 		/**
@@ -158,6 +209,20 @@ public final class VariantContextAnnotator {
 			return offTargetFilterIntronicSpliceIsOffTarget;
 		}
 
+		/**
+		 * @return name of the INFO field to write the annotations to
+		 */
+		public String getInfoFieldName() {
+			return infoFieldName;
+		}
+
+		/**
+		 * @return whether or not the input is a gVCF file and the placeholder alleles are not annotated
+		 */
+		public boolean isGvcfMode() {
+			return gvcfMode;
+		}
+
 	}
 
 	/** the {@link ReferenceDictionary} to use */
@@ -244,14 +309,30 @@ public final class VariantContextAnnotator {
 	 *             in the case that the reference in <code>vc</code> is not known in {@link #refDict}.
 	 */
 	public GenomeVariant buildGenomeVariant(VariantContext vc, int alleleID) throws InvalidCoordinatesException {
+		return buildGenomeVariant(vc, alleleID, resolveContig(vc));
+	}
+
+	/**
+	 * Resolve the contig of <code>vc</code> to its numeric ID in {@link #refDict}
+	 *
+	 * @param vc
+	 *            {@link VariantContext} describing the variant
+	 * @return numeric ID of the contig of <code>vc</code>
+	 * @throws InvalidCoordinatesException
+	 *             in the case that the reference in <code>vc</code> is not known in {@link #refDict}.
+	 */
+	public int resolveContig(VariantContext vc) throws InvalidCoordinatesException {
 		// Catch the case that vc.getChr() is not in ChromosomeMap.identifier2chromosom. This is the case
 		// for the "random" and "alternative locus" contigs etc.
 		Integer boxedInt = refDict.getContigNameToID().get(vc.getContig());
 		if (boxedInt == null)
 			throw new InvalidCoordinatesException("Unknown reference " + vc.getContig(),
 					AnnotationMessage.ERROR_CHROMOSOME_NOT_FOUND);
-		int chr = boxedInt.intValue();
+		return boxedInt.intValue();
+	}
 
+	/** Build a {@link GenomeVariant} for allele <code>alleleID</code> of <code>vc</code> on the resolved contig */
+	private GenomeVariant buildGenomeVariant(VariantContext vc, int alleleID, int chr) {
 		// Build the GenomeChange object.
 		final String ref = vc.getReference().getBaseString();
 		final Allele altAllele = vc.getAlternateAllele(alleleID);
@@ -261,7 +342,47 @@ public final class VariantContextAnnotator {
 	}
 
 	/**
-	 * Put error annotation messages to a {@link VariantContext} into the ANN field in the INFO column.
+	 * Build the affected {@link GenomeInterval} of a symbolic allele
+	 *
+	 * The interval starts after the padding base at <code>POS</code> and ends at <code>END</code>. If <code>END</code>
+	 * is not given then the absolute value of <code>SVLEN</code> for the allele is used as the length. Insertions and
+	 * break-ends yield an empty interval.
+	 *
+	 * @param vc
+	 *            the VCF record
+	 * @param alleleID
+	 *            index of the alternative allele
+	 * @param change
+	 *            the {@link GenomeVariant} built for the allele
+	 * @param svType
+	 *            the {@link StructuralVariantType} of the allele
+	 * @return the affected {@link GenomeInterval}
+	 */
+	private GenomeInterval buildStructuralVariantInterval(VariantContext vc, int alleleID, GenomeVariant change,
+			StructuralVariantType svType) {
+		final GenomePosition begin = new GenomePosition(refDict, Strand.FWD, change.getChr(), vc.getStart(),
+				PositionType.ZERO_BASED);
+		if (svType.isPoint())
+			return new GenomeInterval(begin, 0);
+
+		int end = vc.getEnd();
+		if (!vc.hasAttribute(VCFConstants.END_KEY)) {
+			final List<Object> svLens = vc.getAttributeAsList("SVLEN");
+			if (!svLens.isEmpty()) {
+				final Object svLen = svLens.get(Math.min(alleleID, svLens.size() - 1));
+				try {
+					end = vc.getStart() + Math.abs(Integer.parseInt(svLen.toString()));
+				} catch (NumberFormatException e) {
+					// keep end from the REF allele
+				}
+			}
+		}
+		return new GenomeInterval(begin, Math.max(0, end - vc.getStart()));
+	}
+
+	/**
+	 * Put error annotation messages to a {@link VariantContext} into the ANN field (or the configured INFO field) in
+	 * the INFO column.
 	 *
 	 * Previous values are overwritten.
 	 *
@@ -276,7 +397,7 @@ public final class VariantContextAnnotator {
 
 		// If a VC builder is used before the attributes can be unmodifiable.
 		Map<String, Object> attributes = new HashMap<>(vc.getAttributes());
-		attributes.put("ANN", annotation);
+		attributes.put(options.infoFieldName, annotation);
 		vc.getCommonInfo().setAttributes(attributes);
 	}
 
@@ -288,7 +409,7 @@ public final class VariantContextAnnotator {
 	 */
 	public VariantContext annotateVariantContext(VariantContext vc) {
 		try {
-			vc = applyAnnotations(vc, buildAnnotations(vc));
+			vc = applyAnnotations(vc, buildConfiguredAnnotations(vc));
 		} catch (InvalidCoordinatesException e) {
 			putErrorAnnotation(vc, ImmutableSet.of(e.getAnnotationMessage()));
 		}
@@ -299,6 +420,9 @@ public final class VariantContextAnnotator {
 	/**
 	 * Given a {@link VariantContext}, generate one {@link VariantAnnotations} for each alternative allele.
 	 *
+	 * In gVCF mode (see {@link Options#isGvcfMode}), the placeholder alleles <tt>&lt;NON_REF&gt;</tt> and
+	 * <tt>&lt;*&gt;</tt> get an empty {@link VariantAnnotations}, see {@link ReferenceBlockBypass#isNonRefAllele}.
+	 *
 	 * Note that in the case of an exception being thrown, you have to add an error annotation yourself to the
 	 * {@link VariantContext} yourself, e.g. by using {@link #putErrorAnnotation}.
 	 *
@@ -311,15 +435,79 @@ public final class VariantContextAnnotator {
 	 *             {@link GenomeVariant} object one one of the returned {@link VariantAnnotations}s.
 	 */
 	public ImmutableList<VariantAnnotations> buildAnnotations(VariantContext vc) throws InvalidCoordinatesException {
+		return buildAnnotations(vc, false);
+	}
+
+	/**
+	 * Variant of {@link #buildAnnotations(VariantContext)} that builds the annotations as needed by
+	 * {@link #annotateVariantContext}, i.e., only the highest-impact annotations in full when configured to write one
+	 * annotation only
+	 *
+	 * This does not modify <code>vc</code> and can be used for building the annotations concurrently to other work on
+	 * the same record, passing the result to {@link #applyAnnotations} afterwards.
+	 *
+	 * @param vc
+	 *            the VCF record to annotate, remains unchanged
+	 * @return {@link ImmutableList} of {@link VariantAnnotations}s, one for each alternative allele
+	 * @throws InvalidCoordinatesException
+	 *             in the case of problems with resolving coordinates internally
+	 */
+	public ImmutableList<VariantAnnotations> buildConfiguredAnnotations(VariantContext vc)
+			throws InvalidCoordinatesException {
+		return buildAnnotations(vc, options.oneAnnotationOnly);
+	}
+
+	/**
+	 * Variant of {@link #buildConfiguredAnnotations(VariantContext)} with the contig already resolved through
+	 * {@link #resolveContig}, possibly by another annotator with the same contigs
+	 *
+	 * @param vc
+	 *            the VCF record to annotate, remains unchanged
+	 * @param chr
+	 *            numeric ID of the contig of <code>vc</code>
+	 * @return {@link ImmutableList} of {@link VariantAnnotations}s, one for each alternative allele
+	 */
+	ImmutableList<VariantAnnotations> buildConfiguredAnnotations(VariantContext vc, int chr) {
+		return buildAnnotations(vc, chr, options.oneAnnotationOnly);
+	}
+
+	/**
+	 * Variant of {@link #buildAnnotations(VariantContext)} that only builds the highest-impact annotations in full if
+	 * <code>bestOnly</code>, see {@link VariantAnnotator#buildBestAnnotations}
+	 */
+	private ImmutableList<VariantAnnotations> buildAnnotations(VariantContext vc, boolean bestOnly)
+			throws InvalidCoordinatesException {
+		if (vc.getAlternateAlleles().isEmpty())
+			return ImmutableList.of();
+		return buildAnnotations(vc, resolveContig(vc), bestOnly);
+	}
+
+	/** Variant of {@link #buildAnnotations(VariantContext, boolean)} with the contig resolved to <code>chr</code> */
+	private ImmutableList<VariantAnnotations> buildAnnotations(VariantContext vc, int chr, boolean bestOnly) {
 		LOGGER.trace("building annotation lists for {}", new Object[] { vc });
 
 		ImmutableList.Builder<VariantAnnotations> builder = new ImmutableList.Builder<VariantAnnotations>();
 		for (int alleleID = 0; alleleID < vc.getAlternateAlleles().size(); ++alleleID) {
-			GenomeVariant change = buildGenomeVariant(vc, alleleID);
+			GenomeVariant change = buildGenomeVariant(vc, alleleID, chr);
+
+			// The gVCF placeholder for any other allele does not describe a variant, leave it without annotation
+			if (options.isGvcfMode() && ReferenceBlockBypass.isNonRefAllele(vc.getAlternateAllele(alleleID))) {
+				builder.add(VariantAnnotations.buildEmptyList(change));
+				continue;
+			}
 
 			// Build AnnotationList object for this allele.
 			try {
-				final VariantAnnotations lst = annotator.buildAnnotations(change);
+				final VariantAnnotations lst;
+				if (change.isSymbolic()) {
+					final StructuralVariantType svType = StructuralVariantType.fromSymbolicAllele(change.getAlt());
+					lst = annotator.buildStructuralVariantAnnotations(change,
+							buildStructuralVariantInterval(vc, alleleID, change, svType), svType);
+				} else if (bestOnly) {
+					lst = annotator.buildBestAnnotations(change);
+				} else {
+					lst = annotator.buildAnnotations(change);
+				}
 				builder.add(lst);
 				LOGGER.trace("adding annotation list {}", new Object[] { lst });
 			} catch (Exception e) {
@@ -342,41 +530,72 @@ public final class VariantContextAnnotator {
 	 * @return modified <code>vc</code>
 	 */
 	public VariantContext applyAnnotations(VariantContext vc, List<VariantAnnotations> annos) {
-		// Whether or not variant is off-target in all annotations
-		boolean offTargetInAll = true;
+		return applyAnnotations(vc, annos, options.isOffTargetFilterEnabled());
+	}
 
-		ArrayList<String> annotations = new ArrayList<String>();
+	/**
+	 * Write annotations from <code>annos</code> to <code>vc</code>, optionally without setting the off-target filter
+	 *
+	 * This is used by {@link MultiDatabaseVariantContextAnnotator} for deciding on the off-target filter over all
+	 * databases, see {@link #isOffTarget}.
+	 *
+	 * @param vc
+	 *            {@link VariantContext} to write the annotations to (to INFO column)
+	 * @param annos
+	 *            annotations to apply (one for each alternative allele in <code>vc</code>)
+	 * @param applyOffTargetFilter
+	 *            whether or not to add {@link VariantEffectHeaderExtender#FILTER_EFFECT_OFF_EXOME} if the variant is
+	 *            off-target
+	 * @return modified <code>vc</code>
+	 */
+	VariantContext applyAnnotations(VariantContext vc, List<VariantAnnotations> annos, boolean applyOffTargetFilter) {
+		// Serialize directly into the buffer of the current thread
+		final VCFAnnotationSerializer annotations = VCFAnnotationSerializer.forCurrentThread();
 		for (int alleleID = 0; alleleID < vc.getAlternateAlleles().size(); ++alleleID) {
 			if (!annos.get(alleleID).getAnnotations().isEmpty()) {
+				final String alt = vc.getAlternateAllele(alleleID).getBaseString();
 				for (Annotation ann : annos.get(alleleID).getAnnotations()) {
-					boolean offTargetInThis = ann.getEffects().stream()
-							.allMatch(e -> e.isOffExome(options.offTargetFilterUtrIsOffTarget,
-									options.offTargetFilterIntronicSpliceIsOffTarget));
-					offTargetInAll = offTargetInAll && offTargetInThis;
-
-					if (!options.oneAnnotationOnly || annotations.isEmpty()) {
-						final String alt = vc.getAlternateAllele(alleleID).getBaseString();
-						annotations.add(ann.toVCFAnnoString(alt, options.aminoAcidCode));
-					}
+					if (!options.oneAnnotationOnly || annotations.isEmpty())
+						annotations.append(ann, alt, options.aminoAcidCode);
 				}
 			}
 		}
 
-		if (options.isOffTargetFilterEnabled() && (offTargetInAll && !annotations.isEmpty())) {
+		if (applyOffTargetFilter && isOffTarget(annos)) {
 			Set<String> filters = new HashSet<>(vc.getFilters());
 			filters.add(VariantEffectHeaderExtender.FILTER_EFFECT_OFF_EXOME);
 			vc = new VariantContextBuilder(vc).filters(filters).make();
 		}
 
 		// If a VC builder is used before the attributes can be unmodifiable.
-		Map<String, Object> attributes = new HashMap<>(vc.getAttributes());
-		if (!annotations.isEmpty())
-			attributes.put("ANN", Joiner.on(',').join(annotations));
-		vc.getCommonInfo().setAttributes(attributes);
+		if (!annotations.isEmpty()) {
+			Map<String, Object> attributes = new HashMap<>(vc.getAttributes());
+			attributes.put(options.infoFieldName, annotations.toString());
+			vc.getCommonInfo().setAttributes(attributes);
+		}
 
 		return vc;
 	}
 
+	/**
+	 * @param annos
+	 *            annotations for the alternative alleles of a variant
+	 * @return whether or not there is at least one annotation in <code>annos</code> and all annotations are off-target,
+	 *         with the UTR and intronic splice settings from {@link Options}
+	 */
+	public boolean isOffTarget(List<VariantAnnotations> annos) {
+		boolean hasAnnotations = false;
+		for (VariantAnnotations alleleAnnos : annos) {
+			for (Annotation ann : alleleAnnos.getAnnotations()) {
+				hasAnnotations = true;
+				if (!ann.getEffects().stream().allMatch(e -> e.isOffExome(options.offTargetFilterUtrIsOffTarget,
+						options.offTargetFilterIntronicSpliceIsOffTarget)))
+					return false;
+			}
+		}
+		return hasAnnotations;
+	}
+
 	/**
 	 * @param change
 	 *            {@link GenomeVariant} to build error annotation for
@@ -0,0 +1,409 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.google.common.collect.ImmutableList;
+
+import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.UncheckedJannovarException;
+import de.charite.compbio.jannovar.mendel.filter.VariantContextFilterException;
+import de.charite.compbio.jannovar.mendel.filter.VariantContextProcessor;
+import htsjdk.variant.variantcontext.VariantContext;
+
+/**
+ * Pipeline of annotation and filtration stages for {@link VariantContext}s, optionally run on a pool of worker threads
+ *
+ * Each stage is a function from {@link VariantContext} to {@link VariantContext}, returning <code>null</code> drops
+ * the record from the output. Each worker thread has its own instance of every stage, built by the stage's
+ * {@link StageFactory}, such that stages holding file handles or caches (e.g., the database annotators) do not need to
+ * be thread-safe. Stages that are thread-safe can be shared by all workers through {@link Builder#addSharedStage}.
+ *
+ * The records are written out in the order of input. At most {@link #getMaxInFlight} records are processed at the
+ * same time, reading further input blocks until the oldest one is done, such that a slow consumer slows down the
+ * reading of the input. Input can be pulled from an {@link Iterator} or {@link Stream} through {@link #iterator},
+ * {@link #stream}, and {@link #run}, or pushed through the {@link VariantContextProcessor} from {@link #processor}.
+ *
+ * Without worker threads, all stages are run on the calling thread, one record at a time, and only the first instance
+ * of each stage is built.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public final class VariantContextPipeline implements AutoCloseable {
+
+	/**
+	 * Factory for the instances of a stage, called once for each worker
+	 */
+	@FunctionalInterface
+	public interface StageFactory {
+
+		/**
+		 * @return new instance of the stage
+		 * @throws JannovarException
+		 *             on problems building the stage, e.g., opening files
+		 */
+		Function<VariantContext, VariantContext> create() throws JannovarException;
+
+	}
+
+	/**
+	 * Builder for {@link VariantContextPipeline}
+	 */
+	public static final class Builder {
+
+		/** names of the stages, in order */
+		private final List<String> names = new ArrayList<>();
+		/** factories of the stages, in order */
+		private final List<StageFactory> factories = new ArrayList<>();
+		/** number of worker threads */
+		private int numThreads = 0;
+		/** maximal number of records in flight, <code>0</code> for the default */
+		private int maxInFlight = 0;
+
+		private Builder() {
+		}
+
+		/**
+		 * Add stage whose instances are built by <code>factory</code>, once for each worker
+		 *
+		 * @param name
+		 *            name of the stage
+		 * @param factory
+		 *            factory for the instances of the stage
+		 * @return <code>this</code>
+		 */
+		public Builder addStage(String name, StageFactory factory) {
+			names.add(name);
+			factories.add(factory);
+			return this;
+		}
+
+		/**
+		 * Add stage with an already built first instance, e.g., one that was used for extending the VCF header
+		 *
+		 * @param name
+		 *            name of the stage
+		 * @param first
+		 *            the instance for the first worker
+		 * @param factory
+		 *            factory for the instances of the further workers
+		 * @return <code>this</code>
+		 */
+		public Builder addStage(String name, Function<VariantContext, VariantContext> first, StageFactory factory) {
+			final boolean[] used = { false };
+			return addStage(name, () -> {
+				if (used[0])
+					return factory.create();
+				used[0] = true;
+				return first;
+			});
+		}
+
+		/**
+		 * Add thread-safe stage that is shared by all workers
+		 *
+		 * @param name
+		 *            name of the stage
+		 * @param stage
+		 *            the stage, must be thread-safe
+		 * @return <code>this</code>
+		 */
+		public Builder addSharedStage(String name, Function<VariantContext, VariantContext> stage) {
+			return addStage(name, () -> stage);
+		}
+
+		/**
+		 * @param numThreads
+		 *            number of worker threads, <code>0</code> for running all stages on the calling thread
+		 * @return <code>this</code>
+		 */
+		public Builder numThreads(int numThreads) {
+			if (numThreads < 0)
+				throw new IllegalArgumentException("Number of threads must not be negative but was " + numThreads);
+			this.numThreads = numThreads;
+			return this;
+		}
+
+		/**
+		 * @param maxInFlight
+		 *            maximal number of records processed at the same time, <code>0</code> for four times the number of
+		 *            threads
+		 * @return <code>this</code>
+		 */
+		public Builder maxInFlight(int maxInFlight) {
+			if (maxInFlight < 0)
+				throw new IllegalArgumentException("Maximal number of records in flight must not be negative but was "
+						+ maxInFlight);
+			this.maxInFlight = maxInFlight;
+			return this;
+		}
+
+		/**
+		 * Build the pipeline, building the instances of the stages for all workers on the calling thread
+		 *
+		 * @return the {@link VariantContextPipeline}
+		 * @throws JannovarException
+		 *             on problems building the stages
+		 */
+		public VariantContextPipeline build() throws JannovarException {
+			return new VariantContextPipeline(this);
+		}
+
+	}
+
+	/** names of the stages, in order */
+	private final ImmutableList<String> stageNames;
+	/** number of worker threads, <code>0</code> for running the stages on the calling thread */
+	private final int numThreads;
+	/** maximal number of records in flight */
+	private final int maxInFlight;
+	/** instances of the stages, one list for each worker, taken by a worker for the duration of one record */
+	private final BlockingQueue<ImmutableList<Function<VariantContext, VariantContext>>> workerStages;
+	/** pool of worker threads, <code>null</code> for running the stages on the calling thread */
+	private final ThreadPoolExecutor executor;
+
+	private VariantContextPipeline(Builder builder) throws JannovarException {
+		this.stageNames = ImmutableList.copyOf(builder.names);
+		this.numThreads = builder.numThreads;
+		this.maxInFlight = (builder.maxInFlight > 0) ? builder.maxInFlight : Math.max(1, 4 * numThreads);
+
+		final int numWorkers = Math.max(1, numThreads);
+		this.workerStages = new ArrayBlockingQueue<>(numWorkers);
+		for (int i = 0; i < numWorkers; ++i) {
+			ImmutableList.Builder<Function<VariantContext, VariantContext>> stages = ImmutableList.builder();
+			for (StageFactory factory : builder.factories)
+				stages.add(factory.create());
+			workerStages.add(stages.build());
+		}
+
+		if (numThreads > 0) {
+			// Idle threads terminate, such that the pool does not need to be shut down explicitly.
+			this.executor = new ThreadPoolExecutor(numThreads, numThreads, 1, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<>(), r -> {
+						Thread t = new Thread(r, "pipeline-worker");
+						t.setDaemon(true);
+						return t;
+					});
+			this.executor.allowCoreThreadTimeOut(true);
+		} else {
+			this.executor = null;
+		}
+	}
+
+	/** @return new {@link Builder} */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/** @return names of the stages, in order */
+	public ImmutableList<String> getStageNames() {
+		return stageNames;
+	}
+
+	/** @return number of worker threads, <code>0</code> for running the stages on the calling thread */
+	public int getNumThreads() {
+		return numThreads;
+	}
+
+	/** @return maximal number of records processed at the same time */
+	public int getMaxInFlight() {
+		return maxInFlight;
+	}
+
+	/**
+	 * Run all stages on <code>vc</code> using the stage instances of one worker
+	 *
+	 * @return the result, <code>null</code> if dropped by a stage
+	 */
+	private VariantContext process(VariantContext vc) throws InterruptedException {
+		final ImmutableList<Function<VariantContext, VariantContext>> stages = workerStages.take();
+		try {
+			for (Function<VariantContext, VariantContext> stage : stages) {
+				vc = stage.apply(vc);
+				if (vc == null)
+					break;
+			}
+			return vc;
+		} finally {
+			workerStages.add(stages);
+		}
+	}
+
+	/**
+	 * Start processing <code>vc</code>, on a worker thread if there is one
+	 *
+	 * @return {@link Future} for the result, <code>null</code> if dropped
+	 */
+	private Future<VariantContext> submit(VariantContext vc) {
+		if (executor != null)
+			return executor.submit(() -> process(vc));
+		final CompletableFuture<VariantContext> result = new CompletableFuture<>();
+		try {
+			result.complete(process(vc));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new UncheckedJannovarException("Interrupted while processing " + vc, e);
+		}
+		return result;
+	}
+
+	/**
+	 * Wait for <code>future</code>, rethrowing problems of the stages
+	 *
+	 * @return the result, <code>null</code> if dropped
+	 */
+	private static VariantContext await(Future<VariantContext> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new UncheckedJannovarException("Interrupted while waiting for annotation pipeline", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			if (e.getCause() instanceof Error)
+				throw (Error) e.getCause();
+			throw new UncheckedJannovarException("Problem in annotation pipeline", e.getCause());
+		}
+	}
+
+	/**
+	 * Process the records from <code>input</code>
+	 *
+	 * The input is read ahead by up to {@link #getMaxInFlight} records when advancing the returned iterator.
+	 *
+	 * @param input
+	 *            the records to process
+	 * @return {@link Iterator} over the processed records, in the order of input, without the dropped ones
+	 */
+	public Iterator<VariantContext> iterator(Iterator<VariantContext> input) {
+		return new Iterator<VariantContext>() {
+
+			/** records in flight, in order of input */
+			private final ArrayDeque<Future<VariantContext>> pending = new ArrayDeque<>();
+			/** the next processed record, <code>null</code> if not known yet */
+			private VariantContext next = null;
+
+			@Override
+			public boolean hasNext() {
+				while (next == null) {
+					while (pending.size() < maxInFlight && input.hasNext())
+						pending.addLast(submit(input.next()));
+					if (pending.isEmpty())
+						return false;
+					next = await(pending.removeFirst());
+				}
+				return true;
+			}
+
+			@Override
+			public VariantContext next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+				final VariantContext result = next;
+				next = null;
+				return result;
+			}
+
+		};
+	}
+
+	/**
+	 * Process the records from <code>input</code>, see {@link #iterator}
+	 *
+	 * @param input
+	 *            the records to process, must be sequential
+	 * @return sequential {@link Stream} of the processed records, in the order of input, without the dropped ones
+	 */
+	public Stream<VariantContext> stream(Stream<VariantContext> input) {
+		return StreamSupport
+				.stream(Spliterators.spliteratorUnknownSize(iterator(input.iterator()),
+						Spliterator.ORDERED | Spliterator.NONNULL), false)
+				.onClose(input::close);
+	}
+
+	/**
+	 * Process all records from <code>input</code> and pass the results to <code>sink</code>, in the order of input
+	 *
+	 * @param input
+	 *            the records to process
+	 * @param sink
+	 *            receives the processed records, without the dropped ones
+	 */
+	public void run(Iterator<VariantContext> input, Consumer<VariantContext> sink) {
+		iterator(input).forEachRemaining(sink);
+	}
+
+	/**
+	 * Build {@link VariantContextProcessor} for pushing records into the pipeline
+	 *
+	 * Calls to {@link VariantContextProcessor#put} block while {@link #getMaxInFlight} records are in flight. Closing
+	 * the processor waits for all records and closes <code>sink</code>. The processor must be used by one thread at a
+	 * time.
+	 *
+	 * @param sink
+	 *            receives the processed records, in the order of input, without the dropped ones
+	 * @return the {@link VariantContextProcessor} to put the records into
+	 */
+	public VariantContextProcessor processor(VariantContextProcessor sink) {
+		return new VariantContextProcessor() {
+
+			/** records in flight, in order of input */
+			private final ArrayDeque<Future<VariantContext>> pending = new ArrayDeque<>();
+
+			/** Pass the oldest record to the sink, waiting for it to be done */
+			private void emitFirst() throws VariantContextFilterException {
+				final VariantContext vc = await(pending.removeFirst());
+				if (vc != null)
+					sink.put(vc);
+			}
+
+			@Override
+			public void put(VariantContext vc) throws VariantContextFilterException {
+				while (pending.size() >= maxInFlight)
+					emitFirst();
+				pending.addLast(submit(vc));
+				while (!pending.isEmpty() && pending.peekFirst().isDone())
+					emitFirst();
+			}
+
+			@Override
+			public void close() {
+				try {
+					while (!pending.isEmpty())
+						emitFirst();
+				} finally {
+					sink.close();
+				}
+			}
+
+		};
+	}
+
+	/**
+	 * Shut down the worker threads, processing of records in flight is cancelled
+	 */
+	@Override
+	public void close() {
+		if (executor != null)
+			executor.shutdownNow();
+	}
+
+}
@@ -1,12 +1,16 @@
 package de.charite.compbio.jannovar.htsjdk;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Collection;
 
 import com.google.common.collect.ImmutableList;
 
 import de.charite.compbio.jannovar.annotation.Annotation;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
 import htsjdk.variant.variantcontext.writer.Options;
 import htsjdk.variant.variantcontext.writer.VariantContextWriter;
 import htsjdk.variant.variantcontext.writer.VariantContextWriterBuilder;
@@ -98,6 +102,96 @@ public final class VariantContextWriterConstructionHelper {
 		return out;
 	}
 
+	/**
+	 * Return a new {@link ParallelBgzfVariantContextWriter} that compresses the output in multiple threads and uses
+	 * the header from <code>reader</code> but has the header extended header through {@link #extendHeaderFields}.
+	 *
+	 * @param header
+	 *            the VCF header to use for the construction
+	 * @param fileName
+	 *            path to output file, should end in <code>.vcf.gz</code>
+	 * @param additionalHeaderLines
+	 *            additional {@link VCFHeaderLine}s to add
+	 * @param generateIndex
+	 *            whether or not to generate a tabix index
+	 * @param numThreads
+	 *            number of threads to use for compression
+	 * @param compressionLevel
+	 *            compression level between <code>0</code> and <code>9</code>
+	 * @return A correct writer for variantContexts
+	 * @throws IOException
+	 *             on problems opening the output file
+	 */
+	public static VariantContextWriter openParallelBgzfVariantContextWriter(VCFHeader header, String fileName,
+			Collection<VCFHeaderLine> additionalHeaderLines, boolean generateIndex, int numThreads,
+			int compressionLevel) throws IOException {
+		VariantContextWriter out = new ParallelBgzfVariantContextWriter(new File(fileName),
+				header.getSequenceDictionary(), generateIndex, numThreads, compressionLevel);
+		final VCFHeader updatedHeader = extendHeaderFields(new VCFHeader(header));
+		for (VCFHeaderLine headerLine : additionalHeaderLines)
+			updatedHeader.addMetaDataLine(headerLine);
+		out.writeHeader(updatedHeader);
+		return out;
+	}
+
+	/**
+	 * Return a writer for one shard of <code>gatherer</code> that uses <code>header</code> extended through
+	 * {@link #extendHeaderFields}.
+	 *
+	 * @param header
+	 *            the VCF header to use for the construction
+	 * @param gatherer
+	 *            the {@link BgzfVCFShardGatherer} that the shard is later gathered with
+	 * @param shardFile
+	 *            path to the shard file
+	 * @param additionalHeaderLines
+	 *            additional {@link VCFHeaderLine}s to add
+	 * @return A correct writer for variantContexts
+	 * @throws IOException
+	 *             on problems opening the shard file
+	 */
+	public static VariantContextWriter openBgzfShardWriter(VCFHeader header, BgzfVCFShardGatherer gatherer,
+			File shardFile, Collection<VCFHeaderLine> additionalHeaderLines) throws IOException {
+		VariantContextWriter out = gatherer.openShardWriter(shardFile);
+		final VCFHeader updatedHeader = extendHeaderFields(new VCFHeader(header));
+		for (VCFHeaderLine headerLine : additionalHeaderLines)
+			updatedHeader.addMetaDataLine(headerLine);
+		out.writeHeader(updatedHeader);
+		return out;
+	}
+
+	/**
+	 * Return a new {@link PassThroughVCFWriter} that copies the genotype columns from <code>source</code> and uses
+	 * <code>header</code> extended through {@link #extendHeaderFields}.
+	 *
+	 * @param header
+	 *            the VCF header to use for the construction, including the samples
+	 * @param fileName
+	 *            path to output file, bgzip-compressed if it ends in <code>.gz</code>
+	 * @param additionalHeaderLines
+	 *            additional {@link VCFHeaderLine}s to add
+	 * @param source
+	 *            the {@link PassThroughVCFReader} that the records are read from
+	 * @return A correct writer for variantContexts
+	 * @throws IOException
+	 *             on problems opening the output file
+	 */
+	public static VariantContextWriter openPassThroughVCFWriter(VCFHeader header, String fileName,
+			Collection<VCFHeaderLine> additionalHeaderLines, PassThroughVCFReader source) throws IOException {
+		final OutputStream outStream;
+		if (fileName.endsWith(".gz"))
+			outStream = new BlockCompressedOutputStream(new File(fileName));
+		else
+			outStream = new BufferedOutputStream(new FileOutputStream(fileName));
+
+		VariantContextWriter out = new PassThroughVCFWriter(outStream, fileName, source);
+		final VCFHeader updatedHeader = extendHeaderFields(new VCFHeader(header));
+		for (VCFHeaderLine headerLine : additionalHeaderLines)
+			updatedHeader.addMetaDataLine(headerLine);
+		out.writeHeader(updatedHeader);
+		return out;
+	}
+
 	/**
 	 * Common parts of {@link VariantContextWriterBuilder} creation for the openVariantContextWriter functions.
 	 */
@@ -15,6 +15,27 @@ public class VariantEffectHeaderExtender {
 
 	public static String FILTER_EFFECT_OFF_EXOME = "OffExome";
 
+	/** Name of the standardized INFO field with the variant effects */
+	public static final String INFO_ANN = "ANN";
+
+	/** Name of the INFO field to add */
+	private final String infoFieldName;
+
+	/** Construct extender for the standardized ANN field */
+	public VariantEffectHeaderExtender() {
+		this(INFO_ANN);
+	}
+
+	/**
+	 * Construct extender for an INFO field with the given name, e.g., when annotating against several databases
+	 *
+	 * @param infoFieldName
+	 *            name of the INFO field with the variant effects
+	 */
+	public VariantEffectHeaderExtender(String infoFieldName) {
+		this.infoFieldName = infoFieldName;
+	}
+
 	/**
 	 * Add header entries.
 	 * 
@@ -23,8 +44,8 @@ public class VariantEffectHeaderExtender {
 	 */
 	public void addHeaders(VCFHeader header) {
 		// add INFO line for standardized ANN field
-		header.addMetaDataLine(
-				new VCFInfoHeaderLine("ANN", 1, VCFHeaderLineType.String, Annotation.VCF_ANN_DESCRIPTION_STRING));
+		header.addMetaDataLine(new VCFInfoHeaderLine(infoFieldName, 1, VCFHeaderLineType.String,
+				Annotation.VCF_ANN_DESCRIPTION_STRING));
 		// add FILTER line for standardized OffExome filter
 		header.addMetaDataLine(
 				new VCFFilterHeaderLine(FILTER_EFFECT_OFF_EXOME, "Variant off-exome in all effect predictions"));
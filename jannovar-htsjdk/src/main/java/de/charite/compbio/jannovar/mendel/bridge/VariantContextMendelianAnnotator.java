@@ -10,6 +10,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -57,6 +58,12 @@ public class VariantContextMendelianAnnotator {
 	private final static ImmutableSet<String> GT_FILTERS_HET =
 			ImmutableSet.of("MinCovHet", "MinAafHet", "MaxAafHet");
 
+	// Somewhat hacky but working inclusion of X and mitochondrial genomes
+	private final static ImmutableSet<String> X_NAMES =
+			ImmutableSet.of("x", "X", "23", "chrx", "chrX", "chr23");
+	private final static ImmutableSet<String> MT_NAMES = ImmutableSet.of("m",
+			"M", "mt", "MT", "chrm", "chrM", "chrmt", "chrMT");
+
 	/** Pedigree to use for checking for Mendelian compatibility */
 	private final Pedigree pedigree;
 	/** Implementation class to usee */
@@ -197,8 +204,11 @@ public class VariantContextMendelianAnnotator {
 			List<VariantContext> vcs)
 			throws CannotAnnotateMendelianInheritance {
 		// Perform annotation, preceded by building GenotypeCalls list
-		List<GenotypeCalls> gcs = buildGenotypeCalls(vcs);
-		List<GenotypeCalls> recessiveGCs = buildRecessiveGenotypeCalls(vcs);
+		final Function<VariantContext, GenotypeCalls> converter =
+				vc -> buildGenotypeCalls(vc, getChromosomeType(vc.getContig()));
+		List<GenotypeCalls> gcs = buildGenotypeCalls(vcs, converter);
+		List<GenotypeCalls> recessiveGCs = buildRecessiveGenotypeCalls(vcs,
+				converter);
 		ImmutableMap<ModeOfInheritance, ImmutableList<GenotypeCalls>> checkResult;
 		try {
 			checkResult = mendelChecker.checkMendelianInheritance(gcs, recessiveGCs);
@@ -216,7 +226,7 @@ public class VariantContextMendelianAnnotator {
 			ImmutableList.Builder<VariantContext> listBuilder =
 					new ImmutableList.Builder<>();
 			for (GenotypeCalls gc : e.getValue())
-				listBuilder.add(vcs.get((Integer) gc.getPayload()));
+				listBuilder.add((VariantContext) gc.getPayload());
 			builder.put(e.getKey(), listBuilder.build());
 		}
 		return builder.build();
@@ -237,9 +247,39 @@ public class VariantContextMendelianAnnotator {
 	public ImmutableMap<SubModeOfInheritance, ImmutableList<VariantContext>> computeCompatibleInheritanceSubModes(
 			List<VariantContext> vcs)
 			throws CannotAnnotateMendelianInheritance {
+		return computeCompatibleInheritanceSubModes(vcs,
+				vc -> buildGenotypeCalls(vc, getChromosomeType(vc.getContig())));
+	}
+
+	/**
+	 * Compute compatible modes of inheritance for a list of
+	 * {@link VariantContext} objects, using the given conversion to
+	 * {@link GenotypeCalls}
+	 *
+	 * This allows callers to reuse the {@link GenotypeCalls} of variants that
+	 * are checked more than once, e.g., for overlapping genes. The
+	 * {@link GenotypeCalls} returned by <code>converter</code> must have been
+	 * built with {@link #buildGenotypeCalls(VariantContext, ChromosomeType)}.
+	 *
+	 * @param vcs
+	 *            {@link VariantContext} objects to check for compatibility
+	 * @param converter
+	 *            conversion from {@link VariantContext} to
+	 *            {@link GenotypeCalls}
+	 * @return A {@link Map} from {@link SubModeOfInheritance} to the list of
+	 *         {@link VariantContext} in <code>vcs</code> that is compatible
+	 *         with each mode
+	 * @throws CannotAnnotateMendelianInheritance
+	 *             on problems with annotating mendelian inheritance
+	 */
+	public ImmutableMap<SubModeOfInheritance, ImmutableList<VariantContext>> computeCompatibleInheritanceSubModes(
+			List<VariantContext> vcs,
+			Function<VariantContext, GenotypeCalls> converter)
+			throws CannotAnnotateMendelianInheritance {
 		// Perform annotation, preceded by building GenotypeCalls list
-		List<GenotypeCalls> gcs = buildGenotypeCalls(vcs);
-		List<GenotypeCalls> recessiveGCs = buildRecessiveGenotypeCalls(vcs);
+		List<GenotypeCalls> gcs = buildGenotypeCalls(vcs, converter);
+		List<GenotypeCalls> recessiveGCs = buildRecessiveGenotypeCalls(vcs,
+				converter);
 		ImmutableMap<SubModeOfInheritance, ImmutableList<GenotypeCalls>> checkResult;
 		try {
 			checkResult = mendelChecker.checkMendelianInheritanceSub(gcs, recessiveGCs);
@@ -257,7 +297,7 @@ public class VariantContextMendelianAnnotator {
 			ImmutableList.Builder<VariantContext> listBuilder =
 					new ImmutableList.Builder<>();
 			for (GenotypeCalls gc : e.getValue())
-				listBuilder.add(vcs.get((Integer) gc.getPayload()));
+				listBuilder.add((VariantContext) gc.getPayload());
 			builder.put(e.getKey(), listBuilder.build());
 		}
 		return builder.build();
@@ -269,76 +309,96 @@ public class VariantContextMendelianAnnotator {
 	 *
 	 * @param vcs
 	 *            input {@link Collection} of {@link VariantContext} objects
+	 * @param converter
+	 *            conversion from {@link VariantContext} to
+	 *            {@link GenotypeCalls}
 	 * @return {@link List} of corresponding {@link GenotypeCalls} objects
 	 */
 	private List<GenotypeCalls> buildGenotypeCalls(
-			Collection<VariantContext> vcs) {
-		ArrayList<GenotypeCalls> result = new ArrayList<>();
-
-		// Somewhat hacky but working inclusion of X and mitochondrial genomes
-		final ImmutableList<String> xNames =
-				ImmutableList.of("x", "X", "23", "chrx", "chrX", "chr23");
-		final ImmutableList<String> mtNames = ImmutableList.of("m", "M", "mt",
-				"MT", "chrm", "chrM", "chrmt", "chrMT");
-
-		int i = 0;
-		for (VariantContext vc : vcs) {
-			GenotypeCallsBuilder builder = new GenotypeCallsBuilder();
-			builder.setPayload(i++);
-
-			if (xNames.contains(vc.getContig()))
-				builder.setChromType(ChromosomeType.X_CHROMOSOMAL);
-			else if (mtNames.contains(vc.getContig()))
-				builder.setChromType(ChromosomeType.MITOCHONDRIAL);
-			else
-				builder.setChromType(ChromosomeType.AUTOSOMAL);
-
-			for (Genotype gt : vc.getGenotypes()) {
-				List<String> gtFilters = new ArrayList<String>();
-				if (gt.getFilters() != null)
-					gtFilters.addAll(Arrays.asList(gt.getFilters().split(";")));
-
-				boolean isFiltered = false;
-				if (gt.isHet()) {
-					if (interpretGenotypeFilters && isFiltered(gtFilters,
-							GT_FILTERS, GT_FILTERS_HET))
-						isFiltered = true;
-				} else if (gt.isHomRef()) {
-					if (interpretGenotypeFilters && isFiltered(gtFilters,
-							GT_FILTERS, GT_FILTERS_HOM_REF))
-						isFiltered = true;
-				} else { // hom-alt or two overlapping hets, treated the same
-						 // for filtration
-					if (interpretGenotypeFilters && isFiltered(gtFilters,
-							GT_FILTERS, GT_FILTERS_HOM_ALT))
-						isFiltered = true;
-				}
+			Collection<VariantContext> vcs,
+			Function<VariantContext, GenotypeCalls> converter) {
+		ArrayList<GenotypeCalls> result = new ArrayList<>(vcs.size());
+		for (VariantContext vc : vcs)
+			result.add(converter.apply(vc));
+		return result;
+	}
 
-				GenotypeBuilder gtBuilder = new GenotypeBuilder();
-				for (Allele allele : gt.getAlleles()) {
-					if (isFiltered) {
-						gtBuilder.getAlleleNumbers().add(
-								de.charite.compbio.jannovar.mendel.Genotype.NO_CALL);
-					} else {
-						final int aIDX = vc.getAlleleIndex(allele);
-						gtBuilder.getAlleleNumbers().add(aIDX);
-					}
-				}
-				builder.getSampleToGenotype().put(gt.getSampleName(),
-						gtBuilder.build());
+	/**
+	 * @param contig
+	 *            name of the contig
+	 * @return {@link ChromosomeType} of the contig with the given name
+	 */
+	public static ChromosomeType getChromosomeType(String contig) {
+		if (X_NAMES.contains(contig))
+			return ChromosomeType.X_CHROMOSOMAL;
+		else if (MT_NAMES.contains(contig))
+			return ChromosomeType.MITOCHONDRIAL;
+		else
+			return ChromosomeType.AUTOSOMAL;
+	}
+
+	/**
+	 * Convert a {@link VariantContext} into a {@link GenotypeCalls} object
+	 *
+	 * The {@link VariantContext} is used as the payload of the result.
+	 *
+	 * @param vc
+	 *            the {@link VariantContext} to convert
+	 * @param chromType
+	 *            the {@link ChromosomeType} of the contig of <code>vc</code>,
+	 *            as returned by {@link #getChromosomeType(String)}
+	 * @return the corresponding {@link GenotypeCalls}
+	 */
+	public GenotypeCalls buildGenotypeCalls(VariantContext vc,
+			ChromosomeType chromType) {
+		GenotypeCallsBuilder builder = new GenotypeCallsBuilder();
+		builder.setPayload(vc);
+		builder.setChromType(chromType);
+
+		for (Genotype gt : vc.getGenotypes()) {
+			List<String> gtFilters = new ArrayList<String>();
+			if (gt.getFilters() != null)
+				gtFilters.addAll(Arrays.asList(gt.getFilters().split(";")));
+
+			boolean isFiltered = false;
+			if (gt.isHet()) {
+				if (interpretGenotypeFilters && isFiltered(gtFilters,
+						GT_FILTERS, GT_FILTERS_HET))
+					isFiltered = true;
+			} else if (gt.isHomRef()) {
+				if (interpretGenotypeFilters && isFiltered(gtFilters,
+						GT_FILTERS, GT_FILTERS_HOM_REF))
+					isFiltered = true;
+			} else { // hom-alt or two overlapping hets, treated the same
+					 // for filtration
+				if (interpretGenotypeFilters && isFiltered(gtFilters,
+						GT_FILTERS, GT_FILTERS_HOM_ALT))
+					isFiltered = true;
 			}
 
-			result.add(builder.build());
+			GenotypeBuilder gtBuilder = new GenotypeBuilder();
+			for (Allele allele : gt.getAlleles()) {
+				if (isFiltered) {
+					gtBuilder.getAlleleNumbers().add(
+							de.charite.compbio.jannovar.mendel.Genotype.NO_CALL);
+				} else {
+					final int aIDX = vc.getAlleleIndex(allele);
+					gtBuilder.getAlleleNumbers().add(aIDX);
+				}
+			}
+			builder.getSampleToGenotype().put(gt.getSampleName(),
+					gtBuilder.build());
 		}
 
-		return result;
+		return builder.build();
 	}
 
 	/**
 	 * Build and return List of GenotypeCalls object filtered with recessive
 	 * filter settings.
 	 */
-	List<GenotypeCalls> buildRecessiveGenotypeCalls(List<VariantContext> vcs) {
+	List<GenotypeCalls> buildRecessiveGenotypeCalls(List<VariantContext> vcs,
+			Function<VariantContext, GenotypeCalls> converter) {
 		// TODO: filter for synonymous variant currently broken if annotating
 		// with all variants... :(
 		final String synonymous =
@@ -358,7 +418,7 @@ public class VariantContextMendelianAnnotator {
 		}
 
 		return buildGenotypeCalls(vcs.stream().filter(keepFreqRecessive)
-				.collect(Collectors.toList()));
+				.collect(Collectors.toList()), converter);
 	}
 
 	/**
@@ -0,0 +1,178 @@
+package de.charite.compbio.jannovar.mendel.filter;
+
+import com.google.common.collect.ImmutableList;
+
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.impl.intervals.IntervalArray;
+import de.charite.compbio.jannovar.progress.GenomeRegion;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFFileReader;
+
+/**
+ * Split a genome into shards for scatter/gather processing, cutting only at positions outside of genes and variants
+ *
+ * No {@link Gene} of the {@link GeneList} built from the {@link JannovarData} and, if given, no variant spans a shard
+ * boundary. Thus, running a {@link GeneWiseMendelianAnnotationProcessor} on each shard separately yields the same
+ * result as running it on the whole file, as long as each variant is assigned to the shard containing its begin
+ * position. Without considering the variants, a deletion starting left of a cut could overlap a gene right of it and
+ * would be checked without the other variants of that gene.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public class GeneBoundaryShardPlanner {
+
+	/**
+	 * Lookup of the variants spanning a cut position
+	 */
+	@FunctionalInterface
+	public interface SpanningVariants {
+
+		/**
+		 * @param contig
+		 *            name of the contig
+		 * @param pos
+		 *            0-based cut position, between the bases <code>pos - 1</code> and <code>pos</code>
+		 * @return largest 0-based end position of the variants that begin before <code>pos</code> and end after it,
+		 *         or <code>pos</code> if there is no such variant
+		 */
+		int getEndPos(String contig, int pos);
+
+	}
+
+	/** {@link JannovarData} to use for resolving contig names */
+	private final JannovarData jannovarData;
+	/** List of genes, indexed by interval tree */
+	private final GeneList geneList;
+
+	/**
+	 * Construct planner
+	 *
+	 * @param jannovarData
+	 *            {@link JannovarData} object to use for getting the genes from
+	 */
+	public GeneBoundaryShardPlanner(JannovarData jannovarData) {
+		this(jannovarData, GeneList.build(jannovarData));
+	}
+
+	/**
+	 * Construct planner using a {@link GeneList} that has already been built from <code>jannovarData</code>
+	 *
+	 * @param jannovarData
+	 *            {@link JannovarData} object that <code>geneList</code> was built from
+	 * @param geneList
+	 *            {@link GeneList} built from <code>jannovarData</code>
+	 */
+	public GeneBoundaryShardPlanner(JannovarData jannovarData, GeneList geneList) {
+		this.jannovarData = jannovarData;
+		this.geneList = geneList;
+	}
+
+	/**
+	 * Compute shards for the contigs in <code>seqDict</code>, only considering the genes
+	 *
+	 * @param seqDict
+	 *            {@link SAMSequenceDictionary} with the contigs to split, e.g., from the VCF header
+	 * @param numShards
+	 *            target number of shards
+	 * @return {@link ImmutableList} of shards, in the order of <code>seqDict</code>
+	 * @see #planShards(SAMSequenceDictionary, int, SpanningVariants)
+	 */
+	public ImmutableList<GenomeRegion> planShards(SAMSequenceDictionary seqDict, int numShards) {
+		return planShards(seqDict, numShards, (contig, pos) -> pos);
+	}
+
+	/**
+	 * Compute shards for the contigs in <code>seqDict</code>
+	 *
+	 * The genome is cut into pieces of roughly <code>total length / numShards</code> bases, each cut position is moved
+	 * to the right until it lies outside of all genes and all variants from <code>variants</code>. Each shard lies on
+	 * one contig, so the number of returned shards can be larger than <code>numShards</code> for genomes with many
+	 * contigs.
+	 *
+	 * @param seqDict
+	 *            {@link SAMSequenceDictionary} with the contigs to split, e.g., from the VCF header
+	 * @param numShards
+	 *            target number of shards
+	 * @param variants
+	 *            lookup of the variants spanning a cut position, e.g., from {@link #spanningVariants}
+	 * @return {@link ImmutableList} of shards, in the order of <code>seqDict</code>
+	 */
+	public ImmutableList<GenomeRegion> planShards(SAMSequenceDictionary seqDict, int numShards,
+			SpanningVariants variants) {
+		if (numShards < 1)
+			throw new IllegalArgumentException("Number of shards must be positive but was " + numShards);
+
+		long totalLength = 0;
+		for (SAMSequenceRecord record : seqDict.getSequences())
+			totalLength += record.getSequenceLength();
+		final long shardLength = Math.max(1, (totalLength + numShards - 1) / numShards);
+
+		ImmutableList.Builder<GenomeRegion> builder = new ImmutableList.Builder<>();
+		for (SAMSequenceRecord record : seqDict.getSequences()) {
+			final String contig = record.getSequenceName();
+			final int length = record.getSequenceLength();
+			final Integer contigID = jannovarData.getRefDict().getContigNameToID().get(contig);
+			final IntervalArray<Gene> iTree = (contigID == null) ? null : geneList.getGeneIntervalTree().get(contigID);
+
+			int beginPos = 0;
+			while (beginPos < length) {
+				int cutPos = (int) Math.min(length, beginPos + shardLength);
+				// Moving past a variant can move into a gene and vice versa, repeat until neither is the case
+				while (true) {
+					if (iTree != null)
+						cutPos = moveOutOfGenes(iTree, cutPos, length);
+					if (cutPos >= length)
+						break;
+					final int endPos = Math.min(length, variants.getEndPos(contig, cutPos));
+					if (endPos <= cutPos)
+						break;
+					cutPos = endPos;
+				}
+				builder.add(new GenomeRegion(contig, beginPos, cutPos));
+				beginPos = cutPos;
+			}
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Construct {@link SpanningVariants} that queries an indexed VCF file
+	 *
+	 * @param reader
+	 *            {@link VCFFileReader} of the indexed VCF file, must stay open while planning
+	 * @return {@link SpanningVariants} for the records in <code>reader</code>
+	 */
+	public static SpanningVariants spanningVariants(VCFFileReader reader) {
+		return (contig, pos) -> {
+			int endPos = pos;
+			// Query the bases left and right of the cut, 1-based positions pos and pos + 1
+			try (CloseableIterator<VariantContext> iter = reader.query(contig, pos, pos + 1)) {
+				while (iter.hasNext()) {
+					final VariantContext vc = iter.next();
+					if (vc.getStart() <= pos && vc.getEnd() > pos)
+						endPos = Math.max(endPos, vc.getEnd());
+				}
+			}
+			return endPos;
+		};
+	}
+
+	/**
+	 * @return smallest position <code>&gt;= pos</code> that is not covered by any gene in <code>iTree</code>, or
+	 *         <code>length</code>
+	 */
+	private int moveOutOfGenes(IntervalArray<Gene> iTree, int pos, int length) {
+		while (pos < length) {
+			IntervalArray<Gene>.QueryResult qr = iTree.findOverlappingWithPoint(pos);
+			if (qr.getEntries().isEmpty())
+				return pos;
+			for (Gene gene : qr.getEntries())
+				pos = Math.max(pos, gene.getRegion().getEndPos());
+		}
+		return length;
+	}
+
+}
@@ -7,28 +7,61 @@ import java.util.Map;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 
+import de.charite.compbio.jannovar.data.Chromosome;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.impl.intervals.Interval;
 import de.charite.compbio.jannovar.impl.intervals.IntervalArray;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
 
 /**
  * List of genes, accessible through an interval tree.
+ *
+ * Building the list from a {@link JannovarData} walks over all transcripts, so it should be built once and shared,
+ * e.g., between the {@link GeneWiseMendelianAnnotationProcessor}s of the shards in scatter/gather processing. The
+ * list is immutable and can be used from multiple threads.
  */
-class GeneList {
+public final class GeneList {
 
 	/** overall gene list */
 	private final ImmutableList<Gene> genes;
 	/** map from numeric chromosome id to interval tree of genes */
 	private final ImmutableMap<Integer, IntervalArray<Gene>> gIntervalTree;
 
-	public GeneList(ImmutableList<Gene> genes) {
+	GeneList(ImmutableList<Gene> genes) {
 		this.genes = genes;
 		this.gIntervalTree = buildIntervalTree();
 	}
 
-	public ImmutableList<Gene> getGenes() {
+	/**
+	 * Build {@link GeneList} from the transcripts in a {@link JannovarData}.
+	 *
+	 * @param jannovarDB
+	 *            data base to use for building gene list
+	 * @return list of genes, built from <code>jannovarDB</code>.
+	 */
+	public static GeneList build(JannovarData jannovarDB) {
+		// create one GeneBuilder for each gene, collect all transcripts for the gene
+		HashMap<String, GeneBuilder> geneMap = new HashMap<String, GeneBuilder>();
+		for (Chromosome chrom : jannovarDB.getChromosomes().values())
+			for (Interval<TranscriptModel> itv : chrom.getTMIntervalTree().getIntervals()) {
+				TranscriptModel tm = itv.getValue();
+				if (!geneMap.containsKey(tm.getGeneSymbol()))
+					geneMap.put(tm.getGeneSymbol(), new GeneBuilder(jannovarDB.getRefDict(), tm.getGeneSymbol()));
+				geneMap.get(tm.getGeneSymbol()).addTranscriptModel(tm);
+			}
+
+		// construct GeneList from geneMap
+		ImmutableList.Builder<Gene> builder = new ImmutableList.Builder<Gene>();
+		for (GeneBuilder gene : geneMap.values())
+			builder.add(gene.build());
+		return new GeneList(builder.build());
+	}
+
+	ImmutableList<Gene> getGenes() {
 		return genes;
 	}
 
-	public ImmutableMap<Integer, IntervalArray<Gene>> getGeneIntervalTree() {
+	ImmutableMap<Integer, IntervalArray<Gene>> getGeneIntervalTree() {
 		return gIntervalTree;
 	}
 
@@ -1,14 +1,23 @@
 package de.charite.compbio.jannovar.mendel.filter;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -18,11 +27,11 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 
 import de.charite.compbio.jannovar.UncheckedJannovarException;
-import de.charite.compbio.jannovar.data.Chromosome;
 import de.charite.compbio.jannovar.data.JannovarData;
 import de.charite.compbio.jannovar.data.ReferenceDictionary;
-import de.charite.compbio.jannovar.impl.intervals.Interval;
 import de.charite.compbio.jannovar.impl.intervals.IntervalArray;
+import de.charite.compbio.jannovar.mendel.ChromosomeType;
+import de.charite.compbio.jannovar.mendel.GenotypeCalls;
 import de.charite.compbio.jannovar.mendel.IncompatiblePedigreeException;
 import de.charite.compbio.jannovar.mendel.SubModeOfInheritance;
 import de.charite.compbio.jannovar.mendel.bridge.CannotAnnotateMendelianInheritance;
@@ -31,7 +40,6 @@ import de.charite.compbio.jannovar.mendel.bridge.VariantContextMendelianAnnotato
 import de.charite.compbio.jannovar.pedigree.Pedigree;
 import de.charite.compbio.jannovar.reference.GenomeInterval;
 import de.charite.compbio.jannovar.reference.Strand;
-import de.charite.compbio.jannovar.reference.TranscriptModel;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.VariantContextBuilder;
 import htsjdk.variant.vcf.VCFHeader;
@@ -41,6 +49,11 @@ import htsjdk.variant.vcf.VCFHeader;
  *
  * The variants put into the processor must be clustered by contig name and sorted by begin position
  *
+ * Optionally, the genes are checked for compatibility on a pool of worker threads while new variants are accepted. The
+ * results are merged into the variants as they arrive, and a variant is only written out once all of its genes have
+ * been checked and all variants left of it have been written out. Thus, the output is the same as when checking on
+ * the calling thread.
+ *
  * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
  */
 public class GeneWiseMendelianAnnotationProcessor implements VariantContextProcessor {
@@ -62,11 +75,34 @@ public class GeneWiseMendelianAnnotationProcessor implements VariantContextProce
 	private final boolean interpretGenotypeFilters;
 	/** Whether or not to interpret variant-wise filters */
 	private final boolean interpretVariantFilters;
+	/** Worker threads for checking genes, <code>null</code> for checking on the calling thread */
+	private final ExecutorService executor;
+	/** Maximal number of gene checks in flight, submitting more blocks until the oldest one is merged */
+	private final int maxPendingChecks;
+	/** Variants that are written out in order but not assigned to any gene, e.g., gVCF reference blocks */
+	private final Predicate<VariantContext> passThrough;
 
 	/** Currently active genes and variants assigned to them. */
 	HashMap<Gene, ArrayList<VariantContext>> activeGenes = new HashMap<>();
 	/** Currently buffered variants. */
 	HashMap<VariantContext, VariantContextCounter> activeVariants = new HashMap<>();
+	/** {@link GenotypeCalls} of the currently buffered variants, shared by all genes that they are assigned to. */
+	HashMap<VariantContext, GenotypeCalls> genotypeCallsCache = new HashMap<>();
+
+	/** Name of the contig that {@link #chromType} was resolved for */
+	private String chromTypeContig = null;
+	/** {@link ChromosomeType} of {@link #chromTypeContig} */
+	private ChromosomeType chromType = null;
+
+	/** Number of {@link GenotypeCalls} taken from {@link #genotypeCallsCache} */
+	private long genotypeCallsCacheHits = 0;
+	/** Number of {@link GenotypeCalls} built for {@link #genotypeCallsCache} */
+	private long genotypeCallsCacheMisses = 0;
+	/** Largest size of {@link #genotypeCallsCache} so far */
+	private int genotypeCallsCachePeakSize = 0;
+
+	/** Gene checks that have been submitted but whose results are not merged yet, in order of submission */
+	private final ArrayDeque<PendingCheck> pendingChecks = new ArrayDeque<>();
 
 	/** List of genes, indexed by interval tree */
 	private final GeneList geneList;
@@ -85,6 +121,79 @@ public class GeneWiseMendelianAnnotationProcessor implements VariantContextProce
 	 */
 	public GeneWiseMendelianAnnotationProcessor(Pedigree pedigree, JannovarData jannovarData,
 			Consumer<VariantContext> sink, boolean interpretFilters) {
+		this(pedigree, jannovarData, sink, interpretFilters, 1);
+	}
+
+	/**
+	 * Construct processor with the path to the PED file to use and the number of threads for checking genes
+	 *
+	 * @param pedigree
+	 *            the {@link Pedigree} object to use
+	 * @param jannovarData
+	 *            {@link JannovarData} object to use for getting the genes from
+	 * @param sink
+	 *            location to write the {@link VariantContext} to
+	 * @param interpretFilters
+	 *            whether or not to interpret genotype- or variant-wise filters
+	 * @param numThreads
+	 *            number of threads for checking genes, <code>1</code> for checking on the calling thread
+	 */
+	public GeneWiseMendelianAnnotationProcessor(Pedigree pedigree, JannovarData jannovarData,
+			Consumer<VariantContext> sink, boolean interpretFilters, int numThreads) {
+		this(pedigree, jannovarData, sink, interpretFilters, numThreads, vc -> false);
+	}
+
+	/**
+	 * Construct processor that writes out the variants matching <code>passThrough</code> unchanged
+	 *
+	 * Such variants are neither assigned to any gene nor annotated with compatible modes of inheritance, but they are
+	 * still written out in the order of input.
+	 *
+	 * @param pedigree
+	 *            the {@link Pedigree} object to use
+	 * @param jannovarData
+	 *            {@link JannovarData} object to use for getting the genes from
+	 * @param sink
+	 *            location to write the {@link VariantContext} to
+	 * @param interpretFilters
+	 *            whether or not to interpret genotype- or variant-wise filters
+	 * @param numThreads
+	 *            number of threads for checking genes, <code>1</code> for checking on the calling thread
+	 * @param passThrough
+	 *            selects the variants to write out unchanged, e.g., gVCF reference blocks
+	 */
+	public GeneWiseMendelianAnnotationProcessor(Pedigree pedigree, JannovarData jannovarData,
+			Consumer<VariantContext> sink, boolean interpretFilters, int numThreads,
+			Predicate<VariantContext> passThrough) {
+		this(pedigree, jannovarData, GeneList.build(jannovarData), sink, interpretFilters, numThreads, passThrough);
+	}
+
+	/**
+	 * Construct processor using a {@link GeneList} that has already been built from <code>jannovarData</code>
+	 *
+	 * This avoids building the {@link GeneList} again for each processor, e.g., for the shards in scatter/gather
+	 * processing.
+	 *
+	 * @param pedigree
+	 *            the {@link Pedigree} object to use
+	 * @param jannovarData
+	 *            {@link JannovarData} object that <code>geneList</code> was built from
+	 * @param geneList
+	 *            {@link GeneList} built from <code>jannovarData</code>
+	 * @param sink
+	 *            location to write the {@link VariantContext} to
+	 * @param interpretFilters
+	 *            whether or not to interpret genotype- or variant-wise filters
+	 * @param numThreads
+	 *            number of threads for checking genes, <code>1</code> for checking on the calling thread
+	 * @param passThrough
+	 *            selects the variants to write out unchanged, e.g., gVCF reference blocks
+	 */
+	public GeneWiseMendelianAnnotationProcessor(Pedigree pedigree, JannovarData jannovarData, GeneList geneList,
+			Consumer<VariantContext> sink, boolean interpretFilters, int numThreads,
+			Predicate<VariantContext> passThrough) {
+		if (numThreads < 1)
+			throw new IllegalArgumentException("Number of threads must be positive but was " + numThreads);
 		this.pedigree = pedigree;
 		this.jannovarData = jannovarData;
 		this.sink = sink;
@@ -92,11 +201,23 @@ public class GeneWiseMendelianAnnotationProcessor implements VariantContextProce
 		this.interpretGenotypeFilters = interpretFilters;
 		this.interpretVariantFilters = interpretFilters;
 
-		this.geneList = buildGeneList(this.jannovarData);
+		this.geneList = geneList;
 		this.annotator = new VariantContextMendelianAnnotator(this.pedigree, interpretGenotypeFilters,
 				interpretVariantFilters);
 
 		this.contigInfoProvider = new ContigInfoProvider();
+
+		if (numThreads > 1) {
+			this.executor = Executors.newFixedThreadPool(numThreads, r -> {
+				Thread t = new Thread(r, "mendel-checker");
+				t.setDaemon(true);
+				return t;
+			});
+		} else {
+			this.executor = null;
+		}
+		this.maxPendingChecks = 4 * numThreads;
+		this.passThrough = passThrough;
 	}
 
 	@Override
@@ -129,6 +250,13 @@ public class GeneWiseMendelianAnnotationProcessor implements VariantContextProce
 			return;
 		}
 
+		// Variant to pass through, only register as active such that it is written out after the variants left of it
+		if (passThrough.test(vc)) {
+			activeVariants.computeIfAbsent(vc, x -> new VariantContextCounter(x, 0));
+			markDoneGenes(contigID.get(), vc.getStart() - 1);
+			return;
+		}
+
 		// Consider this variant for each affected gene
 		Optional<GenomeInterval> changeInterval = contigID
 				.map(x -> new GenomeInterval(refDict, Strand.FWD, x, vc.getStart() - 1, vc.getEnd()));
@@ -179,13 +307,35 @@ public class GeneWiseMendelianAnnotationProcessor implements VariantContextProce
 	@Override
 	public void close() {
 		LOGGER.trace("Closing mendelian annotation processor");
-		markDoneGenes(-1, -1);
+		try {
+			markDoneGenes(-1, -1);
+		} finally {
+			if (executor != null)
+				executor.shutdownNow();
+		}
 
 		// There should be no more active variants or genes
 		if (!activeVariants.isEmpty())
 			throw new VariantContextFilterException("All variants should be inactive now");
 		if (!activeGenes.isEmpty())
 			throw new VariantContextFilterException("All genes should be inactive now");
+		LOGGER.debug("Genotype calls cache: {} hits, {} misses, peak size {}",
+				new Object[] { genotypeCallsCacheHits, genotypeCallsCacheMisses, genotypeCallsCachePeakSize });
+	}
+
+	/** @return number of {@link GenotypeCalls} that were reused for variants in overlapping genes */
+	public long getGenotypeCallsCacheHits() {
+		return genotypeCallsCacheHits;
+	}
+
+	/** @return number of {@link GenotypeCalls} that were converted from {@link VariantContext}s */
+	public long getGenotypeCallsCacheMisses() {
+		return genotypeCallsCacheMisses;
+	}
+
+	/** @return largest number of {@link GenotypeCalls} that were cached at the same time */
+	public int getGenotypeCallsCachePeakSize() {
+		return genotypeCallsCachePeakSize;
 	}
 
 	/**
@@ -195,31 +345,6 @@ public class GeneWiseMendelianAnnotationProcessor implements VariantContextProce
 		new MendelVCFHeaderExtender().extendHeader(vcfHeader, prefix);
 	}
 
-	/**
-	 * Build {@link GeneList} to be used in the filter.
-	 *
-	 * @param jannovarDB
-	 *            data base to use for building gene list
-	 * @return list of genes, built from <code>jannovarDB</code>.
-	 */
-	private static GeneList buildGeneList(JannovarData jannovarDB) {
-		// create one GeneBuilder for each gene, collect all transcripts for the gene
-		HashMap<String, GeneBuilder> geneMap = new HashMap<String, GeneBuilder>();
-		for (Chromosome chrom : jannovarDB.getChromosomes().values())
-			for (Interval<TranscriptModel> itv : chrom.getTMIntervalTree().getIntervals()) {
-				TranscriptModel tm = itv.getValue();
-				if (!geneMap.containsKey(tm.getGeneSymbol()))
-					geneMap.put(tm.getGeneSymbol(), new GeneBuilder(jannovarDB.getRefDict(), tm.getGeneSymbol()));
-				geneMap.get(tm.getGeneSymbol()).addTranscriptModel(tm);
-			}
-
-		// construct GeneList from geneMap
-		ImmutableList.Builder<Gene> builder = new ImmutableList.Builder<Gene>();
-		for (GeneBuilder gene : geneMap.values())
-			builder.add(gene.build());
-		return new GeneList(builder.build());
-	}
-
 	/**
 	 * Register {@link FlaggedVariant} as active for the given gene.
 	 *
@@ -276,31 +401,129 @@ public class GeneWiseMendelianAnnotationProcessor implements VariantContextProce
 			}
 		}
 
-		if (!doneGenes.isEmpty() && activeGenes.isEmpty() && !activeVariants.isEmpty())
+		// When flushing, wait for all checks and write out the remaining variants
+		if (contigID == -1 && !pendingChecks.isEmpty()) {
+			mergeChecks(true);
+			processedGene(null);
+		}
+
+		if (!doneGenes.isEmpty() && activeGenes.isEmpty() && pendingChecks.isEmpty() && !activeVariants.isEmpty())
 			throw new RuntimeException("All genes inactive, there should be no active variant");
 	}
 
 	/**
-	 * Builds genotype call lists for variants in currently active genes, checks for compatibility, and in case of
-	 * compatibility, marks variants in <code>gene</code> as compatible.
+	 * Builds genotype call lists for variants in <code>gene</code> and submits the check for compatibility
+	 *
+	 * The {@link GenotypeCalls} are built on the calling thread, only the check itself runs on {@link #executor}.
+	 * Without an executor, the check is run directly.
 	 *
 	 * @throws VariantContextFilterException
 	 *             in case of problems with processing the variant
-	 * @throws CannotAnnotateMendelianInheritance
-	 *             in case of problems with Mendelian inheritance annotation
 	 */
-	private void checkVariantsForGene(Gene gene)
-			throws VariantContextFilterException, CannotAnnotateMendelianInheritance {
-		// Compute compatible modes for all variants in the gene
+	private void submitCheck(Gene gene) throws VariantContextFilterException {
 		final ArrayList<VariantContext> variantsForGene = activeGenes.get(gene);
-		ImmutableMap<SubModeOfInheritance, ImmutableList<VariantContext>> compatibleMap = annotator
-				.computeCompatibleInheritanceSubModes(variantsForGene);
+		final HashMap<VariantContext, GenotypeCalls> calls = new HashMap<>();
+		for (VariantContext vc : variantsForGene) {
+			calls.put(vc, getGenotypeCalls(vc));
+			activeVariants.get(vc).incrementPendingChecks();
+		}
+
+		final Callable<ImmutableMap<SubModeOfInheritance, ImmutableList<VariantContext>>> check = () -> annotator
+				.computeCompatibleInheritanceSubModes(variantsForGene, calls::get);
+		final Future<ImmutableMap<SubModeOfInheritance, ImmutableList<VariantContext>>> future;
+		if (executor == null) {
+			final FutureTask<ImmutableMap<SubModeOfInheritance, ImmutableList<VariantContext>>> task = new FutureTask<>(
+					check);
+			task.run();
+			future = task;
+		} else {
+			while (pendingChecks.size() >= maxPendingChecks)
+				mergeCheck(pendingChecks.removeFirst());
+			future = executor.submit(check);
+		}
+		pendingChecks.addLast(new PendingCheck(gene, variantsForGene, future));
+	}
+
+	/**
+	 * Merge the results of the submitted checks into the active variants
+	 *
+	 * @param waitForAll
+	 *            whether to wait for all checks or only merge the completed ones
+	 * @throws VariantContextFilterException
+	 *             in case of problems with checking a gene
+	 */
+	private void mergeChecks(boolean waitForAll) throws VariantContextFilterException {
+		Iterator<PendingCheck> it = pendingChecks.iterator();
+		while (it.hasNext()) {
+			final PendingCheck check = it.next();
+			if (waitForAll || check.future.isDone()) {
+				it.remove();
+				mergeCheck(check);
+			}
+		}
+	}
+
+	/**
+	 * Wait for <code>check</code> and mark its variants as compatible with the resulting modes
+	 *
+	 * @throws VariantContextFilterException
+	 *             in case of problems with checking the gene
+	 */
+	private void mergeCheck(PendingCheck check) throws VariantContextFilterException {
+		final ImmutableMap<SubModeOfInheritance, ImmutableList<VariantContext>> compatibleMap;
+		try {
+			compatibleMap = check.future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new VariantContextFilterException("Interrupted while checking gene " + check.gene.getName(), e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof CannotAnnotateMendelianInheritance)
+				throw toFilterException((CannotAnnotateMendelianInheritance) e.getCause());
+			throw new VariantContextFilterException("Problem with annotating variant for Mendelian inheritance",
+					e.getCause());
+		}
+
 		// Annotate the variants with new compatible modes
 		for (Entry<SubModeOfInheritance, ImmutableList<VariantContext>> e : compatibleMap.entrySet()) {
 			for (VariantContext vc : e.getValue()) {
 				activeVariants.get(vc).addCompatibleMode(e.getKey());
 			}
 		}
+		for (VariantContext vc : check.variants)
+			activeVariants.get(vc).decrementPendingChecks();
+	}
+
+	/**
+	 * @return {@link VariantContextFilterException} for the given problem with Mendelian inheritance annotation
+	 */
+	private static VariantContextFilterException toFilterException(CannotAnnotateMendelianInheritance e) {
+		if (e.getCause() != null && e.getCause().getClass().equals(IncompatiblePedigreeException.class))
+			return new VariantContextFilterException(
+					"Cannot annotate Mendelian inheritance, pedigree is incompatible to genotypes", e);
+		else
+			return new VariantContextFilterException("Problem with annotating variant for Mendelian inheritance", e);
+	}
+
+	/**
+	 * @return {@link GenotypeCalls} for <code>vc</code>, converted on first use and cached while <code>vc</code> is
+	 *         active
+	 */
+	private GenotypeCalls getGenotypeCalls(VariantContext vc) {
+		GenotypeCalls result = genotypeCallsCache.get(vc);
+		if (result != null) {
+			++genotypeCallsCacheHits;
+			return result;
+		}
+
+		if (!vc.getContig().equals(chromTypeContig)) {
+			chromTypeContig = vc.getContig();
+			chromType = VariantContextMendelianAnnotator.getChromosomeType(chromTypeContig);
+		}
+		result = annotator.buildGenotypeCalls(vc, chromType);
+		genotypeCallsCache.put(vc, result);
+		++genotypeCallsCacheMisses;
+		genotypeCallsCachePeakSize = Math.max(genotypeCallsCachePeakSize, genotypeCallsCache.size());
+		return result;
 	}
 
 	/**
@@ -311,16 +534,8 @@ public class GeneWiseMendelianAnnotationProcessor implements VariantContextProce
 	 *            marking a gene as processed
 	 */
 	private void processedGene(Gene gene) throws VariantContextFilterException {
-		try {
-			if (gene != null)
-				checkVariantsForGene(gene);
-		} catch (CannotAnnotateMendelianInheritance e) {
-			if (e.getCause().getClass().equals(IncompatiblePedigreeException.class))
-				throw new VariantContextFilterException(
-						"Cannot annotate Mendelian inheritance, pedigree is incompatible to genotypes", e);
-			else
-				throw new VariantContextFilterException("Problem with annotating variant for Mendelian inheritance", e);
-		}
+		if (gene != null)
+			submitCheck(gene);
 
 		if (gene != null)
 			LOGGER.trace("Gene done {}", new Object[] { gene.getName() });
@@ -336,6 +551,9 @@ public class GeneWiseMendelianAnnotationProcessor implements VariantContextProce
 			}
 		}
 
+		// Merge the results of the checks that are complete
+		mergeChecks(false);
+
 		// Comparator for comparing two VariantContextCounter objects
 		Comparator<VariantContextCounter> cmp = new Comparator<VariantContextCounter>() {
 			@Override
@@ -350,7 +568,7 @@ public class GeneWiseMendelianAnnotationProcessor implements VariantContextProce
 		};
 
 		// Get leftmost variant that is not processed
-		Optional<VariantContextCounter> leftmost = activeVariants.values().stream().filter(x -> x.getCounter() != 0)
+		Optional<VariantContextCounter> leftmost = activeVariants.values().stream().filter(x -> !x.isDone())
 				.min(cmp);
 		List<VariantContextCounter> done = activeVariants.values().stream()
 				.filter(x -> (!leftmost.isPresent() || cmp.compare(x, leftmost.get()) < 0))
@@ -362,6 +580,7 @@ public class GeneWiseMendelianAnnotationProcessor implements VariantContextProce
 		// Remove completed variants and write out if passing
 		for (VariantContextCounter var : done) {
 			activeVariants.remove(var.getVariantContext());
+			genotypeCallsCache.remove(var.getVariantContext());
 
 			ArrayList<String> modes = new ArrayList<>();
 			modes.addAll(var.getCompatibleModes().stream().map(m -> m.toModeOfInheritance().getAbbreviation())
@@ -389,6 +608,27 @@ public class GeneWiseMendelianAnnotationProcessor implements VariantContextProce
 		}
 	}
 
+	/**
+	 * A submitted check of the variants in a gene
+	 */
+	private static final class PendingCheck {
+
+		/** the checked gene */
+		final Gene gene;
+		/** the variants in {@link #gene} */
+		final List<VariantContext> variants;
+		/** the result of the check */
+		final Future<ImmutableMap<SubModeOfInheritance, ImmutableList<VariantContext>>> future;
+
+		PendingCheck(Gene gene, List<VariantContext> variants,
+				Future<ImmutableMap<SubModeOfInheritance, ImmutableList<VariantContext>>> future) {
+			this.gene = gene;
+			this.variants = variants;
+			this.future = future;
+		}
+
+	}
+
 	/**
 	 * Handle mapping between contig name and number
 	 */
@@ -14,6 +14,8 @@ public class VariantContextCounter {
 
 	private VariantContext variantContext;
 	private int counter;
+	/** Number of gene-wise checks of the variant that have been submitted but whose results are not merged yet */
+	private int pendingChecks;
 	private TreeSet<SubModeOfInheritance> compatibleModes;
 
 	public VariantContextCounter(VariantContext variantContext) {
@@ -55,6 +57,25 @@ public class VariantContextCounter {
 			throw new RuntimeException("Negative counter " + this.counter);
 	}
 
+	public int getPendingChecks() {
+		return pendingChecks;
+	}
+
+	public void incrementPendingChecks() {
+		++this.pendingChecks;
+	}
+
+	public void decrementPendingChecks() {
+		--this.pendingChecks;
+		if (this.pendingChecks < 0)
+			throw new RuntimeException("Negative pending checks " + this.pendingChecks);
+	}
+
+	/** @return whether all genes of the variant are done and their results are merged */
+	public boolean isDone() {
+		return counter == 0 && pendingChecks == 0;
+	}
+
 	public void addCompatibleMode(SubModeOfInheritance mode) {
 		this.compatibleModes.add(mode);
 	}
@@ -0,0 +1,113 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Files;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.util.BlockCompressedInputStream;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.vcf.VCFFileReader;
+import htsjdk.variant.vcf.VCFHeader;
+
+/**
+ * Tests for {@link BgzfVCFShardGatherer}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public class BgzfVCFShardGathererTest {
+
+	/** Temporary directory for the shards and the output */
+	File tmpDir;
+	/** Header with the two contigs chr1 and chr2 */
+	VCFHeader header;
+
+	@Before
+	public void setUp() {
+		tmpDir = Files.createTempDir();
+		header = new VCFHeader(ImmutableSet.of(), ImmutableList.of());
+		header.setSequenceDictionary(new SAMSequenceDictionary(
+				Arrays.asList(new SAMSequenceRecord("chr1", 1000000), new SAMSequenceRecord("chr2", 1000000))));
+	}
+
+	/** @return SNV at <code>pos</code> on <code>contig</code> */
+	private static VariantContext buildSNV(String contig, int pos) {
+		return new VariantContextBuilder("test", contig, pos, pos,
+				Arrays.asList(Allele.create("A", true), Allele.create("C"))).make();
+	}
+
+	/** Write SNVs at <code>positions</code> to a new shard of <code>gatherer</code> */
+	private File writeShard(BgzfVCFShardGatherer gatherer, String name, String contig, int... positions)
+			throws IOException {
+		final File shardFile = new File(tmpDir, name);
+		try (VariantContextWriter writer = gatherer.openShardWriter(shardFile)) {
+			writer.writeHeader(header);
+			for (int pos : positions)
+				writer.add(buildSNV(contig, pos));
+		}
+		return shardFile;
+	}
+
+	@Test
+	public void testGather() throws IOException {
+		// The first shard spans multiple BGZF blocks, the second one is empty
+		final int[] positions = new int[20000];
+		for (int i = 0; i < positions.length; ++i)
+			positions[i] = 10 * (i + 1);
+		BgzfVCFShardGatherer gatherer = new BgzfVCFShardGatherer(5);
+		final List<File> shardFiles = ImmutableList.of(writeShard(gatherer, "shard-0.vcf.gz", "chr1", positions),
+				writeShard(gatherer, "shard-1.vcf.gz", "chr1"), writeShard(gatherer, "shard-2.vcf.gz", "chr2", 5, 500));
+
+		final File outFile = new File(tmpDir, "out.vcf.gz");
+		gatherer.gather(shardFiles, outFile, true);
+		for (File shardFile : shardFiles)
+			BgzfVCFShardGatherer.deleteShard(shardFile);
+
+		Assert.assertEquals(BlockCompressedInputStream.FileTermination.HAS_TERMINATOR_BLOCK,
+				BlockCompressedInputStream.checkTermination(outFile));
+		Assert.assertEquals(ImmutableSet.of(new File(tmpDir, "out.vcf.gz"), new File(tmpDir, "out.vcf.gz.tbi")),
+				ImmutableSet.copyOf(tmpDir.listFiles()));
+
+		try (VCFFileReader reader = new VCFFileReader(outFile, true)) {
+			Assert.assertEquals(2, reader.getFileHeader().getSequenceDictionary().size());
+
+			List<String> records = new ArrayList<>();
+			for (VariantContext vc : reader)
+				records.add(vc.getContig() + ":" + vc.getStart());
+			Assert.assertEquals(positions.length + 2, records.size());
+			Assert.assertEquals("chr1:10", records.get(0));
+			Assert.assertEquals("chr1:200000", records.get(positions.length - 1));
+			Assert.assertEquals("chr2:5", records.get(positions.length));
+
+			try (CloseableIterator<VariantContext> iter = reader.query("chr1", 150001, 150010)) {
+				Assert.assertEquals(150010, iter.next().getStart());
+				Assert.assertFalse(iter.hasNext());
+			}
+			try (CloseableIterator<VariantContext> iter = reader.query("chr2", 100, 1000)) {
+				Assert.assertEquals(500, iter.next().getStart());
+				Assert.assertFalse(iter.hasNext());
+			}
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testGatherWithoutHeader() throws IOException {
+		new BgzfVCFShardGatherer(5).gather(ImmutableList.of(), new File(tmpDir, "out.vcf.gz"), false);
+	}
+
+}
@@ -0,0 +1,135 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.io.Files;
+
+import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.UncheckedJannovarException;
+import htsjdk.variant.variantcontext.VariantContext;
+
+/**
+ * Tests for {@link MergingVCFReader}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public class MergingVCFReaderTest {
+
+	File tmpDir;
+	/** Header lines of the input file */
+	List<String> headerLines;
+	/** Records of the input file, sorted by coordinate */
+	List<String> records;
+
+	@Before
+	public void setUp() throws URISyntaxException, IOException {
+		tmpDir = Files.createTempDir();
+		File inputFile = new File(this.getClass().getResource("/inheritanceFilterTest.b37.vcf").toURI().getPath());
+		headerLines = new ArrayList<>();
+		records = new ArrayList<>();
+		for (String line : Files.readLines(inputFile, StandardCharsets.UTF_8))
+			if (line.startsWith("#"))
+				headerLines.add(line);
+			else
+				records.add(line);
+	}
+
+	/** @return file with the given header and record lines */
+	private File writeFile(String name, List<String> header, List<String> lines) throws IOException {
+		File file = new File(tmpDir, name);
+		try (PrintWriter writer = new PrintWriter(file)) {
+			for (String line : header)
+				writer.println(line);
+			for (String line : lines)
+				writer.println(line);
+		}
+		return file;
+	}
+
+	/** @return <tt>CHROM:POS</tt> of each record in <code>lines</code> */
+	private static List<String> positions(List<String> lines) {
+		List<String> result = new ArrayList<>();
+		for (String line : lines) {
+			final String[] fields = line.split("\t", 3);
+			result.add(fields[0] + ":" + fields[1]);
+		}
+		return result;
+	}
+
+	/** @return <tt>CHROM:POS</tt> of each record read from <code>reader</code> */
+	private static List<String> readPositions(MergingVCFReader reader) {
+		List<String> result = new ArrayList<>();
+		while (reader.hasNext()) {
+			final VariantContext vc = reader.next();
+			Assert.assertEquals(3, vc.getNSamples());
+			result.add(vc.getContig() + ":" + vc.getStart());
+		}
+		return result;
+	}
+
+	@Test
+	public void testMergeInterleaved() throws Exception {
+		List<String> even = new ArrayList<>();
+		List<String> odd = new ArrayList<>();
+		for (int i = 0; i < records.size(); ++i)
+			(i % 2 == 0 ? even : odd).add(records.get(i));
+		File first = writeFile("even.vcf", headerLines, even);
+		File second = writeFile("odd.vcf", headerLines, odd);
+
+		try (MergingVCFReader reader = new MergingVCFReader(Arrays.asList(second, first), 2, 1, 0)) {
+			Assert.assertEquals(Arrays.asList("Seth", "Adam", "Eva"), reader.getFileHeader().getGenotypeSamples());
+			Assert.assertEquals(positions(records), readPositions(reader));
+		}
+	}
+
+	@Test
+	public void testMergePerChromosome() throws Exception {
+		List<String> chr1 = new ArrayList<>();
+		List<String> chr10 = new ArrayList<>();
+		for (String line : records)
+			(line.startsWith("1\t") ? chr1 : chr10).add(line);
+		List<String> otherHeader = new ArrayList<>(headerLines);
+		otherHeader.add(otherHeader.size() - 1, "##INFO=<ID=SHARD,Number=1,Type=String,Description=\"Shard\">");
+		File fileChr1 = writeFile("chr1.vcf", headerLines, chr1);
+		File fileChr10 = writeFile("chr10.vcf", otherHeader, chr10);
+
+		try (MergingVCFReader reader = new MergingVCFReader(Arrays.asList(fileChr10, fileChr1))) {
+			Assert.assertTrue(reader.getFileHeader().hasInfoLine("SHARD"));
+			Assert.assertEquals(positions(records), readPositions(reader));
+		}
+	}
+
+	@Test(expected = JannovarException.class)
+	public void testIncompatibleSamples() throws Exception {
+		List<String> otherHeader = new ArrayList<>(headerLines);
+		otherHeader.set(otherHeader.size() - 1, otherHeader.get(otherHeader.size() - 1).replace("Eva", "Eve"));
+		File first = writeFile("first.vcf", headerLines, records);
+		File second = writeFile("second.vcf", otherHeader, records);
+
+		new MergingVCFReader(Arrays.asList(first, second)).close();
+	}
+
+	@Test(expected = UncheckedJannovarException.class)
+	public void testUnsorted() throws Exception {
+		List<String> unsorted = new ArrayList<>(records);
+		unsorted.add(records.get(0));
+		File first = writeFile("first.vcf", headerLines, records);
+		File second = writeFile("second.vcf", headerLines, unsorted);
+
+		try (MergingVCFReader reader = new MergingVCFReader(Arrays.asList(first, second))) {
+			readPositions(reader);
+		}
+	}
+
+}
@@ -0,0 +1,111 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import de.charite.compbio.jannovar.annotation.AnnotationMessage;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.factories.TestJannovarDataFactory;
+import de.charite.compbio.jannovar.factories.TestTranscriptModelFactory;
+import de.charite.compbio.jannovar.hgvs.AminoAcidCode;
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+
+/**
+ * Tests for {@link MultiDatabaseVariantContextAnnotator}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public class MultiDatabaseVariantContextAnnotatorTest {
+
+	/** database with all test transcripts */
+	JannovarData allData;
+	/** database with the SHH transcript only */
+	JannovarData shhData;
+
+	@Before
+	public void setUp() {
+		TestJannovarDataFactory factory = new TestJannovarDataFactory();
+		allData = factory.getJannovarData();
+		shhData = new JannovarData(factory.getRefDict(), ImmutableList.of(TestTranscriptModelFactory.buildTMForSHH()));
+	}
+
+	/** @return annotator for <code>data</code>, writing into <code>infoField</code> */
+	private static VariantContextAnnotator buildAnnotator(JannovarData data, String infoField) {
+		return buildAnnotator(data, infoField, false);
+	}
+
+	/** @return annotator for <code>data</code>, writing into <code>infoField</code>, with off-target filter */
+	private static VariantContextAnnotator buildAnnotator(JannovarData data, String infoField,
+			boolean offTargetFilterEnabled) {
+		return new VariantContextAnnotator(data.getRefDict(), data.getChromosomes(),
+				new VariantContextAnnotator.Options(true, AminoAcidCode.ONE_LETTER, true, true, offTargetFilterEnabled,
+						false, false, infoField));
+	}
+
+	/** @return SNV record at <code>chrom:pos</code> */
+	private static VariantContext buildVariant(String chrom, int pos) {
+		return new VariantContextBuilder("test", chrom, pos, pos, Arrays.asList(Allele.create("A", true),
+				Allele.create("C"))).make();
+	}
+
+	/** @return annotations of <code>vc</code> in the two INFO fields, with <code>numThreads</code> */
+	private String[] annotate(VariantContext vc, int numThreads) {
+		MultiDatabaseVariantContextAnnotator annotator = new MultiDatabaseVariantContextAnnotator(
+				ImmutableList.of(buildAnnotator(allData, "ANN"), buildAnnotator(shhData, "ANN_SHH")), numThreads);
+		vc = annotator.annotateVariantContext(vc);
+		return new String[] { vc.getAttributeAsString("ANN", null), vc.getAttributeAsString("ANN_SHH", null) };
+	}
+
+	@Test
+	public void testAnnotatesIntoSeparateFields() {
+		final String[] fgfr2 = annotate(buildVariant("10", 123300000), 0);
+		Assert.assertTrue(fgfr2[0].contains("FGFR2"));
+		Assert.assertNull(fgfr2[1]);
+
+		final String[] shh = annotate(buildVariant("7", 155596000), 0);
+		Assert.assertTrue(shh[0].contains("SHH"));
+		Assert.assertTrue(shh[1].contains("SHH"));
+	}
+
+	@Test
+	public void testConcurrentSameAsSequential() {
+		for (VariantContext vc : ImmutableList.of(buildVariant("10", 123300000), buildVariant("7", 155596000),
+				buildVariant("1", 145510000)))
+			Assert.assertArrayEquals(annotate(new VariantContextBuilder(vc).make(), 0),
+					annotate(new VariantContextBuilder(vc).make(), 2));
+	}
+
+	@Test
+	public void testUnknownContigInAllFields() {
+		for (int numThreads : new int[] { 0, 2 }) {
+			final String[] annos = annotate(buildVariant("GL000192.1", 1000), numThreads);
+			Assert.assertTrue(annos[0].contains(AnnotationMessage.ERROR_CHROMOSOME_NOT_FOUND.toString()));
+			Assert.assertTrue(annos[1].contains(AnnotationMessage.ERROR_CHROMOSOME_NOT_FOUND.toString()));
+		}
+	}
+
+	@Test
+	public void testOffTargetFilterDecidedOverAllDatabases() {
+		for (int numThreads : new int[] { 0, 2 }) {
+			MultiDatabaseVariantContextAnnotator annotator = new MultiDatabaseVariantContextAnnotator(
+					ImmutableList.of(buildAnnotator(allData, "ANN", true), buildAnnotator(shhData, "ANN_SHH", true)),
+					numThreads);
+
+			// coding in FGFR2, intergenic in the SHH-only database
+			final VariantContext fgfr2 = annotator.annotateVariantContext(buildVariant("10", 123298150));
+			Assert.assertFalse(fgfr2.getFilters().contains(VariantEffectHeaderExtender.FILTER_EFFECT_OFF_EXOME));
+
+			// intergenic in both databases
+			final VariantContext intergenic = annotator.annotateVariantContext(buildVariant("10", 100000));
+			Assert.assertTrue(intergenic.getFilters().contains(VariantEffectHeaderExtender.FILTER_EFFECT_OFF_EXOME));
+		}
+	}
+
+}
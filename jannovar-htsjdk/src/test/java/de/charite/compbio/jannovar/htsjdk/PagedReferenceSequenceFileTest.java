@@ -0,0 +1,83 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.common.io.Files;
+
+import de.charite.compbio.jannovar.utils.ResourceUtils;
+import htsjdk.samtools.SAMException;
+import htsjdk.samtools.reference.IndexedFastaSequenceFile;
+
+public class PagedReferenceSequenceFileTest {
+
+	/** path to FASTA file with sequence */
+	static String fastaPath;
+
+	/** reader to compare against */
+	IndexedFastaSequenceFile indexedFile;
+	/** reader with small pages, such that queries span multiple pages and lines */
+	PagedReferenceSequenceFile pagedFile;
+
+	@BeforeClass
+	public static void setUpClass() throws Exception {
+		File tmpDir = Files.createTempDir();
+		fastaPath = tmpDir + "/ref.fa";
+		ResourceUtils.copyResourceToFile("/ex_fbn1/ref.fa", new File(fastaPath));
+		ResourceUtils.copyResourceToFile("/ex_fbn1/ref.fa.fai", new File(tmpDir + "/ref.fa.fai"));
+		ResourceUtils.copyResourceToFile("/ex_fbn1/ref.dict", new File(tmpDir + "/ref.dict"));
+	}
+
+	@Before
+	public void setUp() throws IOException {
+		indexedFile = new IndexedFastaSequenceFile(new File(fastaPath));
+		pagedFile = new PagedReferenceSequenceFile(new File(fastaPath), 100, 4);
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		indexedFile.close();
+		pagedFile.close();
+	}
+
+	@Test
+	public void testMatchesIndexedFastaSequenceFile() {
+		final Random rng = new Random(42);
+		for (int i = 0; i < 1000; ++i) {
+			final int start = 1 + rng.nextInt(500001);
+			final int stop = Math.min(500001, start - 1 + rng.nextInt(300));
+			Assert.assertEquals(indexedFile.getSubsequenceAt("ref", start, stop).getBaseString(),
+					pagedFile.getSubsequenceAt("ref", start, stop).getBaseString());
+		}
+		Assert.assertEquals(indexedFile.getSequenceDictionary().size(), pagedFile.getSequenceDictionary().size());
+	}
+
+	@Test
+	public void testPageCache() {
+		Assert.assertEquals("CTTTAGGCCTGGGAATCAGGAGTGCTATGACAATTTCCTCCAAAGTGGAGA",
+				pagedFile.getSubsequenceAt("ref", 100, 150).getBaseString());
+		Assert.assertEquals(2, pagedFile.getPageMisses());
+		Assert.assertEquals(0, pagedFile.getPageHits());
+		Assert.assertEquals("C", pagedFile.getSubsequenceAt("ref", 100, 100).getBaseString());
+		Assert.assertEquals(2, pagedFile.getPageMisses());
+		Assert.assertEquals(1, pagedFile.getPageHits());
+		Assert.assertTrue(pagedFile.getBytesRead() >= 200);
+
+		for (int i = 0; i < 10; ++i)
+			pagedFile.getSubsequenceAt("ref", 1000 * i + 1, 1000 * i + 1);
+		Assert.assertEquals(4, pagedFile.getNumCachedPages());
+	}
+
+	@Test(expected = SAMException.class)
+	public void testPastEndOfContig() {
+		pagedFile.getSubsequenceAt("ref", 500000, 500002);
+	}
+
+}
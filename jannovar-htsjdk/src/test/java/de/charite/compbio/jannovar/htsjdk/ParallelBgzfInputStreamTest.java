@@ -0,0 +1,85 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+
+/**
+ * Tests for {@link ParallelBgzfInputStream}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public class ParallelBgzfInputStreamTest {
+
+	/** Temporary directory for the compressed files */
+	File tmpDir;
+	/** Data to compress, spanning multiple blocks */
+	byte[] data;
+
+	@Before
+	public void setUp() {
+		tmpDir = Files.createTempDir();
+
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		Random rng = new Random(42);
+		for (int i = 0; i < 100000; ++i) {
+			byte[] line = ("chr1\t" + i + "\t.\tA\tC\t" + rng.nextInt(100) + "\n").getBytes();
+			bos.write(line, 0, line.length);
+		}
+		data = bos.toByteArray();
+	}
+
+	@Test
+	public void testReadHtsjdkOutput() throws IOException {
+		File file = new File(tmpDir, "htsjdk.txt.gz");
+		try (BlockCompressedOutputStream out = new BlockCompressedOutputStream(file)) {
+			out.write(data);
+		}
+
+		Assert.assertTrue(ParallelBgzfInputStream.isBgzf(file));
+		try (ParallelBgzfInputStream in = new ParallelBgzfInputStream(new FileInputStream(file), 3)) {
+			Assert.assertArrayEquals(data, ByteStreams.toByteArray(in));
+			Assert.assertTrue(in.getNumBlocks() > 1);
+		}
+	}
+
+	@Test
+	public void testReadParallelOutput() throws IOException {
+		File file = new File(tmpDir, "parallel.txt.gz");
+		try (ParallelBgzfOutputStream out = new ParallelBgzfOutputStream(new FileOutputStream(file), 2, 5)) {
+			out.write(data);
+		}
+
+		try (ParallelBgzfInputStream in = new ParallelBgzfInputStream(new FileInputStream(file), 1)) {
+			Assert.assertEquals(data[0], (byte) in.read());
+			byte[] rest = ByteStreams.toByteArray(in);
+			Assert.assertEquals(data.length - 1, rest.length);
+			Assert.assertEquals(data[data.length - 1], rest[rest.length - 1]);
+			Assert.assertEquals(-1, in.read());
+		}
+	}
+
+	@Test
+	public void testPlainGzipIsNotBgzf() throws IOException {
+		File file = new File(tmpDir, "plain.txt.gz");
+		try (GZIPOutputStream out = new GZIPOutputStream(new FileOutputStream(file))) {
+			out.write(data);
+		}
+
+		Assert.assertFalse(ParallelBgzfInputStream.isBgzf(file));
+	}
+
+}
@@ -0,0 +1,112 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+
+import htsjdk.samtools.util.BlockCompressedInputStream;
+
+/**
+ * Tests for {@link ParallelBgzfOutputStream}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public class ParallelBgzfOutputStreamTest {
+
+	/** Path to the output file */
+	File outFile;
+	/** Data to write, spanning multiple blocks */
+	byte[] data;
+
+	@Before
+	public void setUp() {
+		outFile = new File(Files.createTempDir(), "out.txt.gz");
+
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		Random rng = new Random(42);
+		for (int i = 0; i < 100000; ++i) {
+			byte[] line = ("chr1\t" + i + "\t.\tA\tC\t" + rng.nextInt(100) + "\n").getBytes();
+			bos.write(line, 0, line.length);
+		}
+		data = bos.toByteArray();
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		try (ParallelBgzfOutputStream out = new ParallelBgzfOutputStream(new FileOutputStream(outFile), 3, 5)) {
+			out.write(data, 0, 1000);
+			out.write(data[1000]);
+			out.write(data, 1001, data.length - 1001);
+		}
+
+		Assert.assertEquals(BlockCompressedInputStream.FileTermination.HAS_TERMINATOR_BLOCK,
+				BlockCompressedInputStream.checkTermination(outFile));
+		try (BlockCompressedInputStream in = new BlockCompressedInputStream(outFile)) {
+			Assert.assertArrayEquals(data, ByteStreams.toByteArray(in));
+		}
+	}
+
+	@Test
+	public void testBlockListener() throws IOException {
+		final List<Long> addresses = new ArrayList<>();
+		final long numBlocks;
+		try (ParallelBgzfOutputStream out = new ParallelBgzfOutputStream(new FileOutputStream(outFile), 2, 1)) {
+			out.setBlockListener((blockNumber, blockAddress) -> {
+				Assert.assertEquals(addresses.size(), blockNumber);
+				addresses.add(blockAddress);
+			});
+			out.write(data);
+			out.drain();
+			numBlocks = out.getBlockNumber();
+		}
+
+		Assert.assertEquals((data.length + ParallelBgzfOutputStream.UNCOMPRESSED_BLOCK_SIZE - 1)
+				/ ParallelBgzfOutputStream.UNCOMPRESSED_BLOCK_SIZE, numBlocks);
+		Assert.assertEquals(numBlocks, addresses.size());
+		Assert.assertEquals(0L, (long) addresses.get(0));
+
+		// Seeking to the second block with a virtual file pointer yields the data of the second block
+		try (BlockCompressedInputStream in = new BlockCompressedInputStream(outFile)) {
+			in.seek(addresses.get(1) << 16);
+			Assert.assertEquals(data[ParallelBgzfOutputStream.UNCOMPRESSED_BLOCK_SIZE], (byte) in.read());
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testDeflatersEndedOnClose() throws Exception {
+		final List<Deflater> deflaters = new ArrayList<>();
+		try (ParallelBgzfOutputStream out = new ParallelBgzfOutputStream(new FileOutputStream(outFile), 3, 5)) {
+			out.write(data);
+			out.drain();
+			final Field field = ParallelBgzfOutputStream.class.getDeclaredField("deflaters");
+			field.setAccessible(true);
+			deflaters.addAll((Collection<Deflater>) field.get(out));
+		}
+
+		Assert.assertFalse(deflaters.isEmpty());
+		for (Deflater deflater : deflaters) {
+			try {
+				deflater.getTotalIn();
+				Assert.fail("Deflater has not been ended");
+			} catch (NullPointerException e) {
+				// expected, the deflater has been ended
+			}
+		}
+	}
+
+}
@@ -0,0 +1,102 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.io.Files;
+
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.vcf.VCFHeader;
+import htsjdk.variant.vcf.VCFHeaderLineCount;
+import htsjdk.variant.vcf.VCFHeaderLineType;
+import htsjdk.variant.vcf.VCFInfoHeaderLine;
+
+/**
+ * Tests for {@link PassThroughVCFReader} and {@link PassThroughVCFWriter}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public class PassThroughVCFTest {
+
+	/** Path to the input file */
+	File inputFile;
+	/** Records of the input file */
+	List<String> inputRecords;
+
+	@Before
+	public void setUp() throws URISyntaxException, IOException {
+		inputFile = new File(this.getClass().getResource("/inheritanceFilterTest.b37.vcf").toURI().getPath());
+		inputRecords = new ArrayList<>();
+		for (String line : Files.readLines(inputFile, StandardCharsets.UTF_8))
+			if (!line.startsWith("#"))
+				inputRecords.add(line);
+	}
+
+	/** @return columns of <code>line</code> after the <tt>INFO</tt> column */
+	private static String sampleColumns(String line) {
+		return line.split("\t", 9)[8];
+	}
+
+	@Test
+	public void testReadSitesOnly() throws IOException {
+		try (PassThroughVCFReader reader = new PassThroughVCFReader(inputFile)) {
+			Assert.assertEquals(3, reader.getFileHeader().getNGenotypeSamples());
+			int i = 0;
+			while (reader.hasNext()) {
+				final VariantContext vc = reader.next();
+				Assert.assertFalse(vc.hasGenotypes());
+				Assert.assertEquals(sampleColumns(inputRecords.get(i++)), reader.getSampleColumns());
+			}
+			Assert.assertEquals(inputRecords.size(), i);
+		}
+	}
+
+	@Test
+	public void testRoundTripWithAnnotationAndDropping() throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (PassThroughVCFReader reader = new PassThroughVCFReader(inputFile)) {
+			final VCFHeader header = new VCFHeader(reader.getFileHeader());
+			header.addMetaDataLine(new VCFInfoHeaderLine("PASS_THROUGH", VCFHeaderLineCount.INTEGER,
+					VCFHeaderLineType.Integer, "Test field"));
+			try (PassThroughVCFWriter writer = new PassThroughVCFWriter(out, "<bytes>", reader)) {
+				writer.writeHeader(header);
+				int i = 0;
+				while (reader.hasNext()) {
+					final VariantContext vc = reader.next();
+					if (i++ % 2 == 1)
+						continue; // drop every other record
+					writer.add(new VariantContextBuilder(vc).attribute("PASS_THROUGH", 1).make());
+				}
+			}
+		}
+
+		final List<String> outputRecords = new ArrayList<>();
+		for (String line : new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n")) {
+			if (line.startsWith("#CHROM"))
+				Assert.assertTrue(line.endsWith("\tFORMAT\tSeth\tAdam\tEva"));
+			else if (!line.startsWith("#"))
+				outputRecords.add(line);
+		}
+
+		Assert.assertEquals((inputRecords.size() + 1) / 2, outputRecords.size());
+		for (int i = 0; i < outputRecords.size(); ++i) {
+			final String[] inputFields = inputRecords.get(2 * i).split("\t", 9);
+			final String[] outputFields = outputRecords.get(i).split("\t", 9);
+			for (int j = 0; j < 7; ++j)
+				Assert.assertEquals(inputFields[j], outputFields[j]);
+			Assert.assertEquals(inputFields[7] + ";PASS_THROUGH=1", outputFields[7]);
+			Assert.assertEquals(inputFields[8], outputFields[8]);
+		}
+	}
+
+}
@@ -0,0 +1,107 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.io.Files;
+
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFFileReader;
+
+/**
+ * Tests for {@link ReadAheadVCFReader}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public class ReadAheadVCFReaderTest {
+
+	/** Path to the input file */
+	File inputFile;
+	/** Records of the input file, as read by {@link VCFFileReader} */
+	List<String> expected;
+
+	@Before
+	public void setUp() throws URISyntaxException {
+		inputFile = new File(this.getClass().getResource("/inheritanceFilterTest.b37.vcf").toURI().getPath());
+		expected = new ArrayList<>();
+		try (VCFFileReader reader = new VCFFileReader(inputFile, false)) {
+			for (VariantContext vc : reader)
+				expected.add(vc.toStringDecodeGenotypes());
+		}
+	}
+
+	/** @return records read from <code>reader</code> */
+	private static List<String> readAll(ReadAheadVCFReader reader) {
+		List<String> result = new ArrayList<>();
+		while (reader.hasNext())
+			result.add(reader.next().toStringDecodeGenotypes());
+		return result;
+	}
+
+	@Test
+	public void testReadVCF() throws IOException {
+		try (ReadAheadVCFReader reader = new ReadAheadVCFReader(inputFile, 2, 1, 0)) {
+			Assert.assertEquals(3, reader.getFileHeader().getNGenotypeSamples());
+			Assert.assertEquals(expected, readAll(reader));
+
+			final ReadAheadVCFReader.Statistics stats = reader.getStatistics();
+			Assert.assertEquals(expected.size(), stats.getNumRecords());
+			Assert.assertEquals((expected.size() + 1) / 2, stats.getNumBatches());
+			Assert.assertTrue(stats.getMeanOccupancy() <= 1.0);
+		}
+	}
+
+	@Test
+	public void testReadBgzfInParallel() throws IOException {
+		File bgzfFile = new File(Files.createTempDir(), "input.vcf.gz");
+		try (ParallelBgzfOutputStream out = new ParallelBgzfOutputStream(new FileOutputStream(bgzfFile), 2, 5)) {
+			Files.copy(inputFile, out);
+		}
+
+		try (ReadAheadVCFReader reader = new ReadAheadVCFReader(bgzfFile, 3, 2, 2)) {
+			Assert.assertEquals(expected, readAll(reader));
+		}
+	}
+
+	@Test
+	public void testSkipCommentLinesAfterHeader() throws IOException {
+		File commentedFile = new File(Files.createTempDir(), "commented.vcf");
+		try (PrintWriter writer = new PrintWriter(commentedFile)) {
+			boolean inHeader = true;
+			for (String line : Files.readLines(inputFile, StandardCharsets.UTF_8)) {
+				if (inHeader && !line.startsWith("#"))
+					inHeader = false;
+				else if (!inHeader)
+					writer.println("# comment between records");
+				writer.println(line);
+			}
+			writer.println();
+		}
+
+		try (ReadAheadVCFReader reader = new ReadAheadVCFReader(commentedFile, 2, 1, 0)) {
+			Assert.assertEquals(expected, readAll(reader));
+		}
+	}
+
+	@Test
+	public void testCloseBeforeEnd() throws IOException {
+		// Opened outside of try-with-resources, such that closing twice is tested explicitly
+		ReadAheadVCFReader reader = new ReadAheadVCFReader(inputFile, 1, 1, 0);
+		Assert.assertTrue(reader.hasNext());
+		reader.next();
+		reader.close();
+		Assert.assertFalse(reader.hasNext());
+		reader.close();
+	}
+
+}
@@ -0,0 +1,92 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.charite.compbio.jannovar.annotation.VariantAnnotations;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.factories.TestJannovarDataFactory;
+import de.charite.compbio.jannovar.hgvs.AminoAcidCode;
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+
+/**
+ * Tests for {@link ReferenceBlockBypass}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public class ReferenceBlockBypassTest {
+
+	/** reference block in FGFR2 */
+	VariantContext refBlock;
+	/** SNV in FGFR2, with <tt>&lt;NON_REF&gt;</tt> allele */
+	VariantContext variant;
+
+	@Before
+	public void setUp() {
+		refBlock = new VariantContextBuilder("test", "10", 123300000, 123300100,
+				Arrays.asList(Allele.create("A", true), Allele.create("<NON_REF>"))).attribute("END", 123300100)
+						.make();
+		variant = new VariantContextBuilder("test", "10", 123300000, 123300000,
+				Arrays.asList(Allele.create("A", true), Allele.create("C"), Allele.create("<NON_REF>"))).make();
+	}
+
+	@Test
+	public void testIsReferenceBlock() {
+		Assert.assertTrue(ReferenceBlockBypass.isReferenceBlock(refBlock));
+		Assert.assertTrue(ReferenceBlockBypass.isReferenceBlock(new VariantContextBuilder(refBlock)
+				.alleles(Arrays.asList(Allele.create("A", true), Allele.create("<*>"))).make()));
+		Assert.assertTrue(ReferenceBlockBypass.isReferenceBlock(
+				new VariantContextBuilder(refBlock).alleles(Arrays.asList(Allele.create("A", true))).make()));
+		Assert.assertFalse(ReferenceBlockBypass.isReferenceBlock(variant));
+		Assert.assertFalse(ReferenceBlockBypass.isReferenceBlock(new VariantContextBuilder(refBlock)
+				.alleles(Arrays.asList(Allele.create("A", true), Allele.create("<DEL>"))).make()));
+	}
+
+	@Test
+	public void testGuardAndCount() {
+		final ReferenceBlockBypass bypass = new ReferenceBlockBypass();
+		final Function<VariantContext, VariantContext> step = bypass
+				.guard(vc -> new VariantContextBuilder(vc).attribute("STEP", true).make());
+
+		bypass.count(refBlock);
+		bypass.count(variant);
+		Assert.assertSame(refBlock, step.apply(refBlock));
+		Assert.assertTrue(step.apply(variant).hasAttribute("STEP"));
+		Assert.assertEquals(1, bypass.getNumPassedThrough());
+		Assert.assertEquals(1, bypass.getNumAnnotated());
+	}
+
+	@Test
+	public void testAnnotatorSkipsNonRefAlleleInGvcfMode() throws InvalidCoordinatesException {
+		JannovarData data = new TestJannovarDataFactory().getJannovarData();
+		VariantContextAnnotator annotator = new VariantContextAnnotator(data.getRefDict(), data.getChromosomes(),
+				new VariantContextAnnotator.Options(true, AminoAcidCode.ONE_LETTER, true, true, false, false, false,
+						VariantEffectHeaderExtender.INFO_ANN, true));
+
+		final String ann = annotator.annotateVariantContext(variant).getAttributeAsString("ANN", null);
+		Assert.assertTrue(ann.startsWith("C|"));
+		Assert.assertFalse(ann.contains("NON_REF"));
+		Assert.assertTrue(annotator.buildAnnotations(variant).get(1).getAnnotations().isEmpty());
+	}
+
+	@Test
+	public void testAnnotatorKeepsNonRefAlleleOutsideGvcfMode() throws InvalidCoordinatesException {
+		JannovarData data = new TestJannovarDataFactory().getJannovarData();
+		VariantContextAnnotator annotator = new VariantContextAnnotator(data.getRefDict(), data.getChromosomes());
+		Assert.assertFalse(annotator.getOptions().isGvcfMode());
+
+		// Only the most severe annotation is written by default, so check the annotations of the alleles directly
+		final List<VariantAnnotations> annos = annotator.buildAnnotations(variant);
+		Assert.assertEquals(2, annos.size());
+		Assert.assertFalse(annos.get(0).getAnnotations().isEmpty());
+		Assert.assertFalse(annos.get(1).getAnnotations().isEmpty());
+	}
+
+}
@@ -0,0 +1,101 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.mendel.filter.ConsumerProcessor;
+import de.charite.compbio.jannovar.mendel.filter.VariantContextProcessor;
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+
+/**
+ * Tests for {@link VariantContextPipeline}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public class VariantContextPipelineTest {
+
+	/** SNVs on chr1, at positions 1 to 1000 */
+	List<VariantContext> input;
+
+	@Before
+	public void setUp() {
+		input = new ArrayList<>();
+		for (int pos = 1; pos <= 1000; ++pos)
+			input.add(new VariantContextBuilder("test", "1", pos, pos,
+					Arrays.asList(Allele.create("A", true), Allele.create("C"))).make());
+	}
+
+	/** @return pipeline that drops every tenth record and marks the others, recording the stage instances used */
+	private VariantContextPipeline buildPipeline(int numThreads, Set<Object> instances) throws JannovarException {
+		return VariantContextPipeline.builder().addSharedStage("drop", vc -> (vc.getStart() % 10 == 0) ? null : vc)
+				.addStage("mark", () -> {
+					final Object instance = new Object();
+					return vc -> {
+						instances.add(instance);
+						return new VariantContextBuilder(vc).attribute("MARK", vc.getStart()).make();
+					};
+				}).numThreads(numThreads).build();
+	}
+
+	/** @return the start positions of <code>vcs</code> */
+	private static List<Integer> starts(List<VariantContext> vcs) {
+		return vcs.stream().map(VariantContext::getStart).collect(Collectors.toList());
+	}
+
+	@Test
+	public void testSequential() throws JannovarException {
+		final Set<Object> instances = ConcurrentHashMap.newKeySet();
+		try (VariantContextPipeline pipeline = buildPipeline(0, instances)) {
+			final List<VariantContext> result = pipeline.stream(input.stream()).collect(Collectors.toList());
+
+			Assert.assertEquals(900, result.size());
+			Assert.assertEquals(starts(input).stream().filter(pos -> pos % 10 != 0).collect(Collectors.toList()),
+					starts(result));
+			for (VariantContext vc : result)
+				Assert.assertEquals(vc.getStart(), vc.getAttributeAsInt("MARK", -1));
+			Assert.assertEquals(1, instances.size());
+		}
+	}
+
+	@Test
+	public void testParallelKeepsOrder() throws JannovarException {
+		final Set<Object> instances = ConcurrentHashMap.newKeySet();
+		try (VariantContextPipeline pipeline = buildPipeline(4, instances)) {
+			Assert.assertEquals(16, pipeline.getMaxInFlight());
+			final List<VariantContext> result = new ArrayList<>();
+			pipeline.run(input.iterator(), result::add);
+
+			Assert.assertEquals(starts(input).stream().filter(pos -> pos % 10 != 0).collect(Collectors.toList()),
+					starts(result));
+			Assert.assertTrue(instances.size() <= 4);
+		}
+	}
+
+	@Test
+	public void testProcessor() throws JannovarException {
+		final List<VariantContext> result = Collections.synchronizedList(new ArrayList<>());
+		try (VariantContextPipeline pipeline = buildPipeline(2, ConcurrentHashMap.newKeySet())) {
+			try (VariantContextProcessor processor = pipeline.processor(new ConsumerProcessor(result::add))) {
+				for (VariantContext vc : input)
+					processor.put(vc);
+			}
+		}
+
+		Assert.assertEquals(900, result.size());
+		Assert.assertEquals(starts(input).stream().filter(pos -> pos % 10 != 0).collect(Collectors.toList()),
+				starts(result));
+	}
+
+}
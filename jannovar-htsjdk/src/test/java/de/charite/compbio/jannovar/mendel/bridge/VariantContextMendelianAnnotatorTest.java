@@ -0,0 +1,87 @@
+package de.charite.compbio.jannovar.mendel.bridge;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import de.charite.compbio.jannovar.mendel.SubModeOfInheritance;
+import de.charite.compbio.jannovar.pedigree.Disease;
+import de.charite.compbio.jannovar.pedigree.PedFileContents;
+import de.charite.compbio.jannovar.pedigree.PedParseException;
+import de.charite.compbio.jannovar.pedigree.PedPerson;
+import de.charite.compbio.jannovar.pedigree.Pedigree;
+import de.charite.compbio.jannovar.pedigree.Sex;
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.GenotypeBuilder;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+
+/**
+ * Tests for {@link VariantContextMendelianAnnotator}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public class VariantContextMendelianAnnotatorTest {
+
+	static final Allele REF = Allele.create("A", true);
+	static final Allele ALT = Allele.create("C");
+
+	/** Pedigree with one affected child */
+	private Pedigree trio;
+
+	@Before
+	public void setUp() throws PedParseException {
+		ImmutableList.Builder<PedPerson> individuals = new ImmutableList.Builder<PedPerson>();
+		individuals.add(new PedPerson("ped", "Eva", "0", "0", Sex.FEMALE, Disease.UNAFFECTED)); // Mother
+		individuals.add(new PedPerson("ped", "Adam", "0", "0", Sex.MALE, Disease.UNAFFECTED)); // Father
+		individuals.add(new PedPerson("ped", "Seth", "Adam", "Eva", Sex.MALE, Disease.AFFECTED)); // Child
+		PedFileContents pedFileContents = new PedFileContents(new ImmutableList.Builder<String>().build(),
+				individuals.build());
+		trio = new Pedigree(pedFileContents, "ped");
+	}
+
+	/**
+	 * @return variant at <code>pos</code> on chr1 with a het child and the given parent carrying it het, the other
+	 *         parent hom-ref
+	 */
+	private static VariantContext buildHetInChild(int pos, String hetParent, String... filters) {
+		final String homRefParent = hetParent.equals("Eva") ? "Adam" : "Eva";
+		VariantContextBuilder builder = new VariantContextBuilder("test", "1", pos, pos, Arrays.asList(REF, ALT))
+				.genotypes(new GenotypeBuilder(hetParent, Arrays.asList(REF, ALT)).make(),
+						new GenotypeBuilder(homRefParent, Arrays.asList(REF, REF)).make(),
+						new GenotypeBuilder("Seth", Arrays.asList(REF, ALT)).make());
+		if (filters.length > 0)
+			builder.filters(filters);
+		else
+			builder.passFilters();
+		return builder.make();
+	}
+
+	@Test
+	public void testCompHetCallsMappedToUnfilteredVariants() throws CannotAnnotateMendelianInheritance {
+		// Het in the child at three sites, inherited from the mother at the first two and from the father at the
+		// third one. The first one is too common for the recessive check.
+		final VariantContext common = buildHetInChild(1000, "Eva", "MaxFreqAr");
+		final VariantContext maternal = buildHetInChild(2000, "Eva");
+		final VariantContext paternal = buildHetInChild(3000, "Adam");
+		final ImmutableList<VariantContext> vcs = ImmutableList.of(common, maternal, paternal);
+
+		VariantContextMendelianAnnotator annotator = new VariantContextMendelianAnnotator(trio, false, true);
+		ImmutableMap<SubModeOfInheritance, ImmutableList<VariantContext>> result = annotator
+				.computeCompatibleInheritanceSubModes(vcs);
+		Assert.assertEquals(ImmutableSet.of(maternal, paternal),
+				ImmutableSet.copyOf(result.get(SubModeOfInheritance.AUTOSOMAL_RECESSIVE_COMP_HET)));
+
+		// Without interpreting the variant filters, the common variant is part of a compound heterozygous pair
+		VariantContextMendelianAnnotator unfiltered = new VariantContextMendelianAnnotator(trio, false, false);
+		Assert.assertEquals(ImmutableSet.of(common, maternal, paternal), ImmutableSet.copyOf(unfiltered
+				.computeCompatibleInheritanceSubModes(vcs).get(SubModeOfInheritance.AUTOSOMAL_RECESSIVE_COMP_HET)));
+	}
+
+}
@@ -0,0 +1,81 @@
+package de.charite.compbio.jannovar.mendel.filter;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import de.charite.compbio.jannovar.factories.TestJannovarDataFactory;
+import de.charite.compbio.jannovar.progress.GenomeRegion;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+
+/**
+ * Tests for {@link GeneBoundaryShardPlanner}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public class GeneBoundaryShardPlannerTest {
+
+	/** Planner under test, uses the FGFR2 transcript on chr10 at [123237843, 123357972) */
+	private GeneBoundaryShardPlanner planner;
+
+	@Before
+	public void setUp() {
+		planner = new GeneBoundaryShardPlanner(new TestJannovarDataFactory().getJannovarData());
+	}
+
+	@Test
+	public void testCutOutsideOfGenes() {
+		SAMSequenceDictionary seqDict = new SAMSequenceDictionary(
+				ImmutableList.of(new SAMSequenceRecord("chr10", 246600000)));
+
+		ImmutableList<GenomeRegion> shards = planner.planShards(seqDict, 2);
+
+		Assert.assertEquals(2, shards.size());
+		Assert.assertEquals(new GenomeRegion("chr10", 0, 123357972), shards.get(0));
+		Assert.assertEquals(new GenomeRegion("chr10", 123357972, 246600000), shards.get(1));
+	}
+
+	@Test
+	public void testCutOutsideOfVariants() {
+		SAMSequenceDictionary seqDict = new SAMSequenceDictionary(
+				ImmutableList.of(new SAMSequenceRecord("chr10", 246600000)));
+
+		// Deletion at [123357900, 123358100) starts in FGFR2 and spans its end
+		ImmutableList<GenomeRegion> shards = planner.planShards(seqDict, 2,
+				(contig, pos) -> (pos > 123357900 && pos < 123358100) ? 123358100 : pos);
+
+		Assert.assertEquals(2, shards.size());
+		Assert.assertEquals(new GenomeRegion("chr10", 0, 123358100), shards.get(0));
+		Assert.assertEquals(new GenomeRegion("chr10", 123358100, 246600000), shards.get(1));
+	}
+
+	@Test
+	public void testCutOutsideOfVariantIntoGene() {
+		SAMSequenceDictionary seqDict = new SAMSequenceDictionary(
+				ImmutableList.of(new SAMSequenceRecord("chr10", 246400000)));
+
+		// Deletion at [123199000, 123240000) spans the initial cut and ends in FGFR2
+		ImmutableList<GenomeRegion> shards = planner.planShards(seqDict, 2,
+				(contig, pos) -> (pos > 123199000 && pos < 123240000) ? 123240000 : pos);
+
+		Assert.assertEquals(2, shards.size());
+		Assert.assertEquals(new GenomeRegion("chr10", 0, 123357972), shards.get(0));
+		Assert.assertEquals(new GenomeRegion("chr10", 123357972, 246400000), shards.get(1));
+	}
+
+	@Test
+	public void testOneShardPerContig() {
+		SAMSequenceDictionary seqDict = new SAMSequenceDictionary(ImmutableList
+				.of(new SAMSequenceRecord("chr10", 1000), new SAMSequenceRecord("unknown", 1000)));
+
+		ImmutableList<GenomeRegion> shards = planner.planShards(seqDict, 1);
+
+		Assert.assertEquals(2, shards.size());
+		Assert.assertEquals(new GenomeRegion("chr10", 0, 1000), shards.get(0));
+		Assert.assertEquals(new GenomeRegion("unknown", 0, 1000), shards.get(1));
+	}
+
+}
@@ -117,6 +117,54 @@ public class GeneWiseInheritanceProcessorOneAffectedTest {
 		Assert.assertNull(result.get(6).getAttribute(KEY_SUB));
 	}
 
+	@Test
+	public void testGenotypeCallsCache() {
+		loadVariants("b37.");
+
+		ArrayList<VariantContext> result = new ArrayList<>();
+		GeneWiseMendelianAnnotationProcessor proc = new GeneWiseMendelianAnnotationProcessor(trio, jannovarDB,
+				vc -> result.add(vc), false);
+		for (VariantContext vc : variants)
+			proc.put(vc);
+		proc.close();
+
+		Assert.assertEquals(7, result.size());
+		// Each variant in a gene is converted once, the calls are evicted once the variant is written out. The
+		// variants at the end of RBM8A also lie in GNRHR2, their calls are reused for the second gene.
+		Assert.assertTrue(proc.getGenotypeCallsCacheHits() > 0);
+		Assert.assertTrue(proc.getGenotypeCallsCacheMisses() > 0);
+		Assert.assertTrue(proc.getGenotypeCallsCacheMisses() <= variants.size());
+		Assert.assertTrue(proc.getGenotypeCallsCachePeakSize() > 0);
+		Assert.assertTrue(proc.genotypeCallsCache.isEmpty());
+	}
+
+	@Test
+	public void testGRCh37Parallel() {
+		loadVariants("b37.");
+
+		ArrayList<VariantContext> expected = new ArrayList<>();
+		try (GeneWiseMendelianAnnotationProcessor proc = new GeneWiseMendelianAnnotationProcessor(trio, jannovarDB,
+				vc -> expected.add(vc), false)) {
+			for (VariantContext vc : variants)
+				proc.put(vc);
+		}
+
+		ArrayList<VariantContext> result = new ArrayList<>();
+		try (GeneWiseMendelianAnnotationProcessor proc = new GeneWiseMendelianAnnotationProcessor(trio, jannovarDB,
+				vc -> result.add(vc), false, 4)) {
+			for (VariantContext vc : variants)
+				proc.put(vc);
+		}
+
+		Assert.assertEquals(expected.size(), result.size());
+		for (int i = 0; i < expected.size(); ++i) {
+			Assert.assertEquals(expected.get(i).getContig(), result.get(i).getContig());
+			Assert.assertEquals(expected.get(i).getStart(), result.get(i).getStart());
+			Assert.assertEquals(expected.get(i).getAttribute(KEY), result.get(i).getAttribute(KEY));
+			Assert.assertEquals(expected.get(i).getAttribute(KEY_SUB), result.get(i).getAttribute(KEY_SUB));
+		}
+	}
+
 	@Test
 	public void testHG19() {
 		loadVariants("hg19.");
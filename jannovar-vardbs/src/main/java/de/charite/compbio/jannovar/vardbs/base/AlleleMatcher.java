@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import com.google.common.collect.Lists;
+import htsjdk.samtools.reference.ReferenceSequenceFile;
 import htsjdk.variant.variantcontext.VariantContext;
 
 /**
@@ -30,6 +31,16 @@ public final class AlleleMatcher {
 		this.normalizer = new VariantNormalizer(pathFasta);
 	}
 
+	/**
+	 * Construct GenotypeMatcher
+	 * 
+	 * @param fai
+	 *            {@link ReferenceSequenceFile} to load the reference sequence from for indel normalization
+	 */
+	public AlleleMatcher(ReferenceSequenceFile fai) {
+		this.normalizer = new VariantNormalizer(fai);
+	}
+
 	/**
 	 * Match genotypes of two {@link VariantContext}s (chrom, position, ref, and alt have to be
 	 * equal)
@@ -1,9 +1,10 @@
 package de.charite.compbio.jannovar.vardbs.base;
 
-import java.io.File;
 import java.io.FileNotFoundException;
+import java.nio.charset.StandardCharsets;
 
-import htsjdk.samtools.reference.IndexedFastaSequenceFile;
+import de.charite.compbio.jannovar.htsjdk.PagedReferenceSequenceFile;
+import htsjdk.samtools.reference.ReferenceSequenceFile;
 
 /**
  * Helper class for normalizing two variants
@@ -18,13 +19,17 @@ import htsjdk.samtools.reference.IndexedFastaSequenceFile;
  */
 public final class VariantNormalizer {
 
-	/** Path to indexed FASTA path to use */
+	/** Number of reference bases to fetch at once when shifting variants to the left */
+	private static final int SHIFT_CHUNK_SIZE = 64;
+
+	/** Path to indexed FASTA path to use, <code>null</code> if constructed from a {@link ReferenceSequenceFile} */
 	final String fastaPath;
 	/** Random access in FASTA files using FAI */
-	final IndexedFastaSequenceFile fai;
+	final ReferenceSequenceFile fai;
 
 	/**
-	 * Construct new variant normalizer object
+	 * Construct new variant normalizer object, using the process-wide {@link PagedReferenceSequenceFile} for the FASTA
+	 * file
 	 *
 	 * @param fastaPath
 	 *            Path to indexed FASTA file
@@ -34,12 +39,24 @@ public final class VariantNormalizer {
 	public VariantNormalizer(String fastaPath) throws JannovarVarDBException {
 		this.fastaPath = fastaPath;
 		try {
-			this.fai = new IndexedFastaSequenceFile(new File(fastaPath));
+			this.fai = PagedReferenceSequenceFile.getShared(fastaPath);
 		} catch (FileNotFoundException e) {
 			throw new JannovarVarDBException("Could not find FASTA/FAI file", e);
 		}
 	}
 
+	/**
+	 * Construct new variant normalizer object
+	 *
+	 * @param fai
+	 *            {@link ReferenceSequenceFile} to load the reference sequence from, must be safe for use from the
+	 *            threads that use the normalizer
+	 */
+	public VariantNormalizer(ReferenceSequenceFile fai) {
+		this.fastaPath = null;
+		this.fai = fai;
+	}
+
 	/**
 	 * Normalize a variant given as a start coordinate, reference, and variant sequence
 	 *
@@ -64,48 +81,105 @@ public final class VariantNormalizer {
 
 	private VariantDescription shiftLeft(VariantDescription desc) {
 		int pos = desc.getPos();
-		String ref = desc.getRef();
-		String alt = desc.getAlt();
+		final AlleleBuffer ref = new AlleleBuffer(desc.getRef());
+		final AlleleBuffer alt = new AlleleBuffer(desc.getAlt());
+
+		// Reference bases left of the variant are fetched in chunks, window[i] is the base at 0-based windowBegin + i
+		byte[] window = new byte[0];
+		int windowBegin = pos;
 
 		boolean anyChange = true;
 		while (anyChange) {
 			anyChange = false;
 
 			// Trim left-most nucletoide
-			if (ref.length() > 0 && alt.length() > 0 && ref.charAt(ref.length() - 1) == alt.charAt(alt.length() - 1)) {
-				ref = ref.substring(0, ref.length() - 1);
-				alt = alt.substring(0, alt.length() - 1);
+			if (ref.length() > 0 && alt.length() > 0 && ref.last() == alt.last()) {
+				ref.trimLast();
+				alt.trimLast();
 				anyChange = true;
 			}
 			// Extend alleles to the left if there is an empty allele
 			if (ref.length() == 0 || alt.length() == 0) {
-				char extension = (char) fai.getSubsequenceAt(desc.getChrom(), pos, pos).getBases()[0];
-				ref = extension + ref;
-				alt = extension + alt;
+				if (pos - 1 < windowBegin) {
+					final int from = Math.max(1, pos - SHIFT_CHUNK_SIZE + 1); // 1-based, inclusive
+					window = fai.getSubsequenceAt(desc.getChrom(), from, pos).getBases();
+					windowBegin = from - 1;
+				}
+				final byte extension = window[pos - 1 - windowBegin];
+				ref.prepend(extension);
+				alt.prepend(extension);
 				pos -= 1;
 				anyChange = true;
 			}
 		}
 
-		return new VariantDescription(desc.getChrom(), pos, ref, alt);
+		return new VariantDescription(desc.getChrom(), pos, ref.toString(), alt.toString());
 	}
 
 	private VariantDescription trimBasesLeft(VariantDescription desc, int minSize) {
-		int pos = desc.getPos();
-		String ref = desc.getRef();
-		String alt = desc.getAlt();
-
-		// Trim left bases
-		while (true) {
-			if (ref.length() > minSize && alt.length() > minSize && ref.charAt(0) == alt.charAt(0)) {
-				ref = ref.substring(1);
-				alt = alt.substring(1);
-			} else {
-				break;
+		final String ref = desc.getRef();
+		final String alt = desc.getAlt();
+
+		// Count left bases to trim
+		int numTrimmed = 0;
+		while (ref.length() - numTrimmed > minSize && alt.length() - numTrimmed > minSize
+				&& ref.charAt(numTrimmed) == alt.charAt(numTrimmed))
+			++numTrimmed;
+
+		return new VariantDescription(desc.getChrom(), desc.getPos(), ref.substring(numTrimmed),
+				alt.substring(numTrimmed));
+	}
+
+	/**
+	 * Allele sequence as ASCII bytes that can be trimmed on the right and extended on the left without copying the
+	 * sequence for each step
+	 */
+	private static final class AlleleBuffer {
+
+		/** buffer, the allele is stored in <code>[begin, end)</code> */
+		private byte[] buffer;
+		/** begin of the allele in {@link #buffer} */
+		private int begin;
+		/** end of the allele in {@link #buffer} */
+		private int end;
+
+		AlleleBuffer(String allele) {
+			final byte[] bytes = allele.getBytes(StandardCharsets.US_ASCII);
+			this.buffer = new byte[bytes.length + SHIFT_CHUNK_SIZE];
+			this.begin = SHIFT_CHUNK_SIZE;
+			this.end = buffer.length;
+			System.arraycopy(bytes, 0, buffer, begin, bytes.length);
+		}
+
+		int length() {
+			return end - begin;
+		}
+
+		byte last() {
+			return buffer[end - 1];
+		}
+
+		void trimLast() {
+			--end;
+		}
+
+		void prepend(byte base) {
+			if (begin == 0) {
+				final int grow = Math.max(SHIFT_CHUNK_SIZE, buffer.length);
+				final byte[] newBuffer = new byte[buffer.length + grow];
+				System.arraycopy(buffer, 0, newBuffer, grow, end);
+				buffer = newBuffer;
+				begin += grow;
+				end += grow;
 			}
+			buffer[--begin] = base;
+		}
+
+		@Override
+		public String toString() {
+			return new String(buffer, begin, end - begin, StandardCharsets.US_ASCII);
 		}
 
-		return new VariantDescription(desc.getChrom(), pos, ref, alt);
 	}
 
 }
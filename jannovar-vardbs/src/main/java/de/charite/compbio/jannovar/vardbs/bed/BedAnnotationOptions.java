@@ -0,0 +1,78 @@
+package de.charite.compbio.jannovar.vardbs.bed;
+
+/**
+ * Configuration for annotation with BED file.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public class BedAnnotationOptions {
+
+	/**
+	 * Construct new BED annotation from command line option value.
+	 * 
+	 * <p>
+	 * The value must have the format: <code>pathToBed:infoField:description[:colNo]</code>
+	 * </p>
+	 * 
+	 * @param strValue String to parse from
+	 * @return Constructed {@link BedAnnotationOptions} from the given string value.
+	 */
+	public static BedAnnotationOptions parseFrom(String strValue) {
+		String tokens[] = strValue.split(":", 4);
+		if (tokens.length < 3) {
+			throw new RuntimeException("Could not parse BED annotation from " + strValue);
+		} else if (tokens.length == 3) {
+			return new BedAnnotationOptions(tokens[0], tokens[1], tokens[2]);
+		} else {
+			return new BedAnnotationOptions(tokens[0], tokens[1], tokens[2],
+					Integer.parseInt(tokens[3]));
+		}
+	}
+
+	/** Path to BED file */
+	private final String pathBed;
+
+	/** Label to use for INFO field. */
+	private final String infoField;
+
+	/** Description to use for INFO field. */
+	private final String description;
+
+	/** 0-based column to write into VCF file, if any, <code>-1</code> for none */
+	private final int colNo;
+
+	public BedAnnotationOptions(String pathBed, String infoField, String description) {
+		this(pathBed, infoField, description, -1);
+	}
+
+	public BedAnnotationOptions(String pathBed, String infoField, String description,
+			int colNo) {
+		this.pathBed = pathBed;
+		this.infoField = infoField;
+		this.description = description;
+		this.colNo = colNo;
+	}
+
+	public String getPathBed() {
+		return pathBed;
+	}
+
+	public int getColNo() {
+		return colNo;
+	}
+
+	public String getInfoField() {
+		return infoField;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	@Override
+	public String toString() {
+		return "BedAnnotationOptions [pathBed=" + pathBed + ", colNo=" + colNo + ", infoField="
+				+ infoField + ", description=" + description + "]";
+	}
+
+}
@@ -0,0 +1,232 @@
+package de.charite.compbio.jannovar.vardbs.bed;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableMap;
+
+import htsjdk.tribble.AbstractFeatureReader;
+import htsjdk.tribble.CloseableTribbleIterator;
+import htsjdk.tribble.bed.BEDCodec;
+import htsjdk.tribble.bed.BEDFeature;
+import htsjdk.tribble.readers.LineIterator;
+
+/**
+ * In-memory index of the features of a BED file, as an alternative to tabix queries for small files.
+ *
+ * The features of each contig are stored in primitive arrays, sorted by begin position, together with the running
+ * maximum of the end positions. The first feature that can overlap a query is found by binary search on the running
+ * maximum, and the {@link Cursor} sweeps forward instead when the queries come in sorted order, as is the case when
+ * annotating a sorted VCF file.
+ *
+ * All positions are one-based and inclusive, as in {@link BEDFeature} and <tt>VariantContext</tt>.
+ *
+ * The index is immutable and can be shared between threads, each thread should use its own {@link Cursor}.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public final class BedFeatureIndex {
+
+	/** Features of one contig */
+	private static final class Contig {
+		/** begin positions, sorted */
+		final int[] begins;
+		/** end positions */
+		final int[] ends;
+		/** <code>maxEnds[i]</code> is the maximum of <code>ends[0..i]</code> */
+		final int[] maxEnds;
+		/** feature names */
+		final String[] names;
+
+		Contig(int[] begins, int[] ends, String[] names) {
+			this.begins = begins;
+			this.ends = ends;
+			this.names = names;
+			this.maxEnds = new int[ends.length];
+			int maxEnd = Integer.MIN_VALUE;
+			for (int i = 0; i < ends.length; ++i)
+				maxEnds[i] = maxEnd = Math.max(maxEnd, ends[i]);
+		}
+
+		/** @return index of the first feature with <code>maxEnds[i] &gt;= pos</code>, using binary search */
+		int lowerBound(int pos) {
+			int lo = 0, hi = maxEnds.length;
+			while (lo < hi) {
+				final int mid = (lo + hi) >>> 1;
+				if (maxEnds[mid] < pos)
+					lo = mid + 1;
+				else
+					hi = mid;
+			}
+			return lo;
+		}
+	}
+
+	/** Builder for the features of one contig, collected in file order */
+	private static final class ContigBuilder {
+		int size = 0;
+		int[] begins = new int[16];
+		int[] ends = new int[16];
+		String[] names = new String[16];
+
+		void add(int begin, int end, String name) {
+			if (size == begins.length) {
+				begins = Arrays.copyOf(begins, 2 * size);
+				ends = Arrays.copyOf(ends, 2 * size);
+				names = Arrays.copyOf(names, 2 * size);
+			}
+			begins[size] = begin;
+			ends[size] = end;
+			names[size] = name;
+			++size;
+		}
+
+		Contig build() {
+			boolean sorted = true;
+			for (int i = 1; sorted && i < size; ++i)
+				sorted = begins[i - 1] <= begins[i];
+			if (sorted)
+				return new Contig(Arrays.copyOf(begins, size), Arrays.copyOf(ends, size), Arrays.copyOf(names, size));
+
+			// Stable sort of a permutation by begin position, keeping the file order for equal begin positions.
+			final Integer[] perm = new Integer[size];
+			for (int i = 0; i < size; ++i)
+				perm[i] = i;
+			Arrays.sort(perm, Comparator.comparingInt(i -> begins[i]));
+			final int[] sortedBegins = new int[size];
+			final int[] sortedEnds = new int[size];
+			final String[] sortedNames = new String[size];
+			for (int i = 0; i < size; ++i) {
+				sortedBegins[i] = begins[perm[i]];
+				sortedEnds[i] = ends[perm[i]];
+				sortedNames[i] = names[perm[i]];
+			}
+			return new Contig(sortedBegins, sortedEnds, sortedNames);
+		}
+	}
+
+	/**
+	 * Query cursor for a {@link BedFeatureIndex}, not thread-safe.
+	 *
+	 * Remembers the contig and lower bound of the last query. Queries on the same contig that do not start left of the
+	 * previous one advance the lower bound linearly, all others fall back to binary search.
+	 */
+	public final class Cursor {
+		/** name of the contig of the last query */
+		private String contigName = null;
+		/** features of {@link #contigName}, <code>null</code> if there are none */
+		private Contig contig = null;
+		/** start position of the last query, {@link Integer#MAX_VALUE} after switching the contig */
+		private int lastStart = Integer.MAX_VALUE;
+		/** lower bound for {@link #lastStart} */
+		private int lo = 0;
+
+		private Cursor() {
+		}
+
+		/**
+		 * Collect the names of the features overlapping with <code>[start, end]</code>
+		 *
+		 * @param contigName
+		 *            name of the contig to query
+		 * @param start
+		 *            one-based start position of the query
+		 * @param end
+		 *            one-based, inclusive end position of the query
+		 * @param firstOnly
+		 *            whether to stop after the first overlapping feature
+		 * @param result
+		 *            list to append the names of the overlapping features to, in the order of their begin positions
+		 * @return whether there was any overlapping feature
+		 */
+		public boolean collectOverlapping(String contigName, int start, int end, boolean firstOnly,
+				List<String> result) {
+			if (!contigName.equals(this.contigName)) {
+				this.contigName = contigName;
+				this.contig = contigs.get(contigName);
+				this.lastStart = Integer.MAX_VALUE;
+			}
+			if (contig == null)
+				return false;
+
+			if (start >= lastStart) {
+				while (lo < contig.maxEnds.length && contig.maxEnds[lo] < start)
+					++lo;
+			} else {
+				lo = contig.lowerBound(start);
+			}
+			lastStart = start;
+
+			boolean found = false;
+			for (int i = lo; i < contig.begins.length && contig.begins[i] <= end; ++i) {
+				if (contig.ends[i] >= start) {
+					found = true;
+					result.add(contig.names[i]);
+					if (firstOnly)
+						break;
+				}
+			}
+			return found;
+		}
+	}
+
+	/** features by contig name */
+	private final ImmutableMap<String, Contig> contigs;
+
+	/** total number of features */
+	private final int size;
+
+	private BedFeatureIndex(ImmutableMap<String, Contig> contigs) {
+		this.contigs = contigs;
+		int size = 0;
+		for (Contig contig : contigs.values())
+			size += contig.begins.length;
+		this.size = size;
+	}
+
+	/**
+	 * Load all features of a BED file into memory
+	 *
+	 * @param bedFile
+	 *            path to the BED file, can be plain text or bgzip-compressed, no index is needed
+	 * @return the resulting {@link BedFeatureIndex}
+	 * @throws IOException
+	 *             on problems reading the file
+	 */
+	public static BedFeatureIndex load(File bedFile) throws IOException {
+		final Map<String, ContigBuilder> builders = new LinkedHashMap<>();
+		final Map<String, String> namePool = new HashMap<>();
+		try (AbstractFeatureReader<BEDFeature, LineIterator> reader = AbstractFeatureReader
+				.getFeatureReader(bedFile.getAbsolutePath(), new BEDCodec(), false);
+				CloseableTribbleIterator<BEDFeature> iter = reader.iterator()) {
+			while (iter.hasNext()) {
+				final BEDFeature feature = iter.next();
+				final String name = namePool.computeIfAbsent(feature.getName(), s -> s);
+				builders.computeIfAbsent(feature.getContig(), c -> new ContigBuilder()).add(feature.getStart(),
+						feature.getEnd(), name);
+			}
+		}
+
+		final ImmutableMap.Builder<String, Contig> contigs = ImmutableMap.builder();
+		for (Map.Entry<String, ContigBuilder> entry : builders.entrySet())
+			contigs.put(entry.getKey(), entry.getValue().build());
+		return new BedFeatureIndex(contigs.build());
+	}
+
+	/** @return new {@link Cursor} for querying the index */
+	public Cursor cursor() {
+		return new Cursor();
+	}
+
+	/** @return total number of features */
+	public int size() {
+		return size;
+	}
+
+}
@@ -0,0 +1,494 @@
+package de.charite.compbio.jannovar.vardbs.facade;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+
+import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.filter.facade.FrequencyPruner;
+import de.charite.compbio.jannovar.filter.facade.GenotypeThresholdFilterAnnotator;
+import de.charite.compbio.jannovar.filter.facade.PedigreeFilterAnnotator;
+import de.charite.compbio.jannovar.filter.facade.PedigreeFilterHeaderExtender;
+import de.charite.compbio.jannovar.filter.facade.ThresholdFilterHeaderExtender;
+import de.charite.compbio.jannovar.filter.facade.ThresholdFilterOptions;
+import de.charite.compbio.jannovar.filter.impl.var.VariantThresholdFilterAnnotator;
+import de.charite.compbio.jannovar.htsjdk.MultiDatabaseVariantContextAnnotator;
+import de.charite.compbio.jannovar.htsjdk.ReferenceBlockBypass;
+import de.charite.compbio.jannovar.htsjdk.VariantContextAnnotator;
+import de.charite.compbio.jannovar.htsjdk.VariantContextPipeline;
+import de.charite.compbio.jannovar.htsjdk.VariantEffectHeaderExtender;
+import de.charite.compbio.jannovar.mendel.IncompatiblePedigreeException;
+import de.charite.compbio.jannovar.mendel.bridge.MendelVCFHeaderExtender;
+import de.charite.compbio.jannovar.mendel.filter.ConsumerProcessor;
+import de.charite.compbio.jannovar.mendel.filter.CoordinateSortingChecker;
+import de.charite.compbio.jannovar.mendel.filter.GeneList;
+import de.charite.compbio.jannovar.mendel.filter.GeneWiseMendelianAnnotationProcessor;
+import de.charite.compbio.jannovar.mendel.filter.VariantContextProcessor;
+import de.charite.compbio.jannovar.pedigree.Disease;
+import de.charite.compbio.jannovar.pedigree.PedFileContents;
+import de.charite.compbio.jannovar.pedigree.PedFileReader;
+import de.charite.compbio.jannovar.pedigree.PedParseException;
+import de.charite.compbio.jannovar.pedigree.PedPerson;
+import de.charite.compbio.jannovar.pedigree.Pedigree;
+import de.charite.compbio.jannovar.pedigree.Person;
+import de.charite.compbio.jannovar.pedigree.Sex;
+import de.charite.compbio.jannovar.vardbs.base.DBAnnotationOptions;
+import de.charite.compbio.jannovar.vardbs.base.DBAnnotationOptions.MultipleMatchBehaviour;
+import de.charite.compbio.jannovar.vardbs.bed.BedAnnotationOptions;
+import de.charite.compbio.jannovar.vardbs.bed.BedFeatureIndex;
+import de.charite.compbio.jannovar.vardbs.bed.BedFileAnnotator;
+import de.charite.compbio.jannovar.vardbs.generic_tsv.DbNsfpFields;
+import de.charite.compbio.jannovar.vardbs.generic_tsv.GenericTSVAnnotationDriver;
+import de.charite.compbio.jannovar.vardbs.generic_tsv.GenericTSVAnnotationOptions;
+import de.charite.compbio.jannovar.vardbs.generic_tsv.GenericTSVAnnotationTarget;
+import de.charite.compbio.jannovar.vardbs.generic_tsv.GenericTSVValueColumnDescription;
+import de.charite.compbio.jannovar.vardbs.generic_vcf.GenericVCFAnnotationDriver;
+import de.charite.compbio.jannovar.vardbs.generic_vcf.GenericVCFAnnotationOptions;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFHeader;
+
+/**
+ * Assembles the annotation and filtration steps for {@link VariantContext}s into a {@link VariantContextPipeline}
+ *
+ * The steps are configured through {@link AnnotationPipelineOptions} and run in the same order as in the
+ * <tt>annotate-vcf</tt> command: the variant databases (dbSNP, ExAC, gnomAD), the frequency pruning, the further
+ * variant databases (UK10K, ClinVar, COSMIC), the variant effects against each transcript database, the threshold and
+ * pedigree filters, and the annotation from BED, dbNSFP, TSV, and VCF files. The inheritance annotation needs to see
+ * all variants of a gene at once and thus runs after the pipeline, in the {@link VariantContextProcessor} from
+ * {@link #buildMendelianProcessor}.
+ *
+ * Each call to {@link #build} constructs its own annotators, such that the resulting pipelines can be used
+ * concurrently, e.g., for annotating shards of a VCF file. The transcript databases, the in-memory BED indices, and
+ * the {@link GeneList} for the inheritance annotation are shared. Each worker thread of a pipeline gets its own
+ * annotators, see {@link VariantContextPipeline}.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public final class AnnotationPipelineBuilder {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(AnnotationPipelineBuilder.class);
+
+	/** Configuration */
+	private final AnnotationPipelineOptions options;
+	/** Transcript databases, one for each of {@link AnnotationPipelineOptions#getDatabaseInfoFields} */
+	private final ImmutableList<JannovarData> databases;
+
+	/** The {@link FrequencyPruner}s of all pipelines built, for reporting */
+	private final List<FrequencyPruner> frequencyPruners = Collections.synchronizedList(new ArrayList<>());
+	/** The {@link ReferenceBlockBypass}es of all pipelines built, for reporting */
+	private final List<ReferenceBlockBypass> referenceBlockBypasses = Collections.synchronizedList(new ArrayList<>());
+	/** In-memory indices of the BED files for annotation, by path, shared between pipelines */
+	private final Map<String, BedFeatureIndex> bedFeatureIndices = new HashMap<>();
+	/** Genes of the first transcript database for the inheritance annotation, built on first use */
+	private GeneList geneList = null;
+
+	/**
+	 * @param options
+	 *            configuration of the steps
+	 * @param databases
+	 *            transcript databases, one for each of {@link AnnotationPipelineOptions#getDatabaseInfoFields}, the
+	 *            first one is also used for the inheritance annotation
+	 */
+	public AnnotationPipelineBuilder(AnnotationPipelineOptions options, List<JannovarData> databases) {
+		if (databases.isEmpty() || databases.size() != options.getDatabaseInfoFields().size())
+			throw new IllegalArgumentException("Need one transcript database for each INFO field "
+					+ options.getDatabaseInfoFields() + " but got " + databases.size());
+		this.options = options;
+		this.databases = ImmutableList.copyOf(databases);
+	}
+
+	/** @return configuration of the steps */
+	public AnnotationPipelineOptions getOptions() {
+		return options;
+	}
+
+	/**
+	 * @return {@link GeneList} of the first transcript database, built on the first call and shared by all
+	 *         processors from {@link #buildMendelianProcessor}
+	 */
+	public synchronized GeneList getGeneList() {
+		if (geneList == null)
+			geneList = GeneList.build(databases.get(0));
+		return geneList;
+	}
+
+	/** @return the {@link FrequencyPruner}s of all pipelines built so far */
+	public ImmutableList<FrequencyPruner> getFrequencyPruners() {
+		synchronized (frequencyPruners) {
+			return ImmutableList.copyOf(frequencyPruners);
+		}
+	}
+
+	/** @return the {@link ReferenceBlockBypass}es of all pipelines built so far */
+	public ImmutableList<ReferenceBlockBypass> getReferenceBlockBypasses() {
+		synchronized (referenceBlockBypasses) {
+			return ImmutableList.copyOf(referenceBlockBypasses);
+		}
+	}
+
+	/**
+	 * Wrap annotation step with {@link FrequencyPruner#guard} if pruning is configured and with
+	 * {@link ReferenceBlockBypass#guard} if gVCF mode is configured
+	 *
+	 * @param bypass
+	 *            the {@link ReferenceBlockBypass} to use, <code>null</code> for no gVCF mode
+	 * @param pruner
+	 *            the {@link FrequencyPruner} to use, <code>null</code> for no pruning
+	 * @param name
+	 *            name of the step for reporting
+	 * @param step
+	 *            the annotation step
+	 * @return the wrapped step
+	 */
+	private static Function<VariantContext, VariantContext> guard(ReferenceBlockBypass bypass,
+			FrequencyPruner pruner, String name, Function<VariantContext, VariantContext> step) {
+		if (pruner != null)
+			step = pruner.guard(name, step);
+		if (bypass != null)
+			step = bypass.guard(step);
+		return step;
+	}
+
+	/**
+	 * Build {@link VariantContextPipeline} with the configured annotation and filtration steps
+	 *
+	 * The steps add their header lines to <code>vcfHeader</code>, including the header lines of the inheritance
+	 * annotation if configured.
+	 *
+	 * @param vcfHeader
+	 *            {@link VCFHeader} of the input, to extend
+	 * @return the {@link VariantContextPipeline}, to be closed after use
+	 * @throws JannovarException
+	 *             on problems with the construction of the steps, e.g., opening files
+	 */
+	public VariantContextPipeline build(VCFHeader vcfHeader) throws JannovarException {
+		final VariantContextPipeline.Builder pipeline = VariantContextPipeline.builder()
+				.numThreads(options.getAnnotationThreads());
+
+		// If configured, count the gVCF reference blocks; all following steps are wrapped through guard() and return
+		// them unchanged
+		final ReferenceBlockBypass bypass;
+		if (options.isGvcf()) {
+			bypass = new ReferenceBlockBypass();
+			pipeline.addSharedStage("gVCF reference blocks", vc -> {
+				bypass.count(vc);
+				return vc;
+			});
+			referenceBlockBypasses.add(bypass);
+		} else {
+			bypass = null;
+		}
+
+		// Annotate from the variant databases with frequencies used for pruning
+		addDBStage(pipeline, vcfHeader, bypass, null, "dbSNP", options.getPathVCFDBSNP(), options.getPrefixDBSNP(),
+				DBVariantContextAnnotatorFactory::constructDBSNP);
+		addDBStage(pipeline, vcfHeader, bypass, null, "ExAC", options.getPathVCFExac(), options.getPrefixExac(),
+				DBVariantContextAnnotatorFactory::constructExac);
+		addDBStage(pipeline, vcfHeader, bypass, null, "gnomAD exomes", options.getPathVCFGnomadExomes(),
+				options.getPrefixGnomadExomes(), DBVariantContextAnnotatorFactory::constructGnomad);
+		addDBStage(pipeline, vcfHeader, bypass, null, "gnomAD genomes", options.getPathVCFGnomadGenomes(),
+				options.getPrefixGnomadGenomes(), DBVariantContextAnnotatorFactory::constructGnomad);
+
+		// If configured, prune common variants right after the frequency lookups; in the case of flagging, the
+		// following steps are wrapped through guard() and skipped for them
+		final FrequencyPruner pruner;
+		if (options.getFrequencyPruneMode() != null) {
+			pruner = new FrequencyPruner(options.getThresholdFilterOptions(), options.getFrequencyPruneMode());
+			pruner.addHeaders(vcfHeader);
+			if (pruner.getMode() == FrequencyPruner.Mode.DROP)
+				pipeline.addSharedStage("frequency pruning", vc -> pruner.keep(vc) ? vc : null);
+			else
+				pipeline.addSharedStage("frequency pruning", guard(bypass, null, null, pruner::flagIfCommon));
+			frequencyPruners.add(pruner);
+		} else {
+			pruner = null;
+		}
+
+		// Annotate from the further variant databases
+		addDBStage(pipeline, vcfHeader, bypass, pruner, "UK10K", options.getPathVCFUK10K(), options.getPrefixUK10K(),
+				DBVariantContextAnnotatorFactory::constructUK10K);
+		addDBStage(pipeline, vcfHeader, bypass, pruner, "ClinVar", options.getPathClinVar(),
+				options.getPrefixClinVar(), DBVariantContextAnnotatorFactory::constructClinVar);
+		addDBStage(pipeline, vcfHeader, bypass, pruner, "COSMIC", options.getPathCosmic(), options.getPrefixCosmic(),
+				DBVariantContextAnnotatorFactory::constructCosmic);
+
+		// Annotate with variant effect, against each database into its own INFO field
+		for (String infoField : options.getDatabaseInfoFields())
+			new VariantEffectHeaderExtender(infoField).addHeaders(vcfHeader);
+		pipeline.addStage("variant effects",
+				() -> guard(bypass, pruner, "variant effects", buildVariantEffectAnnotator()));
+
+		if (options.isUseThresholdFilters())
+			addThresholdFilterStages(pipeline, vcfHeader, bypass, pruner);
+
+		// Annotate from BED files
+		for (BedAnnotationOptions bedAnnotationOptions : options.getBedAnnotationOptions()) {
+			BedFileAnnotator annotator = buildBedFileAnnotator(bedAnnotationOptions);
+			annotator.extendHeader(vcfHeader);
+			final String name = "BED " + bedAnnotationOptions.getPathBed();
+			pipeline.addStage(name, guard(bypass, pruner, name, annotator::annotateVariantContext),
+					() -> guard(bypass, pruner, name,
+							buildBedFileAnnotator(bedAnnotationOptions)::annotateVariantContext));
+		}
+
+		// Annotate using dbNSFP
+		if (options.getPathDbNsfp() != null) {
+			Map<String, GenericTSVValueColumnDescription> descriptions = new HashMap<>();
+			for (String colName : options.getColumnsDbNsfp())
+				descriptions.put(colName, DbNsfpFields.DBNSFP_FIELDS.get(colName));
+			GenericTSVAnnotationOptions dbNsfpAnnotationOptions = new GenericTSVAnnotationOptions(true, false,
+					options.getPrefixDbNsfp(), MultipleMatchBehaviour.BEST_ONLY, new File(options.getPathDbNsfp()),
+					GenericTSVAnnotationTarget.VARIANT, true, options.getDbNsfpColContig(),
+					options.getDbNsfpColPosition(), options.getDbNsfpColPosition(), 3, 4, false,
+					options.getColumnsDbNsfp(), descriptions);
+			addTSVStage(pipeline, vcfHeader, bypass, pruner, "dbNSFP", dbNsfpAnnotationOptions);
+		}
+
+		// Annotate from generic TSV files
+		for (GenericTSVAnnotationOptions tsvAnnotationOptions : options.getTsvAnnotationOptions())
+			addTSVStage(pipeline, vcfHeader, bypass, pruner, "TSV " + tsvAnnotationOptions.getTsvFile(),
+					tsvAnnotationOptions);
+
+		// Annotate from generic VCF files
+		for (GenericVCFAnnotationOptions vcfAnnotationOptions : options.getVcfAnnotationOptions()) {
+			GenericVCFAnnotationDriver annotator = new GenericVCFAnnotationDriver(
+					vcfAnnotationOptions.getPathVcfFile(), options.getPathFASTARef(), vcfAnnotationOptions);
+			annotator.constructVCFHeaderExtender().addHeaders(vcfHeader);
+			final String name = "VCF " + vcfAnnotationOptions.getPathVcfFile();
+			pipeline.addStage(name, guard(bypass, pruner, name, annotator::annotateVariantContext),
+					() -> guard(bypass, pruner, name, new GenericVCFAnnotationDriver(
+							vcfAnnotationOptions.getPathVcfFile(), options.getPathFASTARef(),
+							vcfAnnotationOptions)::annotateVariantContext));
+		}
+
+		// Extend header for the inheritance annotation, which runs after the pipeline
+		if (options.isInheritanceAnnotationEnabled())
+			new MendelVCFHeaderExtender().extendHeader(vcfHeader, "");
+
+		return pipeline.build();
+	}
+
+	/**
+	 * Construction of a {@link DBVariantContextAnnotator} through {@link DBVariantContextAnnotatorFactory}
+	 */
+	@FunctionalInterface
+	private interface DBAnnotatorConstructor {
+
+		DBVariantContextAnnotator construct(DBVariantContextAnnotatorFactory factory, String pathVCF,
+				String pathFASTA, DBAnnotationOptions options) throws JannovarException;
+
+	}
+
+	/**
+	 * Add step for annotating from a variant database if <code>pathVCF</code> is set, extending
+	 * <code>vcfHeader</code>
+	 */
+	private void addDBStage(VariantContextPipeline.Builder pipeline, VCFHeader vcfHeader, ReferenceBlockBypass bypass,
+			FrequencyPruner pruner, String name, String pathVCF, String prefix, DBAnnotatorConstructor constructor)
+			throws JannovarException {
+		if (pathVCF == null)
+			return;
+		final DBVariantContextAnnotatorFactory dbFactory = new DBVariantContextAnnotatorFactory();
+		final DBAnnotationOptions dbOptions = DBAnnotationOptions.createDefaults();
+		dbOptions.setIdentifierPrefix(prefix);
+		DBVariantContextAnnotator annotator = constructor.construct(dbFactory, pathVCF, options.getPathFASTARef(),
+				dbOptions);
+		annotator.extendHeader(vcfHeader);
+		pipeline.addStage(name, guard(bypass, pruner, name, annotator::annotateVariantContext),
+				() -> guard(bypass, pruner, name, constructor.construct(dbFactory, pathVCF,
+						options.getPathFASTARef(), dbOptions)::annotateVariantContext));
+	}
+
+	/**
+	 * Add step for annotating from a TSV file, extending <code>vcfHeader</code>
+	 */
+	private void addTSVStage(VariantContextPipeline.Builder pipeline, VCFHeader vcfHeader,
+			ReferenceBlockBypass bypass, FrequencyPruner pruner, String name,
+			GenericTSVAnnotationOptions tsvAnnotationOptions) throws JannovarException {
+		GenericTSVAnnotationDriver annotator = new GenericTSVAnnotationDriver(options.getPathFASTARef(),
+				tsvAnnotationOptions);
+		annotator.constructVCFHeaderExtender().addHeaders(vcfHeader);
+		pipeline.addStage(name, guard(bypass, pruner, name, annotator::annotateVariantContext),
+				() -> guard(bypass, pruner, name, new GenericTSVAnnotationDriver(options.getPathFASTARef(),
+						tsvAnnotationOptions)::annotateVariantContext));
+	}
+
+	/**
+	 * Add the genotype threshold filter, the pedigree filter if configured, and the variant threshold filter,
+	 * extending <code>vcfHeader</code>
+	 */
+	private void addThresholdFilterStages(VariantContextPipeline.Builder pipeline, VCFHeader vcfHeader,
+			ReferenceBlockBypass bypass, FrequencyPruner pruner) throws JannovarException {
+		final ThresholdFilterOptions thresholdFilterOptions = options.getThresholdFilterOptions();
+		new ThresholdFilterHeaderExtender(thresholdFilterOptions).addHeaders(vcfHeader);
+
+		// Build list of affecteds; take from pedigree file if given. Otherwise, assume one single individual is always
+		// affected and otherwise warn about missing pedigree.
+		final List<String> affecteds = new ArrayList<>();
+		if (options.getPathPedFile() == null) {
+			if (vcfHeader.getNGenotypeSamples() == 1)
+				LOGGER.info("No pedigree file given and single individual. Assuming it is affected for the threshold "
+						+ "filter");
+			else
+				LOGGER.warn("No pedigree file given. Threshold filter will not annotate FILTER field, only genotype "
+						+ "FT");
+		} else {
+			for (Person person : loadPedigree(vcfHeader).getMembers())
+				if (person.isAffected())
+					affecteds.add(person.getName());
+			if (affecteds.isEmpty())
+				LOGGER.warn("No affected individual in pedigree. Threshold filter will not modify FILTER field, only "
+						+ "genotype FT");
+		}
+
+		pipeline.addStage("genotype threshold filter", () -> guard(bypass, pruner, "genotype threshold filter",
+				new GenotypeThresholdFilterAnnotator(thresholdFilterOptions, vcfHeader,
+						options.getThreshFiltSampleCallers())::annotateVariantContext));
+
+		// Pedigree filters must come after the genotype threshold filter
+		if (options.isUseAdvancedPedigreeFilters()) {
+			new PedigreeFilterHeaderExtender(options.getPedigreeFilterOptions()).addHeaders(vcfHeader);
+			final Pedigree pedigree = loadPedigree(vcfHeader);
+			pipeline.addStage("pedigree filter", () -> guard(bypass, pruner, "pedigree filter",
+					new PedigreeFilterAnnotator(options.getPedigreeFilterOptions(), pedigree)::annotateVariantContext));
+		}
+
+		pipeline.addStage("variant threshold filter", () -> guard(bypass, pruner, "variant threshold filter",
+				new VariantThresholdFilterAnnotator(thresholdFilterOptions, affecteds)::annotateVariantContext));
+	}
+
+	/**
+	 * Build the step for annotating with variant effects, against each database into its own INFO field
+	 *
+	 * @return the step, using a {@link MultiDatabaseVariantContextAnnotator} for more than one database
+	 */
+	private Function<VariantContext, VariantContext> buildVariantEffectAnnotator() {
+		List<VariantContextAnnotator> annotators = new ArrayList<>();
+		for (int i = 0; i < databases.size(); ++i) {
+			final JannovarData data = databases.get(i);
+			annotators.add(new VariantContextAnnotator(data.getRefDict(), data.getChromosomes(),
+					new VariantContextAnnotator.Options(!options.isShowAll(), options.getAminoAcidCode(),
+							options.isEscapeAnnField(), options.isNt3PrimeShifting(),
+							options.isOffTargetFilterEnabled(), options.isOffTargetFilterUtrIsOffTarget(),
+							options.isOffTargetFilterIntronicSpliceIsOffTarget(),
+							options.getDatabaseInfoFields().get(i), options.isGvcf())));
+		}
+		if (annotators.size() == 1)
+			return annotators.get(0)::annotateVariantContext;
+		else
+			return new MultiDatabaseVariantContextAnnotator(annotators,
+					options.getDatabaseThreads())::annotateVariantContext;
+	}
+
+	/**
+	 * Construct {@link BedFileAnnotator}, using an in-memory index for files up to the configured size and tabix
+	 * queries for larger ones
+	 *
+	 * @param bedAnnotationOptions
+	 *            configuration of the BED annotation
+	 * @return the {@link BedFileAnnotator} to use
+	 * @throws JannovarException
+	 *             on problems loading the BED file
+	 */
+	private BedFileAnnotator buildBedFileAnnotator(BedAnnotationOptions bedAnnotationOptions)
+			throws JannovarException {
+		final File bedFile = new File(bedAnnotationOptions.getPathBed());
+		if (bedFile.length() > options.getBedAnnotationMaxInMemorySize())
+			return new BedFileAnnotator(bedAnnotationOptions);
+
+		final BedFeatureIndex index;
+		synchronized (bedFeatureIndices) {
+			if (!bedFeatureIndices.containsKey(bedFile.getPath())) {
+				try {
+					bedFeatureIndices.put(bedFile.getPath(), BedFeatureIndex.load(bedFile));
+				} catch (IOException e) {
+					throw new JannovarException("Problem loading BED file " + bedFile, e);
+				}
+				LOGGER.info("Loaded {} features from {} into memory", bedFeatureIndices.get(bedFile.getPath()).size(),
+						bedFile);
+			}
+			index = bedFeatureIndices.get(bedFile.getPath());
+		}
+		return new BedFileAnnotator(bedAnnotationOptions, index);
+	}
+
+	/**
+	 * Load pedigree from the configured file or construct singleton pedigree
+	 *
+	 * @param vcfHeader
+	 *            {@link VCFHeader}, for getting the sample name in case of singleton pedigree construction
+	 * @return the {@link Pedigree}
+	 * @throws JannovarException
+	 *             on problems reading or parsing the pedigree file, or if a singleton pedigree is to be built but the
+	 *             VCF file does not have exactly one sample ({@link IncompatiblePedigreeException})
+	 */
+	public Pedigree loadPedigree(VCFHeader vcfHeader) throws JannovarException {
+		if (options.getPathPedFile() != null) {
+			final PedFileContents pedContents;
+			try {
+				pedContents = new PedFileReader(new File(options.getPathPedFile())).read();
+			} catch (IOException e) {
+				throw new JannovarException("Problem loading pedigree from " + options.getPathPedFile(), e);
+			}
+			return new Pedigree(pedContents, pedContents.getIndividuals().get(0).getPedigree());
+		} else {
+			if (vcfHeader.getSampleNamesInOrder().size() != 1)
+				throw new IncompatiblePedigreeException(
+						"VCF file does not have exactly one sample but required for singleton pedigree construction");
+			final String sampleName = vcfHeader.getSampleNamesInOrder().get(0);
+			final PedPerson pedPerson = new PedPerson(sampleName, sampleName, "0", "0", Sex.UNKNOWN,
+					Disease.AFFECTED);
+			final PedFileContents pedContents = new PedFileContents(ImmutableList.of(), ImmutableList.of(pedPerson));
+			return new Pedigree(pedContents, pedContents.getIndividuals().get(0).getPedigree());
+		}
+	}
+
+	/**
+	 * Build the {@link VariantContextProcessor} for the output of a pipeline built by {@link #build}
+	 *
+	 * With inheritance annotation configured, this is a {@link GeneWiseMendelianAnnotationProcessor} using the first
+	 * transcript database, which requires coordinate-sorted input. Otherwise, the records are passed to
+	 * <code>sink</code> directly.
+	 *
+	 * @param vcfHeader
+	 *            {@link VCFHeader}, for checking compatibility with the pedigree
+	 * @param sink
+	 *            receives the annotated records
+	 * @return the {@link VariantContextProcessor} to put the output of the pipeline into, to be closed after use
+	 * @throws JannovarException
+	 *             on problems loading the pedigree, {@link IncompatiblePedigreeException} if it does not fit the VCF
+	 *             file
+	 */
+	public VariantContextProcessor buildMendelianProcessor(VCFHeader vcfHeader, Consumer<VariantContext> sink)
+			throws JannovarException {
+		if (!options.isInheritanceAnnotationEnabled())
+			return new ConsumerProcessor(sink);
+
+		final Pedigree pedigree = loadPedigree(vcfHeader);
+		final List<String> missing = vcfHeader.getGenotypeSamples().stream()
+				.filter(x -> !pedigree.getNames().contains(x)).collect(Collectors.toList());
+		if (!missing.isEmpty())
+			throw new IncompatiblePedigreeException(
+					"The VCF file has the following sample names not present in Pedigree: "
+							+ Joiner.on(", ").join(missing));
+
+		return new CoordinateSortingChecker(new GeneWiseMendelianAnnotationProcessor(pedigree, databases.get(0),
+				getGeneList(), sink, options.isInheritanceAnnoUseFilters(), options.getInheritanceAnnoThreads(),
+				options.isGvcf() ? ReferenceBlockBypass::isReferenceBlock : vc -> false));
+	}
+
+}
@@ -0,0 +1,491 @@
+package de.charite.compbio.jannovar.vardbs.facade;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableList;
+
+import de.charite.compbio.jannovar.filter.facade.FrequencyPruner;
+import de.charite.compbio.jannovar.filter.facade.PedigreeFilterOptions;
+import de.charite.compbio.jannovar.filter.facade.ThresholdFilterOptions;
+import de.charite.compbio.jannovar.filter.impl.gt.SupportedVarCaller;
+import de.charite.compbio.jannovar.hgvs.AminoAcidCode;
+import de.charite.compbio.jannovar.htsjdk.VariantEffectHeaderExtender;
+import de.charite.compbio.jannovar.vardbs.bed.BedAnnotationOptions;
+import de.charite.compbio.jannovar.vardbs.generic_tsv.GenericTSVAnnotationOptions;
+import de.charite.compbio.jannovar.vardbs.generic_vcf.GenericVCFAnnotationOptions;
+
+/**
+ * Configuration of the annotation and filtration steps built by {@link AnnotationPipelineBuilder}.
+ *
+ * The defaults are the same as for the <tt>annotate-vcf</tt> command: only the variant effect annotation against the
+ * databases is enabled, each further step is enabled by setting the path to its file or its flag.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public class AnnotationPipelineOptions {
+
+	/** Number of worker threads for the annotation and filtration steps, <code>0</code> for the calling thread */
+	private int annotationThreads = 0;
+	/** Whether the input is a gVCF file, reference blocks are then passed through without annotation */
+	private boolean gvcf = false;
+	/** Path to FAI-indexed reference FASTA file, required for the annotation from variant databases */
+	private String pathFASTARef = null;
+
+	/** Path to dbSNP VCF file, <code>null</code> for no dbSNP annotation */
+	private String pathVCFDBSNP = null;
+	/** Prefix for dbSNP annotations */
+	private String prefixDBSNP = "DBSNP_";
+	/** Path to ExAC VCF file, <code>null</code> for no ExAC annotation */
+	private String pathVCFExac = null;
+	/** Prefix for ExAC annotations */
+	private String prefixExac = "EXAC_";
+	/** Path to gnomAD exomes VCF file, <code>null</code> for no gnomAD exomes annotation */
+	private String pathVCFGnomadExomes = null;
+	/** Prefix for gnomAD exomes annotations */
+	private String prefixGnomadExomes = "GNOMAD_EXOMES_";
+	/** Path to gnomAD genomes VCF file, <code>null</code> for no gnomAD genomes annotation */
+	private String pathVCFGnomadGenomes = null;
+	/** Prefix for gnomAD genomes annotations */
+	private String prefixGnomadGenomes = "GNOMAD_GENOMES_";
+	/** Path to UK10K VCF file, <code>null</code> for no UK10K annotation */
+	private String pathVCFUK10K = null;
+	/** Prefix for UK10K annotations */
+	private String prefixUK10K = "UK10K_";
+	/** Path to ClinVar VCF file, <code>null</code> for no ClinVar annotation */
+	private String pathClinVar = null;
+	/** Prefix for ClinVar annotations */
+	private String prefixClinVar = "CLINVAR_";
+	/** Path to COSMIC VCF file, <code>null</code> for no COSMIC annotation */
+	private String pathCosmic = null;
+	/** Prefix for COSMIC annotations */
+	private String prefixCosmic = "COSMIC_";
+
+	/** What to do with common variants after the frequency lookups, <code>null</code> for no pruning */
+	private FrequencyPruner.Mode frequencyPruneMode = null;
+	/** Thresholds for the frequency pruning and the threshold filters */
+	private ThresholdFilterOptions thresholdFilterOptions = ThresholdFilterOptions.buildDefaultOptions();
+	/** Whether or not to use the threshold filters */
+	private boolean useThresholdFilters = false;
+	/** Per-sample override of the variant caller guessed from the VCF header, for the threshold filters */
+	private Map<String, SupportedVarCaller> threshFiltSampleCallers = new LinkedHashMap<>();
+	/** Whether or not to use the pedigree filters, requires the threshold filters */
+	private boolean useAdvancedPedigreeFilters = false;
+	/** Configuration of the pedigree filters */
+	private PedigreeFilterOptions pedigreeFilterOptions = PedigreeFilterOptions.buildDefaultOptions();
+
+	/** Names of the INFO fields for the variant effects, one for each database */
+	private List<String> databaseInfoFields = ImmutableList.of(VariantEffectHeaderExtender.INFO_ANN);
+	/** Number of threads for annotating against several databases concurrently, <code>0</code> to disable */
+	private int databaseThreads = 0;
+	/** Whether or not to write all annotations instead of the most pathogenic one */
+	private boolean showAll = false;
+	/** Amino acid code to use in the protein changes */
+	private AminoAcidCode aminoAcidCode = AminoAcidCode.ONE_LETTER;
+	/** Whether or not to escape the values of the ANN field */
+	private boolean escapeAnnField = true;
+	/** Whether or not to shift variants towards the 3' end of transcripts */
+	private boolean nt3PrimeShifting = true;
+	/** Whether or not to flag off-target variants */
+	private boolean offTargetFilterEnabled = false;
+	/** Whether or not to count UTR variants as off-target */
+	private boolean offTargetFilterUtrIsOffTarget = false;
+	/** Whether or not to count intronic splice region (non-consensus) variants as off-target */
+	private boolean offTargetFilterIntronicSpliceIsOffTarget = false;
+
+	/** Configuration of the annotation with BED files */
+	private List<BedAnnotationOptions> bedAnnotationOptions = new ArrayList<>();
+	/** BED files up to this size in bytes are loaded into memory instead of using tabix queries */
+	private long bedAnnotationMaxInMemorySize = 64L * 1024 * 1024;
+	/** Path to dbNSFP TSV file, <code>null</code> for no dbNSFP annotation */
+	private String pathDbNsfp = null;
+	/** Columns of dbNSFP to annotate with */
+	private List<String> columnsDbNsfp = new ArrayList<>();
+	/** Prefix for dbNSFP annotations */
+	private String prefixDbNsfp = "DBNSFP_";
+	/** Column of the contig name in dbNSFP */
+	private int dbNsfpColContig = 1;
+	/** Column of the position in dbNSFP */
+	private int dbNsfpColPosition = 2;
+	/** Configuration of the annotation with generic TSV files */
+	private List<GenericTSVAnnotationOptions> tsvAnnotationOptions = new ArrayList<>();
+	/** Configuration of the annotation with generic VCF files */
+	private List<GenericVCFAnnotationOptions> vcfAnnotationOptions = new ArrayList<>();
+
+	/** Path to pedigree file for the inheritance annotation, <code>null</code> for none */
+	private String pathPedFile = null;
+	/** Whether or not to annotate the single sample as an affected singleton pedigree */
+	private boolean annotateAsSingletonPedigree = false;
+	/** Whether or not to interpret the filters in the inheritance annotation */
+	private boolean inheritanceAnnoUseFilters = false;
+	/** Number of threads for checking genes in the inheritance annotation */
+	private int inheritanceAnnoThreads = 1;
+
+	/** @return whether the inheritance annotation is enabled */
+	public boolean isInheritanceAnnotationEnabled() {
+		return pathPedFile != null || annotateAsSingletonPedigree;
+	}
+
+	public int getAnnotationThreads() {
+		return annotationThreads;
+	}
+
+	public void setAnnotationThreads(int annotationThreads) {
+		this.annotationThreads = annotationThreads;
+	}
+
+	public boolean isGvcf() {
+		return gvcf;
+	}
+
+	public void setGvcf(boolean gvcf) {
+		this.gvcf = gvcf;
+	}
+
+	public String getPathFASTARef() {
+		return pathFASTARef;
+	}
+
+	public void setPathFASTARef(String pathFASTARef) {
+		this.pathFASTARef = pathFASTARef;
+	}
+
+	public String getPathVCFDBSNP() {
+		return pathVCFDBSNP;
+	}
+
+	public void setPathVCFDBSNP(String pathVCFDBSNP) {
+		this.pathVCFDBSNP = pathVCFDBSNP;
+	}
+
+	public String getPrefixDBSNP() {
+		return prefixDBSNP;
+	}
+
+	public void setPrefixDBSNP(String prefixDBSNP) {
+		this.prefixDBSNP = prefixDBSNP;
+	}
+
+	public String getPathVCFExac() {
+		return pathVCFExac;
+	}
+
+	public void setPathVCFExac(String pathVCFExac) {
+		this.pathVCFExac = pathVCFExac;
+	}
+
+	public String getPrefixExac() {
+		return prefixExac;
+	}
+
+	public void setPrefixExac(String prefixExac) {
+		this.prefixExac = prefixExac;
+	}
+
+	public String getPathVCFGnomadExomes() {
+		return pathVCFGnomadExomes;
+	}
+
+	public void setPathVCFGnomadExomes(String pathVCFGnomadExomes) {
+		this.pathVCFGnomadExomes = pathVCFGnomadExomes;
+	}
+
+	public String getPrefixGnomadExomes() {
+		return prefixGnomadExomes;
+	}
+
+	public void setPrefixGnomadExomes(String prefixGnomadExomes) {
+		this.prefixGnomadExomes = prefixGnomadExomes;
+	}
+
+	public String getPathVCFGnomadGenomes() {
+		return pathVCFGnomadGenomes;
+	}
+
+	public void setPathVCFGnomadGenomes(String pathVCFGnomadGenomes) {
+		this.pathVCFGnomadGenomes = pathVCFGnomadGenomes;
+	}
+
+	public String getPrefixGnomadGenomes() {
+		return prefixGnomadGenomes;
+	}
+
+	public void setPrefixGnomadGenomes(String prefixGnomadGenomes) {
+		this.prefixGnomadGenomes = prefixGnomadGenomes;
+	}
+
+	public String getPathVCFUK10K() {
+		return pathVCFUK10K;
+	}
+
+	public void setPathVCFUK10K(String pathVCFUK10K) {
+		this.pathVCFUK10K = pathVCFUK10K;
+	}
+
+	public String getPrefixUK10K() {
+		return prefixUK10K;
+	}
+
+	public void setPrefixUK10K(String prefixUK10K) {
+		this.prefixUK10K = prefixUK10K;
+	}
+
+	public String getPathClinVar() {
+		return pathClinVar;
+	}
+
+	public void setPathClinVar(String pathClinVar) {
+		this.pathClinVar = pathClinVar;
+	}
+
+	public String getPrefixClinVar() {
+		return prefixClinVar;
+	}
+
+	public void setPrefixClinVar(String prefixClinVar) {
+		this.prefixClinVar = prefixClinVar;
+	}
+
+	public String getPathCosmic() {
+		return pathCosmic;
+	}
+
+	public void setPathCosmic(String pathCosmic) {
+		this.pathCosmic = pathCosmic;
+	}
+
+	public String getPrefixCosmic() {
+		return prefixCosmic;
+	}
+
+	public void setPrefixCosmic(String prefixCosmic) {
+		this.prefixCosmic = prefixCosmic;
+	}
+
+	public FrequencyPruner.Mode getFrequencyPruneMode() {
+		return frequencyPruneMode;
+	}
+
+	public void setFrequencyPruneMode(FrequencyPruner.Mode frequencyPruneMode) {
+		this.frequencyPruneMode = frequencyPruneMode;
+	}
+
+	public ThresholdFilterOptions getThresholdFilterOptions() {
+		return thresholdFilterOptions;
+	}
+
+	public void setThresholdFilterOptions(ThresholdFilterOptions thresholdFilterOptions) {
+		this.thresholdFilterOptions = thresholdFilterOptions;
+	}
+
+	public boolean isUseThresholdFilters() {
+		return useThresholdFilters;
+	}
+
+	public void setUseThresholdFilters(boolean useThresholdFilters) {
+		this.useThresholdFilters = useThresholdFilters;
+	}
+
+	public Map<String, SupportedVarCaller> getThreshFiltSampleCallers() {
+		return threshFiltSampleCallers;
+	}
+
+	public void setThreshFiltSampleCallers(Map<String, SupportedVarCaller> threshFiltSampleCallers) {
+		this.threshFiltSampleCallers = threshFiltSampleCallers;
+	}
+
+	public boolean isUseAdvancedPedigreeFilters() {
+		return useAdvancedPedigreeFilters;
+	}
+
+	public void setUseAdvancedPedigreeFilters(boolean useAdvancedPedigreeFilters) {
+		this.useAdvancedPedigreeFilters = useAdvancedPedigreeFilters;
+	}
+
+	public PedigreeFilterOptions getPedigreeFilterOptions() {
+		return pedigreeFilterOptions;
+	}
+
+	public void setPedigreeFilterOptions(PedigreeFilterOptions pedigreeFilterOptions) {
+		this.pedigreeFilterOptions = pedigreeFilterOptions;
+	}
+
+	public List<String> getDatabaseInfoFields() {
+		return databaseInfoFields;
+	}
+
+	public void setDatabaseInfoFields(List<String> databaseInfoFields) {
+		this.databaseInfoFields = databaseInfoFields;
+	}
+
+	public int getDatabaseThreads() {
+		return databaseThreads;
+	}
+
+	public void setDatabaseThreads(int databaseThreads) {
+		this.databaseThreads = databaseThreads;
+	}
+
+	public boolean isShowAll() {
+		return showAll;
+	}
+
+	public void setShowAll(boolean showAll) {
+		this.showAll = showAll;
+	}
+
+	public AminoAcidCode getAminoAcidCode() {
+		return aminoAcidCode;
+	}
+
+	public void setAminoAcidCode(AminoAcidCode aminoAcidCode) {
+		this.aminoAcidCode = aminoAcidCode;
+	}
+
+	public boolean isEscapeAnnField() {
+		return escapeAnnField;
+	}
+
+	public void setEscapeAnnField(boolean escapeAnnField) {
+		this.escapeAnnField = escapeAnnField;
+	}
+
+	public boolean isNt3PrimeShifting() {
+		return nt3PrimeShifting;
+	}
+
+	public void setNt3PrimeShifting(boolean nt3PrimeShifting) {
+		this.nt3PrimeShifting = nt3PrimeShifting;
+	}
+
+	public boolean isOffTargetFilterEnabled() {
+		return offTargetFilterEnabled;
+	}
+
+	public void setOffTargetFilterEnabled(boolean offTargetFilterEnabled) {
+		this.offTargetFilterEnabled = offTargetFilterEnabled;
+	}
+
+	public boolean isOffTargetFilterUtrIsOffTarget() {
+		return offTargetFilterUtrIsOffTarget;
+	}
+
+	public void setOffTargetFilterUtrIsOffTarget(boolean offTargetFilterUtrIsOffTarget) {
+		this.offTargetFilterUtrIsOffTarget = offTargetFilterUtrIsOffTarget;
+	}
+
+	public boolean isOffTargetFilterIntronicSpliceIsOffTarget() {
+		return offTargetFilterIntronicSpliceIsOffTarget;
+	}
+
+	public void setOffTargetFilterIntronicSpliceIsOffTarget(boolean offTargetFilterIntronicSpliceIsOffTarget) {
+		this.offTargetFilterIntronicSpliceIsOffTarget = offTargetFilterIntronicSpliceIsOffTarget;
+	}
+
+	public List<BedAnnotationOptions> getBedAnnotationOptions() {
+		return bedAnnotationOptions;
+	}
+
+	public void setBedAnnotationOptions(List<BedAnnotationOptions> bedAnnotationOptions) {
+		this.bedAnnotationOptions = bedAnnotationOptions;
+	}
+
+	public long getBedAnnotationMaxInMemorySize() {
+		return bedAnnotationMaxInMemorySize;
+	}
+
+	public void setBedAnnotationMaxInMemorySize(long bedAnnotationMaxInMemorySize) {
+		this.bedAnnotationMaxInMemorySize = bedAnnotationMaxInMemorySize;
+	}
+
+	public String getPathDbNsfp() {
+		return pathDbNsfp;
+	}
+
+	public void setPathDbNsfp(String pathDbNsfp) {
+		this.pathDbNsfp = pathDbNsfp;
+	}
+
+	public List<String> getColumnsDbNsfp() {
+		return columnsDbNsfp;
+	}
+
+	public void setColumnsDbNsfp(List<String> columnsDbNsfp) {
+		this.columnsDbNsfp = columnsDbNsfp;
+	}
+
+	public String getPrefixDbNsfp() {
+		return prefixDbNsfp;
+	}
+
+	public void setPrefixDbNsfp(String prefixDbNsfp) {
+		this.prefixDbNsfp = prefixDbNsfp;
+	}
+
+	public int getDbNsfpColContig() {
+		return dbNsfpColContig;
+	}
+
+	public void setDbNsfpColContig(int dbNsfpColContig) {
+		this.dbNsfpColContig = dbNsfpColContig;
+	}
+
+	public int getDbNsfpColPosition() {
+		return dbNsfpColPosition;
+	}
+
+	public void setDbNsfpColPosition(int dbNsfpColPosition) {
+		this.dbNsfpColPosition = dbNsfpColPosition;
+	}
+
+	public List<GenericTSVAnnotationOptions> getTsvAnnotationOptions() {
+		return tsvAnnotationOptions;
+	}
+
+	public void setTsvAnnotationOptions(List<GenericTSVAnnotationOptions> tsvAnnotationOptions) {
+		this.tsvAnnotationOptions = tsvAnnotationOptions;
+	}
+
+	public List<GenericVCFAnnotationOptions> getVcfAnnotationOptions() {
+		return vcfAnnotationOptions;
+	}
+
+	public void setVcfAnnotationOptions(List<GenericVCFAnnotationOptions> vcfAnnotationOptions) {
+		this.vcfAnnotationOptions = vcfAnnotationOptions;
+	}
+
+	public String getPathPedFile() {
+		return pathPedFile;
+	}
+
+	public void setPathPedFile(String pathPedFile) {
+		this.pathPedFile = pathPedFile;
+	}
+
+	public boolean isAnnotateAsSingletonPedigree() {
+		return annotateAsSingletonPedigree;
+	}
+
+	public void setAnnotateAsSingletonPedigree(boolean annotateAsSingletonPedigree) {
+		this.annotateAsSingletonPedigree = annotateAsSingletonPedigree;
+	}
+
+	public boolean isInheritanceAnnoUseFilters() {
+		return inheritanceAnnoUseFilters;
+	}
+
+	public void setInheritanceAnnoUseFilters(boolean inheritanceAnnoUseFilters) {
+		this.inheritanceAnnoUseFilters = inheritanceAnnoUseFilters;
+	}
+
+	public int getInheritanceAnnoThreads() {
+		return inheritanceAnnoThreads;
+	}
+
+	public void setInheritanceAnnoThreads(int inheritanceAnnoThreads) {
+		this.inheritanceAnnoThreads = inheritanceAnnoThreads;
+	}
+
+}
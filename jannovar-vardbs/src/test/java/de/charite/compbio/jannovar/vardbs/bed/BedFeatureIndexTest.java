@@ -0,0 +1,71 @@
+package de.charite.compbio.jannovar.vardbs.bed;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+
+/**
+ * Tests for {@link BedFeatureIndex}
+ */
+public class BedFeatureIndexTest {
+
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	BedFeatureIndex index;
+
+	@Before
+	public void setUp() throws IOException {
+		final File bedFile = tmpFolder.newFile("regions.bed");
+		Files.asCharSink(bedFile, Charsets.UTF_8).write("1\t100\t200\ta\n" + "1\t150\t160\tb\n"
+				+ "1\t500\t600\tc\n" + "2\t10\t20\td\n" + "1\t120\t130\te\n");
+		index = BedFeatureIndex.load(bedFile);
+	}
+
+	private static List<String> query(BedFeatureIndex.Cursor cursor, String contig, int start, int end,
+			boolean firstOnly) {
+		final List<String> result = new ArrayList<>();
+		cursor.collectOverlapping(contig, start, end, firstOnly, result);
+		return result;
+	}
+
+	@Test
+	public void testSortedQueries() {
+		final BedFeatureIndex.Cursor cursor = index.cursor();
+		Assert.assertEquals(5, index.size());
+		Assert.assertEquals(ImmutableList.of("a"), query(cursor, "1", 101, 101, false));
+		Assert.assertEquals(ImmutableList.of("a", "e", "b"), query(cursor, "1", 125, 155, false));
+		Assert.assertEquals(ImmutableList.of("a"), query(cursor, "1", 170, 170, false));
+		Assert.assertEquals(ImmutableList.of(), query(cursor, "1", 300, 300, false));
+		Assert.assertEquals(ImmutableList.of("c"), query(cursor, "1", 600, 700, false));
+		Assert.assertEquals(ImmutableList.of("d"), query(cursor, "2", 11, 11, false));
+		Assert.assertEquals(ImmutableList.of(), query(cursor, "3", 11, 11, false));
+	}
+
+	@Test
+	public void testUnsortedQueries() {
+		final BedFeatureIndex.Cursor cursor = index.cursor();
+		Assert.assertEquals(ImmutableList.of("c"), query(cursor, "1", 550, 550, false));
+		Assert.assertEquals(ImmutableList.of("d"), query(cursor, "2", 15, 15, false));
+		Assert.assertEquals(ImmutableList.of("a", "b"), query(cursor, "1", 155, 155, false));
+		Assert.assertEquals(ImmutableList.of(), query(cursor, "1", 100, 100, false));
+	}
+
+	@Test
+	public void testFirstOnly() {
+		final BedFeatureIndex.Cursor cursor = index.cursor();
+		Assert.assertEquals(ImmutableList.of("a"), query(cursor, "1", 125, 155, true));
+	}
+
+}
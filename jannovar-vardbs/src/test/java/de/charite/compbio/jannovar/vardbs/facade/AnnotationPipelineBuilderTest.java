@@ -0,0 +1,108 @@
+package de.charite.compbio.jannovar.vardbs.facade;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+
+import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.htsjdk.VariantContextPipeline;
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.HG19RefDictBuilder;
+import de.charite.compbio.jannovar.reference.PositionType;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.reference.TranscriptModelBuilder;
+import de.charite.compbio.jannovar.utils.ResourceUtils;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFFileReader;
+import htsjdk.variant.vcf.VCFHeader;
+
+/**
+ * Tests for {@link AnnotationPipelineBuilder}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
+ */
+public class AnnotationPipelineBuilderTest {
+
+	AnnotationPipelineOptions options;
+	JannovarData jannovarData;
+	String testVCFPath;
+
+	@Before
+	public void setUp() throws Exception {
+		File tmpDir = Files.createTempDir();
+		String pathDBVCF = tmpDir + "/dbsnp.vcf.gz";
+		ResourceUtils.copyResourceToFile("/dbSNP147.head.vcf.gz", new File(pathDBVCF));
+		ResourceUtils.copyResourceToFile("/dbSNP147.head.vcf.gz.tbi", new File(tmpDir + "/dbsnp.vcf.gz.tbi"));
+		String pathRefFASTA = tmpDir + "/chr1.fasta";
+		ResourceUtils.copyResourceToFile("/chr1.fasta", new File(pathRefFASTA));
+		ResourceUtils.copyResourceToFile("/chr1.fasta.fai", new File(tmpDir + "/chr1.fasta.fai"));
+
+		options = new AnnotationPipelineOptions();
+		options.setPathFASTARef(pathRefFASTA);
+		options.setPathVCFDBSNP(pathDBVCF);
+
+		// Database with one non-coding transcript on chr1, the test variant is upstream of it
+		final ReferenceDictionary refDict = HG19RefDictBuilder.build();
+		final GenomeInterval txRegion = new GenomeInterval(refDict, Strand.FWD, 1, 11999, 12999,
+				PositionType.ZERO_BASED);
+		TranscriptModelBuilder tmBuilder = new TranscriptModelBuilder();
+		tmBuilder.setAccession("NR_000001.1");
+		tmBuilder.setGeneSymbol("TEST");
+		tmBuilder.setGeneID("TEST");
+		tmBuilder.setStrand(Strand.FWD);
+		tmBuilder.setTXRegion(txRegion);
+		tmBuilder.setCDSRegion(new GenomeInterval(txRegion.getGenomeEndPos(), 0));
+		tmBuilder.addExonRegion(txRegion);
+		tmBuilder.setSequence(Strings.repeat("a", txRegion.length()));
+		jannovarData = new JannovarData(refDict, ImmutableList.of(tmBuilder.build()));
+
+		testVCFPath = tmpDir + "/test_var_in_dbsnp.vcf";
+		PrintWriter writer = new PrintWriter(testVCFPath);
+		writer.write("##fileformat=VCFv4.0\n");
+		writer.write("#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\tindividual\n");
+		writer.write("1\t11022\t.\tG\tA\t.\t.\t.\tGT\t0/1\n");
+		writer.close();
+	}
+
+	@Test
+	public void testBuild() throws JannovarException {
+		AnnotationPipelineBuilder builder = new AnnotationPipelineBuilder(options, ImmutableList.of(jannovarData));
+
+		try (VCFFileReader reader = new VCFFileReader(new File(testVCFPath), false)) {
+			VCFHeader vcfHeader = new VCFHeader(reader.getFileHeader());
+			final List<VariantContext> result;
+			try (VariantContextPipeline pipeline = builder.build(vcfHeader)) {
+				Assert.assertEquals(ImmutableList.of("dbSNP", "variant effects"), pipeline.getStageNames());
+				result = pipeline.stream(reader.iterator().stream()).collect(Collectors.toList());
+			}
+
+			Assert.assertTrue(vcfHeader.hasInfoLine("DBSNP_IDS"));
+			Assert.assertTrue(vcfHeader.hasInfoLine("ANN"));
+			Assert.assertEquals(1, result.size());
+			Assert.assertEquals(Arrays.asList("rs28775022"),
+					result.get(0).getAttributeAsStringList("DBSNP_IDS", null));
+			Assert.assertTrue(result.get(0).getAttributeAsString("ANN", null).contains("upstream_gene_variant"));
+		}
+		Assert.assertTrue(builder.getFrequencyPruners().isEmpty());
+		Assert.assertTrue(builder.getReferenceBlockBypasses().isEmpty());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDatabaseForEachInfoField() {
+		options.setDatabaseInfoFields(ImmutableList.of("ANN", "ANN_ENSEMBL"));
+		new AnnotationPipelineBuilder(options, ImmutableList.of(jannovarData));
+	}
+
+}